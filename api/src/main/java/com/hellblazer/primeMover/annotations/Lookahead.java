@@ -0,0 +1,55 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * Declares the lookahead of a simulation entity: the minimum delay between the
+ * time of any of the entity's events and the time of any event it posts to an
+ * entity in another partition of a parallel simulation. Conservative parallel
+ * controllers evaluate the events of a partition up to the smallest lookahead
+ * ahead of the earliest pending event, so larger lookaheads give more
+ * parallelism.
+ *
+ * <pre>{@code
+ * @Entity
+ * @Lookahead(10)
+ * public class Link {
+ *     public void transmit(Packet packet) {
+ *         Kronos.sleep(10); // the propagation delay
+ *         receiver.receive(packet);
+ *     }
+ * }
+ * }</pre>
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ *
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Inherited
+public @interface Lookahead {
+    /**
+     * The minimum delay, in simulation time units, of the events the entity
+     * posts to other partitions
+     *
+     * @return the non-negative lookahead
+     */
+    long value();
+}
@@ -0,0 +1,45 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * Declares that the entity owns the mutable state referenced by the field - an
+ * array, a collection, a {@link java.util.Random} - which no other entity
+ * references. Optimistic parallel controllers save a copy of owned state with
+ * the entity's fields before each event, and restore it on rollback; the
+ * state referenced by fields that are not owned is saved by reference only.
+ * Entities referenced from owned state are shared, not copied.
+ *
+ * <pre>{@code
+ * @Entity
+ * public class Router {
+ *     @Owned
+ *     private final Map<Address, Link> routes = new HashMap<>();
+ *     private final Router[]           peers;
+ * }
+ * }</pre>
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ *
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Owned {
+}
@@ -25,6 +25,11 @@
  *   <dd>Explicitly excludes a method from event transformation. The method will execute
  *       synchronously in the caller's context rather than being scheduled as an event. Useful
  *       for utility methods, getters, and setters.</dd>
+ *
+ *   <dt>{@link com.hellblazer.primeMover.annotations.Lookahead @Lookahead}</dt>
+ *   <dd>Declares the minimum delay of the events an entity posts to entities in other
+ *       partitions, bounding how far ahead a conservative parallel controller may safely
+ *       evaluate events. Not used by the transformation.</dd>
  * </dl>
  *
  * <h2>Transformation Behavior</h2>
@@ -204,6 +204,42 @@ public interface Controller {
      */
     void postEvent(long time, EntityReference entity, int event, Object... arguments);
 
+    /**
+     * Posts an event to be evaluated at the current simulation time, returning a handle that can
+     * cancel the event before it is processed.
+     *
+     * @param entity the target entity for the event (must not be null)
+     * @param event the event ordinal identifying which method to invoke
+     * @param arguments the arguments to pass to the event method
+     * @return the handle of the scheduled event
+     * @throws UnsupportedOperationException if the controller does not support cancellation
+     * @see #postCancellableEvent(long, EntityReference, int, Object...)
+     */
+    default EventHandle postCancellableEvent(EntityReference entity, int event, Object... arguments) {
+        return postCancellableEvent(getCurrentTime(), entity, event, arguments);
+    }
+
+    /**
+     * Posts an event to be evaluated at the specified absolute simulation time, returning a handle
+     * that can cancel the event before it is processed. Cancelled events are skipped by the
+     * controller without invoking the target entity.
+     *
+     * <p>Intended for timeouts, preemption and rescheduling, where the event is usually retracted
+     * before it is due.
+     *
+     * @param time the absolute simulation time at which to process the event
+     * @param entity the target entity for the event (must not be null)
+     * @param event the event ordinal identifying which method to invoke
+     * @param arguments the arguments to pass to the event method
+     * @return the handle of the scheduled event
+     * @throws UnsupportedOperationException if the controller does not support cancellation
+     * @see EventHandle#cancel()
+     */
+    default EventHandle postCancellableEvent(long time, EntityReference entity, int event, Object... arguments) {
+        throw new UnsupportedOperationException(
+        "[Controller] Cancellable events are not supported by " + getClass().getName());
+    }
+
     /**
      * Sets the simulation clock to the specified absolute time. This method directly manipulates
      * the clock and is typically only used during initialization or for special simulation control
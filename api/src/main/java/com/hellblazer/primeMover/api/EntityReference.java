@@ -91,4 +91,22 @@ public interface EntityReference {
      * @return the string signature of the method, or null if the ordinal is invalid
      */
     String __signatureFor(int event);
+
+    /**
+     * Answers whether evaluating the event with the given ordinal may park the
+     * evaluating thread - that is, whether the method, directly or through the
+     * methods it calls, may make a blocking call such as
+     * {@code Kronos.blockingSleep()} or a call to a blocking event of an entity.
+     * Controllers can evaluate events that cannot park directly on the controller
+     * thread, rather than on a thread of their own.
+     *
+     * <p><b>Internal Use Only:</b> The transformer overrides this for events it
+     * can prove never park. The default is the conservative answer.
+     *
+     * @param event the ordinal of the event
+     * @return false only if the event is known never to park
+     */
+    default boolean __mayBlock(int event) {
+        return true;
+    }
 }
@@ -0,0 +1,62 @@
+/**
+ * Copyright (C) 2010 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.api;
+
+/**
+ * A handle on a scheduled event, allowing it to be retracted before it is processed. Returned by
+ * {@link Controller#postCancellableEvent(long, EntityReference, int, Object...)}.
+ *
+ * <p>Cancellation is O(1): the event is marked as cancelled (tombstoned) and stays in the event
+ * queue, where the controller skips it without invoking the target entity. Controllers compact
+ * their queue when the proportion of tombstones gets high.
+ *
+ * <p><b>Typical Use Case:</b> timeouts, where the timeout event is almost always retracted
+ * because the awaited operation completes first:
+ * <pre>{@code
+ * var timeout = controller.postCancellableEvent(controller.getCurrentTime() + 100, entityRef, TIMEOUT);
+ * // ... later, when the operation completes
+ * timeout.cancel();
+ * }</pre>
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ * @see Controller#postCancellableEvent(long, EntityReference, int, Object...)
+ */
+public interface EventHandle {
+
+    /**
+     * Cancels the event, if it has not yet been processed.
+     *
+     * @return true if the event was cancelled by this call, false if it has already been processed
+     *         or cancelled
+     */
+    boolean cancel();
+
+    /**
+     * Returns the simulation time at which the event is scheduled.
+     *
+     * @return the scheduled time of the event
+     */
+    long getTime();
+
+    /**
+     * Returns whether the event has been cancelled.
+     *
+     * @return true if the event was cancelled before it was processed
+     */
+    boolean isCancelled();
+}
@@ -46,17 +46,42 @@ public class ContinuationBenchmark {
     @Param({"100", "500", "1000"})
     private int iterations;
 
+    /**
+     * true for the reusable handoff, false for the per event future and semaphore
+     */
+    @Param({"true", "false"})
+    private boolean exclusive;
+
+    /**
+     * true to run event threads on a carrier dedicated to the controller
+     */
+    @Param({"false", "true"})
+    private boolean dedicatedCarrier;
+
+    /**
+     * 0 for a new thread per event, otherwise the partitions of entity affine workers
+     */
+    @Param({"0", "1"})
+    private int workerPartitions;
+
     private SimulationController controller;
 
     @Setup(Level.Iteration)
     public void setup() {
         controller = new SimulationController();
+        controller.setExclusiveEvaluation(exclusive);
+        controller.setDedicatedCarrier(dedicatedCarrier);
+        controller.setWorkerPartitions(workerPartitions);
         Kronos.setController(controller);
     }
 
     @TearDown(Level.Iteration)
-    public void teardown() {
+    public void teardown() throws Exception {
         Kronos.setController(null);
+        if (dedicatedCarrier || workerPartitions > 0) {
+            // Release the carrier and worker threads
+            controller.close();
+        }
         controller = null;
     }
 
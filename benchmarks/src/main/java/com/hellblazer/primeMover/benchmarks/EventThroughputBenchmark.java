@@ -43,17 +43,28 @@ public class EventThroughputBenchmark {
     @Param({"100", "1000", "10000"})
     private int batchSize;
 
+    /**
+     * 0 for a new thread per event, otherwise the partitions of entity affine workers
+     */
+    @Param({"0", "1"})
+    private int workerPartitions;
+
     private SimulationController controller;
 
     @Setup(Level.Iteration)
     public void setup() {
         controller = new SimulationController();
+        controller.setWorkerPartitions(workerPartitions);
         Kronos.setController(controller);
     }
 
     @TearDown(Level.Iteration)
-    public void teardown() {
+    public void teardown() throws Exception {
         Kronos.setController(null);
+        if (workerPartitions > 0) {
+            // Release the worker threads
+            controller.close();
+        }
         controller = null;
     }
 
@@ -0,0 +1,152 @@
+/**
+ * Copyright (C) 2025 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.benchmarks;
+
+import com.hellblazer.primeMover.annotations.Entity;
+import com.hellblazer.primeMover.annotations.Lookahead;
+import com.hellblazer.primeMover.api.Kronos;
+import com.hellblazer.primeMover.controllers.ConservativeController;
+import com.hellblazer.primeMover.controllers.SimulationController;
+import com.hellblazer.primeMover.controllers.TimeWarpController;
+import com.hellblazer.primeMover.runtime.Devi;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.hellblazer.primeMover.api.Kronos.sleep;
+
+/**
+ * PHOLD benchmark of parallel simulation: a population of nodes exchanging a fixed number of tokens. Each node
+ * forwards each token it receives after a pseudo random delay, to a pseudo random node - one in another partition
+ * with probability {@code remote}. Compares the sequential {@link SimulationController} against the optimistic
+ * {@link TimeWarpController} and the conservative {@link ConservativeController}, with a logical process per
+ * partition of the nodes; the score is the time to evaluate a fixed simulated interval.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PholdBenchmark {
+
+    public enum ControllerType {
+        CONSERVATIVE, SEQUENTIAL, TIME_WARP
+    }
+
+    private static final long END_TIME   = 10_000;
+    private static final int  POPULATION = 256;
+    private static final int  TOKENS     = 1024;
+
+    @Param({ "SEQUENTIAL", "TIME_WARP", "CONSERVATIVE" })
+    public ControllerType controllerType;
+
+    @Param({ "1", "2", "4" })
+    public int logicalProcesses;
+
+    @Param({ "0.1", "0.5" })
+    public double remote;
+
+    private Devi controller;
+
+    @Setup(Level.Invocation)
+    public void setup() {
+        if (controllerType == ControllerType.TIME_WARP) {
+            var timeWarp = new TimeWarpController(logicalProcesses);
+            timeWarp.setEndTime(END_TIME);
+            timeWarp.setTrackSpectrum(false);
+            timeWarp.setPartitioner(entity -> ((PholdNode) entity).partition);
+            controller = timeWarp;
+        } else if (controllerType == ControllerType.CONSERVATIVE) {
+            var conservative = new ConservativeController(logicalProcesses);
+            conservative.setEndTime(END_TIME);
+            conservative.setTrackSpectrum(false);
+            conservative.setPartitioner(entity -> ((PholdNode) entity).partition);
+            controller = conservative;
+        } else {
+            var sequential = new SimulationController();
+            sequential.setEndTime(END_TIME);
+            sequential.setTrackSpectrum(false);
+            controller = sequential;
+        }
+        Kronos.setController(controller);
+        var nodes = new PholdNode[POPULATION];
+        var perPartition = POPULATION / logicalProcesses;
+        for (int i = 0; i < POPULATION; i++) {
+            nodes[i] = new PholdNode(nodes, i / perPartition, perPartition, remote);
+        }
+        for (int i = 0; i < TOKENS; i++) {
+            nodes[i % POPULATION].receive(0x9E3779B97F4A7C15L * (i + 1));
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void teardown() throws Exception {
+        Kronos.setController(null);
+        controller.close();
+        controller = null;
+    }
+
+    @Benchmark
+    public long phold() throws Exception {
+        if (controller instanceof TimeWarpController timeWarp) {
+            timeWarp.eventLoop();
+        } else if (controller instanceof ConservativeController conservative) {
+            conservative.eventLoop();
+        } else {
+            ((SimulationController) controller).eventLoop();
+        }
+        return controller.getTotalEvents();
+    }
+
+    @Entity
+    @Lookahead(PholdNode.LOOKAHEAD)
+    public static class PholdNode {
+        static final long LOOKAHEAD = 5;
+
+        private final PholdNode[] nodes;
+        private final int         partition;
+        private final int         perPartition;
+        private final long        remoteThreshold;
+        private long              received;
+
+        public PholdNode(PholdNode[] nodes, int partition, int perPartition, double remote) {
+            this.nodes = nodes;
+            this.partition = partition;
+            this.perPartition = perPartition;
+            this.remoteThreshold = (long) (remote * (1L << 16));
+        }
+
+        public void receive(long seed) {
+            received++;
+            var next = seed * 6364136223846793005L + 1442695040888963407L;
+            // The lookahead plus an exponential delay, mean 10 in all
+            var delay = LOOKAHEAD + (long) (-5.0 * Math.log(((next >>> 11) + 1) * 0x1.0p-53));
+            PholdNode target;
+            if (((next >>> 20) & 0xFFFF) < remoteThreshold) {
+                target = nodes[(int) ((next >>> 36) % nodes.length)];
+            } else {
+                target = nodes[partition * perPartition + (int) ((next >>> 36) % perPartition)];
+            }
+            sleep(delay);
+            target.receive(next);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2025 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.controllers.CalendarQueue;
+import com.hellblazer.primeMover.controllers.EventHeap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Classic "hold model" benchmark of the pending event set: the queue is primed with {@code size} events, then each
+ * operation dequeues the earliest event and re-enqueues it at its time plus an increment drawn from the timestamp
+ * distribution. The population stays constant, so the score is the cost of one hold (dequeue + enqueue) at that queue
+ * size.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class EventQueueBenchmark {
+
+    /**
+     * Timestamp increment distributions, mean ~1000 time units
+     */
+    public enum Distribution {
+        EXPONENTIAL {
+            @Override
+            long next(SplittableRandom random) {
+                return (long) (-1000.0 * Math.log(1.0 - random.nextDouble()));
+            }
+        },
+        UNIFORM {
+            @Override
+            long next(SplittableRandom random) {
+                return random.nextLong(2000);
+            }
+        },
+        TRIANGULAR {
+            @Override
+            long next(SplittableRandom random) {
+                return (long) (1500.0 * Math.sqrt(random.nextDouble()));
+            }
+        },
+        BIMODAL {
+            @Override
+            long next(SplittableRandom random) {
+                return random.nextDouble() < 0.9 ? random.nextLong(200) : 9000 + random.nextLong(2000);
+            }
+        },
+        /**
+         * Many simultaneous events: increments drawn from a handful of values
+         */
+        DISCRETE {
+            @Override
+            long next(SplittableRandom random) {
+                return 500L * random.nextInt(5);
+            }
+        };
+
+        abstract long next(SplittableRandom random);
+    }
+
+    public enum QueueType {
+        CALENDAR_QUEUE(CalendarQueue::new), EVENT_HEAP(EventHeap::new), PRIORITY_QUEUE(PriorityQueue::new);
+
+        private final Supplier<Queue<EventImpl>> factory;
+
+        QueueType(Supplier<Queue<EventImpl>> factory) {
+            this.factory = factory;
+        }
+    }
+
+    private static final EntityReference ENTITY = new EntityReference() {
+        @Override
+        public Object __invoke(int event, Object... arguments) {
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return "hold";
+        }
+    };
+
+    @Param({ "EXPONENTIAL", "UNIFORM", "TRIANGULAR", "BIMODAL", "DISCRETE" })
+    public Distribution distribution;
+
+    @Param({ "PRIORITY_QUEUE", "EVENT_HEAP", "CALENDAR_QUEUE" })
+    public QueueType queueType;
+
+    @Param({ "1000", "100000", "1000000" })
+    public int size;
+
+    private Queue<EventImpl> queue;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        random = new SplittableRandom(0x1988);
+        queue = queueType.factory.get();
+        for (int i = 0; i < size; i++) {
+            queue.add(new EventImpl(distribution.next(random), null, ENTITY, 0));
+        }
+        // Run the population to steady state before measuring
+        for (int i = 0; i < 2 * size; i++) {
+            hold();
+        }
+    }
+
+    /**
+     * One hold operation: dequeue the earliest event and reschedule it into the future
+     */
+    @Benchmark
+    public EventImpl hold() {
+        var event = queue.poll();
+        event.setTime(event.getTime() + distribution.next(random));
+        queue.offer(event);
+        return event;
+    }
+}
@@ -88,7 +88,7 @@ public class SpectrumTrackingBenchmark {
 
         blackhole.consume(result);
         if (state.trackSpectrum) {
-            Map<String, Integer> spectrum = controller.getSpectrum();
+            Map<String, Long> spectrum = controller.getSpectrum();
             blackhole.consume(spectrum.size());
         }
     }
@@ -102,7 +102,7 @@ public class SpectrumTrackingBenchmark {
         controller.eventLoop();
 
         if (state.trackSpectrum) {
-            Map<String, Integer> spectrum = controller.getSpectrum();
+            Map<String, Long> spectrum = controller.getSpectrum();
             blackhole.consume(spectrum);
         }
     }
@@ -40,7 +40,7 @@ public class Demo {
         new UseChannel().test();
         controller.eventLoop();
         System.out.println("Event spectrum:");
-        for (Map.Entry<String, Integer> spectrumEntry : controller.getSpectrum().entrySet()) {
+        for (Map.Entry<String, Long> spectrumEntry : controller.getSpectrum().entrySet()) {
             System.out.println("\t" + spectrumEntry.getValue() + "\t\t : " + spectrumEntry.getKey());
         }
     }
@@ -57,7 +57,7 @@ public class Demo {
         new UseChannel().test();
         controller.eventLoop();
         System.out.println("Event spectrum:");
-        for (Map.Entry<String, Integer> spectrumEntry : controller.getSpectrum().entrySet()) {
+        for (Map.Entry<String, Long> spectrumEntry : controller.getSpectrum().entrySet()) {
             System.out.println("\t" + spectrumEntry.getValue() + "\t\t : " + spectrumEntry.getKey());
         }
     }
@@ -72,7 +72,7 @@ public class Demo {
         new Driver().runContinuationBenchmark("STRING", 100000, 10);
         controller.eventLoop();
         System.out.println("Event spectrum:");
-        for (Map.Entry<String, Integer> spectrumEntry : controller.getSpectrum().entrySet()) {
+        for (Map.Entry<String, Long> spectrumEntry : controller.getSpectrum().entrySet()) {
             System.out.println("\t" + spectrumEntry.getValue() + "\t\t : " + spectrumEntry.getKey());
         }
     }
@@ -87,7 +87,7 @@ public class Demo {
         new Driver().runEventBenchmark("STRING", 100000, 100);
         controller.eventLoop();
         System.out.println("Event spectrum:");
-        for (Map.Entry<String, Integer> spectrumEntry : controller.getSpectrum().entrySet()) {
+        for (Map.Entry<String, Long> spectrumEntry : controller.getSpectrum().entrySet()) {
             System.out.println("\t" + spectrumEntry.getValue() + "\t\t : " + spectrumEntry.getKey());
         }
     }
@@ -112,7 +112,7 @@ public class Demo {
         controller.setEndTime(Long.MAX_VALUE);
         controller.eventLoop();
         System.out.println("Event spectrum:");
-        for (Map.Entry<String, Integer> spectrumEntry : controller.getSpectrum().entrySet()) {
+        for (Map.Entry<String, Long> spectrumEntry : controller.getSpectrum().entrySet()) {
             System.out.println("\t" + spectrumEntry.getValue() + "\t\t : " + spectrumEntry.getKey());
         }
     }
@@ -0,0 +1,78 @@
+/**
+ * Copyright (C) 2024 Hal Hildebrand. All rights reserved.
+ * 
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ * 
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.desmoj;
+
+import com.hellblazer.primeMover.runtime.Devi;
+import com.hellblazer.primeMover.runtime.EventImpl;
+import com.hellblazer.primeMover.runtime.SimulationEvent;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The blocking of an event on a blocking primitive, or its resumption. The
+ * simulated event described is that of the blocked caller.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+@Name("com.hellblazer.primeMover.Blocking")
+@Label("Blocking Primitive")
+@Description("An event blocked on, or resumed by, a blocking primitive")
+public final class BlockingEvent extends SimulationEvent {
+
+    static void blocked(Object primitive, EventImpl caller, Devi controller, int waiters) {
+        final var blocking = new BlockingEvent();
+        if (blocking.shouldCommit()) {
+            blocking.describe(caller, controller);
+            blocking.primitive = primitive.getClass();
+            blocking.blocked = true;
+            blocking.waiters = waiters;
+            blocking.commit();
+        }
+    }
+
+    static void resumed(Object primitive, EventImpl caller, Devi controller, int waiters, boolean signaled) {
+        final var blocking = new BlockingEvent();
+        if (blocking.shouldCommit()) {
+            blocking.describe(caller, controller);
+            blocking.primitive = primitive.getClass();
+            blocking.signaled = signaled;
+            blocking.waiters = waiters;
+            blocking.commit();
+        }
+    }
+
+    @Label("Blocked")
+    @Description("True if the caller blocked, false if it was resumed")
+    boolean blocked;
+
+    @Label("Primitive")
+    @Description("The class of the blocking primitive")
+    Class<?> primitive;
+
+    @Label("Signaled")
+    @Description("True if the caller was resumed by a signal rather than a timeout")
+    boolean signaled;
+
+    @Label("Waiters")
+    @Description("The number of callers blocked on the primitive")
+    int waiters;
+}
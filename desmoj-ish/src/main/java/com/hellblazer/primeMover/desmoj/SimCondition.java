@@ -30,6 +30,7 @@ import com.hellblazer.primeMover.annotations.Blocking;
 import com.hellblazer.primeMover.annotations.Entity;
 import com.hellblazer.primeMover.annotations.Transformed;
 import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.api.EventHandle;
 
 /**
  * A blocking condition variable that passes a value when signaling.
@@ -50,7 +51,9 @@ public class SimCondition<T> {
      */
     @Transformed(comment = "Hand written", date = "2024", value = "Hand")
     public static class entity<T> extends SimCondition<T> implements EntityReference {
-        private static final int AWAIT = 0;
+        private static final int AWAIT         = 0;
+        private static final int AWAIT_TIMEOUT = 1;
+        private static final int EXPIRE        = 2;
 
         public entity(Devi controller) {
             this.controller = controller;
@@ -60,6 +63,11 @@ public class SimCondition<T> {
         public Object __invoke(int event, Object[] arguments) throws Throwable {
             return switch (event) {
                 case AWAIT -> super.await();  // Returns the value
+                case AWAIT_TIMEOUT -> super.await((Long) arguments[0]);
+                case EXPIRE -> {
+                    super.expire(arguments[0]);
+                    yield null;
+                }
                 default -> throw new IllegalArgumentException("Unknown event: " + event);
             };
         }
@@ -68,10 +76,20 @@ public class SimCondition<T> {
         public String __signatureFor(int event) {
             return switch (event) {
                 case AWAIT -> "<SimCondition: Object await()>";
+                case AWAIT_TIMEOUT -> "<SimCondition: Object await(long)>";
+                case EXPIRE -> "<SimCondition: void expire(Object)>";
                 default -> throw new IllegalArgumentException("Unknown event: " + event);
             };
         }
 
+        /**
+         * None of the condition's events park; they capture the caller instead
+         */
+        @Override
+        public boolean __mayBlock(int event) {
+            return false;
+        }
+
         @Override
         @SuppressWarnings("unchecked")
         public T await() {
@@ -81,10 +99,32 @@ public class SimCondition<T> {
                 throw new IllegalStateException("Exception in await", e);
             }
         }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T await(long timeout) {
+            try {
+                return (T) controller.postContinuingEvent(this, AWAIT_TIMEOUT, timeout);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Exception in await", e);
+            }
+        }
+    }
+
+    /**
+     * A blocked caller, with the timeout event of a timed await
+     */
+    private static class Waiter {
+        final EventImpl caller;
+        EventHandle     timeout;
+
+        Waiter(EventImpl caller) {
+            this.caller = caller;
+        }
     }
 
     protected Devi                  controller;
-    private final Deque<EventImpl> waiters = new ArrayDeque<>();
+    private final Deque<Waiter>     waiters = new ArrayDeque<>();
     /**
      * Queue of pending values that arrived before waiters were ready.
      * Acts like a semaphore to handle timing windows where signal() is called before await().
@@ -112,8 +152,36 @@ public class SimCondition<T> {
         if (!pendingValues.isEmpty()) {
             return pendingValues.removeFirst();
         }
-        var waiter = controller.swapCaller(null);
+        var waiter = new Waiter(controller.swapCaller(null));
         waiters.addLast(waiter);
+        BlockingEvent.blocked(this, waiter.caller, controller, waiters.size());
+        return null;  // Actual value set by Continuation.setReturnValue()
+    }
+
+    /**
+     * Block until signaled or until the timeout elapses, returning the signaled
+     * value. The timeout is a single cancellable event, cancelled when the
+     * waiter is signaled first.
+     *
+     * <p>If a signal(value) was called before this await (pending value), the
+     * await returns immediately with that value without blocking.
+     *
+     * @param timeout how long to wait, in simulation time units
+     * @return the value passed by the signaler, or null if the timeout elapsed
+     *         first
+     */
+    @Blocking
+    public T await(long timeout) {
+        if (!pendingValues.isEmpty()) {
+            return pendingValues.removeFirst();
+        }
+        if (timeout <= 0) {
+            return null;
+        }
+        var waiter = new Waiter(controller.swapCaller(null));
+        waiters.addLast(waiter);
+        BlockingEvent.blocked(this, waiter.caller, controller, waiters.size());
+        waiter.timeout = expireAfter(timeout, waiter);
         return null;  // Actual value set by Continuation.setReturnValue()
     }
 
@@ -138,9 +206,8 @@ public class SimCondition<T> {
     public void signal(T value) {
         if (!waiters.isEmpty()) {
             var waiter = waiters.removeFirst();
-            waiter.setTime(controller.getCurrentTime());
-            waiter.getContinuation().setReturnValue(value);
-            controller.post(waiter);
+            BlockingEvent.resumed(this, waiter.caller, controller, waiters.size(), true);
+            resume(waiter, value);
         } else {
             // No waiter yet - store as pending value
             pendingValues.addLast(value);
@@ -176,4 +243,35 @@ public class SimCondition<T> {
     public int pendingValueCount() {
         return pendingValues.size();
     }
+
+    /**
+     * The timeout of a timed await. A waiter that was signaled first has had
+     * this event cancelled, so it is never evaluated.
+     *
+     * @param waiting the timed out waiter
+     */
+    protected void expire(Object waiting) {
+        var waiter = (Waiter) waiting;
+        waiter.timeout = null;
+        if (waiters.remove(waiter)) {
+            BlockingEvent.resumed(this, waiter.caller, controller, waiters.size(), false);
+            resume(waiter, null);
+        }
+    }
+
+    private EventHandle expireAfter(long timeout, Waiter waiter) {
+        var now = controller.getCurrentTime();
+        var deadline = timeout > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + timeout;
+        return controller.postCancellableEvent(deadline, (EntityReference) this, entity.EXPIRE, waiter);
+    }
+
+    private void resume(Waiter waiter, Object value) {
+        if (waiter.timeout != null) {
+            waiter.timeout.cancel();
+            waiter.timeout = null;
+        }
+        waiter.caller.setTime(controller.getCurrentTime());
+        waiter.caller.getContinuation().setReturnValue(value);
+        controller.post(waiter.caller);
+    }
 }
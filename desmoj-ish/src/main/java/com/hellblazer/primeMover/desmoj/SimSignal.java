@@ -30,6 +30,7 @@ import com.hellblazer.primeMover.annotations.Blocking;
 import com.hellblazer.primeMover.annotations.Entity;
 import com.hellblazer.primeMover.annotations.Transformed;
 import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.api.EventHandle;
 
 /**
  * A simple blocking signal primitive for simulation. Provides basic condition
@@ -49,7 +50,9 @@ public class SimSignal {
      */
     @Transformed(comment = "Hand written", date = "2024", value = "Hand")
     public static class entity extends SimSignal implements EntityReference {
-        private static final int AWAIT = 0;
+        private static final int AWAIT         = 0;
+        private static final int AWAIT_TIMEOUT = 1;
+        private static final int EXPIRE        = 2;
 
         public entity(Devi controller) {
             this.controller = controller;
@@ -62,6 +65,11 @@ public class SimSignal {
                     super.await();
                     yield null;
                 }
+                case AWAIT_TIMEOUT -> super.await((Long) arguments[0]);
+                case EXPIRE -> {
+                    super.expire(arguments[0]);
+                    yield null;
+                }
                 default -> throw new IllegalArgumentException("Unknown event: " + event);
             };
         }
@@ -70,10 +78,20 @@ public class SimSignal {
         public String __signatureFor(int event) {
             return switch (event) {
                 case AWAIT -> "<SimSignal: void await()>";
+                case AWAIT_TIMEOUT -> "<SimSignal: boolean await(long)>";
+                case EXPIRE -> "<SimSignal: void expire(Object)>";
                 default -> throw new IllegalArgumentException("Unknown event: " + event);
             };
         }
 
+        /**
+         * None of the signal's events park; they capture the caller instead
+         */
+        @Override
+        public boolean __mayBlock(int event) {
+            return false;
+        }
+
         @Override
         public void await() {
             try {
@@ -82,10 +100,31 @@ public class SimSignal {
                 throw new IllegalStateException("Exception in await", e);
             }
         }
+
+        @Override
+        public boolean await(long timeout) {
+            try {
+                return (Boolean) controller.postContinuingEvent(this, AWAIT_TIMEOUT, timeout);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Exception in await", e);
+            }
+        }
+    }
+
+    /**
+     * A blocked caller, with the timeout event of a timed await
+     */
+    private static class Waiter {
+        final EventImpl caller;
+        EventHandle     timeout;
+
+        Waiter(EventImpl caller) {
+            this.caller = caller;
+        }
     }
 
     protected Devi                  controller;
-    private final Deque<EventImpl> waiters = new ArrayDeque<>();
+    private final Deque<Waiter>     waiters = new ArrayDeque<>();
     /**
      * Count of pending signals that arrived before waiters were ready.
      * Acts like a semaphore permit count to handle timing windows.
@@ -112,8 +151,35 @@ public class SimSignal {
             pendingSignals--;
             return;
         }
-        var waiter = controller.swapCaller(null);
+        var waiter = new Waiter(controller.swapCaller(null));
         waiters.addLast(waiter);
+        BlockingEvent.blocked(this, waiter.caller, controller, waiters.size());
+    }
+
+    /**
+     * Block until signaled or until the timeout elapses. The timeout is a single
+     * cancellable event, cancelled when the waiter is signaled first.
+     *
+     * <p>If a signal() was called before this await (pending signal), the await
+     * returns immediately without blocking.
+     *
+     * @param timeout how long to wait, in simulation time units
+     * @return true if signaled, false if the timeout elapsed first
+     */
+    @Blocking
+    public boolean await(long timeout) {
+        if (pendingSignals > 0) {
+            pendingSignals--;
+            return true;
+        }
+        if (timeout <= 0) {
+            return false;
+        }
+        var waiter = new Waiter(controller.swapCaller(null));
+        waiters.addLast(waiter);
+        BlockingEvent.blocked(this, waiter.caller, controller, waiters.size());
+        waiter.timeout = expireAfter(timeout, waiter);
+        return false; // Actual value set by Continuation.setReturnValue()
     }
 
     /**
@@ -135,9 +201,8 @@ public class SimSignal {
     public void signal() {
         if (!waiters.isEmpty()) {
             var waiter = waiters.removeFirst();
-            waiter.setTime(controller.getCurrentTime());
-            waiter.getContinuation().setReturnValue(null);
-            controller.post(waiter);
+            BlockingEvent.resumed(this, waiter.caller, controller, waiters.size(), true);
+            resume(waiter, Boolean.TRUE);
         } else {
             // No waiter yet - store as pending signal
             pendingSignals++;
@@ -170,4 +235,35 @@ public class SimSignal {
     public int pendingSignalCount() {
         return pendingSignals;
     }
+
+    /**
+     * The timeout of a timed await. A waiter that was signaled first has had
+     * this event cancelled, so it is never evaluated.
+     *
+     * @param waiting the timed out waiter
+     */
+    protected void expire(Object waiting) {
+        var waiter = (Waiter) waiting;
+        waiter.timeout = null;
+        if (waiters.remove(waiter)) {
+            BlockingEvent.resumed(this, waiter.caller, controller, waiters.size(), false);
+            resume(waiter, Boolean.FALSE);
+        }
+    }
+
+    private EventHandle expireAfter(long timeout, Waiter waiter) {
+        var now = controller.getCurrentTime();
+        var deadline = timeout > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + timeout;
+        return controller.postCancellableEvent(deadline, (EntityReference) this, entity.EXPIRE, waiter);
+    }
+
+    private void resume(Waiter waiter, Object value) {
+        if (waiter.timeout != null) {
+            waiter.timeout.cancel();
+            waiter.timeout = null;
+        }
+        waiter.caller.setTime(controller.getCurrentTime());
+        waiter.caller.getContinuation().setReturnValue(value);
+        controller.post(waiter.caller);
+    }
 }
@@ -57,7 +57,8 @@ public class SimConditionTest {
     public static class ValueWaiter<T> {
         @Transformed(comment = "Hand written", date = "2024", value = "Hand")
         public static class entity<T> extends ValueWaiter<T> implements EntityReference {
-            private static final int WAIT_FOR_VALUE = 0;
+            private static final int WAIT_FOR_VALUE         = 0;
+            private static final int WAIT_FOR_VALUE_TIMEOUT = 1;
 
             public entity(Devi controller, SimCondition<T> condition, List<String> results) {
                 this.controller = controller;
@@ -69,6 +70,7 @@ public class SimConditionTest {
             public Object __invoke(int event, Object[] arguments) throws Throwable {
                 return switch (event) {
                     case WAIT_FOR_VALUE -> super.waitForValue();
+                    case WAIT_FOR_VALUE_TIMEOUT -> super.waitForValue((Long) arguments[0]);
                     default -> throw new IllegalArgumentException("Unknown event: " + event);
                 };
             }
@@ -77,6 +79,7 @@ public class SimConditionTest {
             public String __signatureFor(int event) {
                 return switch (event) {
                     case WAIT_FOR_VALUE -> "<ValueWaiter: Object waitForValue()>";
+                    case WAIT_FOR_VALUE_TIMEOUT -> "<ValueWaiter: Object waitForValue(long)>";
                     default -> throw new IllegalArgumentException("Unknown event: " + event);
                 };
             }
@@ -90,6 +93,16 @@ public class SimConditionTest {
                     throw new IllegalStateException("Exception in waitForValue", e);
                 }
             }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T waitForValue(long timeout) {
+                try {
+                    return (T) controller.postContinuingEvent(this, WAIT_FOR_VALUE_TIMEOUT, timeout);
+                } catch (Throwable e) {
+                    throw new IllegalStateException("Exception in waitForValue", e);
+                }
+            }
         }
 
         protected Devi                controller;
@@ -113,6 +126,14 @@ public class SimConditionTest {
             results.add("waiter:after:" + controller.getCurrentTime() + ":value=" + value);
             return value;
         }
+
+        @Blocking
+        public T waitForValue(long timeout) {
+            results.add("waiter:before:" + controller.getCurrentTime());
+            var value = condition.await(timeout);
+            results.add("waiter:after:" + controller.getCurrentTime() + ":value=" + value);
+            return value;
+        }
     }
 
     /**
@@ -460,4 +481,33 @@ public class SimConditionTest {
             ), results, "Null value should be passed correctly");
         }
     }
+
+    @Test
+    public void testTimedAwait() throws Exception {
+        try (var controller = new SimulationController()) {
+            var results = new ArrayList<String>();
+            var condition = new SimCondition.entity<String>(controller);
+
+            var timesOut = new ValueWaiter.entity<String>(controller, condition, results);
+            var signaled = new ValueWaiter.entity<String>(controller, condition, results);
+            var signaler = new ValueSignaler.entity<>(controller, condition, results, "hello");
+
+            controller.postEvent(0, timesOut, ValueWaiter.entity.WAIT_FOR_VALUE_TIMEOUT, 50L);
+            controller.postEvent(10, signaled, ValueWaiter.entity.WAIT_FOR_VALUE_TIMEOUT, 500L);
+            controller.postEvent(100, signaler, ValueSignaler.entity.DO_SIGNAL);
+
+            controller.eventLoop();
+
+            // The first waiter times out, so the signal goes to the second
+            assertEquals(List.of(
+                "waiter:before:0",
+                "waiter:before:10",
+                "waiter:after:50:value=null",
+                "signaler:100:value=hello",
+                "waiter:after:100:value=hello"
+            ), results, "First waiter should time out, second should receive the value");
+            assertEquals(100, controller.getCurrentTime(), "Cancelled timeout should not be evaluated");
+            assertFalse(condition.hasWaiters());
+        }
+    }
 }
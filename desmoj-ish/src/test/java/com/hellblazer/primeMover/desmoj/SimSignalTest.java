@@ -51,7 +51,8 @@ public class SimSignalTest {
     public static class Waiter {
         @Transformed(comment = "Hand written", date = "2024", value = "Hand")
         public static class entity extends Waiter implements EntityReference {
-            private static final int WAIT_FOR_SIGNAL = 0;
+            private static final int WAIT_FOR_SIGNAL         = 0;
+            private static final int WAIT_FOR_SIGNAL_TIMEOUT = 1;
 
             public entity(Devi controller, SimSignal signal, List<String> results) {
                 this.controller = controller;
@@ -66,6 +67,7 @@ public class SimSignalTest {
                         super.waitForSignal();
                         yield null;
                     }
+                    case WAIT_FOR_SIGNAL_TIMEOUT -> super.waitForSignal((Long) arguments[0]);
                     default -> throw new IllegalArgumentException("Unknown event: " + event);
                 };
             }
@@ -74,6 +76,7 @@ public class SimSignalTest {
             public String __signatureFor(int event) {
                 return switch (event) {
                     case WAIT_FOR_SIGNAL -> "<Waiter: void waitForSignal()>";
+                    case WAIT_FOR_SIGNAL_TIMEOUT -> "<Waiter: boolean waitForSignal(long)>";
                     default -> throw new IllegalArgumentException("Unknown event: " + event);
                 };
             }
@@ -86,6 +89,15 @@ public class SimSignalTest {
                     throw new IllegalStateException("Exception in waitForSignal", e);
                 }
             }
+
+            @Override
+            public boolean waitForSignal(long timeout) {
+                try {
+                    return (Boolean) controller.postContinuingEvent(this, WAIT_FOR_SIGNAL_TIMEOUT, timeout);
+                } catch (Throwable e) {
+                    throw new IllegalStateException("Exception in waitForSignal", e);
+                }
+            }
         }
 
         protected Devi          controller;
@@ -108,6 +120,14 @@ public class SimSignalTest {
             signal.await();
             results.add("waiter:after:" + controller.getCurrentTime());
         }
+
+        @Blocking
+        public boolean waitForSignal(long timeout) {
+            results.add("waiter:before:" + controller.getCurrentTime());
+            var signaled = signal.await(timeout);
+            results.add("waiter:" + (signaled ? "signaled:" : "timeout:") + controller.getCurrentTime());
+            return signaled;
+        }
     }
 
     /**
@@ -395,4 +415,53 @@ public class SimSignalTest {
             assertFalse(signal.hasWaiters(), "Should have no waiters");
         }
     }
+
+    @Test
+    public void testTimedAwaitTimesOut() throws Exception {
+        try (var controller = new SimulationController()) {
+            var results = new ArrayList<String>();
+            var signal = new SimSignal.entity(controller);
+
+            var waiter = new Waiter.entity(controller, signal, results);
+            var signaler = new Signaler.entity(controller, signal, results);
+
+            controller.postEvent(0, waiter, Waiter.entity.WAIT_FOR_SIGNAL_TIMEOUT, 50L);
+            controller.postEvent(100, signaler, Signaler.entity.DO_SIGNAL);
+
+            controller.eventLoop();
+
+            // The late signal finds no waiter and is kept as pending
+            assertEquals(List.of(
+                "waiter:before:0",
+                "waiter:timeout:50",
+                "signaler:100"
+            ), results, "Waiter should time out at 50");
+            assertFalse(signal.hasWaiters(), "Timed out waiter should be withdrawn");
+            assertEquals(1, signal.pendingSignalCount());
+        }
+    }
+
+    @Test
+    public void testTimedAwaitSignaled() throws Exception {
+        try (var controller = new SimulationController()) {
+            var results = new ArrayList<String>();
+            var signal = new SimSignal.entity(controller);
+
+            var waiter = new Waiter.entity(controller, signal, results);
+            var signaler = new Signaler.entity(controller, signal, results);
+
+            controller.postEvent(0, waiter, Waiter.entity.WAIT_FOR_SIGNAL_TIMEOUT, 500L);
+            controller.postEvent(100, signaler, Signaler.entity.DO_SIGNAL);
+
+            controller.eventLoop();
+
+            assertEquals(List.of(
+                "waiter:before:0",
+                "signaler:100",
+                "waiter:signaled:100"
+            ), results, "Waiter should be signaled at 100");
+            assertEquals(100, controller.getCurrentTime(), "Cancelled timeout should not be evaluated");
+            assertEquals(4, controller.getTotalEvents(), "Cancelled timeout should not be evaluated");
+        }
+    }
 }
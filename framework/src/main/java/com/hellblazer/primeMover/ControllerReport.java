@@ -31,23 +31,62 @@ import java.util.stream.Collectors;
  * @param name        the name of the simulation
  * @param startTime   the simulation time at the start
  * @param endTime     the simulation time at the end
- * @param totalEvents the total number of events processed
- * @param spectrum    map of event signatures to invocation counts (immutable)
+ * @param totalEvents    the total number of events processed
+ * @param fastPathEvents the number of events that took the zero-delay fast path,
+ *                       bypassing the priority queue of pending events
+ * @param spectrum       map of event signatures to invocation counts (immutable)
+ * @param latencies      map of event signatures to the sampled wall clock
+ *                       latencies of their evaluation (immutable), empty unless
+ *                       latency sampling is enabled
  * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
  */
 public record ControllerReport(
     String name,
     long startTime,
     long endTime,
-    int totalEvents,
-    Map<String, Integer> spectrum
+    long totalEvents,
+    long fastPathEvents,
+    Map<String, Long> spectrum,
+    Map<String, Latency> latencies
 ) {
 
     /**
-     * Creates a ControllerReport with an immutable spectrum map.
+     * The sampled wall clock latencies of the evaluation of an event type, in
+     * nanoseconds
+     *
+     * @param samples   the number of evaluations sampled
+     * @param p50       the median latency
+     * @param p99       the 99th percentile latency
+     * @param p999      the 99.9th percentile latency
+     * @param max       the highest latency sampled
+     * @param totalTime the estimated total wall time of all evaluations of the
+     *                  event type
+     */
+    public record Latency(long samples, long p50, long p99, long p999, long max, long totalTime) {
+    }
+
+    /**
+     * Creates a ControllerReport with immutable spectrum and latency maps.
      */
     public ControllerReport {
         spectrum = spectrum != null ? Map.copyOf(spectrum) : Map.of();
+        latencies = latencies != null ? Map.copyOf(latencies) : Map.of();
+    }
+
+    /**
+     * Creates a ControllerReport without latencies.
+     */
+    public ControllerReport(String name, long startTime, long endTime, long totalEvents, long fastPathEvents,
+                            Map<String, Long> spectrum) {
+        this(name, startTime, endTime, totalEvents, fastPathEvents, spectrum, Map.of());
+    }
+
+    /**
+     * Creates a ControllerReport for a controller without a fast path.
+     */
+    public ControllerReport(String name, long startTime, long endTime, long totalEvents,
+                            Map<String, Long> spectrum) {
+        this(name, startTime, endTime, totalEvents, 0, spectrum);
     }
 
     /**
@@ -71,12 +110,13 @@ public record ControllerReport(
         sb.append("End Time:     ").append(endTime).append("\n");
         sb.append("Duration:     ").append(duration()).append("\n");
         sb.append("Total Events: ").append(totalEvents).append("\n");
+        sb.append("Fast Path:    ").append(fastPathEvents).append("\n");
 
         if (!spectrum.isEmpty()) {
             sb.append("\nEvent Spectrum:\n");
             spectrum.entrySet()
                     .stream()
-                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
                     .forEach(e -> sb.append("  ")
                                     .append(String.format("%8d", e.getValue()))
                                     .append(" : ")
@@ -84,6 +124,19 @@ public record ControllerReport(
                                     .append("\n"));
         }
 
+        if (!latencies.isEmpty()) {
+            sb.append("\nEvent Latencies (ns):\n");
+            sb.append(String.format("  %8s %10s %10s %10s %14s : %s%n", "samples", "p50", "p99", "p999", "total",
+                                    "event"));
+            latencies.entrySet()
+                     .stream()
+                     .sorted((a, b) -> Long.compare(b.getValue().totalTime(), a.getValue().totalTime()))
+                     .forEach(e -> sb.append(String.format("  %8d %10d %10d %10d %14d : %s%n", e.getValue().samples(),
+                                                           e.getValue().p50(), e.getValue().p99(),
+                                                           e.getValue().p999(), e.getValue().totalTime(),
+                                                           e.getKey())));
+        }
+
         return sb.toString();
     }
 
@@ -98,6 +151,14 @@ public record ControllerReport(
                                    .stream()
                                    .map(e -> String.format("    \"%s\": %d", escapeJson(e.getKey()), e.getValue()))
                                    .collect(Collectors.joining(",\n"));
+        var latenciesJson = latencies.entrySet()
+                                     .stream()
+                                     .map(e -> String.format("    \"%s\": {\"samples\": %d, \"p50\": %d, \"p99\": %d, \"p999\": %d, \"max\": %d, \"totalTime\": %d}",
+                                                             escapeJson(e.getKey()), e.getValue().samples(),
+                                                             e.getValue().p50(), e.getValue().p99(),
+                                                             e.getValue().p999(), e.getValue().max(),
+                                                             e.getValue().totalTime()))
+                                     .collect(Collectors.joining(",\n"));
 
         return String.format("""
             {
@@ -106,7 +167,11 @@ public record ControllerReport(
               "endTime": %d,
               "duration": %d,
               "totalEvents": %d,
+              "fastPathEvents": %d,
               "spectrum": {
+            %s
+              },
+              "latencies": {
             %s
               }
             }""",
@@ -115,7 +180,9 @@ public record ControllerReport(
             endTime,
             duration(),
             totalEvents,
-            spectrumJson
+            fastPathEvents,
+            spectrumJson,
+            latenciesJson
         );
     }
 
@@ -0,0 +1,233 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SplittableRandom;
+
+/**
+ * The design of an {@link Experiment}: the points of the parameter space the
+ * model is run at.
+ * <p>
+ * Example usage:
+ * <pre>{@code
+ * var factorial = Design.factorial(Map.of("servers", List.of(1, 2, 4),
+ *                                         "load", List.of(0.5, 0.7, 0.9)));
+ * var sampled = Design.latinHypercube(Map.of("load", new double[] { 0.1, 0.95 }), 50, 12345L);
+ * }</pre>
+ *
+ * @param points the points of the design, in order
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public record Design(List<Point> points) {
+
+    /**
+     * A point of the parameter space
+     *
+     * @param index      the index of the point in its design
+     * @param parameters the parameter values of the point, by name, in the
+     *                   order of the design's factors
+     */
+    public record Point(int index, Map<String, Object> parameters) {
+
+        /**
+         * Answer the value of the parameter as a double
+         *
+         * @throws IllegalArgumentException if there is no such numeric parameter
+         */
+        public double doubleValue(String name) {
+            return number(name).doubleValue();
+        }
+
+        /**
+         * Answer the value of the parameter
+         *
+         * @throws IllegalArgumentException if there is no such parameter
+         */
+        public Object get(String name) {
+            final var value = parameters.get(name);
+            if (value == null) {
+                throw new IllegalArgumentException("[Design] No parameter: " + name);
+            }
+            return value;
+        }
+
+        /**
+         * Answer the value of the parameter as an int
+         *
+         * @throws IllegalArgumentException if there is no such numeric parameter
+         */
+        public int intValue(String name) {
+            return number(name).intValue();
+        }
+
+        /**
+         * Answer the value of the parameter as a long
+         *
+         * @throws IllegalArgumentException if there is no such numeric parameter
+         */
+        public long longValue(String name) {
+            return number(name).longValue();
+        }
+
+        private Number number(String name) {
+            if (get(name) instanceof Number number) {
+                return number;
+            }
+            throw new IllegalArgumentException("[Design] Parameter is not numeric: " + name);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the index of a point is not its
+     *                                  position in the design
+     */
+    public Design {
+        points = List.copyOf(points);
+        for (int i = 0; i < points.size(); i++) {
+            if (points.get(i).index() != i) {
+                throw new IllegalArgumentException("[Design] Point at position " + i + " has index " +
+                                                   points.get(i).index());
+            }
+        }
+    }
+
+    /**
+     * A full factorial design: every combination of the levels of the factors,
+     * the last factor varying fastest
+     *
+     * @param levels the levels of each factor, by factor name
+     */
+    public static Design factorial(Map<String, ? extends List<?>> levels) {
+        Objects.requireNonNull(levels, "[Design] levels cannot be null");
+        final var names = new ArrayList<>(levels.keySet());
+        var size = 1;
+        for (var name : names) {
+            final var factor = levels.get(name);
+            if (factor.isEmpty()) {
+                throw new IllegalArgumentException("[Design] No levels for factor: " + name);
+            }
+            size = Math.multiplyExact(size, factor.size());
+        }
+        final var points = new ArrayList<Point>(size);
+        final var indices = new int[names.size()];
+        for (int p = 0; p < size; p++) {
+            final var parameters = new LinkedHashMap<String, Object>();
+            for (int f = 0; f < names.size(); f++) {
+                parameters.put(names.get(f), levels.get(names.get(f)).get(indices[f]));
+            }
+            points.add(new Point(p, Collections.unmodifiableMap(parameters)));
+            for (int f = names.size() - 1; f >= 0; f--) {
+                if (++indices[f] < levels.get(names.get(f)).size()) {
+                    break;
+                }
+                indices[f] = 0;
+            }
+        }
+        return new Design(points);
+    }
+
+    /**
+     * A Latin hypercube sample of the parameter space: each factor's range is
+     * divided into as many equal strata as there are samples, and each stratum
+     * of each factor is sampled exactly once, at a random value within it
+     *
+     * @param ranges  the {@code [min, max]} range of each factor, by factor name
+     * @param samples the number of points
+     * @param seed    the seed of the sampling
+     */
+    public static Design latinHypercube(Map<String, double[]> ranges, int samples, long seed) {
+        Objects.requireNonNull(ranges, "[Design] ranges cannot be null");
+        if (samples < 1) {
+            throw new IllegalArgumentException("[Design] samples must be positive: " + samples);
+        }
+        final var random = new SplittableRandom(seed);
+        final var names = new ArrayList<>(ranges.keySet());
+        final var values = new double[names.size()][samples];
+        for (int f = 0; f < names.size(); f++) {
+            final var range = ranges.get(names.get(f));
+            if (range.length != 2 || !(range[0] <= range[1])) {
+                throw new IllegalArgumentException("[Design] Invalid range for factor: " + names.get(f));
+            }
+            final var strata = new int[samples];
+            for (int i = 0; i < samples; i++) {
+                strata[i] = i;
+            }
+            for (int i = samples - 1; i > 0; i--) {
+                final var j = random.nextInt(i + 1);
+                final var swap = strata[i];
+                strata[i] = strata[j];
+                strata[j] = swap;
+            }
+            for (int i = 0; i < samples; i++) {
+                values[f][i] = range[0] + (strata[i] + random.nextDouble()) / samples * (range[1] - range[0]);
+            }
+        }
+        final var points = new ArrayList<Point>(samples);
+        for (int i = 0; i < samples; i++) {
+            final var parameters = new LinkedHashMap<String, Object>();
+            for (int f = 0; f < names.size(); f++) {
+                parameters.put(names.get(f), values[f][i]);
+            }
+            points.add(new Point(i, Collections.unmodifiableMap(parameters)));
+        }
+        return new Design(points);
+    }
+
+    /**
+     * A design of the given points
+     *
+     * @param points the parameter values of each point, by name
+     */
+    public static Design of(List<? extends Map<String, ?>> points) {
+        Objects.requireNonNull(points, "[Design] points cannot be null");
+        final var design = new ArrayList<Point>(points.size());
+        for (var parameters : points) {
+            design.add(new Point(design.size(), Collections.unmodifiableMap(new LinkedHashMap<>(parameters))));
+        }
+        return new Design(design);
+    }
+
+    /**
+     * Answer the names of the parameters of the design, in the order they first
+     * appear in its points
+     */
+    public List<String> parameters() {
+        final var names = new LinkedHashSet<String>();
+        for (var point : points) {
+            names.addAll(point.parameters().keySet());
+        }
+        return List.copyOf(names);
+    }
+
+    /**
+     * Answer the number of points of the design
+     */
+    public int size() {
+        return points.size();
+    }
+}
@@ -0,0 +1,412 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.hellblazer.primeMover.Design.Point;
+import com.hellblazer.primeMover.Simulation.SimulationResult;
+import com.hellblazer.primeMover.api.SimulationException;
+
+/**
+ * A designed experiment: runs replications of a model at each point of a
+ * {@link Design}, concurrently, with the settings of a
+ * {@link Simulation.Builder}.
+ * <p>
+ * Example usage:
+ * <pre>{@code
+ * var results = new Experiment(Simulation.newBuilder().withSeed(12345L).withMaxTime(10000L))
+ *         .withDesign(Design.factorial(levels))
+ *         .withReplications(10)
+ *         .withOutput(Path.of("results.csv"))
+ *         .run(point -> simulation -> {
+ *             var bank = new Bank(point.intValue("servers"), point.doubleValue("load"), simulation.random());
+ *             return () -> Map.of("wait", bank.meanWait());
+ *         });
+ * }</pre>
+ * <h2>Scheduling</h2>
+ * <p>
+ * The runs - each replication at each point - are executed by
+ * {@link Simulation.Builder#withParallelism(int) parallelism} threads, each
+ * taking the run expected to take longest from the pending runs, so the long
+ * runs do not trail at the end of the experiment. The expected wall clock time
+ * of a run is the mean time of the completed runs at its point, or failing
+ * that of the completed runs at the nearest point of the design; until any
+ * run has completed, runs are taken in design order. The seed of each run is
+ * drawn from the configured seed in design order, so the results do not depend
+ * on the order the runs are executed in.
+ * <h2>Output</h2>
+ * <p>
+ * If an output file is configured, a row is appended and flushed as each run
+ * completes, in CSV format with a header row. The columns are the point index,
+ * the replication, the {@link Design#parameters() parameters} of the design
+ * - empty where a point lacks one - the run's seed, simulated end
+ * time, event count and wall clock nanoseconds, then its metrics: the
+ * {@link #withMetrics(String...) declared} metrics, or by default those the
+ * first completed run reported, in name order.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class Experiment {
+
+    /**
+     * A run of a replication at a point of the design
+     */
+    private static final class Run {
+        final Point point;
+        final int   replication;
+        final long  seed;
+
+        Run(Point point, int replication, long seed) {
+            this.point = point;
+            this.replication = replication;
+            this.seed = seed;
+        }
+    }
+
+    /**
+     * Hands out the pending runs, longest expected first
+     */
+    private final class Scheduler {
+        private final double[]     closest;
+        private final long[]       count;
+        private final List<String> names;
+        private final int[]        nearest;
+        private final List<Run>    pending;
+        private final double[]     scale;
+        private final long[]       total;
+
+        Scheduler(List<Run> runs, List<String> names) {
+            this.pending = new ArrayList<>(runs);
+            this.names = names;
+            this.total = new long[design.size()];
+            this.count = new long[design.size()];
+            this.nearest = new int[design.size()];
+            this.closest = new double[design.size()];
+            Arrays.fill(nearest, -1);
+            Arrays.fill(closest, Double.POSITIVE_INFINITY);
+            this.scale = scales();
+        }
+
+        synchronized void completed(Point point, long nanos) {
+            final var index = point.index();
+            total[index] += nanos;
+            if (count[index]++ > 0) {
+                return;
+            }
+            // Newly measured: the nearest measured point of itself, and perhaps
+            // of the points yet to be measured
+            nearest[index] = index;
+            closest[index] = 0;
+            for (int i = 0; i < count.length; i++) {
+                if (count[i] == 0) {
+                    final var distance = distance(design.points().get(i), point);
+                    if (distance < closest[i] || (distance == closest[i] && index < nearest[i])) {
+                        closest[i] = distance;
+                        nearest[i] = index;
+                    }
+                }
+            }
+        }
+
+        synchronized Run next() {
+            if (pending.isEmpty()) {
+                return null;
+            }
+            var best = 0;
+            var longest = expected(pending.get(0).point);
+            for (int i = 1; i < pending.size(); i++) {
+                final var expected = expected(pending.get(i).point);
+                if (expected > longest) {
+                    best = i;
+                    longest = expected;
+                }
+            }
+            return pending.remove(best);
+        }
+
+        private double distance(Point a, Point b) {
+            var distance = 0.0;
+            for (int f = 0; f < names.size(); f++) {
+                final var x = a.parameters().get(names.get(f));
+                final var y = b.parameters().get(names.get(f));
+                if (x instanceof Number nx && y instanceof Number ny) {
+                    final var d = (nx.doubleValue() - ny.doubleValue()) / scale[f];
+                    distance += d * d;
+                } else if (!Objects.equals(x, y)) {
+                    distance += 1;
+                }
+            }
+            return distance;
+        }
+
+        /**
+         * Answer the expected nanoseconds of a run at the point: the mean of
+         * the runs at the point, or at the nearest measured point of the design,
+         * or -1 if unknown
+         */
+        private double expected(Point point) {
+            final var measured = nearest[point.index()];
+            return measured < 0 ? -1 : (double) total[measured] / count[measured];
+        }
+
+        /**
+         * Answer the range of each numeric parameter across the design, to
+         * normalize the distance between points
+         */
+        private double[] scales() {
+            final var scales = new double[names.size()];
+            for (int f = 0; f < names.size(); f++) {
+                var min = Double.POSITIVE_INFINITY;
+                var max = Double.NEGATIVE_INFINITY;
+                for (var point : design.points()) {
+                    if (point.parameters().get(names.get(f)) instanceof Number value) {
+                        min = Math.min(min, value.doubleValue());
+                        max = Math.max(max, value.doubleValue());
+                    }
+                }
+                scales[f] = max > min ? max - min : 1;
+            }
+            return scales;
+        }
+    }
+
+    private final Simulation.Builder builder;
+    private Design                   design       = new Design(List.of());
+    private List<String>             metrics      = null;
+    private Path                     output       = null;
+    private int                      replications = 1;
+
+    /**
+     * @param builder the settings of the simulations of the experiment
+     */
+    public Experiment(Simulation.Builder builder) {
+        this.builder = Objects.requireNonNull(builder, "builder must not be null");
+    }
+
+    /**
+     * Run the experiment: the configured replications of the model at each point
+     * of the design.
+     *
+     * @param factory the factory of the model at each point of the design
+     * @return the aggregated results of the replications at each point, in
+     *         design order
+     * @throws SimulationException if a run fails, or the output cannot be
+     *                             written; runs not yet started are abandoned
+     */
+    public Map<Point, ReplicationSummary> run(Function<Point, Replication> factory) throws SimulationException {
+        Objects.requireNonNull(factory, "factory must not be null");
+        final var seeds = builder.seeds();
+        final var runs = new ArrayList<Run>(design.size() * replications);
+        final var summaries = new ArrayList<ReplicationSummary.Accumulator>(design.size());
+        for (var point : design.points()) {
+            summaries.add(new ReplicationSummary.Accumulator(summary -> {
+            }));
+            for (int r = 0; r < replications; r++) {
+                runs.add(new Run(point, r, seeds.nextLong()));
+            }
+        }
+        final var parameters = design.parameters();
+        final var scheduler = new Scheduler(runs, parameters);
+        final var prefix = builder.name();
+        final var failed = new AtomicReference<Throwable>();
+
+        try (var writer = output == null ? null : Files.newBufferedWriter(output)) {
+            final var table = new Object() {
+                List<String> columns = metrics;
+
+                synchronized void write(Run run, SimulationResult result, long nanos,
+                                        Map<String, ? extends Number> observed) throws IOException {
+                    if (writer == null) {
+                        return;
+                    }
+                    if (columns == null) {
+                        columns = observed == null ? List.of() : List.copyOf(new TreeSet<>(observed.keySet()));
+                        header(writer, parameters, columns);
+                    }
+                    final var row = new StringBuilder();
+                    row.append(run.point.index()).append(',').append(run.replication);
+                    for (var parameter : parameters) {
+                        row.append(',');
+                        final var value = run.point.parameters().get(parameter);
+                        if (value != null) {
+                            row.append(escape(String.valueOf(value)));
+                        }
+                    }
+                    row.append(',').append(run.seed);
+                    row.append(',').append(result.simulationEnd());
+                    row.append(',').append(result.totalEvents());
+                    row.append(',').append(nanos);
+                    for (var column : columns) {
+                        row.append(',');
+                        final var value = observed == null ? null : observed.get(column);
+                        if (value != null) {
+                            row.append(value);
+                        }
+                    }
+                    writer.write(row.toString());
+                    writer.newLine();
+                    writer.flush();
+                }
+            };
+            if (writer != null && metrics != null) {
+                header(writer, parameters, metrics);
+            }
+
+            final var threads = Thread.ofPlatform().name("Experiment ", 0).factory();
+            final var workers = Math.max(1, Math.min(builder.parallelism(), runs.size()));
+            final var futures = new ArrayList<Future<?>>(workers);
+            try (var executor = Executors.newFixedThreadPool(workers, threads)) {
+                for (int w = 0; w < workers; w++) {
+                    futures.add(executor.submit(() -> {
+                        Run run;
+                        while (failed.get() == null && (run = scheduler.next()) != null) {
+                            final var name = prefix + " [" + run.point.index() + ":" + run.replication + "]";
+                            final var model = factory.apply(run.point);
+                            try (var simulation = builder.build(name, new Random(run.seed))) {
+                                final var reporter = new AtomicReference<Supplier<Map<String, ? extends Number>>>();
+                                final var start = System.nanoTime();
+                                final var result = simulation.execute(() -> reporter.set(model.initialize(simulation)));
+                                final var nanos = System.nanoTime() - start;
+                                final var supplier = reporter.get();
+                                final var observed = supplier == null ? null : supplier.get();
+                                scheduler.completed(run.point, nanos);
+                                summaries.get(run.point.index()).add(result, observed);
+                                table.write(run, result, nanos, observed);
+                            } catch (Throwable t) {
+                                failed.compareAndSet(null, t);
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                for (var future : futures) {
+                    try {
+                        future.get();
+                    } catch (ExecutionException e) {
+                        failed.compareAndSet(null, e.getCause());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        failed.compareAndSet(null, e);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new SimulationException("Cannot write experiment output: " + output, e);
+        }
+        if (failed.get() != null) {
+            throw new SimulationException("Experiment failed", failed.get());
+        }
+
+        final var results = new LinkedHashMap<Point, ReplicationSummary>();
+        for (var point : design.points()) {
+            results.put(point, summaries.get(point.index()).summary());
+        }
+        return results;
+    }
+
+    /**
+     * Sets the design of the experiment.
+     *
+     * @param design the points to run the model at
+     * @return this experiment for chaining
+     */
+    public Experiment withDesign(Design design) {
+        this.design = Objects.requireNonNull(design, "design must not be null");
+        return this;
+    }
+
+    /**
+     * Declares the metric columns of the output.
+     *
+     * @param metrics the names of the metrics, in column order
+     * @return this experiment for chaining
+     */
+    public Experiment withMetrics(String... metrics) {
+        this.metrics = List.of(metrics);
+        return this;
+    }
+
+    /**
+     * Sets the file the results of each run are written to as the run completes.
+     * An existing file is replaced.
+     *
+     * @param output the path of the CSV file, or null for no output
+     * @return this experiment for chaining
+     */
+    public Experiment withOutput(Path output) {
+        this.output = output;
+        return this;
+    }
+
+    /**
+     * Sets the number of replications run at each point of the design.
+     *
+     * @param replications the replications per point, default 1
+     * @return this experiment for chaining
+     * @throws IllegalArgumentException if replications is not positive
+     */
+    public Experiment withReplications(int replications) {
+        if (replications < 1) {
+            throw new IllegalArgumentException("replications must be positive: " + replications);
+        }
+        this.replications = replications;
+        return this;
+    }
+
+    private static String escape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static void header(BufferedWriter writer, List<String> parameters,
+                               List<String> columns) throws IOException {
+        final var header = new StringBuilder("point,replication");
+        for (var parameter : parameters) {
+            header.append(',').append(escape(parameter));
+        }
+        header.append(",seed,simulation_end,total_events,wall_nanos");
+        for (var column : columns) {
+            header.append(',').append(escape(column));
+        }
+        writer.write(header.toString());
+        writer.newLine();
+        writer.flush();
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The model of a replicated simulation: sets up each replication, and reports
+ * its metrics once it has run. See
+ * {@link Simulation.Builder#replicate(int, Replication)}.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+@FunctionalInterface
+public interface Replication {
+
+    /**
+     * Set up one replication of the model, scheduling its initial events. Called
+     * on the thread running the replication, with the replication's controller
+     * bound to the thread. The model must draw its random numbers from the
+     * simulation's {@link Simulation#random()}, and must not share mutable state
+     * with other replications.
+     *
+     * @param simulation the replication's simulation
+     * @return the supplier of the replication's metrics, called once the
+     *         replication has run; may answer null or an empty map
+     */
+    Supplier<Map<String, ? extends Number>> initialize(Simulation simulation);
+}
@@ -0,0 +1,226 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import com.hellblazer.primeMover.Simulation.SimulationResult;
+
+/**
+ * The aggregated results of independent replications of a simulation, as run
+ * by {@link Simulation.Builder#replicate(int, Replication)}: the summed event
+ * statistics of the replications, and the sample statistics of the metrics
+ * each replication reports.
+ *
+ * @param replications the number of replications aggregated
+ * @param totalEvents  the total number of events processed by the replications
+ * @param spectrum     map of event signatures to the summed invocation counts
+ * @param duration     the statistics of the simulated duration of the
+ *                     replications
+ * @param metrics      map of metric names to their statistics across the
+ *                     replications reporting them
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public record ReplicationSummary(int replications, long totalEvents, Map<String, Long> spectrum, Statistic duration,
+                                 Map<String, Statistic> metrics) {
+
+    /**
+     * Sample statistics of a metric across replications
+     *
+     * @param count    the number of observations
+     * @param mean     the sample mean
+     * @param variance the unbiased sample variance, 0 for fewer than two
+     *                 observations
+     * @param min      the smallest observation
+     * @param max      the largest observation
+     */
+    public record Statistic(long count, double mean, double variance, double min, double max) {
+
+        /**
+         * Answer the half width of the confidence interval of the mean, using the
+         * Student t distribution
+         *
+         * @param confidence the confidence level, e.g. 0.95
+         * @return the half width, or NaN for fewer than two observations
+         */
+        public double halfWidth(double confidence) {
+            if (!(confidence > 0 && confidence < 1)) {
+                throw new IllegalArgumentException("[ReplicationSummary] confidence must be in (0, 1): " + confidence);
+            }
+            if (count < 2) {
+                return Double.NaN;
+            }
+            return studentT(0.5 + confidence / 2, count - 1) * standardError();
+        }
+
+        /**
+         * Answer the lower bound of the confidence interval of the mean
+         *
+         * @param confidence the confidence level, e.g. 0.95
+         */
+        public double lower(double confidence) {
+            return mean - halfWidth(confidence);
+        }
+
+        /**
+         * Answer the sample standard deviation
+         */
+        public double standardDeviation() {
+            return Math.sqrt(variance);
+        }
+
+        /**
+         * Answer the standard error of the mean
+         */
+        public double standardError() {
+            return Math.sqrt(variance / count);
+        }
+
+        /**
+         * Answer the upper bound of the confidence interval of the mean
+         *
+         * @param confidence the confidence level, e.g. 0.95
+         */
+        public double upper(double confidence) {
+            return mean + halfWidth(confidence);
+        }
+    }
+
+    /**
+     * Accumulates the results of replications as they complete, notifying the
+     * progress listener of each new summary. Thread-safe.
+     */
+    static final class Accumulator {
+        /**
+         * Welford's running mean and sum of squared deviations
+         */
+        private static final class Running {
+            long   count;
+            double m2;
+            double max = Double.NEGATIVE_INFINITY;
+            double mean;
+            double min = Double.POSITIVE_INFINITY;
+
+            void add(double x) {
+                count++;
+                final var delta = x - mean;
+                mean += delta / count;
+                m2 += delta * (x - mean);
+                min = Math.min(min, x);
+                max = Math.max(max, x);
+            }
+
+            Statistic statistic() {
+                return new Statistic(count, mean, count > 1 ? m2 / (count - 1) : 0, min, max);
+            }
+        }
+
+        private final Running                      duration = new Running();
+        private final Map<String, Running>         metrics  = new HashMap<>();
+        private final Consumer<ReplicationSummary> progress;
+        private int                                replications;
+        private final Map<String, Long>            spectrum = new HashMap<>();
+        private long                               totalEvents;
+
+        Accumulator(Consumer<ReplicationSummary> progress) {
+            this.progress = progress;
+        }
+
+        synchronized void add(SimulationResult result, Map<String, ? extends Number> observed) {
+            replications++;
+            totalEvents += result.totalEvents();
+            duration.add(result.duration());
+            result.spectrum().forEach((signature, count) -> spectrum.merge(signature, count, Long::sum));
+            if (observed != null) {
+                observed.forEach((metric, value) -> metrics.computeIfAbsent(metric, m -> new Running())
+                                                           .add(value.doubleValue()));
+            }
+            progress.accept(summary());
+        }
+
+        synchronized ReplicationSummary summary() {
+            final var statistics = new TreeMap<String, Statistic>();
+            metrics.forEach((metric, running) -> statistics.put(metric, running.statistic()));
+            return new ReplicationSummary(replications, totalEvents, Collections.unmodifiableMap(new TreeMap<>(spectrum)),
+                                          duration.statistic(), Collections.unmodifiableMap(statistics));
+        }
+    }
+
+    /**
+     * Answer the statistics of the metric
+     *
+     * @param name the name of the metric
+     * @return the statistics, or null if no replication reported the metric
+     */
+    public Statistic metric(String name) {
+        return metrics.get(name);
+    }
+
+    /**
+     * Answer the quantile of the standard normal distribution, using Acklam's
+     * rational approximation (relative error below 1.2e-9)
+     */
+    static double normal(double p) {
+        final double plow = 0.02425;
+        if (p < plow) {
+            final var q = Math.sqrt(-2 * Math.log(p));
+            return (((((-7.784894002430293e-03 * q - 3.223964580411365e-01) * q - 2.400758277161838e+00) * q -
+                      2.549732539343734e+00) * q + 4.374664141464968e+00) * q + 2.938163982698783e+00) /
+                   ((((7.784695709041462e-03 * q + 3.224671290700398e-01) * q + 2.445134137142996e+00) * q +
+                     3.754408661907416e+00) * q + 1);
+        }
+        if (p > 1 - plow) {
+            return -normal(1 - p);
+        }
+        final var q = p - 0.5;
+        final var r = q * q;
+        return (((((-3.969683028665376e+01 * r + 2.209460984245205e+02) * r - 2.759285104469687e+02) * r +
+                  1.383577518672690e+02) * r - 3.066479806614716e+01) * r + 2.506628277459239e+00) * q /
+               (((((-5.447609879822406e+01 * r + 1.615858368580409e+02) * r - 1.556989798598866e+02) * r +
+                  6.680131188771972e+01) * r - 1.328068155288572e+01) * r + 1);
+    }
+
+    /**
+     * Answer the quantile of the Student t distribution, using the Cornish-Fisher
+     * expansion about the normal quantile. Exact for 1 and 2 degrees of freedom.
+     */
+    static double studentT(double p, long degreesOfFreedom) {
+        if (degreesOfFreedom == 1) {
+            return Math.tan(Math.PI * (p - 0.5));
+        }
+        if (degreesOfFreedom == 2) {
+            final var a = 4 * p * (1 - p);
+            return 2 * (p - 0.5) * Math.sqrt(2 / a);
+        }
+        final var z = normal(p);
+        final var n = (double) degreesOfFreedom;
+        final var z2 = z * z;
+        final var g1 = (z2 + 1) * z / 4;
+        final var g2 = ((5 * z2 + 16) * z2 + 3) * z / 96;
+        final var g3 = (((3 * z2 + 19) * z2 + 17) * z2 - 15) * z / 384;
+        final var g4 = ((((79 * z2 + 776) * z2 + 1482) * z2 - 1920) * z2 - 945) * z / 92160;
+        return z + g1 / n + g2 / (n * n) + g3 / (n * n * n) + g4 / (n * n * n * n);
+    }
+}
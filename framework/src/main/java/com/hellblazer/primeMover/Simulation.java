@@ -23,9 +23,17 @@ import com.hellblazer.primeMover.api.SimulationException;
 import com.hellblazer.primeMover.controllers.SimulationController;
 import com.hellblazer.primeMover.runtime.Kairos;
 
+import java.util.ArrayList;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * A simulation instance with fluent configuration via the Builder pattern.
@@ -43,6 +51,20 @@ import java.util.Random;
  *     // Use simulation.random() for reproducible randomness
  * }
  * }</pre>
+ * <p>
+ * Independent replications run concurrently, each with its own controller and
+ * random stream derived from the seed:
+ * <pre>{@code
+ * var summary = Simulation.newBuilder()
+ *         .withSeed(12345L)
+ *         .withMaxTime(10000L)
+ *         .replicate(1000, simulation -> {
+ *             var queue = new BankQueue(simulation.random());
+ *             return () -> Map.of("wait", queue.meanWait());
+ *         });
+ * var wait = summary.metric("wait");
+ * System.out.println(wait.mean() + " +/- " + wait.halfWidth(0.95));
+ * }</pre>
  *
  * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
  */
@@ -57,10 +79,15 @@ public class Simulation implements AutoCloseable {
     private final boolean              statisticsEnabled;
 
     private Simulation(Builder builder) {
-        this.name = builder.name != null ? builder.name : DEFAULT_NAME;
+        this(builder, builder.name != null ? builder.name : DEFAULT_NAME,
+             builder.seed != null ? new Random(builder.seed) : new Random());
+    }
+
+    private Simulation(Builder builder, String name, Random random) {
+        this.name = name;
         this.maxTime = builder.maxTime;
         this.statisticsEnabled = builder.statisticsEnabled;
-        this.random = builder.seed != null ? new Random(builder.seed) : new Random();
+        this.random = random;
 
         this.controller = new SimulationController();
         this.controller.setName(this.name);
@@ -159,6 +186,27 @@ public class Simulation implements AutoCloseable {
         controller.close();
     }
 
+    /**
+     * Run the simulation on the calling thread: the initializer sets up the
+     * initial events, then the event loop runs until completion.
+     */
+    SimulationResult execute(Runnable initializer) throws SimulationException {
+        Kairos.setController(controller);
+        try {
+            initializer.run();
+            controller.eventLoop();
+        } finally {
+            Kairos.setController(null);
+        }
+
+        return new SimulationResult(
+            controller.getSimulationStart(),
+            controller.getSimulationEnd(),
+            controller.getTotalEvents(),
+            Map.copyOf(controller.getSpectrum())
+        );
+    }
+
     /**
      * Builder for creating Simulation instances with fluent configuration.
      */
@@ -167,6 +215,7 @@ public class Simulation implements AutoCloseable {
         private Long    seed              = null;
         private long    maxTime           = Long.MAX_VALUE;
         private boolean statisticsEnabled = true;
+        private int     parallelism       = Runtime.getRuntime().availableProcessors();
 
         private Builder() {
         }
@@ -220,6 +269,23 @@ public class Simulation implements AutoCloseable {
             return this;
         }
 
+        /**
+         * Sets the number of replications {@link #replicate(int, Replication)}
+         * runs concurrently.
+         *
+         * @param parallelism the number of threads, default the number of
+         *                    available processors
+         * @return this builder for chaining
+         * @throws IllegalArgumentException if parallelism is not positive
+         */
+        public Builder withParallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
         /**
          * Builds a new Simulation instance with the configured settings.
          *
@@ -229,6 +295,35 @@ public class Simulation implements AutoCloseable {
             return new Simulation(this);
         }
 
+        /**
+         * Builds a new Simulation instance with the configured settings, but the
+         * given name and random stream
+         */
+        Simulation build(String name, Random random) {
+            return new Simulation(this, name, random);
+        }
+
+        /**
+         * Answer the name of the simulation, or the default name
+         */
+        String name() {
+            return name != null ? name : DEFAULT_NAME;
+        }
+
+        /**
+         * Answer the number of simulations to run concurrently
+         */
+        int parallelism() {
+            return parallelism;
+        }
+
+        /**
+         * Answer the random stream of seeds derived from the configured seed
+         */
+        SplittableRandom seeds() {
+            return new SplittableRandom(seed != null ? seed : new Random().nextLong());
+        }
+
         /**
          * Builds and runs a simulation with the configured settings.
          * The initializer runnable is executed to set up initial events,
@@ -243,27 +338,94 @@ public class Simulation implements AutoCloseable {
             Objects.requireNonNull(initializer, "initializer must not be null");
 
             try (var simulation = build()) {
-                var controller = simulation.controller();
-                Kairos.setController(controller);
-                try {
-                    initializer.run();
-                    controller.eventLoop();
-                } finally {
-                    Kairos.setController(null);
-                }
-
-                return new SimulationResult(
-                    controller.getSimulationStart(),
-                    controller.getSimulationEnd(),
-                    controller.getTotalEvents(),
-                    Map.copyOf(controller.getSpectrum())
-                );
+                return simulation.execute(initializer);
             } catch (SimulationException e) {
                 throw e;
             } catch (Exception e) {
                 throw new SimulationException("Error during simulation", e);
             }
         }
+
+        /**
+         * Runs independent replications of the model with the configured
+         * settings, concurrently. See
+         * {@link #replicate(int, Replication, Consumer)}.
+         *
+         * @param replications the number of replications
+         * @param model        the model, setting up each replication
+         * @return the aggregated results of the replications
+         * @throws SimulationException if a replication fails
+         */
+        public ReplicationSummary replicate(int replications, Replication model) throws SimulationException {
+            return replicate(replications, model, summary -> {
+            });
+        }
+
+        /**
+         * Runs independent replications of the model with the configured
+         * settings, concurrently on {@link #withParallelism(int) parallelism}
+         * threads. Each replication has its own simulation, with its own
+         * controller bound to the thread running it, and its own random stream:
+         * the seed of replication i is the i-th value drawn from a
+         * {@link SplittableRandom} seeded with the configured seed, so the
+         * replications are reproducible whatever order they run in. Replications
+         * are named after the configured name and their index.
+         * <p>
+         * As each replication completes, its results are aggregated and the
+         * progress listener is notified of the new summary, in order of
+         * completion, on the thread that ran the replication.
+         *
+         * @param replications the number of replications
+         * @param model        the model, setting up each replication
+         * @param progress     notified of the summary as each replication
+         *                     completes
+         * @return the aggregated results of all the replications
+         * @throws SimulationException      if a replication fails; replications
+         *                                  not yet started are cancelled
+         * @throws IllegalArgumentException if replications is not positive
+         */
+        public ReplicationSummary replicate(int replications, Replication model,
+                                            Consumer<ReplicationSummary> progress) throws SimulationException {
+            if (replications < 1) {
+                throw new IllegalArgumentException("replications must be positive: " + replications);
+            }
+            Objects.requireNonNull(model, "model must not be null");
+            Objects.requireNonNull(progress, "progress must not be null");
+
+            final var seeds = seeds();
+            final var prefix = name();
+            final var accumulator = new ReplicationSummary.Accumulator(progress);
+            final var futures = new ArrayList<Future<?>>(replications);
+            final var threads = Thread.ofPlatform().name("Replication ", 0).factory();
+            try (var executor = Executors.newFixedThreadPool(Math.min(parallelism, replications), threads)) {
+                for (int i = 0; i < replications; i++) {
+                    final var replicationName = prefix + " [" + i + "]";
+                    final var replicationSeed = seeds.nextLong();
+                    futures.add(executor.submit(() -> {
+                        try (var replication = build(replicationName, new Random(replicationSeed))) {
+                            final var reporter = new AtomicReference<Supplier<Map<String, ? extends Number>>>();
+                            final var result = replication.execute(() -> reporter.set(model.initialize(replication)));
+                            final var metrics = reporter.get();
+                            accumulator.add(result, metrics == null ? null : metrics.get());
+                        }
+                        return null;
+                    }));
+                }
+                for (int i = 0; i < replications; i++) {
+                    try {
+                        futures.get(i).get();
+                    } catch (ExecutionException e) {
+                        futures.forEach(f -> f.cancel(true));
+                        throw new SimulationException("Replication " + i + " failed", e.getCause());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        futures.forEach(f -> f.cancel(true));
+                        throw new SimulationException("Interrupted running replications", e);
+                    }
+                }
+            }
+            return accumulator.summary();
+        }
     }
 
     /**
@@ -277,8 +439,8 @@ public class Simulation implements AutoCloseable {
     public record SimulationResult(
         long simulationStart,
         long simulationEnd,
-        int totalEvents,
-        Map<String, Integer> spectrum
+        long totalEvents,
+        Map<String, Long> spectrum
     ) {
         /**
          * Returns the simulation duration (end time - start time).
@@ -17,13 +17,18 @@
 
 package com.hellblazer.primeMover.builders;
 
+import com.hellblazer.primeMover.controllers.ConservativeController;
 import com.hellblazer.primeMover.controllers.RealTimeController;
 import com.hellblazer.primeMover.controllers.SimulationController;
 import com.hellblazer.primeMover.controllers.SteppingController;
+import com.hellblazer.primeMover.controllers.TimeWarpController;
 import com.hellblazer.primeMover.runtime.Devi;
+import com.hellblazer.primeMover.runtime.EventImpl;
 import com.hellblazer.primeMover.runtime.Kairos;
 
 import java.lang.reflect.Constructor;
+import java.util.Queue;
+import java.util.function.Supplier;
 
 /**
  * Fluent builder for creating and configuring simulation controllers.
@@ -54,7 +59,12 @@ import java.lang.reflect.Constructor;
  *   <li>Track spectrum: {@code true} (useful for demos and analysis)</li>
  *   <li>Track event sources: {@code false} (GC overhead)</li>
  *   <li>Debug events: {@code false} (expensive)</li>
+ *   <li>Inline events: {@code false}</li>
+ *   <li>Dedicated carrier: {@code false}</li>
+ *   <li>Worker partitions: {@code 0} (a new thread per event)</li>
+ *   <li>Batch evaluation: {@code false}</li>
  *   <li>Start time: {@code 0}</li>
+ *   <li>Event queue: the controller's default ({@link java.util.PriorityQueue})</li>
  * </ul>
  *
  * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
@@ -65,8 +75,13 @@ public class SimulationBuilder {
     private boolean                   trackSpectrum     = true; // Enable by default for demos
     private boolean                   trackEventSources = false; // Expensive, off by default
     private boolean                   debugEvents       = false; // Very expensive, off by default
+    private boolean                   inlineEvents      = false;
+    private boolean                   dedicatedCarrier  = false;
+    private int                       workerPartitions  = 0;
+    private boolean                   batchEvaluation   = false;
     private Class<? extends Devi>     controllerType    = SimulationController.class;
     private String                    name              = null; // Will use controller default
+    private Supplier<? extends Queue<EventImpl>> eventQueue = null; // Will use controller default
 
     /**
      * Private constructor - use {@link #builder()} to create instances.
@@ -144,12 +159,69 @@ public class SimulationBuilder {
         return this;
     }
 
+    /**
+     * Configure whether events that can never park are evaluated directly on the
+     * controller thread instead of on a virtual thread of their own. See
+     * {@link Devi#setInlineEvents(boolean)}.
+     *
+     * @param inline true to evaluate non-blocking events inline (default: false)
+     * @return this builder for fluent chaining
+     */
+    public SimulationBuilder inlineEvents(boolean inline) {
+        this.inlineEvents = inline;
+        return this;
+    }
+
+    /**
+     * Configure whether the virtual threads evaluating events run on a single
+     * carrier thread dedicated to the controller, rather than on the JVM's
+     * shared carrier pool. See {@link Devi#setDedicatedCarrier(boolean)}.
+     *
+     * @param dedicated true to use a dedicated carrier (default: false)
+     * @return this builder for fluent chaining
+     */
+    public SimulationBuilder dedicatedCarrier(boolean dedicated) {
+        this.dedicatedCarrier = dedicated;
+        return this;
+    }
+
+    /**
+     * Configure the number of partitions of long lived, entity affine worker
+     * threads evaluating events. See {@link Devi#setWorkerPartitions(int)}.
+     *
+     * @param partitions the number of partitions (default: 0, a new thread per
+     *                   event)
+     * @return this builder for fluent chaining
+     */
+    public SimulationBuilder workerPartitions(int partitions) {
+        this.workerPartitions = partitions;
+        return this;
+    }
+
+    /**
+     * Configure whether the event loop evaluates all the events of the earliest
+     * pending time as a batch. Only applies to {@link SimulationController}. See
+     * {@link SimulationController#setBatchEvaluation(boolean)}.
+     *
+     * @param batch true to evaluate the events of each time as a batch (default:
+     *              false)
+     * @return this builder for fluent chaining
+     */
+    public SimulationBuilder batchEvaluation(boolean batch) {
+        this.batchEvaluation = batch;
+        return this;
+    }
+
     /**
      * Set the controller type to create. Supported types:
      * <ul>
      *   <li>{@link SimulationController} - Standard discrete event simulation</li>
      *   <li>{@link RealTimeController} - Real-time paced simulation</li>
      *   <li>{@link SteppingController} - Step-through simulation for debugging</li>
+     *   <li>{@link TimeWarpController} - Optimistic parallel simulation, with a
+     *   logical process per available processor</li>
+     *   <li>{@link ConservativeController} - Conservative parallel simulation
+     *   within lookahead windows, with a partition per available processor</li>
      * </ul>
      *
      * @param type the controller class (default: {@link SimulationController})
@@ -172,6 +244,34 @@ public class SimulationBuilder {
         return this;
     }
 
+    /**
+     * Set the pending event set implementation used by the controller. For large
+     * pending event populations, a
+     * {@link com.hellblazer.primeMover.controllers.CalendarQueue} gives amortized
+     * O(1) hold time, versus the O(log n) of the default
+     * {@link java.util.PriorityQueue}; an
+     * {@link com.hellblazer.primeMover.controllers.EventHeap} keeps O(log n) but
+     * with deterministic FIFO ordering of simultaneous events and better cache
+     * behavior:
+     *
+     * <pre>{@code
+     * var controller = SimulationBuilder.builder()
+     *     .eventQueue(CalendarQueue::new)
+     *     .build();
+     * }</pre>
+     *
+     * Applies to {@link SimulationController}, {@link SteppingController} and
+     * {@link RealTimeController}, and to custom controller types with a
+     * {@code Queue<EventImpl>} constructor.
+     *
+     * @param eventQueue the supplier of the empty event queue
+     * @return this builder for fluent chaining
+     */
+    public SimulationBuilder eventQueue(Supplier<? extends Queue<EventImpl>> eventQueue) {
+        this.eventQueue = eventQueue;
+        return this;
+    }
+
     /**
      * Build and configure the controller. This method:
      * <ol>
@@ -191,6 +291,7 @@ public class SimulationBuilder {
         controller.setCurrentTime(startTime);
         controller.setTrackEventSources(trackEventSources);
         controller.setDebugEvents(debugEvents);
+        controller.setInlineEvents(inlineEvents);
 
         // Apply controller-specific configuration
         if (controller instanceof SimulationController simController) {
@@ -198,6 +299,7 @@ public class SimulationBuilder {
                 simController.setEndTime(endTime);
             }
             simController.setTrackSpectrum(trackSpectrum);
+            simController.setBatchEvaluation(batchEvaluation);
             if (name != null) {
                 simController.setName(name);
             }
@@ -211,8 +313,28 @@ public class SimulationBuilder {
             if (name != null) {
                 stepController.setName(name);
             }
+        } else if (controller instanceof TimeWarpController twController) {
+            if (endTime != Long.MAX_VALUE) {
+                twController.setEndTime(endTime);
+            }
+            twController.setTrackSpectrum(trackSpectrum);
+            if (name != null) {
+                twController.setName(name);
+            }
+        } else if (controller instanceof ConservativeController conservative) {
+            if (endTime != Long.MAX_VALUE) {
+                conservative.setEndTime(endTime);
+            }
+            conservative.setTrackSpectrum(trackSpectrum);
+            if (name != null) {
+                conservative.setName(name);
+            }
         }
 
+        // After naming, as the carrier thread takes the controller's name
+        controller.setDedicatedCarrier(dedicatedCarrier);
+        controller.setWorkerPartitions(workerPartitions);
+
         // Set as thread-local controller
         Kairos.setController(controller);
 
@@ -230,10 +352,20 @@ public class SimulationBuilder {
             // Handle special cases that require constructor parameters
             if (controllerType == RealTimeController.class) {
                 var constructorName = name != null ? name : "Prime Mover Real-Time Simulation";
+                if (eventQueue != null) {
+                    Constructor<? extends Devi> constructor = controllerType.getConstructor(String.class,
+                                                                                            Queue.class);
+                    return constructor.newInstance(constructorName, eventQueue.get());
+                }
                 Constructor<? extends Devi> constructor = controllerType.getConstructor(String.class);
                 return constructor.newInstance(constructorName);
             }
 
+            if (eventQueue != null) {
+                Constructor<? extends Devi> constructor = controllerType.getConstructor(Queue.class);
+                return constructor.newInstance(eventQueue.get());
+            }
+
             // For SimulationController and SteppingController, use no-arg constructor
             return controllerType.getDeclaredConstructor().newInstance();
         } catch (Exception e) {
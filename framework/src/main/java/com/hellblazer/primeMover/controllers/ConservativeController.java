@@ -0,0 +1,646 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.controllers;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.function.ToIntFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hellblazer.primeMover.annotations.Lookahead;
+import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.api.EventHandle;
+import com.hellblazer.primeMover.api.SimulationException;
+import com.hellblazer.primeMover.runtime.Devi;
+import com.hellblazer.primeMover.runtime.EventImpl;
+import com.hellblazer.primeMover.runtime.Kairos;
+import com.hellblazer.primeMover.runtime.SimulationEnd;
+import com.hellblazer.primeMover.runtime.Spectrum;
+import com.hellblazer.primeMover.runtime.StaticEntityReference;
+
+/**
+ * Conservative parallel discrete event simulation controller, using
+ * synchronous windows (YAWNS).
+ * <p>
+ * Entities are partitioned, and the events of each partition are evaluated on
+ * a thread of its own. The partitions proceed in windows: at the start of each
+ * window they agree on the earliest pending event time T, then each evaluates
+ * its events before T + L, where L is the lookahead - the minimum delay of any
+ * event posted to another partition. No event posted during the window can
+ * then fall within it, so the events of a window are evaluated safely in
+ * parallel, without rollback. Events posted to another partition are queued in
+ * its lock-free mailbox, and delivered at the start of the next window.
+ * <p>
+ * The lookahead of an entity class is declared with the {@link Lookahead}
+ * annotation; entity classes without one have the
+ * {@link #setDefaultLookahead(long) default lookahead} of the controller, 0 unless
+ * set. The lookahead of a window is the smallest lookahead of the entity
+ * classes the controller has seen post or be posted events. An event of an
+ * entity whose lookahead is below that of its window - one reached within the
+ * window by a chain of local events - is deferred to the next window, whose
+ * lookahead then includes it. With a lookahead of 0,
+ * each window evaluates the events of a single time. An event posted to
+ * another partition before the end of the window fails the simulation.
+ * <p>
+ * Within a partition, events are evaluated exactly as by
+ * {@link SimulationController}: the same {@link EventImpl}s, dispatched through
+ * the same generated {@code __invoke}, including blocking events. Restrictions:
+ * <ul>
+ * <li>Entities interact only through events; an entity must not read or write
+ * the state of an entity in another partition directly</li>
+ * <li>Blocking events and cancellable events must target entities of the same
+ * partition; blocking primitives must be shared only within a partition</li>
+ * <li>Static events - {@link Kairos#endSimulation()}, {@link Kairos#run(Runnable)}
+ * - are evaluated by the partition posting them</li>
+ * </ul>
+ * Simultaneous events in different partitions are evaluated in no particular
+ * order. When an event ends the simulation, the other partitions complete the
+ * window they are evaluating.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class ConservativeController extends Devi implements StatisticalController {
+
+    /**
+     * A partition of the entities, evaluating their events on its own thread. The
+     * controller of the events it evaluates.
+     */
+    private final class Partition extends Devi implements Runnable {
+        private final int                              id;
+        private long                                   lookahead = Long.MAX_VALUE;
+        private final ConcurrentLinkedQueue<EventImpl> mailbox   = new ConcurrentLinkedQueue<>();
+        private long                                   next;
+        private final NowLaneQueue                     queue     = new NowLaneQueue(new PriorityQueue<>());
+        private long                                   remote;
+
+        Partition(int id) {
+            super(ConservativeController.this.getEventTypes());
+            this.id = id;
+            this.exclusive = true;
+        }
+
+        @Override
+        public String getName() {
+            return ConservativeController.this.getName() + " [" + id + "]";
+        }
+
+        @Override
+        public long getSimulationEnd() {
+            return ConservativeController.this.getSimulationEnd();
+        }
+
+        @Override
+        public long getSimulationStart() {
+            return ConservativeController.this.getSimulationStart();
+        }
+
+        @Override
+        public Map<String, Long> getSpectrum() {
+            return spectrum.toMap();
+        }
+
+        @Override
+        public long getTotalEvents() {
+            return totalEvents;
+        }
+
+        @Override
+        public void post(EventImpl event) {
+            queue.add(event);
+        }
+
+        @Override
+        public EventHandle postCancellableEvent(long time, EntityReference entity, int event, Object... arguments) {
+            if (route(entity, this) != this) {
+                throw new UnsupportedOperationException("[ConservativeController] Cancellable events must target the same partition: " +
+                                                        entity.__signatureFor(event));
+            }
+            registerSender();
+            register(entity);
+            return super.postCancellableEvent(time, entity, event, arguments);
+        }
+
+        @Override
+        public Object postContinuingEvent(EntityReference entity, int event, Object... arguments) throws Throwable {
+            if (route(entity, this) != this) {
+                throw new UnsupportedOperationException("[ConservativeController] Blocking events must target the same partition: " +
+                                                        entity.__signatureFor(event));
+            }
+            registerSender();
+            register(entity);
+            return super.postContinuingEvent(entity, event, arguments);
+        }
+
+        @Override
+        public void postEvent(EntityReference entity, int event, Object... arguments) {
+            postEvent(getCurrentTime(), entity, event, arguments);
+        }
+
+        @Override
+        public void postEvent(long time, EntityReference entity, int event, Object... arguments) {
+            Objects.requireNonNull(entity, "[ConservativeController] Cannot post event to null entity");
+            final var target = route(entity, this);
+            registerSender();
+            register(entity);
+            if (target == this) {
+                super.postEvent(time, entity, event, arguments);
+                return;
+            }
+            if (time < safeTime) {
+                throw new IllegalStateException("[ConservativeController] Event posted to another partition at " + time +
+                                                " violates the lookahead, the earliest safe time is " + safeTime +
+                                                ": " + entity.__signatureFor(event));
+            }
+            remote++;
+            target.mailbox.add(createEvent(time, entity, event, arguments));
+        }
+
+        @Override
+        public void run() {
+            Kairos.setController(this);
+            try {
+                while (true) {
+                    EventImpl event;
+                    while ((event = mailbox.poll()) != null) {
+                        queue.add(event);
+                    }
+                    final var head = queue.peek();
+                    next = head == null ? Long.MAX_VALUE : head.getTime();
+                    try {
+                        window.await();
+                    } catch (BrokenBarrierException e) {
+                        return;
+                    }
+                    if (finished) {
+                        return;
+                    }
+                    evaluateWindow(Math.min(horizon, endTime));
+                    try {
+                        evaluated.await();
+                    } catch (BrokenBarrierException e) {
+                        return;
+                    }
+                }
+            } catch (Throwable t) {
+                abort(t);
+            } finally {
+                Kairos.setController(null);
+            }
+        }
+
+        @Override
+        protected void cancelled(EventImpl event) {
+            queue.tombstoned();
+        }
+
+        /**
+         * Configure the partition for a simulation run from its controller
+         */
+        private void configure() {
+            setCurrentTime(ConservativeController.this.getCurrentTime());
+            setInlineEvents(ConservativeController.this.isInlineEvents());
+            setTrackEventSources(ConservativeController.this.isTrackEventSources());
+            setDebugEvents(ConservativeController.this.isDebugEvents());
+            trackSpectrum = ConservativeController.this.trackSpectrum;
+        }
+
+        /**
+         * Evaluate the events before the limit
+         */
+        private void evaluateWindow(long limit) {
+            EventImpl current;
+            while ((current = queue.peek()) != null && current.getTime() < limit) {
+                if (!admits(current)) {
+                    return;
+                }
+                queue.poll();
+                try {
+                    evaluate(current);
+                    recordEvent(current);
+                } catch (SimulationEnd | SimulationException e) {
+                    terminated(e, current.getTime());
+                    return;
+                } finally {
+                    current.clearReferences();
+                }
+            }
+        }
+
+        /**
+         * Reset the statistics of the partition, once gathered by its controller
+         */
+        private void reset() {
+            spectrum.clear();
+            totalEvents = 0;
+            remote = 0;
+        }
+
+        /**
+         * Register the lookahead of the event's entity, answering whether the
+         * events it may post to other partitions are safe in the current
+         * window. If not, the event waits for the next window, whose lookahead
+         * includes its entity's.
+         */
+        private boolean admits(EventImpl event) {
+            final var entity = event.getReference();
+            if (entity instanceof StaticEntityReference) {
+                return true;
+            }
+            return saturatedAdd(event.getTime(), register(entity)) >= safeTime;
+        }
+
+        /**
+         * Register the lookahead of the entity, answering it
+         */
+        private long register(EntityReference entity) {
+            if (entity instanceof StaticEntityReference) {
+                return Long.MAX_VALUE;
+            }
+            final var declared = LOOKAHEAD.get(entity.getClass());
+            final var l = declared < 0 ? defaultLookahead : declared;
+            if (l < lookahead) {
+                lookahead = l;
+            }
+            return l;
+        }
+
+        /**
+         * Register the lookahead of the entity whose event is being evaluated:
+         * the sender of the events it posts
+         */
+        private void registerSender() {
+            final var current = (EventImpl) getCurrentEvent();
+            if (current != null) {
+                register(current.getReference());
+            }
+        }
+
+        private Spectrum spectrum() {
+            return spectrum;
+        }
+    }
+
+    /**
+     * The lookahead declared by the entity class, or -1 if undeclared
+     */
+    private static final ClassValue<Long> LOOKAHEAD = new ClassValue<>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            final var declared = type.getAnnotation(Lookahead.class);
+            if (declared == null) {
+                return -1L;
+            }
+            if (declared.value() < 0) {
+                throw new IllegalArgumentException("[ConservativeController] Lookahead of " + type.getName() +
+                                                   " cannot be negative: " + declared.value());
+            }
+            return declared.value();
+        }
+    };
+
+    private static final Logger log = LoggerFactory.getLogger(ConservativeController.class);
+
+    protected long                         endTime           = Long.MAX_VALUE;
+    protected boolean                      simulationRunning = false;
+    private volatile boolean               aborted;
+    private long                           defaultLookahead;
+    private CyclicBarrier                  evaluated;
+    private Throwable                      failure;
+    private volatile boolean               finished;
+    private volatile long                  horizon;
+    private long                           lastWindowLookahead;
+    private final Partition[]              partitions;
+    private ToIntFunction<EntityReference> partitioner       = System::identityHashCode;
+    private long                           remoteEvents;
+    private volatile long                  safeTime;
+    private Throwable                      terminal;
+    private long                           terminalTime;
+    private final Thread[]                 threads;
+    private CyclicBarrier                  window;
+    private long                           windows;
+
+    /**
+     * A controller with a partition per available processor
+     */
+    public ConservativeController() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param partitions the number of partitions - and threads - the entities
+     *                   are divided between
+     */
+    public ConservativeController(int partitions) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("[ConservativeController] partitions must be positive: " + partitions);
+        }
+        this.partitions = new Partition[partitions];
+        this.threads = new Thread[partitions];
+        for (int i = 0; i < partitions; i++) {
+            this.partitions[i] = new Partition(i);
+        }
+        this.name = "Prime Mover Conservative Simulation";
+        this.trackSpectrum = true;
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (var partition : partitions) {
+            partition.close();
+        }
+        super.close();
+    }
+
+    /**
+     * Evaluate the posted events in parallel until no events remain before the
+     * end time, or an event ends the simulation or fails.
+     *
+     * @throws SimulationException if an event failed
+     * @throws SimulationEnd       if an event ended the simulation
+     */
+    public void eventLoop() throws SimulationException {
+        simulationRunning = true;
+        totalEvents = 0;
+        remoteEvents = 0;
+        windows = 0;
+        aborted = false;
+        finished = false;
+        failure = null;
+        terminal = null;
+        terminalTime = Long.MAX_VALUE;
+        window = new CyclicBarrier(partitions.length, this::openWindow);
+        evaluated = new CyclicBarrier(partitions.length);
+        for (var partition : partitions) {
+            partition.configure();
+        }
+        log.info("[ConservativeController] Simulation '{}' started at time {} on {} partitions", name,
+                 simulationStart, partitions.length);
+        try {
+            for (var partition : partitions) {
+                threads[partition.id] = Thread.ofPlatform()
+                                              .name("Conservative Partition [" + partition.id + "]")
+                                              .start(partition);
+            }
+            for (var thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(e);
+        } finally {
+            simulationRunning = false;
+        }
+
+        var last = getCurrentTime();
+        for (var partition : partitions) {
+            totalEvents += partition.getTotalEvents();
+            remoteEvents += partition.remote;
+            spectrum.add(partition.spectrum());
+            last = Math.max(last, partition.getCurrentTime());
+            partition.reset();
+        }
+        super.setCurrentTime(terminal == null ? last : terminalTime);
+        simulationEnd = getCurrentTime();
+        log.info("[ConservativeController] Simulation '{}' ended at time {} ({} events processed in {} windows)",
+                 name, simulationEnd, totalEvents, windows);
+
+        if (failure != null) {
+            throw new SimulationException("[ConservativeController] Simulation aborted", failure);
+        }
+        if (terminal instanceof SimulationEnd end) {
+            throw end;
+        }
+        if (terminal instanceof SimulationException se) {
+            throw se;
+        }
+    }
+
+    /**
+     * Answer the lookahead of entity classes without a {@link Lookahead}
+     * annotation
+     */
+    public long getDefaultLookahead() {
+        return defaultLookahead;
+    }
+
+    /**
+     * Answer the scheduled end time of the simulation. Events at or after the
+     * end time are not evaluated.
+     */
+    public long getEndTime() {
+        return endTime;
+    }
+
+    /**
+     * Answer the lookahead of the last window of the simulation
+     */
+    public long getLookahead() {
+        return lastWindowLookahead;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Answer the number of partitions
+     */
+    public int getPartitions() {
+        return partitions.length;
+    }
+
+    /**
+     * Answer the number of events posted to another partition
+     */
+    public long getRemoteEvents() {
+        return remoteEvents;
+    }
+
+    @Override
+    public long getSimulationEnd() {
+        return simulationEnd;
+    }
+
+    @Override
+    public long getSimulationStart() {
+        return simulationStart;
+    }
+
+    @Override
+    public Map<String, Long> getSpectrum() {
+        return spectrum.toMap();
+    }
+
+    @Override
+    public long getTotalEvents() {
+        return totalEvents;
+    }
+
+    /**
+     * Answer the number of windows of the last simulation run
+     */
+    public long getWindows() {
+        return windows;
+    }
+
+    public boolean isTrackSpectrum() {
+        return trackSpectrum;
+    }
+
+    /**
+     * Post an initial event of the simulation to the partition of its entity.
+     * Only valid while the simulation is not running; events evaluated by the
+     * simulation post their events through the partition evaluating them.
+     */
+    @Override
+    public void post(EventImpl event) {
+        if (simulationRunning) {
+            throw new IllegalStateException("[ConservativeController] Cannot post events from outside the simulation while it is running");
+        }
+        final var partition = route(event.getReference(), partitions[0]);
+        // The entity will send the events of the first window
+        partition.register(event.getReference());
+        partition.post(event);
+    }
+
+    @Override
+    public Object postContinuingEvent(EntityReference entity, int event, Object... arguments) {
+        throw new UnsupportedOperationException("[ConservativeController] Cannot post blocking events from outside the simulation: " +
+                                                entity.__signatureFor(event));
+    }
+
+    /**
+     * Set the lookahead of entity classes without a {@link Lookahead} annotation
+     *
+     * @param lookahead the non-negative lookahead
+     */
+    public void setDefaultLookahead(long lookahead) {
+        if (lookahead < 0) {
+            throw new IllegalArgumentException("[ConservativeController] Lookahead cannot be negative: " + lookahead);
+        }
+        if (simulationRunning) {
+            throw new IllegalStateException("[ConservativeController] Cannot change the lookahead while running");
+        }
+        this.defaultLookahead = lookahead;
+    }
+
+    /**
+     * Set the scheduled end time of the simulation
+     *
+     * @param endTime the simulation end time
+     */
+    public void setEndTime(long endTime) {
+        this.endTime = endTime;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Set the function assigning entities to partitions: an entity is evaluated
+     * by the partition at the function's value, modulo the number of partitions.
+     * Entities that frequently post events to each other, or that share blocking
+     * primitives, belong in the same partition. By default, entities are
+     * assigned by identity hash.
+     */
+    public void setPartitioner(ToIntFunction<EntityReference> partitioner) {
+        if (simulationRunning) {
+            throw new IllegalStateException("[ConservativeController] Cannot change the partitioner while running");
+        }
+        this.partitioner = Objects.requireNonNull(partitioner, "[ConservativeController] partitioner cannot be null");
+    }
+
+    public void setTrackSpectrum(boolean track) {
+        this.trackSpectrum = track;
+    }
+
+    /**
+     * Abort the simulation, breaking the partitions out of their windows
+     */
+    private void abort(Throwable t) {
+        synchronized (this) {
+            if (aborted) {
+                return;
+            }
+            aborted = true;
+            failure = t;
+        }
+        log.error("[ConservativeController] Simulation '{}' aborted", name, t);
+        finished = true;
+        window.reset();
+        evaluated.reset();
+        for (var thread : threads) {
+            if (thread != null && thread != Thread.currentThread()) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Barrier action: open the next window from the earliest pending event of
+     * the partitions, or determine that the simulation is over
+     */
+    private void openWindow() {
+        var earliest = Long.MAX_VALUE;
+        var lookahead = Long.MAX_VALUE;
+        for (var partition : partitions) {
+            earliest = Math.min(earliest, partition.next);
+            lookahead = Math.min(lookahead, partition.lookahead);
+        }
+        if (terminal != null || earliest == Long.MAX_VALUE || earliest >= endTime) {
+            finished = true;
+            return;
+        }
+        windows++;
+        lastWindowLookahead = lookahead;
+        safeTime = saturatedAdd(earliest, lookahead);
+        horizon = saturatedAdd(earliest, Math.max(lookahead, 1));
+    }
+
+    private Partition route(EntityReference entity, Partition poster) {
+        if (entity instanceof StaticEntityReference) {
+            return poster;
+        }
+        return partitions[Math.floorMod(partitioner.applyAsInt(entity), partitions.length)];
+    }
+
+    private static long saturatedAdd(long time, long delta) {
+        final var sum = time + delta;
+        return sum < time ? Long.MAX_VALUE : sum;
+    }
+
+    /**
+     * Record the event ending the simulation, or failing
+     */
+    private synchronized void terminated(Throwable t, long time) {
+        if (terminal == null || time < terminalTime) {
+            terminal = t;
+            terminalTime = time;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.hellblazer.primeMover.controllers;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hellblazer.primeMover.annotations.Owned;
+import com.hellblazer.primeMover.api.EntityReference;
+
+/**
+ * Copy state saving of entities for rollback: a snapshot is the values of the
+ * entity's mutable (non static, non final) fields and the copies of the state
+ * its {@link Owned} fields reference, declared by the entity's class and its
+ * superclasses. Owned state is copied as an object graph, sharing the entities
+ * and immutable values it references, and owned arrays are restored in place.
+ * Any other object is saved by reference, so the state of mutable objects
+ * that are not owned - arrays included - is not restored, and the fields
+ * referencing them are logged. Only owned state is copied, so an entity
+ * sharing a large array with its peers costs nothing to save, and rollback
+ * never writes to state other entities may be using.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+final class EntityState {
+    /**
+     * A saved field of an entity class
+     */
+    private record Saved(Field field, boolean owned) {
+    }
+
+    private static final Object[] EMPTY = new Object[0];
+    private static final Logger   log   = LoggerFactory.getLogger(EntityState.class);
+
+    private static final ClassValue<Saved[]> FIELDS = new ClassValue<>() {
+        @Override
+        protected Saved[] computeValue(Class<?> type) {
+            var fields = new ArrayList<Saved>();
+            for (var c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (var field : c.getDeclaredFields()) {
+                    var modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers)) {
+                        continue;
+                    }
+                    var owned = field.isAnnotationPresent(Owned.class);
+                    if (!owned) {
+                        var fieldType = field.getType();
+                        if (!fieldType.isPrimitive() && !ObjectGraphCopier.immutable(fieldType) &&
+                            !EntityReference.class.isAssignableFrom(fieldType)) {
+                            log.warn("[EntityState] The state referenced by the field {} is not rolled back unless @Owned",
+                                     field);
+                        }
+                        if (Modifier.isFinal(modifiers)) {
+                            continue;
+                        }
+                    }
+                    try {
+                        field.setAccessible(true);
+                    } catch (RuntimeException e) {
+                        throw new IllegalStateException("[EntityState] Cannot save the state of " + type.getName() +
+                                                        ": " + field + " is inaccessible", e);
+                    }
+                    fields.add(new Saved(field, owned));
+                }
+            }
+            return fields.toArray(new Saved[0]);
+        }
+    };
+
+    /**
+     * Restore the entity to the snapshot
+     */
+    static void restore(Object entity, Object[] snapshot) {
+        var fields = FIELDS.get(entity.getClass());
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                var field = fields[i].field();
+                var saved = snapshot[i];
+                var current = field.get(entity);
+                if (fields[i].owned() && saved != null && current != null && saved.getClass().isArray() &&
+                    saved.getClass() == current.getClass() && Array.getLength(saved) == Array.getLength(current)) {
+                    // Preserve the identity of the owned array
+                    System.arraycopy(saved, 0, current, 0, Array.getLength(saved));
+                } else {
+                    field.set(entity, saved);
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("[EntityState] Cannot restore the state of " + entity, e);
+        }
+    }
+
+    /**
+     * Answer a snapshot of the entity's mutable state
+     */
+    static Object[] save(Object entity) {
+        var fields = FIELDS.get(entity.getClass());
+        if (fields.length == 0) {
+            return EMPTY;
+        }
+        var snapshot = new Object[fields.length];
+        ObjectGraphCopier copier = null;
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                var value = fields[i].field().get(entity);
+                if (!fields[i].owned() || value == null) {
+                    snapshot[i] = value;
+                } else if (value.getClass().isArray() && value.getClass().getComponentType().isPrimitive()) {
+                    var length = Array.getLength(value);
+                    var copy = Array.newInstance(value.getClass().getComponentType(), length);
+                    System.arraycopy(value, 0, copy, 0, length);
+                    snapshot[i] = copy;
+                } else {
+                    if (copier == null) {
+                        copier = new ObjectGraphCopier();
+                    }
+                    snapshot[i] = copier.copy(value);
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("[EntityState] Cannot save the state of " + entity, e);
+        }
+        if (copier != null) {
+            copier.complete();
+        }
+        return snapshot;
+    }
+
+    private EntityState() {
+    }
+}
@@ -0,0 +1,316 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.controllers;
+
+import java.util.AbstractQueue;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import com.hellblazer.primeMover.runtime.EventImpl;
+
+/**
+ * A primitive-keyed 4-ary heap implementation of the pending event set.
+ * <p>
+ * Each heap entry is a (time, sequence) key held in parallel {@code long[]}
+ * arrays, plus an {@code int} slot indexing the {@link EventImpl} in a
+ * separate payload array. Sifting only compares and moves primitives, so it
+ * never dereferences the (scattered, volatile) event objects and never
+ * stores references - and the four children of a node share a cache line.
+ * The sequence number is assigned at insertion, making the order of
+ * simultaneous events deterministic FIFO, unlike
+ * {@link java.util.PriorityQueue} with {@link EventImpl#compareTo(EventImpl)}.
+ * <p>
+ * Usable with any controller through its {@code Queue<EventImpl>}
+ * constructor, or via
+ * {@link com.hellblazer.primeMover.builders.SimulationBuilder#eventQueue(java.util.function.Supplier)}:
+ *
+ * <pre>{@code
+ * var controller = new SimulationController(new EventHeap());
+ * }</pre>
+ * <p>
+ * Not thread-safe. Events must not have their time changed while they are
+ * enqueued. The iterator does not return events in any particular order.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class EventHeap extends AbstractQueue<EventImpl> {
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private EventImpl[] events;
+    private int[]       freeSlots;
+    private int         freeCount;
+    private int         modCount;
+    private long        nextSequence;
+    private long[]      sequences;
+    private int         size;
+    private int[]       slots;
+    private long[]      times;
+
+    public EventHeap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity the initial number of events the heap can hold
+     *                        without growing
+     */
+    public EventHeap(int initialCapacity) {
+        if (initialCapacity < 1) {
+            throw new IllegalArgumentException("[EventHeap] initial capacity must be positive: " + initialCapacity);
+        }
+        times = new long[initialCapacity];
+        sequences = new long[initialCapacity];
+        slots = new int[initialCapacity];
+        events = new EventImpl[initialCapacity];
+        freeSlots = new int[initialCapacity];
+        for (int i = 0; i < initialCapacity; i++) {
+            freeSlots[i] = initialCapacity - 1 - i;
+        }
+        freeCount = initialCapacity;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            release(slots[i]);
+        }
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Iterator<EventImpl> iterator() {
+        return new Iterator<>() {
+            private final int expectedModCount = modCount;
+            private int       cursor;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < size;
+            }
+
+            @Override
+            public EventImpl next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (cursor >= size) {
+                    throw new NoSuchElementException();
+                }
+                return events[slots[cursor++]];
+            }
+        };
+    }
+
+    @Override
+    public boolean offer(EventImpl event) {
+        Objects.requireNonNull(event, "[EventHeap] Cannot queue a null event");
+        if (size == times.length) {
+            grow();
+        }
+        final var slot = freeSlots[--freeCount];
+        events[slot] = event;
+        siftUp(size++, event.getTime(), nextSequence++, slot);
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public EventImpl peek() {
+        return size == 0 ? null : events[slots[0]];
+    }
+
+    @Override
+    public EventImpl poll() {
+        if (size == 0) {
+            return null;
+        }
+        final var slot = slots[0];
+        final var event = events[slot];
+        release(slot);
+        final var last = --size;
+        if (last > 0) {
+            siftDown(0, times[last], sequences[last], slots[last]);
+        }
+        modCount++;
+        return event;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        for (int i = 0; i < size; i++) {
+            if (events[slots[i]] == o) {
+                removeAt(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        Objects.requireNonNull(c);
+        return removeIf(c::contains);
+    }
+
+    /**
+     * Remove all matching events in a single pass, then re-heapify in O(n)
+     */
+    @Override
+    public boolean removeIf(Predicate<? super EventImpl> filter) {
+        Objects.requireNonNull(filter);
+        var retained = 0;
+        for (int i = 0; i < size; i++) {
+            final var slot = slots[i];
+            if (filter.test(events[slot])) {
+                release(slot);
+            } else {
+                times[retained] = times[i];
+                sequences[retained] = sequences[i];
+                slots[retained] = slot;
+                retained++;
+            }
+        }
+        if (retained == size) {
+            return false;
+        }
+        size = retained;
+        if (size > 1) {
+            for (int i = (size - 2) >>> 2; i >= 0; i--) {
+                siftDown(i, times[i], sequences[i], slots[i]);
+            }
+        }
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        Objects.requireNonNull(c);
+        return removeIf(e -> !c.contains(e));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        final var capacity = times.length;
+        final var newCapacity = capacity + Math.max(capacity >> 1, 1);
+        if (newCapacity < 0) {
+            throw new OutOfMemoryError("[EventHeap] Event heap capacity exhausted");
+        }
+        times = Arrays.copyOf(times, newCapacity);
+        sequences = Arrays.copyOf(sequences, newCapacity);
+        slots = Arrays.copyOf(slots, newCapacity);
+        events = Arrays.copyOf(events, newCapacity);
+        freeSlots = Arrays.copyOf(freeSlots, newCapacity);
+        for (int s = newCapacity - 1; s >= capacity; s--) {
+            freeSlots[freeCount++] = s;
+        }
+    }
+
+    private void release(int slot) {
+        events[slot] = null;
+        freeSlots[freeCount++] = slot;
+    }
+
+    private void removeAt(int i) {
+        release(slots[i]);
+        final var last = --size;
+        if (i != last) {
+            final var t = times[last];
+            final var s = sequences[last];
+            final var p = slots[last];
+            siftDown(i, t, s, p);
+            if (slots[i] == p) {
+                siftUp(i, t, s, p);
+            }
+        }
+        modCount++;
+    }
+
+    /**
+     * Sift the key down from the hole at index i
+     */
+    private void siftDown(int i, long time, long sequence, int slot) {
+        final var n = size;
+        final var t = times;
+        final var q = sequences;
+        final var p = slots;
+        while (true) {
+            final var first = (i << 2) + 1;
+            if (first >= n) {
+                break;
+            }
+            var c = first;
+            var ct = t[c];
+            var cq = q[c];
+            final var end = Math.min(first + 4, n);
+            for (int j = first + 1; j < end; j++) {
+                final var jt = t[j];
+                if (jt < ct || (jt == ct && q[j] < cq)) {
+                    c = j;
+                    ct = jt;
+                    cq = q[j];
+                }
+            }
+            if (time < ct || (time == ct && sequence < cq)) {
+                break;
+            }
+            t[i] = ct;
+            q[i] = cq;
+            p[i] = p[c];
+            i = c;
+        }
+        t[i] = time;
+        q[i] = sequence;
+        p[i] = slot;
+    }
+
+    /**
+     * Sift the key up from the hole at index i
+     */
+    private void siftUp(int i, long time, long sequence, int slot) {
+        final var t = times;
+        final var q = sequences;
+        final var p = slots;
+        while (i > 0) {
+            final var parent = (i - 1) >>> 2;
+            final var pt = t[parent];
+            if (pt < time || (pt == time && q[parent] < sequence)) {
+                break;
+            }
+            t[i] = pt;
+            q[i] = q[parent];
+            p[i] = p[parent];
+            i = parent;
+        }
+        t[i] = time;
+        q[i] = sequence;
+        p[i] = slot;
+    }
+}
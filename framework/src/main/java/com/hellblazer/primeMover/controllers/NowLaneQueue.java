@@ -0,0 +1,268 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.controllers;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.function.Predicate;
+
+import com.hellblazer.primeMover.runtime.EventImpl;
+
+/**
+ * The pending event set of the controllers: a zero-delay FIFO "now" lane in
+ * front of a priority queue.
+ * <p>
+ * Most events are posted at the current simulation time - event method calls
+ * without a preceding sleep, continuation resumes, signal wakeups - and would
+ * otherwise each pay a full priority queue insert and remove. An event is
+ * appended to the lane instead of the priority queue when it is not later
+ * than anything in the priority queue: when the lane is empty and the event
+ * precedes the earliest queued event, or when the event has the same time as
+ * the events already in the lane. The lane therefore only ever holds events
+ * of a single time, and is drained before the priority queue is consulted
+ * for anything later. Events earlier than the lane time, which can be posted
+ * after the clock has been advanced by a sleep, go to the priority queue and
+ * are still dequeued first.
+ * <p>
+ * The time ordering is the same as the underlying queue; simultaneous events
+ * in the lane are FIFO, and simultaneous events are never split between the
+ * lane and the queue in a way that reorders them relative to the queue's own
+ * ordering.
+ * <p>
+ * Cancelled events ({@link EventImpl#isCancelled()}) are tombstones: they stay
+ * where they are queued, and are discarded when they reach the head of the
+ * queue rather than being returned by {@link #poll()} or {@link #peek()}.
+ * Controllers report each cancellation through {@link #tombstoned()}, and the
+ * queue is compacted once tombstones make up more than half of it.
+ * <p>
+ * Not thread-safe; the controllers serialize access.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class NowLaneQueue extends AbstractQueue<EventImpl> {
+    /**
+     * Minimum number of tombstones before compaction is considered
+     */
+    private static final int MIN_COMPACTION = 64;
+
+    private final Queue<EventImpl>      delegate;
+    private long                        fastPathEvents;
+    private final ArrayDeque<EventImpl> lane = new ArrayDeque<>();
+    private long                        laneTime;
+    private int                         tombstones;
+
+    /**
+     * @param delegate the priority queue for events that can't take the lane
+     */
+    public NowLaneQueue(Queue<EventImpl> delegate) {
+        this.delegate = Objects.requireNonNull(delegate, "[NowLaneQueue] delegate queue cannot be null");
+    }
+
+    @Override
+    public void clear() {
+        lane.clear();
+        delegate.clear();
+        tombstones = 0;
+    }
+
+    /**
+     * Answer the priority queue behind the lane
+     */
+    public Queue<EventImpl> getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Answer the number of events that bypassed the priority queue
+     */
+    public long getFastPathEvents() {
+        return fastPathEvents;
+    }
+
+    /**
+     * Answer the number of cancelled events yet to be discarded
+     */
+    public int getTombstones() {
+        return tombstones;
+    }
+
+    /**
+     * Answer true if there are no live events
+     */
+    @Override
+    public boolean isEmpty() {
+        return peek() == null;
+    }
+
+    /**
+     * Iterates over the lane, then the priority queue, including tombstones. Not
+     * in time order.
+     */
+    @Override
+    public Iterator<EventImpl> iterator() {
+        return new Iterator<>() {
+            private Iterator<EventImpl> current = lane.iterator();
+            private boolean             inLane  = true;
+            /**
+             * The iterator that answered the last element, as hasNext() may
+             * have moved on to the priority queue since
+             */
+            private Iterator<EventImpl> last;
+
+            @Override
+            public boolean hasNext() {
+                if (current.hasNext()) {
+                    return true;
+                }
+                if (inLane) {
+                    inLane = false;
+                    current = delegate.iterator();
+                    return current.hasNext();
+                }
+                return false;
+            }
+
+            @Override
+            public EventImpl next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                last = current;
+                return current.next();
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                last.remove();
+                last = null;
+            }
+        };
+    }
+
+    @Override
+    public boolean offer(EventImpl event) {
+        Objects.requireNonNull(event, "[NowLaneQueue] Cannot queue a null event");
+        final var time = event.getTime();
+        if (lane.isEmpty()) {
+            final var head = delegate.peek();
+            if (head == null || time < head.getTime()) {
+                laneTime = time;
+                lane.addLast(event);
+                fastPathEvents++;
+                return true;
+            }
+        } else if (time == laneTime) {
+            lane.addLast(event);
+            fastPathEvents++;
+            return true;
+        }
+        return delegate.offer(event);
+    }
+
+    @Override
+    public EventImpl peek() {
+        while (true) {
+            final var next = peekNext();
+            if (next == null || !next.isCancelled()) {
+                return next;
+            }
+            pollNext();
+            discarded();
+        }
+    }
+
+    @Override
+    public EventImpl poll() {
+        while (true) {
+            final var next = pollNext();
+            if (next == null || !next.isCancelled()) {
+                return next;
+            }
+            discarded();
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return lane.remove(o) || delegate.remove(o);
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super EventImpl> filter) {
+        final var fromLane = lane.removeIf(filter);
+        return delegate.removeIf(filter) | fromLane;
+    }
+
+    /**
+     * Account for an event in the queue that has been cancelled, compacting the
+     * queue if tombstones now make up more than half of it
+     */
+    public void tombstoned() {
+        tombstones++;
+        if (tombstones >= MIN_COMPACTION && tombstones > size() - tombstones) {
+            removeIf(EventImpl::isCancelled);
+            tombstones = 0;
+        }
+    }
+
+    /**
+     * Reset the count of events that bypassed the priority queue
+     */
+    public void resetFastPathEvents() {
+        fastPathEvents = 0;
+    }
+
+    /**
+     * Answer the number of queued events, including tombstones
+     */
+    @Override
+    public int size() {
+        return lane.size() + delegate.size();
+    }
+
+    private void discarded() {
+        if (tombstones > 0) {
+            tombstones--;
+        }
+    }
+
+    private EventImpl peekNext() {
+        if (lane.isEmpty()) {
+            return delegate.peek();
+        }
+        final var head = delegate.peek();
+        return head != null && head.getTime() < laneTime ? head : lane.peekFirst();
+    }
+
+    private EventImpl pollNext() {
+        if (lane.isEmpty()) {
+            return delegate.poll();
+        }
+        final var head = delegate.peek();
+        return head != null && head.getTime() < laneTime ? delegate.poll() : lane.pollFirst();
+    }
+}
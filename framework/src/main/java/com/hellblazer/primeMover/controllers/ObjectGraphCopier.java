@@ -0,0 +1,535 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.controllers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+
+import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.runtime.Continuation;
+import com.hellblazer.primeMover.runtime.Devi;
+import com.hellblazer.primeMover.runtime.StaticEntityReference;
+
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * Deep copy of the object graph of a simulation, for forking a controller.
+ * <p>
+ * Objects of application classes are allocated without running their
+ * constructors, and their instance fields - final and transient included -
+ * are copied. Arrays are copied element by element, and records are rebuilt
+ * through their canonical constructors. Immutable JDK values (strings, boxed
+ * primitives, enums, classes, {@code java.time} values and the like) are
+ * shared. JDK collections and maps are rebuilt empty, with the comparator of
+ * sorted ones, and refilled once every object of the graph has been copied,
+ * so hash codes and orderings are computed from the copied state. Views
+ * become independent collections; unmodifiable collections stay
+ * unmodifiable. Other serializable
+ * JDK objects, {@link java.util.Random} for one, are copied by serialization,
+ * apart from the rest of the graph. The original controller is replaced by
+ * its fork; any other controller, thread, continuation, lambda or
+ * unserializable JDK object cannot be copied.
+ * <p>
+ * The same copy saves the state an entity owns for rollback, sharing rather
+ * than copying the entities that state references (see {@link EntityState}).
+ * <p>
+ * Copying is breadth first, so arbitrarily long chains of objects don't
+ * exhaust the stack. The classification of objects is shared with
+ * {@link Snapshot}, which writes the same graph to a file.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+final class ObjectGraphCopier {
+    private static final MethodHandle ALLOCATE;
+
+    private static final ClassValue<Field[]> FIELDS = new ClassValue<>() {
+        @Override
+        protected Field[] computeValue(Class<?> type) {
+            var fields = new ArrayList<Field>();
+            for (var c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                if (c.getModule().isNamed()) {
+                    throw new IllegalStateException("[SimulationController] Cannot copy " + type.getName() +
+                                                    ": it extends " + c.getName());
+                }
+                for (var field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    try {
+                        field.setAccessible(true);
+                    } catch (RuntimeException e) {
+                        throw new IllegalStateException("[SimulationController] Cannot copy " + type.getName() +
+                                                        ": " + field + " is inaccessible", e);
+                    }
+                    fields.add(field);
+                }
+            }
+            return fields.toArray(new Field[0]);
+        }
+    };
+
+    private static final Set<Class<?>> IMMUTABLE = Set.of(String.class, Boolean.class, Character.class, Byte.class,
+                                                          Short.class, Integer.class, Long.class, Float.class,
+                                                          Double.class, Void.class, BigInteger.class,
+                                                          BigDecimal.class, UUID.class, Locale.class);
+
+    static {
+        try {
+            var unsafeClass = Class.forName("sun.misc.Unsafe");
+            var unsafeField = unsafeClass.getDeclaredField("theUnsafe");
+            unsafeField.setAccessible(true);
+            var allocate = MethodHandles.lookup()
+                                        .findVirtual(unsafeClass, "allocateInstance",
+                                                     methodType(Object.class, Class.class));
+            ALLOCATE = allocate.bindTo(unsafeField.get(null));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Map<Object, Object>  copies  = new IdentityHashMap<>();
+    private final ArrayDeque<Runnable> fills   = new ArrayDeque<>();
+    private final Devi                 original;
+    private final Devi                 replacement;
+    private final List<Runnable>       refills = new ArrayList<>();
+    private final boolean              shareEntities;
+
+    /**
+     * A copier of the state owned by an entity, sharing the entities it
+     * references
+     */
+    ObjectGraphCopier() {
+        this(null, null, true);
+    }
+
+    /**
+     * @param original    the controller being forked
+     * @param replacement the fork, replacing the original wherever it is
+     *                    referenced
+     */
+    ObjectGraphCopier(Devi original, Devi replacement) {
+        this(original, replacement, false);
+    }
+
+    private ObjectGraphCopier(Devi original, Devi replacement, boolean shareEntities) {
+        this.original = original;
+        this.replacement = replacement;
+        this.shareEntities = shareEntities;
+    }
+
+    /**
+     * Answer the copy of the object, copying it if it has not been copied. The
+     * state of the copy is not complete until {@link #complete()}.
+     *
+     * @throws IllegalStateException if the object cannot be copied
+     */
+    Object copy(Object value) {
+        if (value == null || immutable(value)) {
+            return value;
+        }
+        if (value == original) {
+            return replacement;
+        }
+        if (shareEntities && value instanceof EntityReference) {
+            return value;
+        }
+        var copy = copies.get(value);
+        if (copy != null) {
+            return copy;
+        }
+        final var type = value.getClass();
+        if (value instanceof Devi || value instanceof Thread || value instanceof Continuation) {
+            throw new IllegalStateException("[SimulationController] Cannot fork a simulation referencing " + value);
+        }
+        if (type.isArray()) {
+            copy = copyArray(value);
+        } else if (type.isRecord()) {
+            copy = copyRecord(value);
+        } else if (type.isHidden() || type.isSynthetic()) {
+            throw new IllegalStateException("[SimulationController] Cannot copy lambda " + type.getName());
+        } else if (type.getModule().isNamed()) {
+            copy = copyJdk(value);
+        } else {
+            copy = copyObject(value);
+        }
+        copies.put(value, copy);
+        return copy;
+    }
+
+    /**
+     * Complete the copies: fill in the state of every object reachable from
+     * the copied objects, then refill the collections, innermost first
+     */
+    void complete() {
+        Runnable fill;
+        while ((fill = fills.poll()) != null) {
+            fill.run();
+        }
+        for (int i = refills.size() - 1; i >= 0; i--) {
+            refills.get(i).run();
+        }
+        refills.clear();
+    }
+
+    /**
+     * Answer the copy of the object, if it has been copied
+     */
+    Object copyOf(Object value) {
+        if (value == null || immutable(value)) {
+            return value;
+        }
+        return value == original ? replacement : copies.get(value);
+    }
+
+    private Object copyArray(Object value) {
+        final var length = Array.getLength(value);
+        final var copy = Array.newInstance(value.getClass().getComponentType(), length);
+        if (value.getClass().getComponentType().isPrimitive()) {
+            System.arraycopy(value, 0, copy, 0, length);
+        } else {
+            final var elements = (Object[]) value;
+            final var copied = (Object[]) copy;
+            fills.add(() -> {
+                for (int i = 0; i < length; i++) {
+                    copied[i] = copy(elements[i]);
+                }
+            });
+        }
+        return copy;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Object copyJdk(Object value) {
+        if (value instanceof Optional<?> optional) {
+            return optional.map(this::copy);
+        }
+        if (value instanceof WeakReference<?> reference) {
+            return new WeakReference<>(copy(reference.get()));
+        }
+        if (value instanceof SoftReference<?> reference) {
+            return new SoftReference<>(copy(reference.get()));
+        }
+        final var rebuilt = rebuiltClass(value);
+        if (rebuilt == null) {
+            if (value instanceof Serializable) {
+                return serialized(value);
+            }
+            throw new IllegalStateException("[SimulationController] Cannot copy " + value.getClass().getName());
+        }
+        final var target = rebuild(rebuilt, (Comparator) copy(comparator(value)), enumKeyType(value));
+        if (value instanceof Collection<?> collection) {
+            final var elements = collection.toArray();
+            fills.add(() -> {
+                for (int i = 0; i < elements.length; i++) {
+                    elements[i] = copy(elements[i]);
+                }
+            });
+            refills.add(() -> ((Collection) target).addAll(Arrays.asList(elements)));
+        } else {
+            final var entries = ((Map<?, ?>) value).entrySet().toArray(new Map.Entry[0]);
+            final var keys = new Object[entries.length];
+            final var values = new Object[entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                keys[i] = entries[i].getKey();
+                values[i] = entries[i].getValue();
+            }
+            fills.add(() -> {
+                for (int i = 0; i < keys.length; i++) {
+                    keys[i] = copy(keys[i]);
+                    values[i] = copy(values[i]);
+                }
+            });
+            refills.add(() -> {
+                for (int i = 0; i < keys.length; i++) {
+                    ((Map) target).put(keys[i], values[i]);
+                }
+            });
+        }
+        return unmodifiable(value) ? unmodifiableView(target) : target;
+    }
+
+    private Object copyObject(Object value) {
+        final var copy = allocate(value.getClass());
+        final var fields = fields(value.getClass());
+        fills.add(() -> {
+            try {
+                for (var field : fields) {
+                    final var type = field.getType();
+                    if (type.isPrimitive()) {
+                        field.set(copy, field.get(value));
+                    } else {
+                        field.set(copy, copy(field.get(value)));
+                    }
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("[SimulationController] Cannot copy " + value.getClass().getName(), e);
+            }
+        });
+        return copy;
+    }
+
+    private Object copyRecord(Object value) {
+        final var components = components(value);
+        for (int i = 0; i < components.length; i++) {
+            components[i] = copy(components[i]);
+        }
+        return construct(value.getClass(), components);
+    }
+
+    /**
+     * Answer a new instance of the class, allocated without running its
+     * constructors
+     */
+    static Object allocate(Class<?> type) {
+        try {
+            return ALLOCATE.invoke(type);
+        } catch (Throwable e) {
+            throw new IllegalStateException("[SimulationController] Cannot allocate " + type.getName(), e);
+        }
+    }
+
+    /**
+     * Answer the comparator of the sorted collection or map, or null
+     */
+    static Comparator<?> comparator(Object value) {
+        if (value instanceof SortedSet<?> sorted) {
+            return sorted.comparator();
+        }
+        if (value instanceof SortedMap<?, ?> sorted) {
+            return sorted.comparator();
+        }
+        return value instanceof PriorityQueue<?> queue ? queue.comparator() : null;
+    }
+
+    /**
+     * Answer the values of the record's components
+     */
+    static Object[] components(Object record) {
+        final var components = record.getClass().getRecordComponents();
+        final var values = new Object[components.length];
+        try {
+            for (int i = 0; i < components.length; i++) {
+                final var accessor = components[i].getAccessor();
+                accessor.setAccessible(true);
+                values[i] = accessor.invoke(record);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new IllegalStateException("[SimulationController] Cannot copy " + record.getClass().getName(), e);
+        }
+        return values;
+    }
+
+    /**
+     * Answer a new record of the type, through its canonical constructor
+     */
+    static Object construct(Class<?> type, Object[] components) {
+        final var types = new Class<?>[components.length];
+        final var declared = type.getRecordComponents();
+        for (int i = 0; i < types.length; i++) {
+            types[i] = declared[i].getType();
+        }
+        try {
+            final var constructor = type.getDeclaredConstructor(types);
+            constructor.setAccessible(true);
+            return constructor.newInstance(components);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new IllegalStateException("[SimulationController] Cannot construct " + type.getName(), e);
+        }
+    }
+
+    /**
+     * Answer the key type of a non empty enum map, or null
+     */
+    static Class<?> enumKeyType(Object value) {
+        if (value instanceof EnumMap<?, ?> map && !map.isEmpty()) {
+            return map.keySet().iterator().next().getDeclaringClass();
+        }
+        return null;
+    }
+
+    /**
+     * Answer the copied instance fields of the class
+     */
+    static Field[] fields(Class<?> type) {
+        return FIELDS.get(type);
+    }
+
+    /**
+     * Answer true if the value is immutable, and so is shared rather than
+     * copied
+     */
+    static boolean immutable(Object value) {
+        return immutable(value.getClass());
+    }
+
+    /**
+     * Answer true if the instances of the type are immutable
+     */
+    static boolean immutable(Class<?> type) {
+        return IMMUTABLE.contains(type) || Enum.class.isAssignableFrom(type) || type == Class.class ||
+               Member.class.isAssignableFrom(type) || MethodHandle.class.isAssignableFrom(type) ||
+               Logger.class.isAssignableFrom(type) || StaticEntityReference.class.isAssignableFrom(type) ||
+               type.getPackageName().equals("java.time");
+    }
+
+    /**
+     * Answer a new, empty collection or map of the class
+     *
+     * @param type       the class, as answered by {@link #rebuiltClass(Object)}
+     * @param comparator the comparator of a sorted collection or map
+     * @param keyType    the key type of an enum map
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    static Object rebuild(Class<?> type, Comparator<?> comparator, Class<?> keyType) {
+        if (type == EnumMap.class) {
+            return new EnumMap(keyType);
+        }
+        if (type == TreeSet.class) {
+            return new TreeSet(comparator);
+        }
+        if (type == TreeMap.class) {
+            return new TreeMap(comparator);
+        }
+        if (type == PriorityQueue.class) {
+            return new PriorityQueue(comparator);
+        }
+        try {
+            return type.getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("[SimulationController] Cannot instantiate " + type.getName(), e);
+        }
+    }
+
+    /**
+     * Answer the class a JDK collection or map is rebuilt as: its own class if
+     * it is public with a public no argument constructor, otherwise the
+     * standard implementation of its kind. Answer null if the value is not a
+     * collection or map that can be rebuilt.
+     */
+    static Class<?> rebuiltClass(Object value) {
+        if (value instanceof EnumMap<?, ?>) {
+            return enumKeyType(value) == null ? null : EnumMap.class;
+        }
+        if (value instanceof SortedSet) {
+            return TreeSet.class;
+        }
+        if (value instanceof SortedMap) {
+            return TreeMap.class;
+        }
+        if (value instanceof PriorityQueue) {
+            return PriorityQueue.class;
+        }
+        if (!(value instanceof Collection) && !(value instanceof Map)) {
+            return null;
+        }
+        final var type = value.getClass();
+        if (Modifier.isPublic(type.getModifiers())) {
+            try {
+                type.getConstructor();
+                return type;
+            } catch (NoSuchMethodException e) {
+                // Use the standard implementation
+            }
+        }
+        if (value instanceof List) {
+            return ArrayList.class;
+        }
+        if (value instanceof Set) {
+            return LinkedHashSet.class;
+        }
+        return value instanceof Map ? LinkedHashMap.class : ArrayDeque.class;
+    }
+
+    /**
+     * Answer true if the JDK collection or map cannot be modified
+     */
+    static boolean unmodifiable(Object value) {
+        final var name = value.getClass().getName();
+        return name.startsWith("java.util.ImmutableCollections") ||
+               name.startsWith("java.util.Collections$Unmodifiable");
+    }
+
+    /**
+     * Answer an unmodifiable view of the rebuilt collection or map
+     */
+    static Object unmodifiableView(Object rebuilt) {
+        if (rebuilt instanceof List<?> list) {
+            return Collections.unmodifiableList(list);
+        }
+        if (rebuilt instanceof Set<?> set) {
+            return Collections.unmodifiableSet(set);
+        }
+        if (rebuilt instanceof Map<?, ?> map) {
+            return Collections.unmodifiableMap(map);
+        }
+        return Collections.unmodifiableCollection((Collection<?>) rebuilt);
+    }
+
+    private Object serialized(Object value) {
+        try {
+            final var bytes = new ByteArrayOutputStream();
+            try (var out = new ObjectOutputStream(bytes)) {
+                out.writeObject(value);
+            }
+            try (var in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                return in.readObject();
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("[SimulationController] Cannot copy " + value.getClass().getName(), e);
+        }
+    }
+}
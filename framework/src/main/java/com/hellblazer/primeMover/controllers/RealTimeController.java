@@ -24,9 +24,7 @@ import com.hellblazer.primeMover.runtime.EventImpl;
 import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Queue;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
@@ -45,7 +43,7 @@ import org.slf4j.LoggerFactory;
  *   <li>Uses internal locking via {@code queueLock} for event queue synchronization</li>
  *   <li>The {@code notEmpty} condition is used to signal when events are available</li>
  *   <li>Lock ordering: always acquire {@code queueLock} before accessing {@code eventQueue}</li>
- *   <li>Statistics use atomic types and ConcurrentHashMap for thread-safe access</li>
+ *   <li>Statistics are counted by the animator thread, and may be read from any thread</li>
  * </ul>
  *
  * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
@@ -53,13 +51,13 @@ import org.slf4j.LoggerFactory;
 public class RealTimeController extends Devi implements StatisticalController {
     private static final Logger log = LoggerFactory.getLogger(RealTimeController.class);
 
-    protected final Queue<EventImpl>       eventQueue      = new PriorityQueue<>();
+    protected final Queue<EventImpl>       eventQueue;
+    private final   NowLaneQueue           nowLane;
     protected final String                 name;
     protected final AtomicBoolean          running         = new AtomicBoolean(false);
     protected final Lock                   queueLock       = new ReentrantLock();
     protected final Condition              notEmpty        = queueLock.newCondition();
-    protected final Map<String, Integer>   spectrum        = new ConcurrentHashMap<>();
-    protected final AtomicInteger          totalEvents     = new AtomicInteger(0);
+    protected final AtomicLong             totalEvents     = new AtomicLong(0);
     protected final AtomicLong             simulationStart = new AtomicLong(0);
     protected final AtomicLong             simulationEnd   = new AtomicLong(0);
     protected volatile boolean             trackSpectrum   = false;
@@ -67,7 +65,19 @@ public class RealTimeController extends Devi implements StatisticalController {
     private         long                   offset;
 
     public RealTimeController(String name) {
+        this(name, new PriorityQueue<>());
+    }
+
+    /**
+     * @param name       the name of the simulation
+     * @param eventQueue the priority queue of pending events, fronted by a
+     *                   {@link NowLaneQueue} for events at the current time. Only
+     *                   accessed under {@code queueLock}, so need not be
+     *                   thread-safe
+     */
+    public RealTimeController(String name, Queue<EventImpl> eventQueue) {
         this.name = name;
+        this.eventQueue = nowLane = new NowLaneQueue(eventQueue);
     }
 
     @Override
@@ -75,6 +85,16 @@ public class RealTimeController extends Devi implements StatisticalController {
         return name;
     }
 
+    @Override
+    public long getFastPathEvents() {
+        queueLock.lock();
+        try {
+            return nowLane.getFastPathEvents();
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
     @Override
     public long getSimulationStart() {
         return simulationStart.get();
@@ -86,12 +106,12 @@ public class RealTimeController extends Devi implements StatisticalController {
     }
 
     @Override
-    public Map<String, Integer> getSpectrum() {
-        return spectrum;
+    public Map<String, Long> getSpectrum() {
+        return spectrum.toMap();
     }
 
     @Override
-    public int getTotalEvents() {
+    public long getTotalEvents() {
         return totalEvents.get();
     }
 
@@ -198,7 +218,7 @@ public class RealTimeController extends Devi implements StatisticalController {
                         evaluate(event);
                         totalEvents.incrementAndGet();
                         if (trackSpectrum) {
-                            spectrum.merge(event.getSignature(), 1, Integer::sum);
+                            spectrum.count(event);
                         }
                     } catch (SimulationException e) {
                         log.error("[RealTimeController] Event evaluation failed at time {}: {}",
@@ -239,4 +259,16 @@ public class RealTimeController extends Devi implements StatisticalController {
             queueLock.unlock();
         }
     }
+
+    @Override
+    protected void cancelled(EventImpl event) {
+        queueLock.lock();
+        try {
+            nowLane.tombstoned();
+            // Wake the animator in case it is waiting for the cancelled event
+            notEmpty.signal();
+        } finally {
+            queueLock.unlock();
+        }
+    }
 }
@@ -19,11 +19,21 @@
 
 package com.hellblazer.primeMover.controllers;
 
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.PriorityQueue;
 import java.util.Queue;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,7 +41,9 @@ import org.slf4j.LoggerFactory;
 import com.hellblazer.primeMover.api.SimulationException;
 import com.hellblazer.primeMover.runtime.Devi;
 import com.hellblazer.primeMover.runtime.EventImpl;
+import com.hellblazer.primeMover.runtime.EventTypes;
 import com.hellblazer.primeMover.runtime.Kairos;
+import com.hellblazer.primeMover.runtime.QueueEvent;
 
 /**
  * Single-threaded discrete event simulation controller that gathers statistics
@@ -42,7 +54,7 @@ import com.hellblazer.primeMover.runtime.Kairos;
  *   <li>The event loop ({@link #eventLoop()}) runs on a single thread</li>
  *   <li>Event posting via {@link #post(EventImpl)} is not thread-safe</li>
  *   <li>For concurrent event posting, use {@link RealTimeController}</li>
- *   <li>The spectrum map uses ConcurrentHashMap for safe reads during simulation</li>
+ *   <li>The spectrum may be read from other threads during simulation</li>
  * </ul>
  *
  * <h2>Event Spectrum Tracking</h2>
@@ -83,7 +95,7 @@ import com.hellblazer.primeMover.runtime.Kairos;
  *
  * <h3>Event Signatures</h3>
  * <p>
- * The spectrum uses event signatures as keys. An event signature is the fully-qualified
+ * The materialized spectrum uses event signatures as keys. An event signature is the fully-qualified
  * method name that was transformed into an event, such as:
  * <ul>
  *   <li>{@code com.example.MyEntity.processOrder(Order)}</li>
@@ -96,10 +108,10 @@ import com.hellblazer.primeMover.runtime.Kairos;
  *
  * <h3>Performance Impact</h3>
  * <ul>
- *   <li><b>CPU Overhead:</b> One HashMap lookup and increment per event processed (typically
- *       nanoseconds per event)</li>
- *   <li><b>Memory Usage:</b> O(n) where n = number of unique event signatures in the simulation.
- *       Each signature requires a String key and Integer value in the spectrum map</li>
+ *   <li><b>CPU Overhead:</b> One array increment per event processed, indexed by the
+ *       {@link EventTypes event type} id of the event. Signatures are only computed when
+ *       the spectrum is materialized by {@link #getSpectrum()} or {@link #report()}</li>
+ *   <li><b>Memory Usage:</b> One long per event type registered in the VM</li>
  *   <li><b>Recommendation:</b> Keep tracking enabled for development and analysis. Disable
  *       with {@link #setTrackSpectrum(boolean)} only if profiling shows it's a bottleneck
  *       (unlikely except for very high-throughput simulations with millions of events)</li>
@@ -107,9 +119,9 @@ import com.hellblazer.primeMover.runtime.Kairos;
  *
  * <h3>Thread Safety</h3>
  * <p>
- * The spectrum map uses {@link ConcurrentHashMap} for thread-safe updates and reads.
- * While SimulationController's event loop is single-threaded, the spectrum can be safely
- * read from other threads during or after simulation (useful for monitoring tools).
+ * The spectrum is counted by the single-threaded event loop. It can be read from other
+ * threads during or after simulation (useful for monitoring tools); during simulation,
+ * the counts read may be slightly stale.
  *
  * <h3>Example Output</h3>
  * <pre>
@@ -120,27 +132,147 @@ import com.hellblazer.primeMover.runtime.Kairos;
  *   1 events: demo.Driver.runEventBenchmark(String, Integer, Integer)
  * </pre>
  *
+ * <h2>Batch Evaluation</h2>
+ * <p>
+ * With {@link #setBatchEvaluation(boolean) batch evaluation}, the event loop
+ * drains all the events of the earliest pending time into a reusable buffer
+ * and evaluates them back to back, checking the end time once per batch
+ * rather than once per event. Each evaluated event is still recorded through
+ * {@link #recordEvent(EventImpl)}. This pays off when
+ * many events share a time, as in synchronous (ticked) models. Events posted
+ * at the batch time while it is evaluated form the next batch, so the order
+ * of evaluation is unchanged. As the end time is only checked between
+ * batches, an event advancing the clock past the end time no longer stops
+ * the evaluation of the rest of its batch.
+ *
+ * <h2>Forking</h2>
+ * <p>
+ * A simulation stopped at its end time can be {@link #fork(int, Object...)
+ * forked} into independent branches, each continuing from the current time
+ * with its own deep copy of the pending events, of the entities and other
+ * state reachable from them, and of the statistics gathered so far. This
+ * allows a model to be warmed up once, and the branches run with different
+ * policies, concurrently:
+ * <pre>{@code
+ * controller.setEndTime(warmUp);
+ * controller.eventLoop();
+ * for (var branch : controller.fork(policies.size(), bank)) {
+ *     branch.copyOf(bank).setPolicy(...);
+ *     branch.getController().setEndTime(end);
+ *     executor.execute(() -> branch.getController().eventLoop());
+ * }
+ * }</pre>
+ * Blocked events - the callers of blocking events, parked on their
+ * continuations or suspended into the frames of stackless entities - cannot be
+ * copied, so the simulation must be quiescent when it is forked: no blocking
+ * event, nor the resumption of a suspended event, may be pending.
+ *
+ * <h2>Checkpoints</h2>
+ * <p>
+ * The same state can be {@link #checkpoint(Path, Object...) checkpointed} to
+ * a binary snapshot file, from which {@link #restore(Path)} creates a
+ * controller continuing the simulation - after a restart, say, or from a
+ * warmed up state saved for later runs.
+ *
  * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
  * @see #setTrackSpectrum(boolean)
  * @see #getSpectrum()
  * @see StatisticalController
  */
 public class SimulationController extends Devi implements StatisticalController {
+    /**
+     * A branch of a {@link SimulationController#fork(int, Object...) forked}
+     * simulation
+     */
+    public static final class Branch {
+        private final SimulationController controller;
+        private final ObjectGraphCopier    copies;
+
+        private Branch(SimulationController controller, ObjectGraphCopier copies) {
+            this.controller = controller;
+            this.copies = copies;
+        }
+
+        /**
+         * Answer the branch's copy of an object of the forked simulation
+         *
+         * @param original a root of the fork, or an object reachable from the
+         *                 roots or the pending events of the forked simulation
+         * @return the copy, or the original if it is immutable
+         * @throws IllegalArgumentException if the original was not copied
+         */
+        @SuppressWarnings("unchecked")
+        public <T> T copyOf(T original) {
+            final var copy = copies.copyOf(original);
+            if (copy == null && original != null) {
+                throw new IllegalArgumentException("[SimulationController] Not part of the forked state: " + original);
+            }
+            return (T) copy;
+        }
+
+        /**
+         * Answer the controller of the branch
+         */
+        public SimulationController getController() {
+            return controller;
+        }
+    }
+
+    /**
+     * A simulation {@link SimulationController#restore(Path) restored} from a
+     * checkpoint
+     */
+    public static final class Restored {
+        private final SimulationController controller;
+        private final List<Object>         roots;
+
+        private Restored(SimulationController controller, List<Object> roots) {
+            this.controller = controller;
+            this.roots = roots;
+        }
+
+        /**
+         * Answer the controller of the restored simulation
+         */
+        public SimulationController getController() {
+            return controller;
+        }
+
+        /**
+         * Answer the restored roots of the checkpoint, in order
+         */
+        public List<Object> getRoots() {
+            return roots;
+        }
+    }
+
     private static final Logger log = LoggerFactory.getLogger(SimulationController.class);
 
     protected long               endTime           = Long.MAX_VALUE;
     protected Queue<EventImpl>   eventQueue;
     protected boolean            simulationRunning = false;
+    private EventImpl[]          batch             = new EventImpl[64];
+    private int                  batchCount        = 0;
+    private final Set<EventImpl> batched           = Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean              batchIndexed      = false;
+    private long                 batchTime;
+    private boolean              batchEvaluation   = false;
+    private boolean              resumed           = false;
+    private final NowLaneQueue   nowLane;
 
     public SimulationController() {
         this(new PriorityQueue<>());
     }
 
+    /**
+     * @param eventQueue the priority queue of pending events, fronted by a
+     *                   {@link NowLaneQueue} for events at the current time
+     */
     public SimulationController(Queue<EventImpl> eventQueue) {
-        this.eventQueue = eventQueue;
+        this.eventQueue = nowLane = new NowLaneQueue(eventQueue);
         this.name = "Prime Mover Simulation Event Evaluation";
         this.trackSpectrum = true;
-        this.spectrum = new ConcurrentHashMap<>();
+        this.exclusive = true;
     }
 
     /**
@@ -152,15 +284,26 @@ public class SimulationController extends Devi implements StatisticalController
     public void eventLoop() throws SimulationException {
         simulationRunning = true;
         try {
-            totalEvents = 0;
-            if (simulationStart < 0) {
-                simulationStart = 0;
+            if (resumed) {
+                // Continue from the state of the forked or restored simulation
+                resumed = false;
+            } else {
+                totalEvents = 0;
+                if (simulationStart < 0) {
+                    simulationStart = 0;
+                }
+                super.setCurrentTime(simulationStart);  // Use super to bypass validation for internal initialization
             }
-            super.setCurrentTime(simulationStart);  // Use super to bypass validation for internal initialization
             Kairos.setController(this);
             log.info("[SimulationController] Simulation '{}' started at time {}", name, simulationStart);
             try {
                 while (getCurrentTime() < endTime) {
+                    if (batchEvaluation) {
+                        if (!evaluateBatch()) {
+                            break;
+                        }
+                        continue;
+                    }
                     try {
                         singleStep();
                     } catch (NoSuchElementException e) {
@@ -178,6 +321,225 @@ public class SimulationController extends Devi implements StatisticalController
         }
     }
 
+    /**
+     * Fork the simulation at its current time into independent branches. Each
+     * branch is a new controller, configured as this one, with a deep copy of
+     * the pending events, of the state reachable from them and from the roots,
+     * and of the statistics and clock of this controller; its
+     * {@link #eventLoop()} continues the simulation from the fork, rather than
+     * from the start time. References to this controller in the copied state
+     * are replaced by the branch's controller. This simulation is unchanged.
+     * <p>
+     * Pending events of a {@link java.util.PriorityQueue} are copied in the
+     * queue's order, so that simultaneous events are evaluated in the same
+     * order in every branch. Application objects are copied field by field,
+     * JDK collections are rebuilt from copies of their contents, and other
+     * serializable JDK objects, such as {@link java.util.Random}, are copied by
+     * serialization; lambdas, threads and other controllers cannot be copied.
+     *
+     * @param branches the number of branches
+     * @param roots    objects to copy besides those reachable from the pending
+     *                 events, for the application to configure and observe
+     *                 the branches through {@link Branch#copyOf(Object)}
+     * @return the branches
+     * @throws SimulationException      if the simulation is not quiescent -
+     *                                  blocking events are pending - or its
+     *                                  state cannot be copied
+     * @throws IllegalStateException    if the simulation is running
+     * @throws IllegalArgumentException if branches is not positive
+     */
+    public List<Branch> fork(int branches, Object... roots) throws SimulationException {
+        if (branches < 1) {
+            throw new IllegalArgumentException("[SimulationController] branches must be positive: " + branches);
+        }
+        if (simulationRunning) {
+            throw new IllegalStateException("[SimulationController] Cannot fork while the simulation is running");
+        }
+        final var pending = quiescentEvents("fork");
+
+        final var forks = new ArrayList<Branch>(branches);
+        for (int i = 0; i < branches; i++) {
+            final var branch = new SimulationController(newQueue(nowLane.getDelegate().getClass()));
+            branch.name = name + " [" + i + "]";
+            branch.endTime = endTime;
+            branch.simulationStart = simulationStart;
+            branch.simulationEnd = simulationEnd;
+            branch.totalEvents = totalEvents;
+            branch.trackSpectrum = trackSpectrum;
+            branch.spectrum.add(spectrum);
+            branch.batchEvaluation = batchEvaluation;
+            branch.setDebugEvents(isDebugEvents());
+            branch.setTrackEventSources(isTrackEventSources());
+            branch.setInlineEvents(isInlineEvents());
+            branch.setCurrentTime(getCurrentTime());
+            branch.resumed = true;
+
+            final var copier = new ObjectGraphCopier(this, branch);
+            try {
+                final var events = new EventImpl[pending.size()];
+                for (int e = 0; e < events.length; e++) {
+                    events[e] = (EventImpl) copier.copy(pending.get(e));
+                }
+                for (var root : roots) {
+                    copier.copy(root);
+                }
+                copier.complete();
+                for (var event : events) {
+                    branch.eventQueue.add(event);
+                }
+            } catch (IllegalStateException e) {
+                throw new SimulationException("[SimulationController] Cannot fork " + name, e);
+            }
+            forks.add(new Branch(branch, copier));
+        }
+        return forks;
+    }
+
+    /**
+     * Checkpoint the simulation at its current time to a snapshot file, from
+     * which {@link #restore(Path)} creates a controller continuing the
+     * simulation. The snapshot holds the pending events, the state reachable
+     * from them and from the roots, and the statistics, clock and
+     * configuration of this controller; it is written through memory mapped
+     * regions of the file, which replaces any existing file only once it is
+     * complete. The state is captured as by {@link #fork(int, Object...)}, and
+     * the simulation must likewise be quiescent. Restoring requires the same
+     * classes: a snapshot is not readable once the fields of its classes
+     * change.
+     *
+     * @param file  the snapshot file
+     * @param roots objects to save besides those reachable from the pending
+     *              events, answered by {@link Restored#getRoots()}
+     * @throws SimulationException   if the simulation is not quiescent, or its
+     *                               state cannot be written
+     * @throws IllegalStateException if the simulation is running
+     */
+    public void checkpoint(Path file, Object... roots) throws SimulationException {
+        if (simulationRunning) {
+            throw new IllegalStateException("[SimulationController] Cannot checkpoint while the simulation is running");
+        }
+        final var pending = quiescentEvents("checkpoint");
+        final var partial = file.resolveSibling(file.getFileName() + ".partial");
+        try {
+            try (var writer = new Snapshot.Writer(partial, this)) {
+                writer.writeString(nowLane.getDelegate().getClass().getName());
+                writer.writeString(name);
+                writer.writeLong(getCurrentTime());
+                writer.writeLong(simulationStart);
+                writer.writeLong(simulationEnd);
+                writer.writeLong(endTime);
+                writer.writeLong(totalEvents);
+                writer.writeBoolean(trackSpectrum);
+                writer.writeBoolean(batchEvaluation);
+                writer.writeBoolean(isDebugEvents());
+                writer.writeBoolean(isTrackEventSources());
+                writer.writeBoolean(isInlineEvents());
+                // Event type ids are not stable between runs, so write the types themselves
+                var types = 0;
+                for (int type = 0; type < spectrum.size(); type++) {
+                    if (spectrum.countOf(type) != 0) {
+                        types++;
+                    }
+                }
+                writer.writeVarInt(types);
+                for (int type = 0; type < spectrum.size(); type++) {
+                    final var count = spectrum.countOf(type);
+                    if (count == 0) {
+                        continue;
+                    }
+                    final var method = getEventTypes().methodOf(type);
+                    if (method != null) {
+                        writer.writeObject(method);
+                    } else {
+                        writer.writeObject(getEventTypes().entityOf(type));
+                        writer.writeVarInt(getEventTypes().ordinalOf(type));
+                        writer.writeString(getEventTypes().signatureOf(type));
+                    }
+                    writer.writeLong(count);
+                }
+                writer.writeVarInt(pending.size());
+                for (var event : pending) {
+                    writer.writeObject(event);
+                }
+                writer.writeVarInt(roots.length);
+                for (var root : roots) {
+                    writer.writeObject(root);
+                }
+                writer.finish();
+            }
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | IllegalStateException e) {
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw new SimulationException("[SimulationController] Cannot checkpoint " + name + " to " + file, e);
+        }
+        log.info("[SimulationController] Simulation '{}' checkpointed at time {} to {}", name, getCurrentTime(), file);
+    }
+
+    /**
+     * Restore a simulation from a snapshot file written by
+     * {@link #checkpoint(Path, Object...)}. The file is read through memory
+     * mapped regions, without loading it whole. The restored controller's
+     * {@link #eventLoop()} continues the simulation from the checkpoint.
+     *
+     * @param file the snapshot file
+     * @return the restored controller and roots
+     * @throws SimulationException if the file is not a readable snapshot, or
+     *                             the classes of its state have changed
+     */
+    public static Restored restore(Path file) throws SimulationException {
+        try (var reader = new Snapshot.Reader(file)) {
+            final var queue = reader.readString();
+            final SimulationController controller;
+            try {
+                controller = new SimulationController(newQueue(Class.forName(queue)));
+            } catch (ClassNotFoundException e) {
+                throw new SimulationException("[SimulationController] Cannot restore event queue: " + queue, e);
+            }
+            reader.setController(controller);
+            controller.name = reader.readString();
+            controller.setCurrentTime(reader.readLong());
+            controller.simulationStart = reader.readLong();
+            controller.simulationEnd = reader.readLong();
+            controller.endTime = reader.readLong();
+            controller.totalEvents = reader.readLong();
+            controller.trackSpectrum = reader.readBoolean();
+            controller.batchEvaluation = reader.readBoolean();
+            controller.setDebugEvents(reader.readBoolean());
+            controller.setTrackEventSources(reader.readBoolean());
+            controller.setInlineEvents(reader.readBoolean());
+            for (int i = reader.readVarInt(); i > 0; i--) {
+                final var key = reader.readObject();
+                final var types = controller.getEventTypes();
+                final var type = key instanceof Method method ? types.of(method)
+                                                              : types.register((Class<?>) key, reader.readVarInt(),
+                                                                               reader.readString());
+                controller.spectrum.count(type, reader.readLong());
+            }
+            final var events = new EventImpl[reader.readVarInt()];
+            for (int i = 0; i < events.length; i++) {
+                events[i] = (EventImpl) reader.readObject();
+            }
+            final var roots = new Object[reader.readVarInt()];
+            for (int i = 0; i < roots.length; i++) {
+                roots[i] = reader.readObject();
+            }
+            reader.finish();
+            for (var event : events) {
+                controller.eventQueue.add(event);
+            }
+            controller.resumed = true;
+            log.info("[SimulationController] Simulation '{}' restored at time {} from {}", controller.name,
+                     controller.getCurrentTime(), file);
+            return new Restored(controller, Collections.unmodifiableList(Arrays.asList(roots)));
+        } catch (IOException | IllegalStateException | ClassCastException e) {
+            throw new SimulationException("[SimulationController] Cannot restore from " + file, e);
+        }
+    }
+
     /**
      * Answer the scheduled end time of the simulation.
      * <p>
@@ -190,6 +552,17 @@ public class SimulationController extends Devi implements StatisticalController
         return endTime;
     }
 
+    /**
+     * Answer the number of events that took the zero-delay "now" lane rather
+     * than the priority queue.
+     *
+     * @see NowLaneQueue
+     */
+    @Override
+    public long getFastPathEvents() {
+        return nowLane.getFastPathEvents();
+    }
+
     /**
      * Answer the name of the simulation.
      * 
@@ -227,8 +600,8 @@ public class SimulationController extends Devi implements StatisticalController
      * @see com.hellblazer.primeMover.runtime.StatisticalController#getSpectrum()
      */
     @Override
-    public Map<String, Integer> getSpectrum() {
-        return spectrum;
+    public Map<String, Long> getSpectrum() {
+        return spectrum.toMap();
     }
 
     /**
@@ -249,7 +622,7 @@ public class SimulationController extends Devi implements StatisticalController
      * @see com.hellblazer.primeMover.runtime.StatisticalController#getTotalEvents()
      */
     @Override
-    public int getTotalEvents() {
+    public long getTotalEvents() {
         return totalEvents;
     }
 
@@ -410,6 +783,34 @@ public class SimulationController extends Devi implements StatisticalController
         super.setCurrentTime(time);
     }
 
+    /**
+     * Check whether the event loop evaluates the events of each time as a batch.
+     *
+     * @return true if batch evaluation is enabled
+     * @see #setBatchEvaluation(boolean)
+     */
+    public boolean isBatchEvaluation() {
+        return batchEvaluation;
+    }
+
+    /**
+     * Configure whether the event loop evaluates all the events of the earliest
+     * pending time as a batch. See the class documentation.
+     * <p>
+     * If an event of a batch throws, the events of the batch not yet evaluated
+     * are returned to the event queue, behind any events the batch posted for
+     * the same time.
+     *
+     * @param batch true to evaluate the events of each time as a batch
+     * @throws IllegalStateException if called during simulation execution
+     */
+    public void setBatchEvaluation(boolean batch) {
+        if (simulationRunning) {
+            throw new IllegalStateException("Cannot change batch evaluation while simulation is running");
+        }
+        this.batchEvaluation = batch;
+    }
+
     /**
      * Configure whether the controller tracks event spectrum statistics.
      * <p>
@@ -417,9 +818,8 @@ public class SimulationController extends Devi implements StatisticalController
      * (method signatures) processed during simulation, useful for performance analysis, debugging,
      * and validation. See class-level documentation for details on event spectrum features.
      * <p>
-     * Disabling spectrum tracking provides a small performance improvement (one HashMap operation
-     * per event is eliminated) but is rarely necessary except for extremely high-throughput
-     * simulations with millions of events.
+     * Disabling spectrum tracking provides a small performance improvement (one array increment
+     * per event is eliminated) but is rarely necessary.
      *
      * @param track true to track event spectrum, false to disable tracking
      * @see #getSpectrum()
@@ -450,6 +850,7 @@ public class SimulationController extends Devi implements StatisticalController
      */
     public void singleStep() throws SimulationException {
         var current = eventQueue.remove();
+        QueueEvent.removed(current, this);
         try {
             evaluate(current);
             recordEvent(current);
@@ -463,5 +864,136 @@ public class SimulationController extends Devi implements StatisticalController
     @Override
     public void post(EventImpl event) {
         eventQueue.add(event);
+        QueueEvent.posted(event, this);
+    }
+
+    @Override
+    protected int pendingEvents() {
+        return eventQueue.size();
+    }
+
+    /**
+     * Drain and evaluate all the events of the earliest pending time
+     *
+     * @return false if there are no pending events
+     * @throws SimulationException
+     */
+    private boolean evaluateBatch() throws SimulationException {
+        final var head = eventQueue.poll();
+        if (head == null) {
+            return false;
+        }
+        final var time = head.getTime();
+        var buffer = batch;
+        var count = 0;
+        buffer[count++] = head;
+        EventImpl next;
+        while ((next = eventQueue.peek()) != null && next.getTime() == time) {
+            if (count == buffer.length) {
+                buffer = batch = Arrays.copyOf(buffer, count << 1);
+            }
+            buffer[count++] = eventQueue.poll();
+        }
+        batchTime = time;
+        batchCount = count;
+
+        var evaluated = 0;
+        try {
+            for (; evaluated < count; evaluated++) {
+                final var current = buffer[evaluated];
+                buffer[evaluated] = null;
+                QueueEvent.removed(current, this);
+                if (current.isCancelled()) {
+                    // Cancelled by an earlier event of the batch
+                    continue;
+                }
+                try {
+                    evaluate(current);
+                    recordEvent(current);
+                } finally {
+                    current.clearReferences();
+                }
+            }
+        } finally {
+            batchCount = 0;
+            if (batchIndexed) {
+                batched.clear();
+                batchIndexed = false;
+            }
+            for (var i = evaluated + 1; i < count; i++) {
+                eventQueue.add(buffer[i]);
+                if (buffer[i].isCancelled()) {
+                    nowLane.tombstoned();
+                }
+                buffer[i] = null;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Answer true if the event has been drained into the batch being
+     * evaluated, and so is no longer in the event queue. The batch is indexed
+     * by the first cancellation during its evaluation.
+     */
+    private boolean inBatch(EventImpl event) {
+        if (batchCount == 0 || event.getTime() != batchTime) {
+            return false;
+        }
+        if (!batchIndexed) {
+            for (var i = 0; i < batchCount; i++) {
+                if (batch[i] != null) {
+                    batched.add(batch[i]);
+                }
+            }
+            batchIndexed = true;
+        }
+        return batched.contains(event);
+    }
+
+    /**
+     * Answer a new, empty queue of the class
+     */
+    private static Queue<EventImpl> newQueue(Class<?> type) throws SimulationException {
+        try {
+            @SuppressWarnings("unchecked")
+            final var empty = (Queue<EventImpl>) type.getConstructor().newInstance();
+            return empty;
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new SimulationException("[SimulationController] Cannot create an event queue of " + type.getName(),
+                                          e);
+        }
+    }
+
+    /**
+     * Answer the pending events, in queue order, without the cancelled ones
+     *
+     * @throws SimulationException if blocking events are pending
+     */
+    private List<EventImpl> quiescentEvents(String operation) throws SimulationException {
+        final var pending = new ArrayList<EventImpl>(nowLane.size());
+        var blocked = 0;
+        for (var event : nowLane) {
+            if (event.isCancelled()) {
+                continue;
+            }
+            if (event.getContinuation() != null || event.getCaller() != null || event.isResumption()) {
+                blocked++;
+            }
+            pending.add(event);
+        }
+        if (blocked > 0) {
+            throw new SimulationException("[SimulationController] Cannot " + operation + " " + name + ": " + blocked +
+                                          " blocking events are pending");
+        }
+        return pending;
+    }
+
+    @Override
+    protected void cancelled(EventImpl event) {
+        // An event already drained into the batch is skipped there, not left in the queue
+        if (!inBatch(event)) {
+            nowLane.tombstoned();
+        }
     }
 }
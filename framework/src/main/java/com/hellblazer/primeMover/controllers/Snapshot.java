@@ -0,0 +1,909 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.controllers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hellblazer.primeMover.runtime.Continuation;
+import com.hellblazer.primeMover.runtime.Devi;
+import com.hellblazer.primeMover.runtime.StaticEntityReference;
+
+/**
+ * The binary snapshot file of a checkpointed simulation, written and read
+ * through memory mapped regions of the file, so neither side holds more than
+ * a region of the file on the heap.
+ * <p>
+ * The file is the header - magic number and version - followed by the values
+ * the controller writes: primitives, strings, and mentions of objects of the
+ * simulation's object graph. The first mention of an object defines it: its
+ * class and, for an array, its length. Later mentions refer to it by the index
+ * of its definition, so shared and cyclic structure is preserved. The contents
+ * of the defined objects - fields, elements, entries - follow the values, in
+ * order of definition, mentioning the objects they reference in turn; the
+ * graph is therefore written breadth first. Classes are named on first use,
+ * and application classes are described by their field names and types, which
+ * must match when the snapshot is read.
+ * <p>
+ * Objects are classified as by {@link ObjectGraphCopier}: immutable values are
+ * written by value, application objects field by field, records through their
+ * components, JDK collections and maps by their contents, and other
+ * serializable JDK objects by Java serialization. Primitive arrays are
+ * written in bulk, through views of the mapped region of their element type,
+ * and serialized values are read back through a filter admitting only the
+ * JDK's classes.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+final class Snapshot {
+
+    /**
+     * Reads a snapshot
+     */
+    static final class Reader implements AutoCloseable {
+        private final ArrayDeque<Object> bodies    = new ArrayDeque<>();
+        private MappedByteBuffer         buffer;
+        private final FileChannel        channel;
+        private final List<Class<?>>     classes   = new ArrayList<>();
+        private Devi                     controller;
+        private final Set<Class<?>>      described = new HashSet<>();
+        private final List<Object>       objects   = new ArrayList<>();
+        private long                     base;
+        private final List<Runnable>     refills   = new ArrayList<>();
+        private final long               size;
+
+        Reader(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            size = channel.size();
+            buffer = channel.map(MapMode.READ_ONLY, 0, Math.min(REGION, size));
+            if (size < 8 || readInt() != MAGIC) {
+                channel.close();
+                throw new IOException("[SimulationController] Not a simulation snapshot: " + file);
+            }
+            final var version = readInt();
+            if (version != VERSION) {
+                channel.close();
+                throw new IOException("[SimulationController] Unsupported snapshot version " + version + ": " + file);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        /**
+         * Read the contents of the objects defined so far, and of the objects
+         * they reference in turn, then fill the collections, innermost first
+         */
+        void finish() throws IOException {
+            Object next;
+            while ((next = bodies.poll()) != null) {
+                readBody(next);
+            }
+            for (int i = refills.size() - 1; i >= 0; i--) {
+                refills.get(i).run();
+            }
+            refills.clear();
+        }
+
+        boolean readBoolean() throws IOException {
+            return readByte() != 0;
+        }
+
+        byte readByte() throws IOException {
+            ensure(1);
+            return buffer.get();
+        }
+
+        int readInt() throws IOException {
+            ensure(4);
+            return buffer.getInt();
+        }
+
+        long readLong() throws IOException {
+            ensure(8);
+            return buffer.getLong();
+        }
+
+        /**
+         * Read a mention of an object. The contents of the objects defined are
+         * not complete until {@link #finish()}.
+         */
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        Object readObject() throws IOException {
+            final var tag = readByte();
+            switch (tag) {
+            case NULL:
+                return null;
+            case REF:
+                return objects.get(readVarInt());
+            case CONTROLLER:
+                return controller;
+            case STRING:
+                return readString();
+            case INTEGER:
+                return readInt();
+            case LONG:
+                return readLong();
+            case DOUBLE:
+                return Double.longBitsToDouble(readLong());
+            case BOOLEAN:
+                return readBoolean();
+            case ENUM:
+                final var enumType = (Class) readClass();
+                return Enum.valueOf(enumType, readString());
+            case CLASS:
+                return readClass();
+            case METHOD: {
+                final var declaring = readClass();
+                final var name = readString();
+                final var parameters = new Class<?>[readVarInt()];
+                for (int i = 0; i < parameters.length; i++) {
+                    parameters[i] = readClass();
+                }
+                try {
+                    return declaring.getDeclaredMethod(name, parameters);
+                } catch (NoSuchMethodException e) {
+                    throw new IOException("[SimulationController] Cannot restore snapshot, method not found: " +
+                                          declaring.getName() + "." + name, e);
+                }
+            }
+            case LOGGER:
+                return LoggerFactory.getLogger(readString());
+            case STATIC:
+                return StaticEntityReference.of((Method) readObject());
+            case OPTIONAL:
+                return Optional.ofNullable(readObject());
+            case WEAK:
+                return new WeakReference<>(readObject());
+            case SOFT:
+                return new SoftReference<>(readObject());
+            case VALUE: {
+                final var bytes = new byte[readVarInt()];
+                readBytes(bytes);
+                try (var in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    in.setObjectInputFilter(VALUES);
+                    return define(in.readObject());
+                } catch (ClassNotFoundException e) {
+                    throw new IOException("[SimulationController] Cannot read snapshot", e);
+                }
+            }
+            case ARRAY: {
+                final var type = readClass();
+                final var array = Array.newInstance(type.getComponentType(), readVarInt());
+                bodies.add(array);
+                return define(array);
+            }
+            case RECORD: {
+                final var type = readClass();
+                final var components = new Object[type.getRecordComponents().length];
+                for (int i = 0; i < components.length; i++) {
+                    components[i] = readObject();
+                }
+                return define(ObjectGraphCopier.construct(type, components));
+            }
+            case COLLECTION:
+            case MAP: {
+                final var type = readClass();
+                final var unmodifiable = readBoolean();
+                final var comparator = (Comparator<?>) readObject();
+                final var keyType = type == EnumMap.class ? readClass() : null;
+                final var rebuilt = ObjectGraphCopier.rebuild(type, comparator, keyType);
+                bodies.add(rebuilt);
+                return define(unmodifiable ? ObjectGraphCopier.unmodifiableView(rebuilt) : rebuilt);
+            }
+            case OBJECT: {
+                final var type = readClass();
+                if (described.add(type)) {
+                    final var fields = ObjectGraphCopier.fields(type);
+                    final var count = readVarInt();
+                    var matches = count == fields.length;
+                    for (int i = 0; i < count; i++) {
+                        final var description = readString();
+                        matches &= i < fields.length && description.equals(describe(fields[i]));
+                    }
+                    if (!matches) {
+                        throw new IOException("[SimulationController] The fields of " + type.getName() +
+                                              " do not match the snapshot");
+                    }
+                }
+                final var object = ObjectGraphCopier.allocate(type);
+                bodies.add(object);
+                return define(object);
+            }
+            default:
+                throw new IOException("[SimulationController] Corrupt snapshot, tag: " + tag);
+            }
+        }
+
+        String readString() throws IOException {
+            final var bytes = new byte[readVarInt()];
+            readBytes(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        int readVarInt() throws IOException {
+            var value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                final var b = readByte();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IOException("[SimulationController] Corrupt snapshot, malformed integer");
+        }
+
+        /**
+         * Set the controller the snapshot is restored into, replacing the
+         * checkpointed controller wherever it was referenced
+         */
+        void setController(Devi controller) {
+            this.controller = controller;
+        }
+
+        private Object define(Object object) {
+            objects.add(object);
+            return object;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            base += buffer.position();
+            if (size - base < bytes) {
+                throw new EOFException("[SimulationController] Truncated snapshot");
+            }
+            buffer = channel.map(MapMode.READ_ONLY, base, Math.min(Math.max(REGION, bytes), size - base));
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        private void readBody(Object object) throws IOException {
+            final var type = object.getClass();
+            if (type.isArray()) {
+                final var component = type.getComponentType();
+                if (component == byte.class) {
+                    readBytes((byte[]) object);
+                } else if (object instanceof boolean[] flags) {
+                    for (int i = 0; i < flags.length; i++) {
+                        flags[i] = readBoolean();
+                    }
+                } else if (component.isPrimitive()) {
+                    readPrimitives(object, component);
+                } else {
+                    final var elements = (Object[]) object;
+                    for (int i = 0; i < elements.length; i++) {
+                        elements[i] = readObject();
+                    }
+                }
+            } else if (object instanceof Collection collection) {
+                final var elements = new Object[readVarInt()];
+                for (int i = 0; i < elements.length; i++) {
+                    elements[i] = readObject();
+                }
+                refills.add(() -> collection.addAll(Arrays.asList(elements)));
+            } else if (object instanceof Map map) {
+                final var count = readVarInt();
+                final var keys = new Object[count];
+                final var values = new Object[count];
+                for (int i = 0; i < count; i++) {
+                    keys[i] = readObject();
+                    values[i] = readObject();
+                }
+                refills.add(() -> {
+                    for (int i = 0; i < count; i++) {
+                        map.put(keys[i], values[i]);
+                    }
+                });
+            } else {
+                try {
+                    for (var field : ObjectGraphCopier.fields(type)) {
+                        final var fieldType = field.getType();
+                        field.set(object, fieldType.isPrimitive() ? readPrimitive(fieldType) : readObject());
+                    }
+                } catch (IllegalAccessException e) {
+                    throw new IOException("[SimulationController] Cannot restore " + type.getName(), e);
+                }
+            }
+        }
+
+        private void readBytes(byte[] bytes) throws IOException {
+            var offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                final var chunk = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.get(bytes, offset, chunk);
+                offset += chunk;
+            }
+        }
+
+        private Class<?> readClass() throws IOException {
+            final var index = readVarInt();
+            if (index < classes.size()) {
+                return classes.get(index);
+            }
+            final var name = readString();
+            final var primitive = PRIMITIVES.get(name);
+            if (primitive != null) {
+                classes.add(primitive);
+                return primitive;
+            }
+            try {
+                final var loader = Thread.currentThread().getContextClassLoader();
+                final var type = Class.forName(name, false, loader != null ? loader : Snapshot.class.getClassLoader());
+                classes.add(type);
+                return type;
+            } catch (ClassNotFoundException e) {
+                throw new IOException("[SimulationController] Cannot restore snapshot, class not found: " + name, e);
+            }
+        }
+
+        /**
+         * Read the elements of a primitive array in bulk, through a view of the
+         * mapped region of the element type
+         */
+        private void readPrimitives(Object array, Class<?> component) throws IOException {
+            final var width = width(component);
+            final var length = Array.getLength(array);
+            var offset = 0;
+            while (offset < length) {
+                ensure(width);
+                final var chunk = Math.min(buffer.remaining() / width, length - offset);
+                switch (array) {
+                case int[] a -> buffer.asIntBuffer().get(a, offset, chunk);
+                case long[] a -> buffer.asLongBuffer().get(a, offset, chunk);
+                case double[] a -> buffer.asDoubleBuffer().get(a, offset, chunk);
+                case float[] a -> buffer.asFloatBuffer().get(a, offset, chunk);
+                case short[] a -> buffer.asShortBuffer().get(a, offset, chunk);
+                case char[] a -> buffer.asCharBuffer().get(a, offset, chunk);
+                default -> throw new IllegalStateException("[SimulationController] Not a primitive array: " +
+                                                           array.getClass().getName());
+                }
+                buffer.position(buffer.position() + chunk * width);
+                offset += chunk;
+            }
+        }
+
+        private Object readPrimitive(Class<?> type) throws IOException {
+            if (type == int.class) {
+                return readInt();
+            }
+            if (type == long.class) {
+                return readLong();
+            }
+            if (type == double.class) {
+                return Double.longBitsToDouble(readLong());
+            }
+            if (type == boolean.class) {
+                return readBoolean();
+            }
+            if (type == float.class) {
+                return Float.intBitsToFloat(readInt());
+            }
+            if (type == byte.class) {
+                return readByte();
+            }
+            if (type == short.class) {
+                return (short) readInt();
+            }
+            return (char) readInt();
+        }
+    }
+
+    /**
+     * Writes a snapshot
+     */
+    static final class Writer implements AutoCloseable {
+        private MappedByteBuffer                buffer;
+        private long                            base;
+        private final ArrayDeque<Object>        bodies    = new ArrayDeque<>();
+        private final FileChannel               channel;
+        private final Map<Class<?>, Integer>    classes   = new HashMap<>();
+        private final Devi                      controller;
+        private final Set<Class<?>>             described = new HashSet<>();
+        private final IdentityHashMap<Object, Integer> ids = new IdentityHashMap<>();
+
+        /**
+         * @param file       the snapshot file, replaced if it exists
+         * @param controller the controller being checkpointed
+         */
+        Writer(Path file, Devi controller) throws IOException {
+            this.controller = controller;
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                       StandardOpenOption.READ, StandardOpenOption.WRITE);
+            buffer = channel.map(MapMode.READ_WRITE, 0, REGION);
+            writeInt(MAGIC);
+            writeInt(VERSION);
+        }
+
+        /**
+         * Force the snapshot to storage and trim the file to its contents
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                buffer.force();
+                final var length = base + buffer.position();
+                buffer = null;
+                channel.truncate(length);
+                channel.force(true);
+            } finally {
+                channel.close();
+            }
+        }
+
+        /**
+         * Write the contents of the objects defined so far, and of the objects
+         * they reference in turn
+         */
+        void finish() throws IOException {
+            Object next;
+            while ((next = bodies.poll()) != null) {
+                writeBody(next);
+            }
+        }
+
+        void writeBoolean(boolean value) throws IOException {
+            writeByte(value ? 1 : 0);
+        }
+
+        void writeByte(int value) throws IOException {
+            ensure(1);
+            buffer.put((byte) value);
+        }
+
+        void writeInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void writeLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        /**
+         * Write a mention of an object
+         *
+         * @throws IllegalStateException if the object cannot be written
+         */
+        void writeObject(Object value) throws IOException {
+            if (value == null) {
+                writeByte(NULL);
+                return;
+            }
+            if (value == controller) {
+                writeByte(CONTROLLER);
+                return;
+            }
+            switch (value) {
+            case String s -> {
+                writeByte(STRING);
+                writeString(s);
+                return;
+            }
+            case Integer i -> {
+                writeByte(INTEGER);
+                writeInt(i);
+                return;
+            }
+            case Long l -> {
+                writeByte(LONG);
+                writeLong(l);
+                return;
+            }
+            case Double d -> {
+                writeByte(DOUBLE);
+                writeLong(Double.doubleToRawLongBits(d));
+                return;
+            }
+            case Boolean b -> {
+                writeByte(BOOLEAN);
+                writeBoolean(b);
+                return;
+            }
+            case Enum<?> e -> {
+                writeByte(ENUM);
+                writeClass(e.getDeclaringClass());
+                writeString(e.name());
+                return;
+            }
+            case Class<?> c -> {
+                writeByte(CLASS);
+                writeClass(c);
+                return;
+            }
+            case Method m -> {
+                writeByte(METHOD);
+                writeClass(m.getDeclaringClass());
+                writeString(m.getName());
+                writeVarInt(m.getParameterCount());
+                for (var parameter : m.getParameterTypes()) {
+                    writeClass(parameter);
+                }
+                return;
+            }
+            case Logger logger -> {
+                writeByte(LOGGER);
+                writeString(logger.getName());
+                return;
+            }
+            case StaticEntityReference reference -> {
+                writeByte(STATIC);
+                writeObject(reference.getMethod());
+                return;
+            }
+            default -> {
+            }
+            }
+            final var id = ids.get(value);
+            if (id != null) {
+                writeByte(REF);
+                writeVarInt(id);
+                return;
+            }
+            final var type = value.getClass();
+            if (value instanceof Devi || value instanceof Thread || value instanceof Continuation) {
+                throw new IllegalStateException("[SimulationController] Cannot checkpoint a simulation referencing " +
+                                                value);
+            }
+            if (type.isArray()) {
+                writeByte(ARRAY);
+                writeClass(type);
+                writeVarInt(Array.getLength(value));
+                define(value);
+            } else if (type.isRecord()) {
+                writeByte(RECORD);
+                writeClass(type);
+                for (var component : ObjectGraphCopier.components(value)) {
+                    writeObject(component);
+                }
+                ids.put(value, ids.size());
+            } else if (type.isHidden() || type.isSynthetic()) {
+                throw new IllegalStateException("[SimulationController] Cannot checkpoint lambda " + type.getName());
+            } else if (type.getModule().isNamed()) {
+                writeJdk(value);
+            } else {
+                writeByte(OBJECT);
+                writeClass(type);
+                if (described.add(type)) {
+                    final var fields = ObjectGraphCopier.fields(type);
+                    writeVarInt(fields.length);
+                    for (var field : fields) {
+                        writeString(describe(field));
+                    }
+                }
+                define(value);
+            }
+        }
+
+        void writeString(String value) throws IOException {
+            final var bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            writeBytes(bytes);
+        }
+
+        void writeVarInt(int value) throws IOException {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        private void define(Object value) {
+            ids.put(value, ids.size());
+            bodies.add(value);
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            buffer.force();
+            base += buffer.position();
+            buffer = channel.map(MapMode.READ_WRITE, base, Math.max(REGION, bytes));
+        }
+
+        private void writeBody(Object value) throws IOException {
+            final var type = value.getClass();
+            if (type.isArray()) {
+                final var component = type.getComponentType();
+                if (component == byte.class) {
+                    writeBytes((byte[]) value);
+                } else if (value instanceof boolean[] flags) {
+                    for (var flag : flags) {
+                        writeBoolean(flag);
+                    }
+                } else if (component.isPrimitive()) {
+                    writePrimitives(value, component);
+                } else {
+                    for (var element : (Object[]) value) {
+                        writeObject(element);
+                    }
+                }
+            } else if (value instanceof Collection<?> collection) {
+                final var elements = collection.toArray();
+                writeVarInt(elements.length);
+                for (var element : elements) {
+                    writeObject(element);
+                }
+            } else if (value instanceof Map<?, ?> map) {
+                final var entries = map.entrySet().toArray(new Map.Entry<?, ?>[0]);
+                writeVarInt(entries.length);
+                for (var entry : entries) {
+                    writeObject(entry.getKey());
+                    writeObject(entry.getValue());
+                }
+            } else {
+                try {
+                    for (var field : ObjectGraphCopier.fields(type)) {
+                        final var fieldType = field.getType();
+                        if (fieldType.isPrimitive()) {
+                            writePrimitive(fieldType, field.get(value));
+                        } else {
+                            writeObject(field.get(value));
+                        }
+                    }
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("[SimulationController] Cannot checkpoint " + type.getName(), e);
+                }
+            }
+        }
+
+        private void writeBytes(byte[] bytes) throws IOException {
+            var offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                final var chunk = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, chunk);
+                offset += chunk;
+            }
+        }
+
+        private void writeClass(Class<?> type) throws IOException {
+            final var index = classes.get(type);
+            if (index != null) {
+                writeVarInt(index);
+                return;
+            }
+            writeVarInt(classes.size());
+            classes.put(type, classes.size());
+            writeString(type.getName());
+        }
+
+        private void writeJdk(Object value) throws IOException {
+            if (value instanceof Optional<?> optional) {
+                writeByte(OPTIONAL);
+                writeObject(optional.orElse(null));
+                return;
+            }
+            if (value instanceof WeakReference<?> reference) {
+                writeByte(WEAK);
+                writeObject(reference.get());
+                return;
+            }
+            if (value instanceof SoftReference<?> reference) {
+                writeByte(SOFT);
+                writeObject(reference.get());
+                return;
+            }
+            final var rebuilt = ObjectGraphCopier.immutable(value) ? null : ObjectGraphCopier.rebuiltClass(value);
+            if (rebuilt == null) {
+                if (!(value instanceof Serializable)) {
+                    throw new IllegalStateException("[SimulationController] Cannot checkpoint " +
+                                                    value.getClass().getName());
+                }
+                final var bytes = new ByteArrayOutputStream();
+                try (var out = new ObjectOutputStream(bytes) {
+                    {
+                        enableReplaceObject(true);
+                    }
+
+                    @Override
+                    protected Object replaceObject(Object object) {
+                        if (!platform(object.getClass())) {
+                            throw new IllegalStateException("[SimulationController] Cannot checkpoint " +
+                                                            object.getClass().getName() + " within " +
+                                                            value.getClass().getName());
+                        }
+                        return object;
+                    }
+                }) {
+                    out.writeObject(value);
+                }
+                writeByte(VALUE);
+                writeVarInt(bytes.size());
+                writeBytes(bytes.toByteArray());
+                ids.put(value, ids.size());
+                return;
+            }
+            writeByte(value instanceof Map ? MAP : COLLECTION);
+            writeClass(rebuilt);
+            writeBoolean(ObjectGraphCopier.unmodifiable(value));
+            writeObject(ObjectGraphCopier.comparator(value));
+            if (rebuilt == EnumMap.class) {
+                writeClass(ObjectGraphCopier.enumKeyType(value));
+            }
+            define(value);
+        }
+
+        /**
+         * Write the elements of a primitive array in bulk, through a view of
+         * the mapped region of the element type
+         */
+        private void writePrimitives(Object array, Class<?> component) throws IOException {
+            final var width = width(component);
+            final var length = Array.getLength(array);
+            var offset = 0;
+            while (offset < length) {
+                ensure(width);
+                final var chunk = Math.min(buffer.remaining() / width, length - offset);
+                switch (array) {
+                case int[] a -> buffer.asIntBuffer().put(a, offset, chunk);
+                case long[] a -> buffer.asLongBuffer().put(a, offset, chunk);
+                case double[] a -> buffer.asDoubleBuffer().put(a, offset, chunk);
+                case float[] a -> buffer.asFloatBuffer().put(a, offset, chunk);
+                case short[] a -> buffer.asShortBuffer().put(a, offset, chunk);
+                case char[] a -> buffer.asCharBuffer().put(a, offset, chunk);
+                default -> throw new IllegalStateException("[SimulationController] Not a primitive array: " +
+                                                           array.getClass().getName());
+                }
+                buffer.position(buffer.position() + chunk * width);
+                offset += chunk;
+            }
+        }
+
+        private void writePrimitive(Class<?> type, Object value) throws IOException {
+            if (type == int.class) {
+                writeInt((Integer) value);
+            } else if (type == long.class) {
+                writeLong((Long) value);
+            } else if (type == double.class) {
+                writeLong(Double.doubleToRawLongBits((Double) value));
+            } else if (type == boolean.class) {
+                writeBoolean((Boolean) value);
+            } else if (type == float.class) {
+                writeInt(Float.floatToRawIntBits((Float) value));
+            } else if (type == byte.class) {
+                writeByte((Byte) value);
+            } else if (type == short.class) {
+                writeInt((Short) value);
+            } else {
+                writeInt((Character) value);
+            }
+        }
+    }
+
+    private static final byte ARRAY      = 12;
+    private static final byte BOOLEAN    = 7;
+    private static final byte CLASS      = 9;
+    private static final byte COLLECTION = 14;
+    private static final byte CONTROLLER = 2;
+    private static final byte DOUBLE     = 6;
+    private static final byte ENUM       = 8;
+    private static final byte INTEGER    = 4;
+    private static final byte LOGGER     = 20;
+    private static final byte LONG       = 5;
+    private static final int  MAGIC      = 0x504D534E;           // "PMSN"
+    private static final byte MAP        = 15;
+    private static final byte METHOD     = 19;
+    private static final byte NULL       = 0;
+    private static final byte OBJECT     = 11;
+    private static final byte OPTIONAL   = 16;
+    private static final byte RECORD     = 13;
+    private static final byte REF        = 1;
+    /**
+     * The size of the regions of the file mapped at a time
+     */
+    private static final long REGION     = 16 * 1024 * 1024;
+    private static final byte SOFT       = 18;
+    private static final byte STATIC     = 21;
+    private static final byte STRING     = 3;
+    private static final byte VALUE      = 10;
+    private static final int  VERSION    = 3;
+    private static final byte WEAK       = 17;
+
+    private static final Map<String, Class<?>> PRIMITIVES = Map.of("int", int.class, "long", long.class, "double",
+                                                                   double.class, "boolean", boolean.class, "float",
+                                                                   float.class, "byte", byte.class, "short",
+                                                                   short.class, "char", char.class, "void",
+                                                                   void.class);
+
+    /**
+     * Only the JDK's own classes are written as VALUE records, so only they are
+     * read back
+     */
+    private static final ObjectInputFilter VALUES = info -> {
+        final var type = info.serialClass();
+        if (type == null) {
+            return ObjectInputFilter.Status.UNDECIDED;
+        }
+        return platform(type) ? ObjectInputFilter.Status.ALLOWED : ObjectInputFilter.Status.REJECTED;
+    };
+
+    private static String describe(Field field) {
+        return field.getDeclaringClass().getName() + "." + field.getName() + ":" + field.getType().getName();
+    }
+
+    /**
+     * @return true if the type, or the element type of the array type, is
+     *         primitive or defined by the JDK
+     */
+    private static boolean platform(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        final var loader = type.getClassLoader();
+        return type.isPrimitive() || loader == null || loader == ClassLoader.getPlatformClassLoader();
+    }
+
+    /**
+     * @return the number of bytes of an element of a primitive array
+     */
+    private static int width(Class<?> component) {
+        if (component == long.class || component == double.class) {
+            return Long.BYTES;
+        }
+        if (component == int.class || component == float.class) {
+            return Integer.BYTES;
+        }
+        return Short.BYTES;
+    }
+
+    private Snapshot() {
+    }
+}
@@ -51,14 +51,35 @@ public interface StatisticalController {
      * @return a Map where the key is the signature of the event, and the value
      *         is the number of times the event was invoked
      */
-    public abstract Map<String, Integer> getSpectrum();
+    public abstract Map<String, Long> getSpectrum();
 
     /**
      * Answer the total number of events processed during the simulation
      *
      * @return
      */
-    public abstract int getTotalEvents();
+    public abstract long getTotalEvents();
+
+    /**
+     * Answer the number of events that took the zero-delay fast path, bypassing
+     * the priority queue of pending events.
+     *
+     * @return the number of fast path events, 0 by default
+     */
+    default long getFastPathEvents() {
+        return 0;
+    }
+
+    /**
+     * Answer the sampled wall clock latencies of the evaluation of each event
+     * type.
+     *
+     * @return a Map where the key is the signature of the event, and the value
+     *         its latencies, empty by default
+     */
+    default Map<String, ControllerReport.Latency> getLatencies() {
+        return Map.of();
+    }
 
     /**
      * Answer the name of this controller.
@@ -81,7 +102,9 @@ public interface StatisticalController {
             getSimulationStart(),
             getSimulationEnd(),
             getTotalEvents(),
-            getSpectrum()
+            getFastPathEvents(),
+            getSpectrum(),
+            getLatencies()
         );
     }
 }
@@ -30,6 +30,7 @@ import com.hellblazer.primeMover.runtime.Devi;
 import com.hellblazer.primeMover.runtime.EventImpl;
 import com.hellblazer.primeMover.runtime.Framework;
 import com.hellblazer.primeMover.runtime.Kairos;
+import com.hellblazer.primeMover.runtime.QueueEvent;
 import com.hellblazer.primeMover.runtime.SimulationEnd;
 
 /**
@@ -46,15 +47,21 @@ import com.hellblazer.primeMover.runtime.SimulationEnd;
  * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
  */
 public class SteppingController extends Devi implements StatisticalController {
-    protected Queue<EventImpl> eventQueue;
+    protected Queue<EventImpl>  eventQueue;
+    private final NowLaneQueue  nowLane;
 
     public SteppingController() {
         this(new PriorityQueue<>());
     }
 
+    /**
+     * @param eventQueue the priority queue of pending events, fronted by a
+     *                   {@link NowLaneQueue} for events at the current time
+     */
     public SteppingController(Queue<EventImpl> eventQueue) {
-        this.eventQueue = eventQueue;
+        this.eventQueue = nowLane = new NowLaneQueue(eventQueue);
         this.name = "Stepping Controller";
+        this.exclusive = true;
     }
 
     @Override
@@ -77,15 +84,20 @@ public class SteppingController extends Devi implements StatisticalController {
     }
 
     @Override
-    public Map<String, Integer> getSpectrum() {
-        return spectrum;
+    public Map<String, Long> getSpectrum() {
+        return spectrum.toMap();
     }
 
     @Override
-    public int getTotalEvents() {
+    public long getTotalEvents() {
         return totalEvents;
     }
 
+    @Override
+    public long getFastPathEvents() {
+        return nowLane.getFastPathEvents();
+    }
+
     public boolean isTrackSpectrum() {
         return trackSpectrum;
     }
@@ -107,6 +119,7 @@ public class SteppingController extends Devi implements StatisticalController {
             while (true) {
                 try {
                     var event = eventQueue.remove();
+                    QueueEvent.removed(event, this);
                     evaluate(event);
                     recordEvent(event);
                 } catch (SimulationEnd e) {
@@ -145,6 +158,7 @@ public class SteppingController extends Devi implements StatisticalController {
             if (event == null) {
                 return false;
             }
+            QueueEvent.removed(event, this);
             evaluate(event);
             recordEvent(event);
             simulationEnd = getCurrentTime();
@@ -180,6 +194,7 @@ public class SteppingController extends Devi implements StatisticalController {
      */
     public void reset() {
         eventQueue.clear();
+        nowLane.resetFastPathEvents();
         spectrum.clear();
         totalEvents = 0;
         simulationStart = 0;
@@ -190,5 +205,16 @@ public class SteppingController extends Devi implements StatisticalController {
     @Override
     public void post(EventImpl event) {
         eventQueue.add(event);
+        QueueEvent.posted(event, this);
+    }
+
+    @Override
+    protected int pendingEvents() {
+        return eventQueue.size();
+    }
+
+    @Override
+    protected void cancelled(EventImpl event) {
+        nowLane.tombstoned();
     }
 }
@@ -0,0 +1,805 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.controllers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.function.ToIntFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.api.EventHandle;
+import com.hellblazer.primeMover.api.SimulationException;
+import com.hellblazer.primeMover.runtime.Devi;
+import com.hellblazer.primeMover.runtime.EventImpl;
+import com.hellblazer.primeMover.runtime.Kairos;
+import com.hellblazer.primeMover.runtime.SimulationEnd;
+import com.hellblazer.primeMover.runtime.Spectrum;
+
+/**
+ * Optimistic parallel discrete event simulation controller, using the Time
+ * Warp protocol.
+ * <p>
+ * Entities are partitioned across logical processes, each evaluating the
+ * events of its entities in time order on a thread of its own, optimistically
+ * assuming that no earlier event will arrive from another logical process.
+ * When one does - a straggler - the logical process rolls back: it restores
+ * the state its entities had before the straggler's time, cancels the events
+ * the rolled back events posted by sending anti-messages, and evaluates the
+ * events again. Entity state is saved by copying the entity's fields before
+ * each event is evaluated (see {@link EntityState}).
+ * <p>
+ * The logical processes periodically agree on the global virtual time (GVT),
+ * the earliest time any event can still be evaluated or rolled back to.
+ * Events before the GVT are committed: their saved state is released (fossil
+ * collection) and they are counted in the statistics. The simulation ends
+ * when no events remain before the end time, or when an event ending the
+ * simulation ({@link SimulationEnd}) or failing is committed; optimistic work
+ * past that point is rolled back.
+ * <p>
+ * Runs unmodified entity models, with restrictions:
+ * <ul>
+ * <li>Entities interact only through events; an entity must not read or write
+ * the state of another entity directly</li>
+ * <li>Events must not block - {@code @Blocking} events, channels and the
+ * blocking primitives are not supported - nor post cancellable events</li>
+ * <li>Events must not post events before their own time</li>
+ * <li>Entity state must be rollback safe: held in fields of primitives or
+ * references to immutable objects, or in mutable objects the entity owns,
+ * referenced by {@link com.hellblazer.primeMover.annotations.Owned} fields;
+ * static state is not rolled back</li>
+ * </ul>
+ * The order in which simultaneous events are evaluated is deterministic, but
+ * not necessarily the order of {@link SimulationController}.
+ * <p>
+ * Usable directly, or through
+ * {@link com.hellblazer.primeMover.builders.SimulationBuilder#controllerType(Class)}:
+ *
+ * <pre>{@code
+ * var controller = SimulationBuilder.builder().controllerType(TimeWarpController.class).endTime(1_000_000).build();
+ * }</pre>
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class TimeWarpController extends Devi implements StatisticalController {
+
+    /**
+     * An event, or the cancellation of an event, sent between logical processes
+     */
+    private static final class Message {
+        /**
+         * The time ordering of events: by time, then the time the event was sent,
+         * then the sender and the sender's sequence number
+         */
+        static final Comparator<Message> ORDER = Comparator.<Message>comparingLong(m -> m.time)
+                                                           .thenComparingLong(m -> m.sent)
+                                                           .thenComparingInt(m -> m.sender)
+                                                           .thenComparingLong(m -> m.sequence);
+
+        final Object[]        arguments;
+        final int             event;
+        final Message         original;
+        final int             sender;
+        final long            sent;
+        final long            sequence;
+        final EntityReference target;
+        final long            time;
+
+        // Confined to the receiving logical process
+        boolean annihilated;
+        boolean processed;
+
+        Message(long time, long sent, int sender, long sequence, EntityReference target, int event,
+                Object[] arguments) {
+            this.time = time;
+            this.sent = sent;
+            this.sender = sender;
+            this.sequence = sequence;
+            this.target = target;
+            this.event = event;
+            this.arguments = arguments;
+            this.original = null;
+        }
+
+        /**
+         * The anti-message of the original
+         */
+        Message(Message original) {
+            this.time = original.time;
+            this.sent = original.sent;
+            this.sender = original.sender;
+            this.sequence = original.sequence;
+            this.target = original.target;
+            this.event = original.event;
+            this.arguments = null;
+            this.original = original;
+        }
+
+        boolean isAnti() {
+            return original != null;
+        }
+    }
+
+    /**
+     * An optimistically evaluated event, with what is needed to roll it back
+     */
+    private static final class Processed {
+        final Message       message;
+        final List<Message> outputs = new ArrayList<>(2);
+        final long          sequence;
+        final Object[]      state;
+        Throwable           terminal;
+
+        Processed(Message message, Object[] state, long sequence) {
+            this.message = message;
+            this.state = state;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * A partition of the entities, evaluating their events on its own thread.
+     * The controller of the events it evaluates.
+     */
+    private final class LogicalProcess extends Devi implements Runnable {
+        private long                                 committed;
+        private final Spectrum                       committedSpectrum = new Spectrum(getEventTypes());
+        private Processed                            current;
+        private Processed                            earliest;
+        private final int                            id;
+        private long                                 idleSince;
+        private final ConcurrentLinkedQueue<Message> inbox             = new ConcurrentLinkedQueue<>();
+        private long                                 lastCommitted     = Long.MIN_VALUE;
+        private long                                 localMin;
+        private final PriorityQueue<Message>         pending           = new PriorityQueue<>(Message.ORDER);
+        private final ArrayDeque<Processed>          processed         = new ArrayDeque<>();
+        private long                                 rollbacks;
+        private long                                 rolledBack;
+        private long                                 sequence;
+        private int                                  sinceGvt;
+        private int                                  terminals;
+
+        LogicalProcess(int id) {
+            super(TimeWarpController.this.getEventTypes());
+            this.id = id;
+        }
+
+        @Override
+        public String getName() {
+            return TimeWarpController.this.getName() + " [" + id + "]";
+        }
+
+        @Override
+        public long getSimulationEnd() {
+            return TimeWarpController.this.getSimulationEnd();
+        }
+
+        @Override
+        public long getSimulationStart() {
+            return TimeWarpController.this.getSimulationStart();
+        }
+
+        @Override
+        public Map<String, Long> getSpectrum() {
+            return committedSpectrum.toMap();
+        }
+
+        @Override
+        public long getTotalEvents() {
+            return committed;
+        }
+
+        @Override
+        public void post(EventImpl event) {
+            throw new UnsupportedOperationException("[TimeWarpController] Events must be posted by entity and ordinal");
+        }
+
+        @Override
+        public EventHandle postCancellableEvent(long time, EntityReference entity, int event, Object... arguments) {
+            throw new UnsupportedOperationException("[TimeWarpController] Cancellable events are not supported");
+        }
+
+        @Override
+        public Object postContinuingEvent(EntityReference entity, int event, Object... arguments) {
+            throw new UnsupportedOperationException("[TimeWarpController] Blocking events are not supported: " +
+                                                    entity.__signatureFor(event));
+        }
+
+        @Override
+        public void postEvent(EntityReference entity, int event, Object... arguments) {
+            postEvent(getCurrentTime(), entity, event, arguments);
+        }
+
+        @Override
+        public void postEvent(long time, EntityReference entity, int event, Object... arguments) {
+            Objects.requireNonNull(entity, "[TimeWarpController] Cannot post event to null entity");
+            final var source = current;
+            if (source == null) {
+                throw new IllegalStateException("[TimeWarpController] Events can only be posted by events");
+            }
+            if (time < source.message.time) {
+                throw new IllegalArgumentException("[TimeWarpController] Cannot post an event at " + time +
+                                                   " before the posting event at " + source.message.time);
+            }
+            final var message = new Message(time, source.message.time, id, sequence++, entity, event, arguments);
+            source.outputs.add(message);
+            route(entity).inbox.add(message);
+        }
+
+        @Override
+        public void run() {
+            Kairos.setController(this);
+            try {
+                while (true) {
+                    if (aborted) {
+                        return;
+                    }
+                    drainInbox();
+                    if (gvtRequested) {
+                        if (!gvtRound()) {
+                            return;
+                        }
+                        continue;
+                    }
+                    final var next = nextPending();
+                    if (next == null || next.time >= endTime ||
+                        (optimismWindow != Long.MAX_VALUE && next.time - optimismWindow > gvt)) {
+                        // Wait for messages, or for the GVT to advance, requesting
+                        // the GVT once idle for a while, however quickly the
+                        // scheduler returns from the yields
+                        final var now = System.nanoTime();
+                        if (idleSince == 0) {
+                            idleSince = now;
+                        } else if (now - idleSince >= IDLE_NANOS) {
+                            gvtRequested = true;
+                            continue;
+                        }
+                        Thread.yield();
+                        continue;
+                    }
+                    idleSince = 0;
+                    evaluate(pending.poll());
+                    if (++sinceGvt >= gvtInterval) {
+                        gvtRequested = true;
+                    }
+                }
+            } catch (Throwable t) {
+                abort(t);
+            } finally {
+                Kairos.setController(null);
+            }
+        }
+
+        private void cancel(Message output) {
+            route(output.target).inbox.add(new Message(output));
+        }
+
+        /**
+         * Commit the evaluated events before the limit
+         */
+        private void commit(long limit, boolean inclusive) {
+            Processed record;
+            while ((record = processed.peekFirst()) != null &&
+                   (record.message.time < limit || (inclusive && record.message.time == limit))) {
+                processed.pollFirst();
+                committed++;
+                lastCommitted = Math.max(lastCommitted, record.message.time);
+                if (TimeWarpController.this.trackSpectrum) {
+                    committedSpectrum.count(record.message.target, record.message.event);
+                }
+                if (record.terminal != null) {
+                    terminals--;
+                }
+            }
+        }
+
+        private void drainInbox() {
+            Message message;
+            while ((message = inbox.poll()) != null) {
+                if (message.isAnti()) {
+                    final var original = message.original;
+                    if (original.processed) {
+                        rollback(original);
+                    }
+                    original.annihilated = true;
+                } else {
+                    final var last = processed.peekLast();
+                    if (last != null && Message.ORDER.compare(message, last.message) < 0) {
+                        rollback(message);
+                    }
+                    pending.add(message);
+                }
+            }
+        }
+
+        private void evaluate(Message message) {
+            final var record = new Processed(message, EntityState.save(message.target), sequence);
+            message.processed = true;
+            current = record;
+            setCurrentTime(message.time);
+            try {
+                message.target.__invoke(message.event, message.arguments);
+            } catch (Throwable t) {
+                record.terminal = t;
+                terminals++;
+            } finally {
+                current = null;
+            }
+            processed.addLast(record);
+        }
+
+        /**
+         * Participate in the computation of the GVT, then commit or finish
+         *
+         * @return false if the simulation is over
+         */
+        private boolean gvtRound() throws InterruptedException {
+            try {
+                stopped.await();
+                // No logical process is evaluating, so every event not yet evaluated
+                // is in a pending queue or an inbox
+                var min = Long.MAX_VALUE;
+                final var head = nextPending();
+                if (head != null) {
+                    min = head.time;
+                }
+                for (var message : inbox) {
+                    min = Math.min(min, message.time);
+                }
+                localMin = min;
+                earliest = null;
+                if (terminals > 0) {
+                    for (var record : processed) {
+                        if (record.terminal != null) {
+                            earliest = record;
+                            break;
+                        }
+                    }
+                }
+                reported.await();
+            } catch (BrokenBarrierException e) {
+                return false;
+            }
+            if (finished) {
+                finish();
+                return false;
+            }
+            commit(gvt, false);
+            sinceGvt = 0;
+            idleSince = 0;
+            return true;
+        }
+
+        /**
+         * Roll back the optimistic work past the end of the simulation, and commit
+         * the rest
+         */
+        private void finish() {
+            Processed record;
+            while ((record = processed.peekLast()) != null && terminal != null &&
+                   Message.ORDER.compare(record.message, terminal.message) > 0) {
+                processed.pollLast();
+                EntityState.restore(record.message.target, record.state);
+                rolledBack++;
+            }
+            commit(Long.MAX_VALUE, true);
+            pending.clear();
+            inbox.clear();
+        }
+
+        /**
+         * Answer the next live pending event, discarding annihilated events
+         */
+        private Message nextPending() {
+            Message next;
+            while ((next = pending.peek()) != null && next.annihilated) {
+                pending.poll();
+            }
+            return next;
+        }
+
+        /**
+         * Roll back the evaluated events that follow the message, inclusive
+         */
+        private void rollback(Message message) {
+            rollbacks++;
+            Processed record;
+            while ((record = processed.peekLast()) != null && Message.ORDER.compare(record.message, message) >= 0) {
+                processed.pollLast();
+                EntityState.restore(record.message.target, record.state);
+                sequence = record.sequence;
+                for (var output : record.outputs) {
+                    cancel(output);
+                }
+                if (record.terminal != null) {
+                    terminals--;
+                }
+                record.message.processed = false;
+                pending.add(record.message);
+                rolledBack++;
+            }
+        }
+    }
+
+    private static final int    DEFAULT_GVT_INTERVAL = 256;
+    /**
+     * How long a logical process waits for work before requesting the GVT
+     */
+    private static final long   IDLE_NANOS           = 200_000;
+    private static final Logger log                  = LoggerFactory.getLogger(TimeWarpController.class);
+
+    protected long                         endTime           = Long.MAX_VALUE;
+    protected boolean                      simulationRunning = false;
+    private volatile long                  gvt               = Long.MIN_VALUE;
+    private int                            gvtInterval       = DEFAULT_GVT_INTERVAL;
+    private long                           gvtRounds;
+    private volatile boolean               gvtRequested;
+    private volatile boolean               aborted;
+    private volatile boolean               finished;
+    private Throwable                      failure;
+    private final LogicalProcess[]         logicalProcesses;
+    private long                           optimismWindow    = Long.MAX_VALUE;
+    private ToIntFunction<EntityReference> partitioner       = System::identityHashCode;
+    private CyclicBarrier                  reported;
+    private long                           rollbacks;
+    private long                           rolledBack;
+    private long                           sequence;
+    private CyclicBarrier                  stopped;
+    private final Thread[]                 threads;
+    private Processed                      terminal;
+
+    /**
+     * A controller with a logical process per available processor
+     */
+    public TimeWarpController() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param logicalProcesses the number of logical processes - and threads -
+     *                         the entities are partitioned across
+     */
+    public TimeWarpController(int logicalProcesses) {
+        if (logicalProcesses < 1) {
+            throw new IllegalArgumentException("[TimeWarpController] logical processes must be positive: " +
+                                               logicalProcesses);
+        }
+        this.logicalProcesses = new LogicalProcess[logicalProcesses];
+        this.threads = new Thread[logicalProcesses];
+        for (int i = 0; i < logicalProcesses; i++) {
+            this.logicalProcesses[i] = new LogicalProcess(i);
+        }
+        this.name = "Prime Mover Time Warp Simulation";
+        this.trackSpectrum = true;
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (var lp : logicalProcesses) {
+            lp.close();
+        }
+        super.close();
+    }
+
+    /**
+     * Evaluate the posted events in parallel until no events remain before the
+     * end time, or an event ending the simulation or failing is committed.
+     *
+     * @throws SimulationException if a committed event failed
+     * @throws SimulationEnd       if a committed event ended the simulation
+     */
+    public void eventLoop() throws SimulationException {
+        simulationRunning = true;
+        totalEvents = 0;
+        rollbacks = 0;
+        rolledBack = 0;
+        gvtRounds = 0;
+        aborted = false;
+        finished = false;
+        failure = null;
+        terminal = null;
+        gvt = Long.MIN_VALUE;
+        gvtRequested = false;
+        stopped = new CyclicBarrier(logicalProcesses.length, () -> gvtRequested = false);
+        reported = new CyclicBarrier(logicalProcesses.length, this::computeGvt);
+        log.info("[TimeWarpController] Simulation '{}' started at time {} on {} logical processes", name,
+                 simulationStart, logicalProcesses.length);
+        try {
+            for (var lp : logicalProcesses) {
+                threads[lp.id] = Thread.ofPlatform().name("Time Warp LP [" + lp.id + "]").start(lp);
+            }
+            for (var thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(e);
+        } finally {
+            simulationRunning = false;
+        }
+
+        var last = simulationStart;
+        for (var lp : logicalProcesses) {
+            totalEvents += lp.committed;
+            rollbacks += lp.rollbacks;
+            rolledBack += lp.rolledBack;
+            spectrum.add(lp.committedSpectrum);
+            lp.committedSpectrum.clear();
+            lp.committed = 0;
+            lp.rollbacks = 0;
+            lp.rolledBack = 0;
+            last = Math.max(last, lp.lastCommitted);
+        }
+        super.setCurrentTime(last);
+        simulationEnd = last;
+        log.info("[TimeWarpController] Simulation '{}' ended at time {} ({} events committed, {} rolled back)", name,
+                 simulationEnd, totalEvents, rolledBack);
+
+        if (failure != null) {
+            throw new SimulationException("[TimeWarpController] Simulation aborted", failure);
+        }
+        if (terminal != null) {
+            if (terminal.terminal instanceof SimulationEnd end) {
+                throw end;
+            }
+            if (terminal.terminal instanceof SimulationException se) {
+                throw se;
+            }
+            throw new SimulationException("[TimeWarpController] Event evaluation failed for entity " +
+                                          terminal.message.target.getClass().getSimpleName() + " at time " +
+                                          terminal.message.time + ": " +
+                                          terminal.message.target.__signatureFor(terminal.message.event),
+                                          terminal.terminal);
+        }
+    }
+
+    /**
+     * Answer the scheduled end time of the simulation. Events at or after the
+     * end time are not evaluated.
+     */
+    public long getEndTime() {
+        return endTime;
+    }
+
+    /**
+     * Answer the number of events a logical process evaluates between requests
+     * for the GVT
+     */
+    public int getGvtInterval() {
+        return gvtInterval;
+    }
+
+    /**
+     * Answer the number of GVT computations of the last simulation run
+     */
+    public long getGvtRounds() {
+        return gvtRounds;
+    }
+
+    /**
+     * Answer the number of logical processes
+     */
+    public int getLogicalProcesses() {
+        return logicalProcesses.length;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Answer how far past the GVT a logical process may evaluate events
+     */
+    public long getOptimismWindow() {
+        return optimismWindow;
+    }
+
+    /**
+     * Answer the number of rollbacks
+     */
+    public long getRollbacks() {
+        return rollbacks;
+    }
+
+    /**
+     * Answer the number of event evaluations that were rolled back
+     */
+    public long getRolledBackEvents() {
+        return rolledBack;
+    }
+
+    @Override
+    public long getSimulationEnd() {
+        return simulationEnd;
+    }
+
+    @Override
+    public long getSimulationStart() {
+        return simulationStart;
+    }
+
+    @Override
+    public Map<String, Long> getSpectrum() {
+        return spectrum.toMap();
+    }
+
+    @Override
+    public long getTotalEvents() {
+        return totalEvents;
+    }
+
+    public boolean isTrackSpectrum() {
+        return trackSpectrum;
+    }
+
+    @Override
+    public void post(EventImpl event) {
+        throw new UnsupportedOperationException("[TimeWarpController] Events must be posted by entity and ordinal");
+    }
+
+    @Override
+    public EventHandle postCancellableEvent(long time, EntityReference entity, int event, Object... arguments) {
+        throw new UnsupportedOperationException("[TimeWarpController] Cancellable events are not supported");
+    }
+
+    @Override
+    public Object postContinuingEvent(EntityReference entity, int event, Object... arguments) {
+        throw new UnsupportedOperationException("[TimeWarpController] Blocking events are not supported: " +
+                                                entity.__signatureFor(event));
+    }
+
+    @Override
+    public void postEvent(EntityReference entity, int event, Object... arguments) {
+        postEvent(getCurrentTime(), entity, event, arguments);
+    }
+
+    /**
+     * Post an initial event of the simulation. Only valid while the simulation is
+     * not running; events evaluated by the simulation post their events through
+     * the logical process evaluating them.
+     */
+    @Override
+    public void postEvent(long time, EntityReference entity, int event, Object... arguments) {
+        Objects.requireNonNull(entity, "[TimeWarpController] Cannot post event to null entity");
+        if (simulationRunning) {
+            throw new IllegalStateException("[TimeWarpController] Cannot post events from outside the simulation while it is running");
+        }
+        route(entity).inbox.add(new Message(time, getCurrentTime(), -1, sequence++, entity, event, arguments));
+    }
+
+    /**
+     * Set the scheduled end time of the simulation
+     *
+     * @param endTime the simulation end time
+     */
+    public void setEndTime(long endTime) {
+        this.endTime = endTime;
+    }
+
+    /**
+     * Set the number of events a logical process evaluates between requests for
+     * the GVT. Smaller intervals commit - and release saved state - sooner, at
+     * the cost of more frequent synchronization.
+     */
+    public void setGvtInterval(int gvtInterval) {
+        if (gvtInterval < 1) {
+            throw new IllegalArgumentException("[TimeWarpController] GVT interval must be positive: " + gvtInterval);
+        }
+        this.gvtInterval = gvtInterval;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Limit how far past the GVT a logical process may evaluate events, bounding
+     * the work lost to rollbacks. Unlimited by default.
+     */
+    public void setOptimismWindow(long optimismWindow) {
+        if (optimismWindow < 0) {
+            throw new IllegalArgumentException("[TimeWarpController] optimism window cannot be negative: " +
+                                               optimismWindow);
+        }
+        this.optimismWindow = optimismWindow;
+    }
+
+    /**
+     * Set the function assigning entities to logical processes: an entity is
+     * evaluated by the logical process at the function's value, modulo the
+     * number of logical processes. Entities that frequently post events to each
+     * other are best assigned to the same logical process. By default, entities
+     * are assigned by identity hash.
+     */
+    public void setPartitioner(ToIntFunction<EntityReference> partitioner) {
+        if (simulationRunning) {
+            throw new IllegalStateException("[TimeWarpController] Cannot change the partitioner while running");
+        }
+        this.partitioner = Objects.requireNonNull(partitioner, "[TimeWarpController] partitioner cannot be null");
+    }
+
+    public void setTrackSpectrum(boolean track) {
+        this.trackSpectrum = track;
+    }
+
+    /**
+     * Abort the simulation, breaking the logical processes out of the GVT
+     * computation
+     */
+    private void abort(Throwable t) {
+        synchronized (this) {
+            if (aborted) {
+                return;
+            }
+            aborted = true;
+            failure = t;
+        }
+        log.error("[TimeWarpController] Simulation '{}' aborted", name, t);
+        gvtRequested = true;
+        stopped.reset();
+        reported.reset();
+        for (var thread : threads) {
+            if (thread != null && thread != Thread.currentThread()) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Barrier action: compute the GVT from the reports of the logical processes,
+     * and determine whether the simulation is over
+     */
+    private void computeGvt() {
+        gvtRounds++;
+        var min = Long.MAX_VALUE;
+        Processed earliest = null;
+        for (var lp : logicalProcesses) {
+            min = Math.min(min, lp.localMin);
+            if (lp.earliest != null &&
+                (earliest == null || Message.ORDER.compare(lp.earliest.message, earliest.message) < 0)) {
+                earliest = lp.earliest;
+            }
+        }
+        gvt = min;
+        if (earliest != null && earliest.message.time < min) {
+            // The ending event can no longer be rolled back
+            terminal = earliest;
+            finished = true;
+        } else if (min >= endTime) {
+            finished = true;
+        }
+    }
+
+    private LogicalProcess route(EntityReference entity) {
+        return logicalProcesses[Math.floorMod(partitioner.applyAsInt(entity), logicalProcesses.length)];
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import com.hellblazer.primeMover.api.EntityReference;
+
+/**
+ * Long lived, entity affine threads evaluating events, in place of a new
+ * virtual thread per event.
+ * <p>
+ * Entities are hashed into partitions, each with a stack of idle workers. An
+ * event is handed to an idle worker of its entity's partition, and a worker is
+ * only created when none is idle - that is, when every worker of the partition
+ * is parked in a blocking call. A worker {@link Worker#release() releases}
+ * itself back to its partition before it publishes the outcome of an event, so
+ * the controller always finds it idle for the next event.
+ * <p>
+ * Not thread-safe: only the thread evaluating the current event, and the
+ * controller thread once it has received the outcome, touch the partitions.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+final class AffineWorkers {
+
+    /**
+     * A long lived thread evaluating the events handed to it, one at a time
+     */
+    static final class Worker implements Runnable {
+        private volatile boolean         closed;
+        private final ArrayDeque<Worker> partition;
+        private volatile Runnable        task;
+        private volatile Thread          thread;
+
+        private Worker(ArrayDeque<Worker> partition) {
+            this.partition = partition;
+        }
+
+        /**
+         * Return this worker to its partition's idle stack. Called by the worker
+         * itself, before publishing the outcome of its event.
+         */
+        void release() {
+            partition.push(this);
+        }
+
+        @Override
+        public void run() {
+            thread = Thread.currentThread();
+            while (true) {
+                Runnable next;
+                while ((next = task) == null) {
+                    if (closed) {
+                        return;
+                    }
+                    LockSupport.park(this);
+                }
+                task = null;
+                next.run();
+            }
+        }
+
+        private void close() {
+            closed = true;
+            LockSupport.unpark(thread);
+        }
+
+        private void execute(Runnable next) {
+            task = next;
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private final Executor                  executor;
+    private final List<ArrayDeque<Worker>> partitions;
+    private int                             started;
+
+    /**
+     * @param partitions - the number of partitions entities are hashed into
+     * @param executor   - the executor starting the worker threads
+     */
+    AffineWorkers(int partitions, Executor executor) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("[AffineWorkers] partitions must be positive: " + partitions);
+        }
+        this.executor = executor;
+        this.partitions = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            this.partitions.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Stop the idle workers. Workers parked in a blocking call are left alone.
+     */
+    void close() {
+        for (var partition : partitions) {
+            Worker worker;
+            while ((worker = partition.poll()) != null) {
+                worker.close();
+            }
+        }
+    }
+
+    /**
+     * Evaluate the task on a worker of the entity's partition
+     *
+     * @param entity - the target of the event
+     * @param task   - the evaluation of the event, given the worker evaluating
+     *               it, which the evaluation must release before publishing its
+     *               outcome
+     */
+    void execute(EntityReference entity, Function<Worker, Runnable> task) {
+        final var partition = partitions.get(Math.floorMod(System.identityHashCode(entity), partitions.size()));
+        final var idle = partition.poll();
+        if (idle != null) {
+            idle.execute(task.apply(idle));
+            return;
+        }
+        final var worker = new Worker(partition);
+        worker.task = task.apply(worker);
+        started++;
+        executor.execute(worker);
+    }
+
+    /**
+     * @return the number of worker threads started
+     */
+    int getStarted() {
+        return started;
+    }
+
+    /**
+     * @return the number of partitions
+     */
+    int getPartitions() {
+        return partitions.size();
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ * 
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ * 
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import java.lang.reflect.Modifier;
+
+import com.hellblazer.primeMover.api.EntityReference;
+
+/**
+ * Whether the evaluation of an event can reach a blocking call, as determined
+ * by the transform's analysis of the calls the event makes, through the
+ * methods of every scanned class. The transform emits the reach of the events
+ * of an entity as a {@link #TABLE_FIELD constant} of the generated class,
+ * holding the {@link #code() code} of the reach of each event at the index of
+ * its ordinal.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public enum BlockingReach {
+    /**
+     * The event cannot reach a blocking call, and can never park its thread
+     */
+    NEVER('N'),
+    /**
+     * The event calls into code that was not analyzed, and so may or may not
+     * reach a blocking call
+     */
+    UNKNOWN('U'),
+    /**
+     * The event can reach a blocking call
+     */
+    MAY('M');
+
+    /**
+     * The name of the static String constant of the generated entity class
+     * holding the codes of the reach of its events, indexed by ordinal
+     */
+    public static final String TABLE_FIELD = "__blocking";
+
+    private static final ClassValue<String> TABLES = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            for (var c = type; c != null; c = c.getSuperclass()) {
+                try {
+                    var field = c.getDeclaredField(TABLE_FIELD);
+                    if (Modifier.isStatic(field.getModifiers()) && field.getType() == String.class &&
+                        field.trySetAccessible()) {
+                        return (String) field.get(null);
+                    }
+                } catch (NoSuchFieldException e) {
+                    // not generated for this class
+                } catch (IllegalAccessException e) {
+                    return null;
+                }
+            }
+            return null;
+        }
+    };
+
+    /**
+     * Answer the reach of the code
+     *
+     * @throws IllegalArgumentException if the code is not the code of a reach
+     */
+    public static BlockingReach decode(char code) {
+        return switch (code) {
+        case 'N' -> NEVER;
+        case 'U' -> UNKNOWN;
+        case 'M' -> MAY;
+        default -> throw new IllegalArgumentException("[BlockingReach] Unknown code: " + code);
+        };
+    }
+
+    /**
+     * Answer the reach of the event of the entity class, as recorded in the
+     * table generated for the class or the nearest of its superclasses
+     *
+     * @param entity the entity class
+     * @param event  the ordinal of the event
+     * @return the reach of the event, or null if no reach is recorded for it
+     */
+    public static BlockingReach of(Class<?> entity, int event) {
+        final var table = TABLES.get(entity);
+        if (table == null || event < 0 || event >= table.length()) {
+            return null;
+        }
+        return decode(table.charAt(event));
+    }
+
+    /**
+     * Answer the reach of the entity's event. Entities that were not analyzed by
+     * the transform answer {@link #NEVER} for the events they report cannot
+     * {@link EntityReference#__mayBlock(int) block}, and {@link #UNKNOWN}
+     * otherwise.
+     *
+     * @param entity the target of the event
+     * @param event  the ordinal of the event
+     */
+    public static BlockingReach of(EntityReference entity, int event) {
+        final var reach = of(entity.getClass(), event);
+        if (reach != null) {
+            return reach;
+        }
+        return entity.__mayBlock(event) ? UNKNOWN : NEVER;
+    }
+
+    private final char code;
+
+    BlockingReach(char code) {
+        this.code = code;
+    }
+
+    /**
+     * @return the character encoding this reach in the generated table
+     */
+    public char code() {
+        return code;
+    }
+
+    /**
+     * Answer the reach of code making the calls of both this and the other reach
+     */
+    public BlockingReach join(BlockingReach other) {
+        return compareTo(other) >= 0 ? this : other;
+    }
+
+    /**
+     * @return true unless the reach is {@link #NEVER}
+     */
+    public boolean mayBlock() {
+        return this != NEVER;
+    }
+}
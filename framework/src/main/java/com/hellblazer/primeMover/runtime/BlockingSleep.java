@@ -44,6 +44,11 @@ class BlockingSleep implements EntityReference {
         return "<com.hellblazer.primeMover.runtime.BlockingSleep: void sleep(long)>";
     }
 
+    @Override
+    public boolean __mayBlock(int event) {
+        return false;
+    }
+
     public void sleep(long duration) {
         Kairos.sleep(duration);
     }
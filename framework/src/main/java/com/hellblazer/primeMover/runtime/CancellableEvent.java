@@ -0,0 +1,62 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import com.hellblazer.primeMover.api.EventHandle;
+
+/**
+ * The handle of an event posted with
+ * {@link Devi#postCancellableEvent(long, com.hellblazer.primeMover.api.EntityReference, int, Object...)}
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+final class CancellableEvent implements EventHandle {
+    private final Devi      controller;
+    private final EventImpl event;
+
+    CancellableEvent(Devi controller, EventImpl event) {
+        this.controller = controller;
+        this.event = event;
+    }
+
+    @Override
+    public boolean cancel() {
+        if (!event.cancel()) {
+            return false;
+        }
+        controller.cancelled(event);
+        return true;
+    }
+
+    @Override
+    public long getTime() {
+        return event.getTime();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return event.isCancelled();
+    }
+
+    @Override
+    public String toString() {
+        return (event.isCancelled() ? "cancelled: " : "") + event;
+    }
+}
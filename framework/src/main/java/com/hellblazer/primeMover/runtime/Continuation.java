@@ -35,6 +35,7 @@ public class Continuation implements Serializable {
     private static final long serialVersionUID = -4307033871239385970L;
 
     private volatile Throwable exception;
+    private volatile boolean   resumed;
     private volatile Object    returnValue;
     private volatile Thread    thread;
 
@@ -54,10 +55,37 @@ public class Continuation implements Serializable {
      */
     public Object park(CompletableFuture<EvaluationResult> sailorMoon, EvaluationResult result) throws Throwable {
         assert thread == null;
+        resumed = false;
         thread = Thread.currentThread();
         try {
             sailorMoon.complete(result);
-            LockSupport.park();
+            awaitResume();
+            final var ex = exception;
+            if (ex != null) {
+                exception = null;
+                throw ex;
+            }
+            final var value = returnValue;
+            returnValue = null;
+            return value;
+        } finally {
+            thread = null;
+        }
+    }
+
+    /**
+     * SUSPENDS the calling thread until {@link #resume()} is called from another
+     * thread, as {@link #park(CompletableFuture, EvaluationResult)}, publishing
+     * that the event blocked through the {@code handoff} of an exclusively
+     * evaluating controller.
+     */
+    Object park(Handoff handoff, EventImpl blockingEvent, EventImpl continuingEvent) throws Throwable {
+        assert thread == null;
+        resumed = false;
+        thread = Thread.currentThread();
+        try {
+            handoff.blocked(blockingEvent, continuingEvent);
+            awaitResume();
             final var ex = exception;
             if (ex != null) {
                 exception = null;
@@ -72,8 +100,10 @@ public class Continuation implements Serializable {
     }
 
     public void resume() {
-        if (thread != null && thread.isAlive()) {
-            LockSupport.unpark(thread);
+        final var parked = thread;
+        if (parked != null && parked.isAlive()) {
+            resumed = true;
+            LockSupport.unpark(parked);
         }
     }
 
@@ -92,4 +122,14 @@ public class Continuation implements Serializable {
     public void setReturnValue(Object returnValue) {
         this.returnValue = returnValue;
     }
+
+    /**
+     * Park until resumed. The thread may be a reused worker carrying a stale
+     * permit, so a return from park alone is not a resume.
+     */
+    private void awaitResume() {
+        while (!resumed) {
+            LockSupport.park(this);
+        }
+    }
 }
@@ -23,9 +23,9 @@ import com.hellblazer.primeMover.api.Controller;
 import com.hellblazer.primeMover.api.Event;
 import com.hellblazer.primeMover.api.SimulationException;
 import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.api.EventHandle;
 import com.hellblazer.primeMover.ControllerReport;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.*;
 
@@ -54,6 +54,9 @@ import org.slf4j.LoggerFactory;
  * Virtual threads are lightweight (thousands can run concurrently) and use cooperative
  * scheduling. When an event blocks (e.g., {@code Kronos.blockingSleep()}), the virtual
  * thread yields without consuming an OS thread, allowing other events to run efficiently.
+ * Optionally, events are instead evaluated on long lived, entity affine worker threads
+ * ({@link #setWorkerPartitions(int)}), and the virtual threads scheduled on a dedicated
+ * carrier ({@link #setDedicatedCarrier(boolean)}).
  * <p>
  * The {@code serializer} semaphore ensures that despite concurrent virtual thread execution,
  * only one event is actively evaluating at any moment. This maintains simulation determinism
@@ -73,10 +76,16 @@ import org.slf4j.LoggerFactory;
  * <b>Event Processing Flow</b>
  * <ol>
  *   <li>Event posted via {@code post(EventImpl)} (thread-safety depends on subclass)</li>
- *   <li>{@code evaluate(EventImpl)} acquires the {@code serializer} semaphore</li>
- *   <li>Event invoked in a virtual thread via {@code executor.execute()}</li>
+ *   <li>{@code evaluate(EventImpl)} acquires the {@code serializer} semaphore - unless
+ *       {@link #setExclusiveEvaluation(boolean) exclusive evaluation} is enabled, where the
+ *       controller thread is the only evaluator and the semaphore is skipped</li>
+ *   <li>Event invoked in a virtual thread via {@code executor.execute()} - or, with
+ *       {@link #setInlineEvents(boolean) inline events} enabled, directly on the
+ *       controller thread if the event can never park</li>
  *   <li>Virtual thread executes entity method, may block and yield</li>
- *   <li>Event completes, releases semaphore, posts continuation/result events</li>
+ *   <li>Event completes, releases semaphore, posts continuation/result events. The outcome
+ *       reaches the controller thread through a per event {@link CompletableFuture}, or through
+ *       a single reusable handoff with exclusive evaluation</li>
  * </ol>
  * <p>
  * <b>Blocking Event Continuations</b>
@@ -138,32 +147,80 @@ import org.slf4j.LoggerFactory;
  *
  * // Stop and read statistics
  * controller.stop();
- * int events = controller.getTotalEvents();
+ * long events = controller.getTotalEvents();
  * }</pre>
  *
  * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
  */
 abstract public class Devi implements Controller, AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(Devi.class);
-    private final    ExecutorService                     executor;
+
+    /**
+     * Whether the controller class posts typed and runnable events as they are:
+     * controllers that intercept the posting of events with arguments are handed
+     * these events with their arguments boxed instead
+     */
+    private static final ClassValue<Boolean> TYPED = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("postEvent", EntityReference.class, int.class, Object[].class)
+                           .getDeclaringClass() == Devi.class
+                && type.getMethod("postEvent", long.class, EntityReference.class, int.class, Object[].class)
+                       .getDeclaringClass() == Devi.class
+                && type.getMethod("postContinuingEvent", EntityReference.class, int.class, Object[].class)
+                       .getDeclaringClass() == Devi.class;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
+
+    private          boolean                             dedicatedCarrier  = false;
+    private          ExecutorService                     executor;
+    private          AffineWorkers                       workers;
     private final    Semaphore                           serializer        = new Semaphore(1);
     private volatile EventImpl                           caller;
     private volatile EventImpl                           currentEvent;
     private volatile long                                currentTime       = 0;
     private          boolean                             debugEvents       = false;
     private          Logger                              eventLog;
+    private          EventTracer                         eventTracer;
+    private final    Handoff                             handoff           = new Handoff();
     private volatile CompletableFuture<EvaluationResult> futureSailor;
+    private          boolean                             inlineEvents      = false;
+    private          boolean                             inlining;
+    private final    EventTypes                          eventTypes;
+    private          Latencies                           latencies;
     private          boolean                             trackEventSources = false;
 
+    /**
+     * True if only the controller's thread evaluates events: see
+     * {@link #setExclusiveEvaluation(boolean)}. Assigned directly by the
+     * constructors of subclasses.
+     */
+    protected boolean exclusive = false;
+
     // Statistics tracking infrastructure (subclasses can override for thread-safety)
-    protected String               name            = "Simulation";
-    protected long                 simulationStart = 0;
-    protected long                 simulationEnd   = 0;
-    protected int                  totalEvents     = 0;
-    protected Map<String, Integer> spectrum        = new HashMap<>();
-    protected boolean              trackSpectrum   = false;
+    protected String         name            = "Simulation";
+    protected long           simulationStart = 0;
+    protected long           simulationEnd   = 0;
+    protected long           totalEvents     = 0;
+    protected final Spectrum spectrum;
+    protected boolean        trackSpectrum   = false;
 
     public Devi() {
+        this(new EventTypes());
+    }
+
+    /**
+     * @param eventTypes the registry of the event types of the controller,
+     *                   shared with the controllers whose statistics are merged
+     *                   with its own
+     */
+    protected Devi(EventTypes eventTypes) {
+        this.eventTypes = Objects.requireNonNull(eventTypes, "[Devi] eventTypes cannot be null");
+        spectrum = new Spectrum(eventTypes);
         executor = Executors.newVirtualThreadPerTaskExecutor();
     }
 
@@ -191,9 +248,20 @@ abstract public class Devi implements Controller, AutoCloseable {
 
     @Override
     public void close() throws Exception {
+        Framework.unbind(this);
+        if (workers != null) {
+            workers.close();
+        }
         executor.close();
     }
 
+    /**
+     * Answer the registry of the event types of the controller
+     */
+    public EventTypes getEventTypes() {
+        return eventTypes;
+    }
+
     /**
      * Answer the current event of the controller
      *
@@ -246,6 +314,138 @@ abstract public class Devi implements Controller, AutoCloseable {
         debugEvents = debug;
     }
 
+    /**
+     * @return true if the virtual threads evaluating events run on a carrier
+     *         thread dedicated to this controller
+     */
+    public boolean isDedicatedCarrier() {
+        return dedicatedCarrier;
+    }
+
+    /**
+     * Configure the scheduler of the virtual threads evaluating events. By
+     * default they are scheduled on the JVM's shared carrier pool, migrating
+     * between carriers and subject to work stealing - which buys nothing, as
+     * only one event is evaluated at a time. With a dedicated carrier, they are
+     * all scheduled on a single platform thread owned by this controller, so
+     * that event starts and continuation resumes stay on one core.
+     * <p>
+     * Must be configured before any events are evaluated: virtual threads
+     * parked on the previous scheduler are resumed on it.
+     *
+     * @param dedicated - true to run event threads on a dedicated carrier
+     */
+    public void setDedicatedCarrier(boolean dedicated) {
+        if (dedicated == dedicatedCarrier) {
+            return;
+        }
+        if (currentEvent != null) {
+            throw new IllegalStateException("[Devi] Cannot change the carrier while evaluating " + currentEvent);
+        }
+        final var previous = executor;
+        executor = dedicated ? dedicatedCarrierExecutor() : Executors.newVirtualThreadPerTaskExecutor();
+        dedicatedCarrier = dedicated;
+        if (workers != null) {
+            workers.close();
+            workers = new AffineWorkers(workers.getPartitions(), executor);
+        }
+        previous.shutdown();
+    }
+
+    /**
+     * @return the number of partitions of entity affine worker threads, or 0 if
+     *         each event is evaluated on a new thread
+     */
+    public int getWorkerPartitions() {
+        return workers == null ? 0 : workers.getPartitions();
+    }
+
+    /**
+     * @return the number of entity affine worker threads started
+     */
+    public int getWorkersStarted() {
+        return workers == null ? 0 : workers.getStarted();
+    }
+
+    /**
+     * Configure the threads evaluating events. By default, each event is
+     * evaluated on a new virtual thread. With worker partitions, entities are
+     * hashed into the given number of partitions, and events are evaluated on
+     * long lived worker threads of their entity's partition, taking thread
+     * creation off the event path. A worker that blocks stays with its event
+     * until the event completes; the partition starts another worker only if
+     * all of its workers are blocked. With more partitions than entities, each
+     * entity tends to have workers of its own.
+     * <p>
+     * Must not be changed while an event is being evaluated.
+     *
+     * @param partitions - the number of partitions, or 0 for a new thread per
+     *                   event
+     */
+    public void setWorkerPartitions(int partitions) {
+        if (partitions < 0) {
+            throw new IllegalArgumentException("[Devi] worker partitions cannot be negative: " + partitions);
+        }
+        if (currentEvent != null) {
+            throw new IllegalStateException("[Devi] Cannot change the workers while evaluating " + currentEvent);
+        }
+        if (workers != null) {
+            workers.close();
+        }
+        workers = partitions == 0 ? null : new AffineWorkers(partitions, executor);
+    }
+
+    /**
+     * @return true if the controller's thread is the only thread evaluating
+     *         events
+     */
+    public boolean isExclusiveEvaluation() {
+        return exclusive;
+    }
+
+    /**
+     * Configure the handoff between the controller and the threads evaluating its
+     * events. By default, each evaluation is serialized through a semaphore and
+     * its outcome is delivered through a newly allocated future. When the
+     * controller's thread is known to be the only thread evaluating events, as in
+     * the single threaded controllers, the semaphore is skipped and the outcome
+     * is delivered through a reusable, allocation free handoff instead.
+     * <p>
+     * Must not be changed while an event is being evaluated.
+     *
+     * @param exclusive - true if only the controller's thread evaluates events
+     */
+    public void setExclusiveEvaluation(boolean exclusive) {
+        this.exclusive = exclusive;
+    }
+
+    /**
+     * @return true if the controller evaluates events that cannot park directly
+     *         on the controller thread
+     */
+    public boolean isInlineEvents() {
+        return inlineEvents;
+    }
+
+    /**
+     * Configure the inline evaluation of events. By default every event is
+     * evaluated on a virtual thread of its own, so that it can park if it makes
+     * a blocking call. When inline evaluation is enabled, events whose entity
+     * reports they can never park ({@link EntityReference#__mayBlock(int)}) are
+     * instead evaluated directly on the controller thread, avoiding the thread
+     * creation and handoff. Events that may park, and continuations, are
+     * evaluated as before.
+     * <p>
+     * An inline event that nevertheless makes a blocking call fails with an
+     * {@link IllegalStateException}.
+     *
+     * @param inline - true to evaluate non-blocking events on the controller
+     *               thread
+     */
+    public void setInlineEvents(boolean inline) {
+        inlineEvents = inline;
+    }
+
     /**
      * @return true if the controller is tracking event sources
      */
@@ -280,17 +480,60 @@ abstract public class Devi implements Controller, AutoCloseable {
      */
     @Override
     public Object postContinuingEvent(EntityReference entity, int event, Object... arguments) throws Throwable {
-        final var current = currentEvent;
-        final var sailorMoon = futureSailor;
+        if (inlining) {
+            throw new IllegalStateException("[Devi] Event evaluated inline cannot block: " + currentEvent.getSignature());
+        }
+        return block(createEvent(currentTime, entity, event, arguments));
+    }
 
-        assert current != null : "no current event";
-        assert sailorMoon != null : "No future to signal";
-        assert !sailorMoon.isDone() : "Future sailor is already done";
+    /**
+     * Post the typed event to be evaluated, blocking the caller as
+     * {@link #postContinuingEvent(EntityReference, int, Object...)}
+     *
+     * @param event the event, created by
+     *              {@link #createTypedEvent(EntityReference, int, int)}
+     * @return the result of the event
+     * @throws Throwable
+     */
+    public Object postContinuingEvent(TypedEvent event) throws Throwable {
+        if (!TYPED.get(getClass())) {
+            return postContinuingEvent(event.getReference(), event.getOrdinal(), event.getArguments());
+        }
+        if (inlining) {
+            throw new IllegalStateException("[Devi] Event evaluated inline cannot block: " + currentEvent.getSignature());
+        }
+        return block(event);
+    }
 
-        final var ct = currentTime;
-        final var continuingEvent = current.clone(ct);
-        var blockingEvent = createEvent(ct, entity, event, arguments);
-        return continuingEvent.park(sailorMoon, new EvaluationResult(blockingEvent, continuingEvent));
+    /**
+     * Post the typed event to be evaluated, as
+     * {@link #postEvent(EntityReference, int, Object...)}
+     *
+     * @param event the event, created by
+     *              {@link #createTypedEvent(EntityReference, int, int)}
+     */
+    public void postEvent(TypedEvent event) {
+        if (!TYPED.get(getClass())) {
+            postEvent(event.getReference(), event.getOrdinal(), event.getArguments());
+            return;
+        }
+        post(event);
+    }
+
+    /**
+     * Create an event at the current time whose arguments are to be filled into
+     * its typed slots, to be posted by {@link #postEvent(TypedEvent)} or
+     * {@link #postContinuingEvent(TypedEvent)}
+     *
+     * @param entity the target of the event
+     * @param event  the ordinal of the event
+     * @param shape  the {@link TypedEvent#shapeOf(String) shape} of the
+     *               arguments of the event
+     * @return the event
+     */
+    public TypedEvent createTypedEvent(EntityReference entity, int event, int shape) {
+        return new TypedEvent(debugEvents ? debugInfo(entity) : null, currentTime,
+                              trackEventSources ? currentEvent : null, entity, event, shape);
     }
 
     /**
@@ -305,6 +548,26 @@ abstract public class Devi implements Controller, AutoCloseable {
         post(createEvent(currentTime, entity, event, arguments));
     }
 
+    /**
+     * Post the event to be evaluated at the specified instant in time, answering
+     * a handle that can cancel it. Cancellation tombstones the event; the
+     * controller drops it without evaluation when it reaches the head of the
+     * event queue.
+     *
+     * @param time      - the instant in time the event is to be processed
+     * @param entity    - the target of the event
+     * @param event     - the event event
+     * @param arguments - the arguments to the event
+     * @return the handle of the posted event
+     */
+    @Override
+    public EventHandle postCancellableEvent(long time, EntityReference entity, int event, Object... arguments) {
+        final var posted = createEvent(time, entity, event, arguments);
+        posted.escape();
+        post(posted);
+        return new CancellableEvent(this, posted);
+    }
+
     /**
      * Post the event to be evaluated at the specified instant in time
      *
@@ -318,6 +581,60 @@ abstract public class Devi implements Controller, AutoCloseable {
         post(createEvent(time, entity, event, arguments));
     }
 
+    /**
+     * Post the running of the runnable at the specified instant in time, as a
+     * call of {@link Framework#run(Runnable)}
+     *
+     * @param time     - the instant in time the runnable is to be run
+     * @param runnable - the runnable
+     */
+    public void postRunnable(long time, Runnable runnable) {
+        if (!TYPED.get(getClass())) {
+            postEvent(time, StaticEntityReference.RUN, 0, runnable);
+            return;
+        }
+        post(new RunnableEvent(debugEvents ? debugInfo(StaticEntityReference.RUN) : null, time,
+                               trackEventSources ? currentEvent : null, runnable));
+    }
+
+    /**
+     * Suspend the current event of a {@link StacklessEntityReference stackless
+     * entity} on the blocking event, rather than parking its thread. The
+     * blocking event is posted now; when it completes, the current event is
+     * resumed from the frame with the result of the blocking event, through
+     * {@link StacklessEntityReference#__resume(int, Frame)}.
+     * <p>
+     * Controllers that intercept the posting of events, which can only block a
+     * caller by parking its thread, block the current event and resume it in
+     * place.
+     *
+     * @param frame     the frame of the suspended event, its state and locals
+     *                  spilled
+     * @param entity    the target of the blocking event
+     * @param event     the ordinal of the blocking event
+     * @param arguments the arguments to the blocking event
+     * @return {@link Frame#SUSPENDED}, to be returned by the suspended event,
+     *         or the result of the resumed event if it was resumed in place
+     * @throws Throwable
+     */
+    public Object suspend(Frame frame, EntityReference entity, int event, Object... arguments) throws Throwable {
+        final var current = currentEvent;
+        if (current == null || !(current.getReference() instanceof StacklessEntityReference stackless)) {
+            throw new IllegalStateException("[Devi] Only the events of stackless entities can suspend: " + current);
+        }
+        if (!TYPED.get(getClass())) {
+            frame.resumed(postContinuingEvent(entity, event, arguments), null);
+            return stackless.__resume(current.getOrdinal(), frame);
+        }
+        final var resuming = new FrameEvent(currentTime, trackEventSources ? current : null, stackless,
+                                            current.getOrdinal(), frame);
+        resuming.setCaller(caller);
+        final var blocking = createEvent(currentTime, entity, event, arguments);
+        blocking.setCaller(resuming);
+        post(blocking);
+        return Frame.SUSPENDED;
+    }
+
     /**
      * Configure the logger for tracing all event processing
      *
@@ -328,22 +645,60 @@ abstract public class Devi implements Controller, AutoCloseable {
         this.eventLog = eventLog;
     }
 
+    /**
+     * Configure the tracer recording every evaluated event in a compact binary
+     * trace. Unlike the {@link #setEventLogger(Logger) event logger}, tracing
+     * formats nothing while the simulation runs.
+     *
+     * @param eventTracer the tracer, or null to stop tracing
+     */
+    public void setEventTracer(EventTracer eventTracer) {
+        this.eventTracer = eventTracer;
+    }
+
+    /**
+     * Answer the sampled wall clock latencies of the evaluation of each event
+     * type
+     *
+     * @return an unmodifiable map of event signatures to their latencies, empty
+     *         unless latency sampling is enabled
+     */
+    public Map<String, ControllerReport.Latency> getLatencies() {
+        final var sampled = latencies;
+        return sampled == null ? Map.of() : sampled.toMap();
+    }
+
+    /**
+     * @return the average number of evaluations per latency sample, or 0 if
+     *         latencies are not sampled
+     */
+    public int getLatencySampling() {
+        final var sampled = latencies;
+        return sampled == null ? 0 : sampled.getInterval();
+    }
+
+    /**
+     * Configure the sampling of the wall clock latency of event evaluation into
+     * a histogram per event type. Sampling one in a few hundred evaluations
+     * costs little enough to be left on; sampling every evaluation times each
+     * with {@link System#nanoTime()}. Reconfiguring discards the latencies
+     * sampled.
+     *
+     * @param interval the average number of evaluations per sample, 1 to sample
+     *                 every evaluation, or 0 to stop sampling
+     */
+    public void setLatencySampling(int interval) {
+        latencies = interval == 0 ? null : new Latencies(eventTypes, interval);
+    }
+
 
     protected EventImpl createEvent(long time, EntityReference entity, int event, Object... arguments) {
         Event sourceEvent = trackEventSources ? currentEvent : null;
 
         if (debugEvents) {
-            // Use getName() instead of getCanonicalName() for reliable matching
-            // getCanonicalName() can return null for anonymous/local classes
-            final var entityClassName = entity.getClass().getName();
-            var frame = StackWalker.getInstance()
-                                   .walk(stream -> stream.dropWhile(f -> !f.getClassName().equals(entityClassName))
-                                                         .skip(1)
-                                                         .findFirst()
-                                                         .map(StackWalker.StackFrame::toStackTraceElement)
-                                                         .orElse(null));
+            final var frame = debugInfo(entity);
             if (frame != null) {
-                return new EventImpl(frame.toString(), time, sourceEvent, entity, event, arguments);
+                return new EventImpl(frame, time, sourceEvent, entity, event, arguments);
             }
         }
         return new EventImpl(time, sourceEvent, entity, event, arguments);
@@ -359,6 +714,24 @@ abstract public class Devi implements Controller, AutoCloseable {
      */
     protected final void evaluate(EventImpl next) throws SimulationException {
         Objects.requireNonNull(next, "Event cannot be null");
+        if (!next.dispatch()) {
+            logger.trace("skipping cancelled: {}", next);
+            return;
+        }
+        final var tracer = eventTracer;
+        if (tracer != null) {
+            tracer.record(next);
+        }
+        if (exclusive) {
+            assert caller == null;
+            assert currentEvent == null;
+            try {
+                evaluation(next);
+            } finally {
+                caller = null;
+            }
+            return;
+        }
         try {
             serializer.acquire();
             assert caller == null;
@@ -374,10 +747,15 @@ abstract public class Devi implements Controller, AutoCloseable {
     }
 
     /**
-     * Post the event to be evaluated
+     * Notification that a pending event has been cancelled, so that controllers
+     * can account for the tombstone left in their event queue. Called on the
+     * thread cancelling the event.
      *
-     * @param event
+     * @param event the cancelled event
      */
+    protected void cancelled(EventImpl event) {
+    }
+
     /**
      * Post the event to be evaluated. Made public to allow blocking primitives
      * in other packages to schedule continuation events.
@@ -617,7 +995,7 @@ abstract public class Devi implements Controller, AutoCloseable {
      * @return a Map where the key is the signature of the event, and the value
      *         is the number of times the event was invoked
      */
-    public abstract Map<String, Integer> getSpectrum();
+    public abstract Map<String, Long> getSpectrum();
 
     /**
      * Answer the total number of events processed during the simulation.
@@ -625,7 +1003,29 @@ abstract public class Devi implements Controller, AutoCloseable {
      *
      * @return the total number of events processed
      */
-    public abstract int getTotalEvents();
+    public abstract long getTotalEvents();
+
+    /**
+     * Answer the number of events that took the zero-delay fast path, bypassing
+     * the priority queue of pending events. Controllers without a fast path
+     * answer 0.
+     *
+     * @return the number of fast path events
+     */
+    public long getFastPathEvents() {
+        return 0;
+    }
+
+    /**
+     * Answer the number of events pending in the queue of the controller, as
+     * reported by its flight recorder events. Called only on the thread
+     * driving the controller, or while that thread awaits an evaluation.
+     *
+     * @return the number of pending events, or -1 if not known
+     */
+    protected int pendingEvents() {
+        return -1;
+    }
 
     /**
      * Helper method for recording event execution.
@@ -636,7 +1036,7 @@ abstract public class Devi implements Controller, AutoCloseable {
     protected void recordEvent(EventImpl event) {
         totalEvents++;
         if (trackSpectrum) {
-            spectrum.merge(event.getSignature(), 1, Integer::sum);
+            spectrum.count(event);
         }
     }
 
@@ -652,46 +1052,197 @@ abstract public class Devi implements Controller, AutoCloseable {
             getSimulationStart(),
             getSimulationEnd(),
             getTotalEvents(),
-            getSpectrum()
+            getFastPathEvents(),
+            getSpectrum(),
+            getLatencies()
         );
     }
 
-    private Runnable eval(EventImpl event) {
-        return () -> {
-            Devi prev = Framework.getCurrentController();
+    /**
+     * Block the current event on the blocking event, continuing it with the
+     * result of the blocking event
+     */
+    private Object block(EventImpl blockingEvent) throws Throwable {
+        final var current = currentEvent;
+        assert current != null : "no current event";
+
+        final var ct = currentTime;
+        final var continuingEvent = current.clone(ct);
+        if (exclusive) {
+            assert !handoff.isDone() : "Handoff is already done";
+            return continuingEvent.park(handoff, blockingEvent);
+        }
+        final var sailorMoon = futureSailor;
+        assert sailorMoon != null : "No future to signal";
+        assert !sailorMoon.isDone() : "Future sailor is already done";
+        return continuingEvent.park(sailorMoon, new EvaluationResult(blockingEvent, continuingEvent));
+    }
+
+    private ExecutorService dedicatedCarrierExecutor() {
+        final var carrier = Executors.newSingleThreadExecutor(Thread.ofPlatform()
+                                                                    .daemon()
+                                                                    .name("Event Carrier Thread [" + getName() + "]")
+                                                                    .factory());
+        return UnsafeExecutors.virtualThreadExecutor(carrier);
+    }
+
+    /**
+     * Answer the source location in the entity that raised an event
+     */
+    private String debugInfo(EntityReference entity) {
+        // Use getName() instead of getCanonicalName() for reliable matching
+        // getCanonicalName() can return null for anonymous/local classes
+        final var entityClassName = entity.getClass().getName();
+        var frame = StackWalker.getInstance()
+                               .walk(stream -> stream.dropWhile(f -> !f.getClassName().equals(entityClassName))
+                                                     .skip(1)
+                                                     .findFirst()
+                                                     .map(StackWalker.StackFrame::toStackTraceElement)
+                                                     .orElse(null));
+        return frame == null ? null : frame.toString();
+    }
+
+    /**
+     * Start the evaluation of the event on a thread of its own
+     */
+    private void dispatch(EventImpl next) {
+        final var affine = workers;
+        if (affine == null) {
+            executor.execute(eval(next, null));
+        } else {
+            affine.execute(next.getReference(), worker -> eval(next, worker));
+        }
+    }
+
+    private Runnable eval(EventImpl event, AffineWorkers.Worker worker) {
+        return () -> Framework.evaluate(this, () -> {
             try {
-                Framework.setController(this);
                 if (eventLog != null) {
                     eventLog.info(event.toString());
                 }
                 final var result = event.invoke();
-                if (futureSailor.isDone()) {
+                if (exclusive ? handoff.isDone() : futureSailor.isDone()) {
                     logger.error("[Devi] Event continuation already completed at time {}: {}",
                                 currentTime, event.getSignature());
                 }
-                futureSailor.complete(new EvaluationResult(result));
+                if (worker != null) {
+                    worker.release();
+                }
+                if (exclusive) {
+                    handoff.returned(result);
+                } else {
+                    futureSailor.complete(new EvaluationResult(result));
+                }
             } catch (SimulationEnd e) {
                 logger.info("[Devi] Simulation ended at time {}", currentTime);
-                futureSailor.completeExceptionally(e);
+                failed(e, worker);
                 return;
             } catch (Throwable e) {
-                futureSailor.completeExceptionally(e);
-            } finally {
-                Framework.setController(prev);
+                failed(e, worker);
             }
-        };
+        });
     }
 
     private void evaluation(EventImpl next) throws SimulationException {
         logger.trace("evaluating: {}", next);
+        final var recording = new EvaluationEvent();
+        recording.begin();
+        final var sampled = latencies;
+        final var timed = sampled != null && sampled.sample();
+        final var start = timed ? System.nanoTime() : 0L;
+        try {
+            if (inlineEvents && !next.isContinuation() && !next.mayBlock()) {
+                inlineEvaluation(next);
+            } else if (exclusive) {
+                exclusiveEvaluation(next);
+            } else {
+                futureEvaluation(next);
+            }
+        } finally {
+            if (timed) {
+                sampled.record(next, System.nanoTime() - start);
+            }
+            recording.evaluated(next, this);
+        }
+    }
+
+    /**
+     * Evaluate the event on its own thread, exchanging the outcome through the
+     * reusable handoff rather than a future
+     */
+    private void exclusiveEvaluation(EventImpl next) throws SimulationException {
+        currentEvent = next;
+        currentTime = next.getTime();
+        caller = next.getCaller();
+        handoff.arm();
+        if (next.isContinuation()) {
+            proceed(next);
+        } else {
+            dispatch(next);
+        }
+        final int outcome;
+        try {
+            outcome = handoff.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } finally {
+            currentEvent = null;
+        }
+
+        final var cc = caller;
+        switch (outcome) {
+        case Handoff.BLOCKED -> {
+            final var continuing = handoff.getContinuing();
+            final var blocking = handoff.getBlocking();
+            continuing.setCaller(cc);
+            blocking.setCaller(continuing);
+            post(blocking);
+        }
+        case Handoff.FAILED -> {
+            final var t = handoff.getFailure();
+            if (t instanceof SimulationEnd se) {
+                throw se;
+            }
+            if (t instanceof SimulationException se) {
+                throw se;
+            }
+            var entityName = next.getReference() != null
+                             ? next.getReference().getClass().getSimpleName()
+                             : "unknown";
+            throw new SimulationException(
+                "[Devi] Event evaluation failed for entity " + entityName +
+                " at time " + currentTime + ": " + next.getSignature(),
+                t);
+        }
+        default -> resumeCaller(cc, handoff.getResult());
+        }
+    }
+
+    private void failed(Throwable t, AffineWorkers.Worker worker) {
+        if (worker != null) {
+            worker.release();
+        }
+        if (exclusive) {
+            handoff.failed(t);
+        } else {
+            futureSailor.completeExceptionally(t);
+        }
+    }
+
+    /**
+     * Evaluate the event on its own thread, exchanging the outcome through a
+     * future
+     */
+    private void futureEvaluation(EventImpl next) throws SimulationException {
         final var sailorMoon = futureSailor = new CompletableFuture<>();
         currentEvent = next;
         currentTime = next.getTime();
         caller = next.getCaller();
         if (next.isContinuation()) {
-            next.proceed();
+            proceed(next);
         } else {
-            executor.execute(eval(next));
+            dispatch(next);
         }
         EvaluationResult result = null;
         try {
@@ -743,9 +1294,61 @@ abstract public class Devi implements Controller, AutoCloseable {
             result.continuingEvent.setCaller(cc);
             result.blockingEvent.setCaller(result.continuingEvent);
             post(result.blockingEvent);
-        } else if (cc != null) {
-            final var ct = currentTime;
-            post(cc.resume(ct, result.result, result.t));
+        } else {
+            resumeCaller(cc, result.result);
+        }
+    }
+
+    /**
+     * Evaluate an event that cannot park directly on the controller thread
+     */
+    private void inlineEvaluation(EventImpl next) throws SimulationException {
+        currentEvent = next;
+        currentTime = next.getTime();
+        caller = next.getCaller();
+        final Object result;
+        try {
+            inlining = true;
+            if (eventLog != null) {
+                eventLog.info(next.toString());
+            }
+            result = Framework.evaluate(this, next);
+        } catch (SimulationEnd e) {
+            logger.info("[Devi] Simulation ended at time {}", currentTime);
+            throw e;
+        } catch (SimulationException e) {
+            throw e;
+        } catch (Throwable e) {
+            var entityName = next.getReference() != null
+                             ? next.getReference().getClass().getSimpleName()
+                             : "unknown";
+            throw new SimulationException(
+                "[Devi] Event evaluation failed for entity " + entityName +
+                " at time " + currentTime + ": " + next.getSignature(),
+                e);
+        } finally {
+            inlining = false;
+            currentEvent = null;
+        }
+
+        resumeCaller(caller, result);
+    }
+
+    /**
+     * Resume the parked continuation of the event
+     */
+    private void proceed(EventImpl next) {
+        ResumeEvent.resumed(next, this);
+        next.proceed();
+    }
+
+    /**
+     * Resume the caller of the evaluated event with its result, unless the
+     * event suspended, leaving the caller to the event resuming it
+     */
+    private void resumeCaller(EventImpl cc, Object result) {
+        if (cc != null && result != Frame.SUSPENDED) {
+            post(cc.resume(currentTime, result, null));
         }
     }
 
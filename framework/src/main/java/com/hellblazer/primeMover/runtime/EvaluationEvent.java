@@ -0,0 +1,48 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The evaluation of a simulated event by its controller, spanning the wall
+ * clock time from its dispatch to the controller regaining control
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+@Name("com.hellblazer.primeMover.Evaluation")
+@Label("Event Evaluation")
+@Description("The evaluation of a simulated event")
+public final class EvaluationEvent extends SimulationEvent {
+
+    @Label("Continuation")
+    @Description("True if the event continued a blocked event")
+    boolean continuation;
+
+    void evaluated(EventImpl event, Devi controller) {
+        if (shouldCommit()) {
+            describe(event, controller);
+            continuation = event.isContinuation();
+            commit();
+        }
+    }
+}
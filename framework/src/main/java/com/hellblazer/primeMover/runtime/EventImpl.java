@@ -21,6 +21,8 @@ package com.hellblazer.primeMover.runtime;
 
 import java.io.PrintStream;
 import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.lang.ref.WeakReference;
 import java.util.concurrent.CompletableFuture;
 
@@ -75,6 +77,26 @@ public class EventImpl implements Cloneable, Serializable, Comparable<EventImpl>
      * requires a minor version bump (e.g., 1.0.x -> 1.1.0) and release notes warning.
      */
     private static final long         serialVersionUID = -628833433139964756L;
+
+    /**
+     * Event states. An event is cancelled or dispatched at most once, whichever
+     * comes first. Only an event whose handle has escaped can be cancelled, so
+     * only the dispatch of a cancellable event races its cancellation.
+     */
+    private static final int      PENDING     = 0;
+    private static final int      CANCELLED   = 1;
+    private static final int      DISPATCHED  = 2;
+    private static final int      CANCELLABLE = 3;
+    private static final VarHandle STATE;
+
+    static {
+        try {
+            STATE = MethodHandles.lookup().findVarHandle(EventImpl.class, "state", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     /**
      * The arguments for the event
      */
@@ -109,6 +131,11 @@ public class EventImpl implements Cloneable, Serializable, Comparable<EventImpl>
      */
     private transient final WeakReference<Event> sourceRef;
 
+    /**
+     * Whether the event is pending, cancelled or dispatched
+     */
+    private volatile int state;
+
     /**
      * The instant in time when this event was raised
      */
@@ -138,6 +165,7 @@ public class EventImpl implements Cloneable, Serializable, Comparable<EventImpl>
         }
 
         clone.continuation = null;
+        clone.state = PENDING;
         clone.time = time;
 
         return clone;
@@ -196,8 +224,28 @@ public class EventImpl implements Cloneable, Serializable, Comparable<EventImpl>
     public Object park(CompletableFuture<EvaluationResult> sailorMoon, EvaluationResult result) throws Throwable {
         final var newCont = new Continuation();
         continuation = newCont;
-        final var parked = newCont.park(sailorMoon, result);
-        return parked;
+        final var park = ParkEvent.parking(this);
+        try {
+            return newCont.park(sailorMoon, result);
+        } finally {
+            park.resumed();
+        }
+    }
+
+    /**
+     * Park the current thread as the continuation of this event, as
+     * {@link #park(CompletableFuture, EvaluationResult)}, publishing the blocking
+     * event through the handoff of an exclusively evaluating controller.
+     */
+    Object park(Handoff handoff, EventImpl blockingEvent) throws Throwable {
+        final var newCont = new Continuation();
+        continuation = newCont;
+        final var park = ParkEvent.parking(this);
+        try {
+            return newCont.park(handoff, blockingEvent, this);
+        } finally {
+            park.resumed();
+        }
     }
 
     @Override
@@ -216,6 +264,23 @@ public class EventImpl implements Cloneable, Serializable, Comparable<EventImpl>
         }
     }
 
+    /**
+     * Answer true if the event was cancelled before it was dispatched. Cancelled
+     * events are tombstones: controllers drop them from the event queue without
+     * evaluating them.
+     */
+    public boolean isCancelled() {
+        return state == CANCELLED;
+    }
+
+    /**
+     * Answer true if the event resumes an event suspended on a blocking call
+     * into a {@link Frame}
+     */
+    public boolean isResumption() {
+        return false;
+    }
+
     /**
      * @param caller
      */
@@ -240,6 +305,38 @@ public class EventImpl implements Cloneable, Serializable, Comparable<EventImpl>
         return continuation;
     }
 
+    /**
+     * Cancel the event if it has not been dispatched
+     *
+     * @return true if the event was cancelled by this call
+     */
+    boolean cancel() {
+        return STATE.compareAndSet(this, CANCELLABLE, CANCELLED);
+    }
+
+    /**
+     * Mark the event as dispatched, so that it can no longer be cancelled. Only
+     * a cancellable event pays for the atomic exchange; the state of any other
+     * is only read and written by the controller evaluating it.
+     *
+     * @return false if the event had already been cancelled
+     */
+    boolean dispatch() {
+        if ((int) STATE.get(this) == PENDING) {
+            STATE.set(this, DISPATCHED);
+            return true;
+        }
+        return (int) STATE.compareAndExchange(this, CANCELLABLE, DISPATCHED) != CANCELLED;
+    }
+
+    /**
+     * Mark the event as cancellable. Must be called before the event is posted,
+     * so that whichever thread dispatches it sees the mark.
+     */
+    void escape() {
+        STATE.set(this, CANCELLABLE);
+    }
+
     Object invoke() throws Throwable {
 
         final var result = reference.__invoke(event, arguments);
@@ -247,6 +344,20 @@ public class EventImpl implements Cloneable, Serializable, Comparable<EventImpl>
         return result;
     }
 
+    /**
+     * @return the ordinal of the event on its entity
+     */
+    int getOrdinal() {
+        return event;
+    }
+
+    /**
+     * @return false if the event is known never to park its evaluating thread
+     */
+    boolean mayBlock() {
+        return reference.__mayBlock(event);
+    }
+
     boolean isContinuation() {
         final var cont = continuation;
         return cont != null;
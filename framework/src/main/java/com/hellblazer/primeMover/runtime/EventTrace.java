@@ -0,0 +1,334 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import static com.hellblazer.primeMover.runtime.EventTracer.CALL;
+import static com.hellblazer.primeMover.runtime.EventTracer.CONTINUATION;
+import static com.hellblazer.primeMover.runtime.EventTracer.HEADER;
+import static com.hellblazer.primeMover.runtime.EventTracer.INDEX;
+import static com.hellblazer.primeMover.runtime.EventTracer.MAGIC;
+import static com.hellblazer.primeMover.runtime.EventTracer.RECORD;
+import static com.hellblazer.primeMover.runtime.EventTracer.VERSION;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Replays a binary trace written by an {@link EventTracer}, and compares the
+ * traces of two runs.
+ * <p>
+ * A trace is read as a cursor over its records: {@link #next()} advances to
+ * the next recorded event, whose time, entity, ordinal and signature are then
+ * available from the accessors. Traces are also usable from the command line:
+ *
+ * <pre>
+ * java com.hellblazer.primeMover.runtime.EventTrace print &lt;trace&gt;
+ * java com.hellblazer.primeMover.runtime.EventTrace diff &lt;expected&gt; &lt;actual&gt;
+ * </pre>
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public final class EventTrace implements AutoCloseable {
+
+    private static final int CONTEXT = 5;
+
+    /**
+     * Compare two traces, reporting the first event at which they diverge
+     *
+     * @param expected the directory of the expected trace
+     * @param actual   the directory of the actual trace
+     * @param out      the stream the divergence is reported on
+     * @return the number of the first divergent event, counting from 1, or -1 if
+     *         the traces are identical
+     * @throws IOException if either trace cannot be read
+     */
+    public static long diff(Path expected, Path actual, PrintStream out) throws IOException {
+        try (var a = open(expected); var b = open(actual)) {
+            // the events preceding the divergence, kept without formatting them
+            final var times = new long[CONTEXT];
+            final var entities = new int[CONTEXT];
+            final var words = new int[CONTEXT];
+            while (true) {
+                final var hasA = a.next();
+                final var hasB = b.next();
+                if (!hasA && !hasB) {
+                    out.printf("identical: %s events%n", a.getPosition());
+                    return -1;
+                }
+                if (hasA && hasB && a.sameEvent(b)) {
+                    final var slot = (int) (a.getPosition() % CONTEXT);
+                    times[slot] = a.getTime();
+                    entities[slot] = a.getEntity();
+                    words[slot] = a.word();
+                    continue;
+                }
+                // the trace that ended has read one event fewer
+                final var position = hasA ? a.getPosition() : b.getPosition();
+                out.printf("traces diverge at event %s%n", position);
+                for (var p = Math.max(1, position - CONTEXT); p < position; p++) {
+                    final var slot = (int) (p % CONTEXT);
+                    out.printf("  %s%n", a.describe(times[slot], entities[slot], words[slot]));
+                }
+                out.printf("- %s%n", hasA ? a : "<end of trace>");
+                out.printf("+ %s%n", hasB ? b : "<end of trace>");
+                return position;
+            }
+        }
+    }
+
+    public static void main(String[] argv) throws IOException {
+        if (argv.length == 2 && argv[0].equals("print")) {
+            try (var trace = open(Path.of(argv[1]))) {
+                while (trace.next()) {
+                    System.out.println(trace);
+                }
+            }
+        } else if (argv.length == 3 && argv[0].equals("diff")) {
+            if (diff(Path.of(argv[1]), Path.of(argv[2]), System.out) >= 0) {
+                System.exit(1);
+            }
+        } else {
+            System.err.println("usage: EventTrace print <trace> | diff <expected> <actual>");
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Open the trace written into the directory
+     *
+     * @param directory the trace directory
+     * @return the trace, positioned before its first event
+     * @throws IOException if the directory does not hold a readable trace
+     */
+    public static EventTrace open(Path directory) throws IOException {
+        if (!Files.exists(EventTracer.segment(directory, 0))) {
+            throw new IOException("[EventTrace] No trace in: " + directory);
+        }
+        return new EventTrace(directory);
+    }
+
+    private MappedByteBuffer buffer;
+    private final Path       directory;
+    private int[]            entityTypes = new int[0];
+    private boolean          exhausted;
+    private int              position;
+    private long             read;
+    private int              record;
+    private int              segment;
+    private String[][]       signatures  = new String[0][];
+    private String[]         typeNames   = new String[0];
+
+    private EventTrace(Path directory) throws IOException {
+        this.directory = directory;
+        readIndex();
+        map(0);
+    }
+
+    @Override
+    public void close() {
+        buffer = null;
+        exhausted = true;
+    }
+
+    /**
+     * @return the id of the entity of the current event, assigned in the order
+     *         the entities were first seen
+     */
+    public int getEntity() {
+        return buffer.getInt(record + 8);
+    }
+
+    /**
+     * @return the class name of the entity of the current event, if known
+     */
+    public String getEntityType() {
+        return entityType(getEntity());
+    }
+
+    /**
+     * @return the ordinal of the current event
+     */
+    public int getOrdinal() {
+        return word() >>> 2;
+    }
+
+    /**
+     * @return the number of events read so far, which is the number of the
+     *         current event, counting from 1
+     */
+    public long getPosition() {
+        return read;
+    }
+
+    /**
+     * @return the signature of the current event, if known
+     */
+    public String getSignature() {
+        return signature(getEntity(), getOrdinal());
+    }
+
+    /**
+     * @return the time of the current event
+     */
+    public long getTime() {
+        return buffer.getLong(record);
+    }
+
+    /**
+     * @return true if the current event was a blocking call
+     */
+    public boolean isCall() {
+        return (word() & CALL) != 0;
+    }
+
+    /**
+     * @return true if the current event was the continuation of a blocked event
+     */
+    public boolean isContinuation() {
+        return (word() & CONTINUATION) != 0;
+    }
+
+    /**
+     * Advance to the next event of the trace
+     *
+     * @return false if the trace has no more events
+     * @throws IOException if the next segment of the trace cannot be read
+     */
+    public boolean next() throws IOException {
+        if (exhausted) {
+            return false;
+        }
+        if (position + RECORD > buffer.capacity()) {
+            final var file = EventTracer.segment(directory, segment + 1);
+            if (!Files.exists(file)) {
+                exhausted = true;
+                return false;
+            }
+            map(segment + 1);
+        }
+        if (buffer.getInt(position + 8) == 0) {
+            exhausted = true;
+            return false;
+        }
+        record = position;
+        position += RECORD;
+        read++;
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return describe(getTime(), getEntity(), word());
+    }
+
+    private String describe(long time, int entity, int word) {
+        return String.format("%s : %s#%s.%s%s%s", time, entityType(entity), entity, signature(entity, word >>> 2),
+                             (word & CALL) != 0 ? " : call" : "", (word & CONTINUATION) != 0 ? " : c" : "");
+    }
+
+    private String entityType(int entity) {
+        return entity <= entityTypes.length ? typeNames[entityTypes[entity - 1]] : "<unknown>";
+    }
+
+    private void map(int index) throws IOException {
+        final var file = EventTracer.segment(directory, index);
+        try (var channel = FileChannel.open(file)) {
+            final var mapped = channel.map(MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (mapped.capacity() < HEADER || mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION
+            || mapped.getInt(8) != index || mapped.getInt(12) != RECORD) {
+                throw new IOException("[EventTrace] Not a trace segment: " + file);
+            }
+            buffer = mapped;
+        }
+        segment = index;
+        position = HEADER;
+    }
+
+    private void readIndex() throws IOException {
+        final var file = directory.resolve(INDEX);
+        if (!Files.exists(file)) {
+            // an unflushed trace: events without signatures
+            return;
+        }
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("[EventTrace] Not a trace index: " + file);
+            }
+            in.readLong();
+            in.readInt();
+            final var types = in.readInt();
+            typeNames = new String[types];
+            signatures = new String[types][];
+            for (int i = 0; i < types; i++) {
+                typeNames[i] = in.readUTF();
+                final var count = in.readInt();
+                var known = new String[0];
+                for (int j = 0; j < count; j++) {
+                    final var ordinal = in.readInt();
+                    if (ordinal >= known.length) {
+                        known = Arrays.copyOf(known, ordinal + 1);
+                    }
+                    known[ordinal] = in.readUTF();
+                }
+                signatures[i] = known;
+            }
+            entityTypes = new int[in.readInt()];
+            for (int i = 0; i < entityTypes.length; i++) {
+                entityTypes[i] = in.readInt();
+            }
+        }
+    }
+
+    /**
+     * Answer true if the current events of the traces are the same event
+     */
+    private boolean sameEvent(EventTrace other) {
+        return getTime() == other.getTime() && getEntity() == other.getEntity()
+        && word() == other.word();
+    }
+
+    private String signature(int entity, int ordinal) {
+        if (entity <= entityTypes.length) {
+            final var known = signatures[entityTypes[entity - 1]];
+            if (ordinal < known.length && known[ordinal] != null) {
+                return known[ordinal];
+            }
+        }
+        return "<unknown>";
+    }
+
+    /**
+     * The ordinal and flags of the current event
+     */
+    private int word() {
+        return buffer.getInt(record + 12);
+    }
+}
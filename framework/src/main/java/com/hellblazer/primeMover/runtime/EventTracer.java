@@ -0,0 +1,305 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.hellblazer.primeMover.api.EntityReference;
+
+/**
+ * Records the events evaluated by a controller into a compact binary trace,
+ * for replay and comparison with {@link EventTrace}.
+ * <p>
+ * Each evaluated event is recorded as a fixed width record of its time, the id
+ * of its entity, its event ordinal and whether it is a continuation or a
+ * blocking call. Records are appended to memory mapped segment files in the
+ * trace directory, so recording an event allocates nothing and costs a handful
+ * of stores. Entity ids are assigned in the order entities are first seen, so
+ * that identical runs produce identical traces. The entity classes and the
+ * event signatures are kept in an index, written when the tracer is flushed or
+ * closed.
+ * <p>
+ * A tracer is written by the thread evaluating the events of its controller,
+ * and holds the entities it has seen until it is closed.
+ *
+ * <pre>{@code
+ * try (var tracer = new EventTracer(Path.of("run-1"))) {
+ *     controller.setEventTracer(tracer);
+ *     controller.eventLoop();
+ * }
+ * }</pre>
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public final class EventTracer implements AutoCloseable {
+
+    /**
+     * An entity class, with the signatures of the events seen so far
+     */
+    private static final class Type {
+        final int      index;
+        String[]       signatures = new String[8];
+        final Class<?> type;
+
+        Type(int index, Class<?> type) {
+            this.index = index;
+            this.type = type;
+        }
+    }
+
+    /**
+     * A traced entity
+     */
+    private record Entity(int id, Type type) {
+    }
+
+    /**
+     * The default size of a segment file, in bytes
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    static final int    CALL         = 2;
+    static final int    CONTINUATION = 1;
+    static final int    HEADER       = 16;
+    static final String INDEX        = "events.index";
+    static final int    MAGIC        = 0x504D5452;
+    static final int    MAX_ORDINAL  = Integer.MAX_VALUE >>> 2;
+    static final int    RECORD       = 16;
+    static final int    VERSION      = 1;
+
+    static Path segment(Path directory, int index) {
+        return directory.resolve(String.format("events-%06d.trace", index));
+    }
+
+    private MappedByteBuffer                      buffer;
+    private boolean                               closed;
+    private final Path                            directory;
+    private final IdentityHashMap<Object, Entity> entities   = new IdentityHashMap<>();
+    private final List<Entity>                    entityList = new ArrayList<>();
+    private long                                  events;
+    private EntityReference                       last;
+    private Entity                                lastEntity;
+    private int                                   position;
+    private int                                   segments;
+    private final int                             segmentSize;
+    private final Map<Class<?>, Type>             types      = new HashMap<>();
+    private final List<Type>                      typeList   = new ArrayList<>();
+
+    /**
+     * Create a tracer writing segments of the default size into the directory
+     *
+     * @param directory the trace directory, created if it does not exist
+     * @throws IOException if the directory cannot be created, or already holds
+     *                     a trace
+     */
+    public EventTracer(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Create a tracer writing segments of the given size into the directory
+     *
+     * @param directory   the trace directory, created if it does not exist
+     * @param segmentSize the size of each segment file, in bytes
+     * @throws IOException if the directory cannot be created, or already holds
+     *                     a trace
+     */
+    public EventTracer(Path directory, int segmentSize) throws IOException {
+        if (segmentSize < HEADER + RECORD) {
+            throw new IllegalArgumentException("[EventTracer] Segment size too small: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize - (segmentSize - HEADER) % RECORD;
+        Files.createDirectories(directory);
+        if (Files.exists(segment(directory, 0))) {
+            throw new IOException("[EventTracer] Directory already holds a trace: " + directory);
+        }
+        nextSegment();
+    }
+
+    /**
+     * Flush the trace and its index, and release the current segment
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        buffer = null;
+        last = null;
+        lastEntity = null;
+        entities.clear();
+    }
+
+    /**
+     * Force the recorded events to storage, and write the index of the entities
+     * and signatures seen so far
+     */
+    public void flush() throws IOException {
+        if (closed) {
+            return;
+        }
+        buffer.force();
+        final var partial = directory.resolve(INDEX + ".partial");
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(partial)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(events);
+            out.writeInt(segments);
+            out.writeInt(typeList.size());
+            for (var type : typeList) {
+                out.writeUTF(type.type.getName());
+                var count = 0;
+                for (var signature : type.signatures) {
+                    if (signature != null) {
+                        count++;
+                    }
+                }
+                out.writeInt(count);
+                for (int ordinal = 0; ordinal < type.signatures.length; ordinal++) {
+                    if (type.signatures[ordinal] != null) {
+                        out.writeInt(ordinal);
+                        out.writeUTF(type.signatures[ordinal]);
+                    }
+                }
+            }
+            out.writeInt(entityList.size());
+            for (var entity : entityList) {
+                out.writeInt(entity.type.index);
+            }
+        }
+        Files.move(partial, directory.resolve(INDEX), StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return the trace directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return the number of events recorded
+     */
+    public long getEvents() {
+        return events;
+    }
+
+    /**
+     * Record the evaluation of the event
+     */
+    void record(EventImpl event) {
+        if (closed) {
+            return;
+        }
+        final var reference = event.getReference();
+        final Entity entity;
+        if (reference == last) {
+            entity = lastEntity;
+        } else {
+            entity = entity(reference);
+            last = reference;
+            lastEntity = entity;
+        }
+        final var ordinal = event.getOrdinal();
+        final var type = entity.type;
+        if (ordinal >= type.signatures.length || type.signatures[ordinal] == null) {
+            signature(type, reference, ordinal);
+        }
+        if (position == segmentSize) {
+            nextSegment();
+        }
+        final var flags = (event.isContinuation() ? CONTINUATION : 0) | (event.getCaller() != null ? CALL : 0);
+        final var b = buffer;
+        final var p = position;
+        b.putLong(p, event.getTime());
+        b.putInt(p + 8, entity.id);
+        b.putInt(p + 12, ordinal << 2 | flags);
+        position = p + RECORD;
+        events++;
+    }
+
+    private Entity entity(EntityReference reference) {
+        var entity = entities.get(reference);
+        if (entity == null) {
+            final var type = types.computeIfAbsent(reference.getClass(), c -> {
+                final var t = new Type(typeList.size(), c);
+                typeList.add(t);
+                return t;
+            });
+            // ids start at 1, so that an unwritten record marks the end of a segment
+            entity = new Entity(entityList.size() + 1, type);
+            entityList.add(entity);
+            entities.put(reference, entity);
+        }
+        return entity;
+    }
+
+    private void nextSegment() {
+        final var file = segment(directory, segments);
+        try (var channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                                            StandardOpenOption.WRITE)) {
+            final var next = channel.map(MapMode.READ_WRITE, 0, segmentSize);
+            next.order(ByteOrder.LITTLE_ENDIAN);
+            next.putInt(0, MAGIC);
+            next.putInt(4, VERSION);
+            next.putInt(8, segments);
+            next.putInt(12, RECORD);
+            if (buffer != null) {
+                buffer.force();
+            }
+            buffer = next;
+        } catch (IOException e) {
+            throw new UncheckedIOException("[EventTracer] Unable to map trace segment: " + file, e);
+        }
+        segments++;
+        position = HEADER;
+    }
+
+    private void signature(Type type, EntityReference reference, int ordinal) {
+        if (ordinal > MAX_ORDINAL) {
+            throw new IllegalArgumentException("[EventTracer] Event ordinal too large to trace: " + ordinal);
+        }
+        if (ordinal >= type.signatures.length) {
+            type.signatures = Arrays.copyOf(type.signatures, Math.max(ordinal + 1, type.signatures.length * 2));
+        }
+        type.signatures[ordinal] = reference.__signatureFor(ordinal);
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.hellblazer.primeMover.api.EntityReference;
+
+/**
+ * A registry of event types, assigning a dense int id to every (entity class,
+ * event ordinal) pair, so that statistics of event types can be kept in arrays
+ * indexed by the id rather than in maps keyed by the event signature.
+ * <p>
+ * Ids are assigned on the first event of each type, and are thereafter found
+ * through a per class table without computing the signature. The signatures of
+ * an entity class are assumed to depend only on the event ordinal, as those of
+ * the generated entities do. The events of {@link StaticEntityReference static
+ * methods} are typed by their method.
+ * <p>
+ * Each controller has a registry of its own, shared with the controllers whose
+ * statistics it merges, so that the classes of a simulation are only held, and
+ * the ids only grow, for as long as its controller is reachable. Ids are not
+ * stable between runs.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public final class EventTypes {
+
+    /**
+     * A registered event type
+     */
+    private record Type(Class<?> entity, int ordinal, String signature, Method method) {
+    }
+
+    /**
+     * The ids of the event types of an entity class, offset by one so that 0
+     * marks an unregistered ordinal
+     */
+    private static final class Ids {
+        volatile int[] ids = new int[0];
+    }
+
+    private final ClassValue<Ids>      tables  = new ClassValue<>() {
+        @Override
+        protected Ids computeValue(Class<?> type) {
+            return new Ids();
+        }
+    };
+    private final Map<Method, Integer> methods = new ConcurrentHashMap<>();
+    private int                        size;
+    private Type[]                     types   = new Type[64];
+
+    /**
+     * Answer the entity class of the event type
+     */
+    public Class<?> entityOf(int id) {
+        return type(id).entity;
+    }
+
+    /**
+     * Answer the static method of the event type
+     *
+     * @return the method, or null if the events of the type are not static
+     *         method calls
+     */
+    public Method methodOf(int id) {
+        return type(id).method;
+    }
+
+    /**
+     * Answer the id of the type of the event
+     */
+    public int of(EventImpl event) {
+        return of(event.getReference(), event.getOrdinal());
+    }
+
+    /**
+     * Answer the id of the type of the entity's event
+     *
+     * @param entity  the target of the event
+     * @param ordinal the ordinal of the event
+     */
+    public int of(EntityReference entity, int ordinal) {
+        if (entity instanceof StaticEntityReference s) {
+            return of(s.getMethod());
+        }
+        final var ids = tables.get(entity.getClass()).ids;
+        if (ordinal < ids.length) {
+            final var id = ids[ordinal];
+            if (id != 0) {
+                return id - 1;
+            }
+        }
+        return register(entity.getClass(), ordinal, entity.__signatureFor(ordinal));
+    }
+
+    /**
+     * Answer the id of the type of the events of the static method
+     */
+    public int of(Method method) {
+        final var id = methods.get(method);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            return methods.computeIfAbsent(method,
+                                           m -> add(new Type(m.getDeclaringClass(), 0, m.toString(), m)));
+        }
+    }
+
+    /**
+     * Answer the ordinal of the event type on its entity class
+     */
+    public int ordinalOf(int id) {
+        return type(id).ordinal;
+    }
+
+    /**
+     * Register the event type, answering its id
+     *
+     * @param entity    the entity class
+     * @param ordinal   the ordinal of the event
+     * @param signature the signature of the event
+     * @return the id of the event type, which is the existing id if the type is
+     *         already registered
+     */
+    public synchronized int register(Class<?> entity, int ordinal, String signature) {
+        final var table = tables.get(entity);
+        var ids = table.ids;
+        if (ordinal < ids.length && ids[ordinal] != 0) {
+            return ids[ordinal] - 1;
+        }
+        final var id = add(new Type(entity, ordinal, Objects.requireNonNullElse(signature, "<unknown>"), null));
+        if (ordinal >= ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(ordinal + 1, ids.length * 2));
+        } else {
+            ids = ids.clone();
+        }
+        ids[ordinal] = id + 1;
+        table.ids = ids;
+        return id;
+    }
+
+    /**
+     * Answer the signature of the event type
+     */
+    public String signatureOf(int id) {
+        return type(id).signature;
+    }
+
+    /**
+     * @return the number of registered event types, which bounds their ids
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Answer the id in this registry of an event type of the other registry,
+     * registering the type if need be
+     *
+     * @param other the registry of the id
+     * @param id    the id of the event type in the other registry
+     */
+    public int translate(EventTypes other, int id) {
+        if (other == this) {
+            return id;
+        }
+        final var type = other.type(id);
+        return type.method != null ? of(type.method) : register(type.entity, type.ordinal, type.signature);
+    }
+
+    private int add(Type type) {
+        if (size == types.length) {
+            types = Arrays.copyOf(types, size * 2);
+        }
+        types[size] = type;
+        return size++;
+    }
+
+    private synchronized Type type(int id) {
+        if (id < 0 || id >= size) {
+            throw new IllegalArgumentException("[EventTypes] Unknown event type: " + id);
+        }
+        return types[id];
+    }
+}
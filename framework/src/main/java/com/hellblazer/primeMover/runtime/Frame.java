@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ * 
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ * 
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+/**
+ * The state of an event of a {@link StacklessEntityReference stackless
+ * entity} suspended on a blocking call: the point at which the event resumes,
+ * the locals it spilled, and, once resumed, the result of the blocking call.
+ * <p>
+ * Locals are spilled into the primitive and reference slots of the frame,
+ * primitives as the bits of a long as in the slots of a {@link TypedEvent}.
+ * Hand written state machines may instead subclass the frame with fields of
+ * their own.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class Frame {
+    /**
+     * The result of an event that suspended rather than returned
+     */
+    public static final Object SUSPENDED = new Object() {
+        @Override
+        public String toString() {
+            return "<suspended>";
+        }
+    };
+
+    private static final long[]   NO_PRIMITIVES = new long[0];
+    private static final Object[] NO_REFERENCES = new Object[0];
+
+    /**
+     * The spilled primitive locals
+     */
+    public final long[]   primitives;
+    /**
+     * The spilled reference locals
+     */
+    public final Object[] references;
+    /**
+     * The point at which the event resumes
+     */
+    public int            state;
+
+    private Throwable exception;
+    private Object    result;
+
+    public Frame() {
+        this(0, 0);
+    }
+
+    /**
+     * @param primitives the number of primitive locals spilled
+     * @param references the number of reference locals spilled
+     */
+    public Frame(int primitives, int references) {
+        this.primitives = primitives == 0 ? NO_PRIMITIVES : new long[primitives];
+        this.references = references == 0 ? NO_REFERENCES : new Object[references];
+    }
+
+    /**
+     * Answer the result of the blocking call the event resumed from
+     *
+     * @throws Throwable the exception thrown by the blocking call
+     */
+    public Object result() throws Throwable {
+        final var ex = exception;
+        if (ex != null) {
+            exception = null;
+            throw ex;
+        }
+        final var value = result;
+        result = null;
+        return value;
+    }
+
+    void resumed(Object result, Throwable exception) {
+        this.result = result;
+        this.exception = exception;
+    }
+}
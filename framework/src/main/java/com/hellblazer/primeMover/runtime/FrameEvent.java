@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ * 
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ * 
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import com.hellblazer.primeMover.api.Event;
+
+/**
+ * The event resuming a suspended event of a {@link StacklessEntityReference
+ * stackless entity} from its frame. It is the caller of the blocking event the
+ * suspended event awaits, and so is posted with the result of that event when
+ * it completes.
+ * <p>
+ * A frame holds the spilled locals of code compiled against it, which cannot
+ * be reconstructed, so resumptions are not serializable, and simulations
+ * cannot be checkpointed or forked while they are pending.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+final class FrameEvent extends EventImpl {
+    private static final long serialVersionUID = 1L;
+
+    private final transient Frame frame;
+
+    FrameEvent(long time, Event sourceEvent, StacklessEntityReference reference, int ordinal, Frame frame) {
+        super(null, time, sourceEvent, reference, ordinal, (Object[]) null);
+        this.frame = frame;
+    }
+
+    @Override
+    public boolean isResumption() {
+        return true;
+    }
+
+    @Override
+    Object invoke() throws Throwable {
+        return ((StacklessEntityReference) getReference()).__resume(getOrdinal(), frame);
+    }
+
+    @Override
+    EventImpl resume(long currentTime, Object result, Throwable exception) {
+        frame.resumed(result, exception);
+        return super.resume(currentTime, result, exception);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException {
+        throw new NotSerializableException("[FrameEvent] The resumption of a suspended event cannot be deserialized");
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        throw new NotSerializableException("[FrameEvent] The resumption of a suspended event cannot be serialized: " +
+                                           getSignature());
+    }
+}
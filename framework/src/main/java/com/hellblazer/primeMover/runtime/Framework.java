@@ -24,14 +24,35 @@ import com.hellblazer.primeMover.api.EntityReference;
 
 /**
  * Static core utilities representing the simulation framework.
+ * <p>
+ * While a controller evaluates an event, it is bound to the evaluation in a
+ * scoped value, which the generated event wrappers and the {@link Kairos} calls
+ * of the event read instead of a thread local. Binding a controller during an
+ * evaluation rebinds that evaluation only, and ends with it. Outside of
+ * evaluations, the controller of each thread is bound in a thread local.
+ * Unbinding removes the thread's entry rather than binding null, and a
+ * controller unbinds itself from the closing thread, so that neither a pooled
+ * thread nor the framework pins a controller and the simulation it holds.
  * 
  * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
  */
 final public class Framework {
-    private final static ThreadLocal<Devi> CONTROLLER = new ThreadLocal<>();
+    /**
+     * The controller bound to an evaluation, rebindable within it by its thread
+     */
+    private static final class Binding {
+        private Devi controller;
+
+        private Binding(Devi controller) {
+            this.controller = controller;
+        }
+    }
+
+    private final static ThreadLocal<Devi>    CONTROLLER = new ThreadLocal<>();
+    private final static ScopedValue<Binding> EVALUATION = ScopedValue.newInstance();
 
     public static Devi getController() {
-        Devi controller = CONTROLLER.get();
+        Devi controller = getCurrentController();
         if (controller == null) {
             throw new IllegalStateException("[Framework] No simulation controller set for current thread");
         }
@@ -51,7 +72,7 @@ final public class Framework {
     }
 
     public static Devi queryController() {
-        return CONTROLLER.get();
+        return getCurrentController();
     }
 
     public static void run(Runnable r) {
@@ -59,15 +80,56 @@ final public class Framework {
     }
 
     public static boolean simulationIsRunning() {
-        return CONTROLLER.get() != null;
+        return getCurrentController() != null;
+    }
+
+    /**
+     * Evaluate the event with the controller bound to its evaluation
+     */
+    static Object evaluate(Devi controller, EventImpl event) throws Throwable {
+        return ScopedValue.where(EVALUATION, new Binding(controller)).call(event::invoke);
+    }
+
+    /**
+     * Run the evaluation with the controller bound to it
+     */
+    static void evaluate(Devi controller, Runnable evaluation) {
+        ScopedValue.where(EVALUATION, new Binding(controller)).run(evaluation);
     }
 
     static Devi getCurrentController() {
-        return CONTROLLER.get();
+        return EVALUATION.isBound() ? EVALUATION.get().controller : CONTROLLER.get();
+    }
+
+    /**
+     * Answer true if the current thread is evaluating an event
+     */
+    static boolean isEvaluating() {
+        return EVALUATION.isBound();
     }
 
     static void setController(Devi controller) {
-        CONTROLLER.set(controller);
+        if (EVALUATION.isBound()) {
+            EVALUATION.get().controller = controller;
+        } else if (controller == null) {
+            CONTROLLER.remove();
+        } else {
+            CONTROLLER.set(controller);
+        }
+    }
+
+    /**
+     * Unbind the controller from the current thread, if it is bound to it
+     */
+    static void unbind(Devi controller) {
+        if (EVALUATION.isBound()) {
+            final var binding = EVALUATION.get();
+            if (binding.controller == controller) {
+                binding.controller = null;
+            }
+        } else if (CONTROLLER.get() == controller) {
+            CONTROLLER.remove();
+        }
     }
 
     private Framework() {
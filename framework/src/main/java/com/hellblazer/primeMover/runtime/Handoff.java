@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A reusable, single slot exchange of the outcome of an event evaluation from
+ * the thread evaluating the event to the controller thread waiting on it.
+ * <p>
+ * The controller {@link #arm() arms} the handoff before starting or resuming
+ * the event's thread, then {@link #await() awaits} the outcome. The event's
+ * thread publishes exactly one outcome: the event {@link #returned(Object)
+ * returned}, {@link #failed(Throwable) failed}, or {@link #blocked(EventImpl,
+ * EventImpl) blocked} on another event. The controller spins briefly, then
+ * parks until the outcome is published; the event's thread only unparks the
+ * controller if it has actually parked.
+ * <p>
+ * Nothing is allocated per exchange, in contrast to a
+ * {@link java.util.concurrent.CompletableFuture} and
+ * {@link Devi.EvaluationResult} per event. Only usable when a single
+ * controller thread evaluates events, one at a time.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+final class Handoff {
+    static final int PENDING  = 0;
+    static final int RETURNED = 1;
+    static final int BLOCKED  = 2;
+    static final int FAILED   = 3;
+
+    /**
+     * Number of times the controller checks for the outcome before parking.
+     * Spinning is pointless with a single processor: the event's thread cannot
+     * make progress until the controller yields it.
+     */
+    private static final int SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 128 : 0;
+
+    private EventImpl        blocking;
+    private EventImpl        continuing;
+    private Throwable        failure;
+    private Object           result;
+    private volatile int     state;
+    private volatile Thread  waiter;
+
+    /**
+     * Prepare for the next exchange. Called by the controller thread before it
+     * hands control to the event's thread.
+     */
+    void arm() {
+        blocking = null;
+        continuing = null;
+        failure = null;
+        result = null;
+        waiter = null;
+        state = PENDING;
+    }
+
+    /**
+     * Wait for the outcome of the evaluation
+     *
+     * @return the outcome: {@link #RETURNED}, {@link #BLOCKED} or {@link #FAILED}
+     * @throws InterruptedException if the controller thread is interrupted while
+     *                              waiting
+     */
+    int await() throws InterruptedException {
+        int outcome;
+        for (int spins = SPINS; (outcome = state) == PENDING && spins > 0; spins--) {
+            Thread.onSpinWait();
+        }
+        if (outcome != PENDING) {
+            return outcome;
+        }
+        waiter = Thread.currentThread();
+        try {
+            while ((outcome = state) == PENDING) {
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            waiter = null;
+        }
+        return outcome;
+    }
+
+    /**
+     * The event blocked, continuing when the blocking event completes
+     */
+    void blocked(EventImpl blockingEvent, EventImpl continuingEvent) {
+        blocking = blockingEvent;
+        continuing = continuingEvent;
+        publish(BLOCKED);
+    }
+
+    /**
+     * The evaluation threw
+     */
+    void failed(Throwable t) {
+        failure = t;
+        publish(FAILED);
+    }
+
+    EventImpl getBlocking() {
+        return blocking;
+    }
+
+    EventImpl getContinuing() {
+        return continuing;
+    }
+
+    Throwable getFailure() {
+        return failure;
+    }
+
+    Object getResult() {
+        return result;
+    }
+
+    /**
+     * @return true if an outcome has been published since the handoff was armed
+     */
+    boolean isDone() {
+        return state != PENDING;
+    }
+
+    /**
+     * The event returned
+     */
+    void returned(Object value) {
+        result = value;
+        publish(RETURNED);
+    }
+
+    private void publish(int outcome) {
+        state = outcome;
+        final var controller = waiter;
+        if (controller != null) {
+            LockSupport.unpark(controller);
+        }
+    }
+}
@@ -37,8 +37,6 @@ import com.hellblazer.primeMover.annotations.Blocking;
  * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
  */
 final public class Kairos {
-    private static Method RUN_METHOD = getRunMethod();
-
     /**
      * Advance the simulation time, blocking the event invoking this API until such
      * time is reached in the simulation
@@ -54,6 +52,20 @@ final public class Kairos {
         }
     }
 
+    /**
+     * Advance the simulation time, suspending the event of the stackless entity
+     * invoking this API until such time is reached in the simulation
+     *
+     * @param frame    - the frame of the suspended event
+     * @param duration - the duration to advance the simulation
+     * @return {@link Frame#SUSPENDED}, to be returned by the suspended event
+     * @see Devi#suspend(Frame, com.hellblazer.primeMover.api.EntityReference,
+     *      int, Object...)
+     */
+    public static Object blockingSleep(Frame frame, long duration) throws Throwable {
+        return Framework.getController().suspend(frame, BLOCKING_SLEEP_INSTANCE, SLEEP_EVENT, duration);
+    }
+
     /**
      * Schedule the call of the static event in the simulation at the indicated
      * simulation time
@@ -65,7 +77,7 @@ final public class Kairos {
     public static void callStatic(long time, Method method, Object... arguments) {
         int modifiers = method.getModifiers();
         if (Modifier.isStatic(modifiers) && Modifier.isPublic(modifiers)) {
-            getController().postEvent(time, new StaticEntityReference(method), 0, arguments);
+            Framework.getController().postEvent(time, StaticEntityReference.of(method), 0, arguments);
         } else {
             throw new IllegalArgumentException("Must be a public static event: " + method.toGenericString());
         }
@@ -96,7 +108,7 @@ final public class Kairos {
      * @return
      */
     public static long currentTime() {
-        return getController().getCurrentTime();
+        return Framework.getController().getCurrentTime();
     }
 
     /**
@@ -137,7 +149,8 @@ final public class Kairos {
      * @param r - the Runnable to schedule
      */
     public static void run(Runnable r) {
-        callStatic(RUN_METHOD, r);
+        final var controller = Framework.getController();
+        controller.postRunnable(controller.getCurrentTime(), r);
     }
 
     /**
@@ -147,7 +160,7 @@ final public class Kairos {
      * @param instant - the instant in time the runnable is scheduled
      */
     public static void runAt(Runnable r, long instant) {
-        callStatic(instant, RUN_METHOD, r);
+        Framework.getController().postRunnable(instant, r);
     }
 
     /**
@@ -177,15 +190,7 @@ final public class Kairos {
      * @param duration - the measure of time to advance the simulation
      */
     public static void sleep(long duration) {
-        getController().advance(duration);
-    }
-
-    private static Method getRunMethod() {
-        try {
-            return Framework.class.getDeclaredMethod("run", Runnable.class);
-        } catch (Exception e) {
-            throw new IllegalStateException("Unable to acquire run(Runnable) event", e);
-        }
+        Framework.getController().advance(duration);
     }
 
     private Kairos() {
@@ -0,0 +1,148 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.hellblazer.primeMover.ControllerReport.Latency;
+
+/**
+ * The wall clock latencies of the evaluation of events, kept in a
+ * {@link LatencyHistogram} per {@link EventTypes event type}.
+ * <p>
+ * Evaluations are sampled: on average one in every {@link #getInterval()
+ * interval} evaluations is timed, the evaluations between samples being
+ * randomized so that periodic patterns of events are not aliased. The total
+ * wall time of an event type is estimated from its samples.
+ * <p>
+ * Latencies are sampled and recorded by the single thread evaluating the
+ * events.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public final class Latencies {
+    private long               countdown;
+    private LatencyHistogram[] histograms;
+    private final int          interval;
+    private final EventTypes   types;
+
+    /**
+     * @param types    the registry of the event types sampled, usually that of
+     *                 the controller evaluating the events
+     * @param interval the average number of evaluations per sample, 1 sampling
+     *                 every evaluation
+     */
+    public Latencies(EventTypes types, int interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("[Latencies] Sampling interval must be positive: " + interval);
+        }
+        this.types = Objects.requireNonNull(types, "[Latencies] types cannot be null");
+        this.interval = interval;
+        histograms = new LatencyHistogram[Math.max(16, types.size())];
+        countdown = next();
+    }
+
+    /**
+     * Reset all histograms
+     */
+    public void clear() {
+        histograms = new LatencyHistogram[histograms.length];
+    }
+
+    /**
+     * @return the average number of evaluations per sample
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * Answer the histogram of the event type
+     *
+     * @return the histogram, or null if no latency of the type has been
+     *         recorded
+     */
+    public LatencyHistogram histogramOf(int type) {
+        final var h = histograms;
+        return type < h.length ? h[type] : null;
+    }
+
+    /**
+     * Record the latency of the evaluation of the event
+     */
+    public void record(EventImpl event, long nanos) {
+        final var type = types.of(event);
+        var h = histograms;
+        if (type >= h.length) {
+            h = histograms = Arrays.copyOf(h, Math.max(type + 1, h.length * 2));
+        }
+        var histogram = h[type];
+        if (histogram == null) {
+            histogram = h[type] = new LatencyHistogram();
+        }
+        histogram.record(nanos);
+    }
+
+    /**
+     * Answer whether to sample the next evaluation
+     */
+    public boolean sample() {
+        if (--countdown > 0) {
+            return false;
+        }
+        countdown = next();
+        return true;
+    }
+
+    /**
+     * Materialize the latencies
+     *
+     * @return an unmodifiable map of the signatures of the sampled event types
+     *         to their latencies
+     */
+    public Map<String, Latency> toMap() {
+        final var merged = new TreeMap<String, LatencyHistogram>();
+        final var h = histograms;
+        for (int type = 0; type < h.length; type++) {
+            if (h[type] != null) {
+                merged.computeIfAbsent(types.signatureOf(type), s -> new LatencyHistogram()).add(h[type]);
+            }
+        }
+        final var map = new TreeMap<String, Latency>();
+        merged.forEach((signature, histogram) -> map.put(signature,
+                                                         new Latency(histogram.getSamples(), histogram.valueAt(0.5),
+                                                                     histogram.valueAt(0.99),
+                                                                     histogram.valueAt(0.999), histogram.getMax(),
+                                                                     histogram.getTotal() * interval)));
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * The number of evaluations until the next sample, averaging the interval
+     */
+    private long next() {
+        return interval == 1 ? 1 : ThreadLocalRandom.current().nextLong(1, 2L * interval);
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of latencies in nanoseconds, in log-linear buckets of fixed
+ * memory: each power of two is divided into {@value #SUB_BUCKETS} linear
+ * buckets, so that a recorded value is reported within 1/{@value #SUB_BUCKETS}
+ * of itself over the whole range of a long.
+ * <p>
+ * A histogram is recorded by a single thread.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public final class LatencyHistogram {
+    static final int         SUB_BITS    = 4;
+    static final int         SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS     = (Long.SIZE - SUB_BITS + 1) * SUB_BUCKETS;
+
+    /**
+     * Answer the bucket of the value
+     */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) Math.max(0, value);
+        }
+        final var shift = Long.SIZE - Long.numberOfLeadingZeros(value) - 1 - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * Answer the highest value of the bucket
+     */
+    static long highestOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final var shift = bucket / SUB_BUCKETS - 1;
+        final var lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + ((1L << shift) - 1);
+    }
+
+    private final long[] counts = new long[BUCKETS];
+    private long         max;
+    private long         samples;
+    private long         total;
+
+    /**
+     * Add the recorded latencies of the other histogram to this histogram
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        samples += other.samples;
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Reset the histogram
+     */
+    public void clear() {
+        Arrays.fill(counts, 0);
+        samples = total = max = 0;
+    }
+
+    /**
+     * @return the highest latency recorded
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return the number of latencies recorded
+     */
+    public long getSamples() {
+        return samples;
+    }
+
+    /**
+     * @return the sum of the latencies recorded
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Record a latency
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        counts[bucketOf(nanos)]++;
+        samples++;
+        total += nanos;
+        if (nanos > max) {
+            max = nanos;
+        }
+    }
+
+    /**
+     * Answer the latency at the quantile of the recorded latencies
+     *
+     * @param quantile the quantile, between 0 and 1
+     * @return the highest latency equivalent to that at the quantile, or 0 if no
+     *         latency has been recorded
+     */
+    public long valueAt(double quantile) {
+        if (samples == 0) {
+            return 0;
+        }
+        final var rank = Math.max(1, (long) Math.ceil(Math.min(1.0, quantile) * samples));
+        var seen = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestOf(i), max);
+            }
+        }
+        return max;
+    }
+}
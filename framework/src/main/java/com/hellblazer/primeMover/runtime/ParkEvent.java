@@ -0,0 +1,55 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The parking of the thread of a blocked event as its continuation, spanning
+ * the wall clock time until the continuation is resumed
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+@Name("com.hellblazer.primeMover.Park")
+@Label("Continuation Park")
+@Description("The thread of a blocked event parked as its continuation")
+public final class ParkEvent extends SimulationEvent {
+
+    /**
+     * Describe the continuing event while its controller waits on the parking
+     * thread, as the queue is not safely read once it has resumed
+     */
+    static ParkEvent parking(EventImpl continuing) {
+        final var park = new ParkEvent();
+        if (park.isEnabled()) {
+            park.describe(continuing, Framework.queryController());
+        }
+        park.begin();
+        return park;
+    }
+
+    void resumed() {
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
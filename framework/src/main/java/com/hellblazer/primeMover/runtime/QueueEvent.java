@@ -0,0 +1,63 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The posting of a simulated event to the queue of its controller, or its
+ * removal from the queue for evaluation
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+@Name("com.hellblazer.primeMover.Queue")
+@Label("Event Queue")
+@Description("A simulated event posted to or removed from the event queue")
+public final class QueueEvent extends SimulationEvent {
+
+    /**
+     * Record the posting of the event
+     */
+    public static void posted(EventImpl event, Devi controller) {
+        final var queued = new QueueEvent();
+        if (queued.shouldCommit()) {
+            queued.describe(event, controller);
+            queued.posted = true;
+            queued.commit();
+        }
+    }
+
+    /**
+     * Record the removal of the event
+     */
+    public static void removed(EventImpl event, Devi controller) {
+        final var queued = new QueueEvent();
+        if (queued.shouldCommit()) {
+            queued.describe(event, controller);
+            queued.commit();
+        }
+    }
+
+    @Label("Posted")
+    @Description("True if the event was posted, false if it was removed for evaluation")
+    boolean posted;
+}
@@ -0,0 +1,43 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The resumption of the parked continuation of a blocked event
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+@Name("com.hellblazer.primeMover.Resume")
+@Label("Continuation Resume")
+@Description("The parked continuation of a blocked event resumed")
+public final class ResumeEvent extends SimulationEvent {
+
+    static void resumed(EventImpl event, Devi controller) {
+        final var resume = new ResumeEvent();
+        if (resume.shouldCommit()) {
+            resume.describe(event, controller);
+            resume.commit();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ * 
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ * 
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import com.hellblazer.primeMover.api.Event;
+
+/**
+ * The event {@link Kairos#run(Runnable) running a runnable}, holding the
+ * runnable itself rather than an array of arguments, and running it without
+ * dispatch through its entity.
+ * <p>
+ * The event is an event of the {@link StaticEntityReference#RUN shared
+ * reference} to {@link Framework#run(Runnable)}, and so is typed and signed as
+ * the runnables posted by an intercepting controller, which are posted as calls
+ * of that method. Runnables are typically lambdas, so the event is not
+ * serializable.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+final class RunnableEvent extends EventImpl {
+    private static final long serialVersionUID = 1L;
+
+    private final transient Runnable runnable;
+
+    RunnableEvent(String debugInfo, long time, Event sourceEvent, Runnable runnable) {
+        super(debugInfo, time, sourceEvent, StaticEntityReference.RUN, 0, (Object[]) null);
+        this.runnable = runnable;
+    }
+
+    @Override
+    Object invoke() throws Throwable {
+        runnable.run();
+        return null;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException {
+        throw new NotSerializableException("[RunnableEvent] The event of a runnable cannot be deserialized");
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        throw new NotSerializableException("[RunnableEvent] The event of a runnable cannot be serialized: " +
+                                           runnable);
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * The base of the Java Flight Recorder events of the framework, describing the
+ * simulated event they concern: its entity class, its {@link EventTypes event
+ * type}, its simulated time, and the number of events pending in the queue of
+ * its controller.
+ * <p>
+ * The events are disabled unless enabled by a recording, for example
+ *
+ * <pre>
+ * java -XX:StartFlightRecording:settings=profile,+com.hellblazer.primeMover.Evaluation#enabled=true ...
+ * </pre>
+ *
+ * Disabled events are never committed, and the fields of an event are only
+ * computed once {@link #shouldCommit()} has answered true, so emitting a
+ * disabled event costs no more than the allocation the JIT eliminates.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+@Category("Prime Mover")
+@Enabled(false)
+public abstract class SimulationEvent extends Event {
+
+    @Label("Entity Class")
+    @Description("The class of the entity of the simulated event")
+    protected Class<?> entityClass;
+
+    @Label("Event Type")
+    @Description("The id of the type of the simulated event")
+    protected int eventType = -1;
+
+    @Label("Pending Events")
+    @Description("The number of events pending in the queue of the controller, or -1 if unknown")
+    protected int pendingEvents = -1;
+
+    @Label("Simulated Time")
+    @Description("The simulated time of the event")
+    protected long simulatedTime;
+
+    /**
+     * Describe the simulated event
+     *
+     * @param event      the simulated event, or null
+     * @param controller the controller of the event, or null
+     */
+    protected void describe(EventImpl event, Devi controller) {
+        if (event != null) {
+            simulatedTime = event.getTime();
+            if (event.getReference() != null && controller != null) {
+                final var types = controller.getEventTypes();
+                eventType = types.of(event);
+                entityClass = types.entityOf(eventType);
+            }
+        } else if (controller != null) {
+            simulatedTime = controller.getCurrentTime();
+        }
+        if (controller != null) {
+            pendingEvents = controller.pendingEvents();
+        }
+    }
+}
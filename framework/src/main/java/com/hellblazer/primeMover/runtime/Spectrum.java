@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import com.hellblazer.primeMover.api.EntityReference;
+
+/**
+ * The number of events evaluated of each {@link EventTypes event type}.
+ * Counting an event is an increment of an array element indexed by the id of
+ * its type; the counts are keyed by signature only when {@link #toMap()
+ * materialized}.
+ * <p>
+ * A spectrum is counted by a single thread. Other threads may read it, seeing
+ * counts that may be stale.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public final class Spectrum {
+    private volatile long[]  counts;
+    private final EventTypes types;
+
+    /**
+     * @param types the registry of the event types counted, usually that of the
+     *              controller evaluating the events
+     */
+    public Spectrum(EventTypes types) {
+        this.types = Objects.requireNonNull(types, "[Spectrum] types cannot be null");
+        counts = new long[Math.max(16, types.size())];
+    }
+
+    /**
+     * Add the counts of the other spectrum to this spectrum. The event types of
+     * a spectrum of another registry are registered in this spectrum's.
+     */
+    public void add(Spectrum other) {
+        final var theirs = other.counts;
+        for (int type = 0; type < theirs.length; type++) {
+            if (theirs[type] != 0) {
+                count(types.translate(other.types, type), theirs[type]);
+            }
+        }
+    }
+
+    /**
+     * Reset all counts to zero
+     */
+    public void clear() {
+        counts = new long[counts.length];
+    }
+
+    /**
+     * Count the evaluation of the event
+     */
+    public void count(EventImpl event) {
+        count(types.of(event), 1);
+    }
+
+    /**
+     * Count the evaluation of the entity's event
+     */
+    public void count(EntityReference entity, int ordinal) {
+        count(types.of(entity, ordinal), 1);
+    }
+
+    /**
+     * Add to the count of the event type
+     *
+     * @param type  the id of the event type
+     * @param count the number of events of the type
+     */
+    public void count(int type, long count) {
+        var c = counts;
+        if (type >= c.length) {
+            c = counts = Arrays.copyOf(c, Math.max(type + 1, c.length * 2));
+        }
+        c[type] += count;
+    }
+
+    /**
+     * Answer the count of the event type
+     */
+    public long countOf(int type) {
+        final var c = counts;
+        return type < c.length ? c[type] : 0;
+    }
+
+    /**
+     * @return true if no event has been counted
+     */
+    public boolean isEmpty() {
+        for (var count : counts) {
+            if (count != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the registry of the event types counted
+     */
+    public EventTypes getTypes() {
+        return types;
+    }
+
+    /**
+     * @return the bound of the ids of the event types counted
+     */
+    public int size() {
+        return counts.length;
+    }
+
+    /**
+     * Materialize the spectrum
+     *
+     * @return an unmodifiable map of the signatures of the counted event types
+     *         to their counts
+     */
+    public Map<String, Long> toMap() {
+        final var c = counts;
+        final var map = new TreeMap<String, Long>();
+        for (int type = 0; type < c.length; type++) {
+            if (c[type] != 0) {
+                map.merge(types.signatureOf(type), c[type], Long::sum);
+            }
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+}
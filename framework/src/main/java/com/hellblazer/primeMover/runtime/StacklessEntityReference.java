@@ -0,0 +1,47 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ * 
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ * 
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import com.hellblazer.primeMover.api.EntityReference;
+
+/**
+ * An entity whose blocking events suspend into a {@link Frame} rather than
+ * park their thread. Such an event makes each blocking call through
+ * {@link Devi#suspend(Frame, EntityReference, int, Object...)}, returning the
+ * {@link Frame#SUSPENDED} it answers, and is resumed by the controller through
+ * {@link #__resume(int, Frame)} once the blocking call completes. A suspended
+ * event holds no thread, so its events should be reported as never blocking
+ * by {@link #__mayBlock(int)}.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public interface StacklessEntityReference extends EntityReference {
+    /**
+     * Resume the suspended event
+     *
+     * @param event the ordinal of the event
+     * @param frame the frame the event suspended into, holding the
+     *              {@link Frame#result() result} of its blocking call
+     * @return the result of the event, or {@link Frame#SUSPENDED} if the event
+     *         suspended again
+     * @throws Throwable
+     */
+    Object __resume(int event, Frame frame) throws Throwable;
+}
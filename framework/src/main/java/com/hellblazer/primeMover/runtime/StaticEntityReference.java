@@ -19,35 +19,153 @@
 
 package com.hellblazer.primeMover.runtime;
 
-import com.hellblazer.primeMover.api.EntityReference;
+import static com.hellblazer.primeMover.runtime.SimulationEnd.END_SIMULATION_METHOD;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.hellblazer.primeMover.api.EntityReference;
 
 /**
  * The implementation of an event which is implemented by a static method call.
- * 
+ * <p>
+ * References are shared by all the events of their method, and are
+ * {@link #of(Method) cached} along with their signature and the invoker of the
+ * method. The cache of a class is held by the class itself, keyed by method
+ * name rather than by {@link Method}, so that it does not outlive the class. The method is invoked through a method handle rather
+ * than reflection, and the events of the framework's own static methods -
+ * running a {@link Runnable} and ending the simulation - are invoked directly.
+ *
  * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
- * 
+ *
  */
 public final class StaticEntityReference implements EntityReference {
-    private final Method method;
 
+    /**
+     * The invocation of a static method with an array of arguments
+     */
+    @FunctionalInterface
+    private interface Invoker {
+        Object invoke(Object[] arguments) throws Throwable;
+    }
+
+    /**
+     * The references to the static methods of each class, by method name, the
+     * overloads of each name in a list
+     */
+    private static final ClassValue<Map<String, List<StaticEntityReference>>> REFERENCES = new ClassValue<>() {
+        @Override
+        protected Map<String, List<StaticEntityReference>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    /**
+     * The event of {@link Kairos#run(Runnable) running a runnable}
+     */
+    static final Method                RUN_METHOD = getRunMethod();
+    static final StaticEntityReference RUN        = of(RUN_METHOD);
+
+    /**
+     * Answer the shared reference to the events of the static method
+     */
+    public static StaticEntityReference of(Method method) {
+        final var overloads = REFERENCES.get(method.getDeclaringClass())
+                                        .computeIfAbsent(method.getName(), name -> new CopyOnWriteArrayList<>());
+        for (var reference : overloads) {
+            if (reference.method.equals(method)) {
+                return reference;
+            }
+        }
+        synchronized (overloads) {
+            for (var reference : overloads) {
+                if (reference.method.equals(method)) {
+                    return reference;
+                }
+            }
+            final var reference = new StaticEntityReference(method);
+            overloads.add(reference);
+            return reference;
+        }
+    }
+
+    private static Method getRunMethod() {
+        try {
+            return Framework.class.getDeclaredMethod("run", Runnable.class);
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to acquire run(Runnable) event", e);
+        }
+    }
+
+    private static Invoker invokerOf(Method method) {
+        if (method.equals(RUN_METHOD)) {
+            return arguments -> {
+                Framework.run((Runnable) arguments[0]);
+                return null;
+            };
+        }
+        if (method.equals(END_SIMULATION_METHOD)) {
+            return arguments -> {
+                SimulationEnd.endSimulation();
+                return null;
+            };
+        }
+        final MethodHandle handle;
+        try {
+            handle = MethodHandles.publicLookup()
+                                  .unreflect(method)
+                                  .asSpreader(Object[].class, method.getParameterCount())
+                                  .asType(INVOKER_TYPE);
+        } catch (IllegalAccessException e) {
+            // Not publicly accessible, so left to reflection to refuse
+            return arguments -> {
+                try {
+                    return method.invoke(null, arguments);
+                } catch (InvocationTargetException ex) {
+                    throw ex.getTargetException();
+                }
+            };
+        }
+        return arguments -> handle.invokeExact(arguments);
+    }
+
+    private final Invoker invoker;
+    private final Method  method;
+    private final String  signature;
+
+    /**
+     * Construct a reference to the events of the static method. Prefer the
+     * shared reference {@link #of(Method)}.
+     */
     public StaticEntityReference(Method method) {
         this.method = method;
+        this.invoker = invokerOf(method);
+        this.signature = method.toString();
     }
 
     @Override
     public Object __invoke(int event, Object[] arguments) throws Throwable {
-        try {
-            return method.invoke(null, arguments);
-        } catch (InvocationTargetException e) {
-            throw e.getTargetException();
-        }
+        return invoker.invoke(arguments);
     }
 
     @Override
     public String __signatureFor(int event) {
-        return method.toString();
+        return signature;
+    }
+
+    /**
+     * @return the static method invoked by the events
+     */
+    public Method getMethod() {
+        return method;
     }
 }
@@ -31,6 +31,7 @@ import com.hellblazer.primeMover.annotations.Entity;
 import com.hellblazer.primeMover.annotations.NonEvent;
 import com.hellblazer.primeMover.annotations.Transformed;
 import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.api.EventHandle;
 
 /**
  * The implementation of the CSP channel.
@@ -55,6 +56,7 @@ public class SynchronousQueueImpl<E> implements SynchronousQueue<E> {
         private final static int POLL_TIMEOUT  = 1;
         private final static int PUT           = 2;
         private final static int TAKE          = 3;
+        private final static int EXPIRE        = 4;
 
         public entity(Devi controller) {
             this.controller = controller;
@@ -65,10 +67,10 @@ public class SynchronousQueueImpl<E> implements SynchronousQueue<E> {
         public Object __invoke(int event, Object[] arguments) throws Throwable {
             switch (event) {
             case OFFER_TIMEOUT: {
-                return super.offer((E) arguments[0], (Integer) arguments[1]);
+                return super.offer((E) arguments[0], (Long) arguments[1]);
             }
             case POLL_TIMEOUT: {
-                return super.poll((Integer) arguments[1]);
+                return super.poll((Long) arguments[0]);
             }
             case PUT: {
                 super.put((E) arguments[0]);
@@ -77,6 +79,10 @@ public class SynchronousQueueImpl<E> implements SynchronousQueue<E> {
             case TAKE: {
                 return super.take();
             }
+            case EXPIRE: {
+                super.expire(arguments[0]);
+                return null;
+            }
             default:
                 throw new IllegalArgumentException("Unknown event ordinal: " + event);
             }
@@ -87,22 +93,33 @@ public class SynchronousQueueImpl<E> implements SynchronousQueue<E> {
         public String __signatureFor(int event) {
             switch (event) {
             case OFFER_TIMEOUT:
-                return "<com.hellblazer.primeMover.runtime.SynchronousQueueImpl: boolean offer(java.lang.Object, int, java.util.concurrent.TimeUnit";
+                return "<com.hellblazer.primeMover.runtime.SynchronousQueueImpl: boolean offer(java.lang.Object, long)>";
             case POLL_TIMEOUT:
-                return "<com.hellblazer.primeMover.runtime.SynchronousQueueImpl: java.lang.Object poll(int, java.util.concurrent.TimeUnit)";
+                return "<com.hellblazer.primeMover.runtime.SynchronousQueueImpl: java.lang.Object poll(long)>";
             case PUT:
                 return "<com.hellblazer.primeMover.runtime.SynchronousQueueImpl: void put(java.lang.Object)>";
             case TAKE:
                 return "<com.hellblazer.primeMover.runtime.SynchronousQueueImpl: java.lang.Object take()>";
+            case EXPIRE:
+                return "<com.hellblazer.primeMover.runtime.SynchronousQueueImpl: void expire(java.lang.Object)>";
             default:
                 throw new IllegalArgumentException("Unknown event ordinal: " + event);
             }
         }
 
+        /**
+         * None of the channel's events park; they capture the caller instead
+         */
+        @Override
+        @NonEvent
+        public boolean __mayBlock(int event) {
+            return false;
+        }
+
         @Override
         public boolean offer(E e, long timeout) {
             try {
-                return super.offer(e, timeout);
+                return (Boolean) controller.postContinuingEvent(this, OFFER_TIMEOUT, e, timeout);
             } catch (Throwable ex) {
                 throw new IllegalStateException("Exception invoking event", ex);
             }
@@ -157,9 +174,20 @@ public class SynchronousQueueImpl<E> implements SynchronousQueue<E> {
     }
 
     private class Node {
-        EventImpl consumer;
-        E         data;
-        EventImpl producer;
+        EventImpl   consumer;
+        E           data;
+        EventImpl   producer;
+        EventHandle timeout;
+
+        /**
+         * The node has been matched; its pending timeout, if any, is now a no-op
+         */
+        void cancelTimeout() {
+            if (timeout != null) {
+                timeout.cancel();
+                timeout = null;
+            }
+        }
 
         boolean hasData() {
             return data != null;
@@ -384,18 +412,41 @@ public class SynchronousQueueImpl<E> implements SynchronousQueue<E> {
         if (node.consumer == null) {
             return false; // is this even possible if data is null?
         }
+        node.cancelTimeout();
         // schedule receive callback with result
         node.consumer.setTime(controller.getCurrentTime());
-        node.consumer.getContinuation().setReturnValue(node.data);
+        node.consumer.getContinuation().setReturnValue(e);
         controller.post(node.consumer);
         waitList.removeFirst();
         return true;
     }
 
+    /**
+     * Inserts the specified element into this queue, waiting up to the specified
+     * simulated time for a receiver. The wait is a single cancellable timeout
+     * event, cancelled if a receiver arrives first.
+     *
+     * @param e       the element to add
+     * @param timeout how long to wait, in simulation time units
+     * @return <tt>true</tt> if the element was received, <tt>false</tt> if the
+     *         timeout elapsed first
+     * @throws NullPointerException if the specified element is null
+     */
     @Override
     @Blocking
     public boolean offer(E e, long timeout) {
-        throw new UnsupportedOperationException("Currently unsupported");
+        if (offer(e)) {
+            return true;
+        }
+        if (timeout <= 0) {
+            return false;
+        }
+        var node = new Node();
+        node.data = e;
+        node.producer = controller.swapCaller(null);
+        waitList.add(node);
+        node.timeout = expireAfter(timeout, node);
+        return false; // won't return anywhere
     }
 
     /**
@@ -422,9 +473,11 @@ public class SynchronousQueueImpl<E> implements SynchronousQueue<E> {
         }
         Node node = waitList.getFirst();
         if (node.consumer == null && node.hasData()) {
+            node.cancelTimeout();
             // schedule send callback
             if (node.producer != null) {
                 node.producer.setTime(controller.getCurrentTime());
+                node.producer.getContinuation().setReturnValue(Boolean.TRUE);
                 controller.post(node.producer);
             }
             waitList.removeFirst();
@@ -433,10 +486,27 @@ public class SynchronousQueueImpl<E> implements SynchronousQueue<E> {
         return null;
     }
 
+    /**
+     * Retrieves and removes the head of this queue, waiting up to the specified
+     * simulated time for a sender. The wait is a single cancellable timeout
+     * event, cancelled if a sender arrives first.
+     *
+     * @param timeout how long to wait, in simulation time units
+     * @return the head of this queue, or <tt>null</tt> if the timeout elapsed
+     *         before an element was available
+     */
     @Override
     @Blocking
     public E poll(long timeout) {
-        throw new UnsupportedOperationException("Currently unsupported");
+        var data = poll();
+        if (data != null || timeout <= 0) {
+            return data;
+        }
+        var node = new Node();
+        node.consumer = controller.swapCaller(null);
+        waitList.add(node);
+        node.timeout = expireAfter(timeout, node);
+        return null; // won't return anywhere
     }
 
     /**
@@ -560,8 +630,10 @@ public class SynchronousQueueImpl<E> implements SynchronousQueue<E> {
         }
         node.consumer = controller.swapCaller(null);
         if (node.hasData()) {
+            node.cancelTimeout();
             // schedule send callback
             node.producer.setTime(controller.getCurrentTime());
+            node.producer.getContinuation().setReturnValue(Boolean.TRUE);
             controller.post(node.producer);
             // return to receiver
             controller.swapCaller(node.consumer);
@@ -597,6 +669,26 @@ public class SynchronousQueueImpl<E> implements SynchronousQueue<E> {
         return a;
     }
 
+    /**
+     * The timeout of a timed offer or poll. If the node is still waiting, it is
+     * withdrawn and its caller resumes with the timed out result. A node that
+     * was matched first has had this event cancelled, so it is never evaluated.
+     *
+     * @param waiting - the waiting node
+     */
+    protected void expire(Object waiting) {
+        @SuppressWarnings("unchecked")
+        var node = (Node) waiting;
+        node.timeout = null;
+        if (!waitList.remove(node)) {
+            return;
+        }
+        var caller = node.consumer != null ? node.consumer : node.producer;
+        caller.setTime(controller.getCurrentTime());
+        caller.getContinuation().setReturnValue(node.consumer != null ? null : Boolean.FALSE);
+        controller.post(caller);
+    }
+
     private void addConsumer() {
         Node node;
         node = new Node();
@@ -612,6 +704,12 @@ public class SynchronousQueueImpl<E> implements SynchronousQueue<E> {
         waitList.add(node);
     }
 
+    private EventHandle expireAfter(long timeout, Node node) {
+        var now = controller.getCurrentTime();
+        var deadline = timeout > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + timeout;
+        return controller.postCancellableEvent(deadline, (EntityReference) this, entity.EXPIRE, node);
+    }
+
     private void enqueue(E data) {
         Node node;
         if (waitList.isEmpty()) {
@@ -638,6 +736,7 @@ public class SynchronousQueueImpl<E> implements SynchronousQueue<E> {
         node.data = data;
         node.producer = controller.swapCaller(null);
         if (node.consumer != null) {
+            node.cancelTimeout();
             // schedule receive callback with result
             node.consumer.setTime(controller.getCurrentTime());
             node.consumer.getContinuation().setReturnValue(node.data);
@@ -0,0 +1,41 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import com.hellblazer.primeMover.api.EntityReference;
+
+/**
+ * An entity whose events may be posted as {@link TypedEvent typed events},
+ * dispatching them without unboxing their arguments. Implemented by the
+ * generated entities that have events with primitive parameters.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public interface TypedEntityReference extends EntityReference {
+
+    /**
+     * Invoke the event with the arguments held in the slots of the typed event
+     *
+     * @param event   the ordinal of the event
+     * @param payload the typed event
+     * @return the result of the event
+     */
+    Object __invoke(int event, TypedEvent payload) throws Throwable;
+}
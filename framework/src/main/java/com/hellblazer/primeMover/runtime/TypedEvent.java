@@ -0,0 +1,198 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.api.Event;
+
+/**
+ * An event holding its arguments in typed slots rather than an array of
+ * boxed values, so that posting an event with primitive arguments allocates
+ * the event alone.
+ * <p>
+ * The arguments are laid out by the {@link #shapeOf(String) shape} of the
+ * event method: primitive arguments occupy the primitive slots
+ * {@code p0}..{@code p3} in order, as the bits of a long, and reference
+ * arguments the reference slots {@code r0}..{@code r3}. Integral arguments are
+ * widened to the long, floats are stored as their raw int bits and doubles as
+ * their raw long bits. The event is filled by the generated event method of
+ * its entity, and dispatched to the entity's
+ * {@link TypedEntityReference#__invoke(int, TypedEvent) typed invoke}.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public final class TypedEvent extends EventImpl {
+    /**
+     * The most parameters, primitive slots and reference slots of a typed event
+     */
+    public static final int MAX_PARAMETERS = 6;
+    public static final int MAX_PRIMITIVES = 4;
+    public static final int MAX_REFERENCES = 4;
+
+    private static final String KINDS            = "LZBCSIJFD";
+    private static final long   serialVersionUID = 1L;
+
+    /**
+     * Answer the shape of the arguments of the method: the number of
+     * parameters in the low 4 bits, followed by 4 bits of the kind of each
+     * parameter
+     *
+     * @param descriptor the descriptor of the method
+     * @return the shape, or -1 if the arguments of the method do not fit the
+     *         slots of a typed event, or it has no primitive parameter
+     */
+    public static int shapeOf(String descriptor) {
+        var shape = 0;
+        var parameters = 0;
+        var primitives = 0;
+        var references = 0;
+        var i = 1;
+        while (descriptor.charAt(i) != ')') {
+            final var c = descriptor.charAt(i);
+            final int kind;
+            if (c == 'L' || c == '[') {
+                while (descriptor.charAt(i) == '[') {
+                    i++;
+                }
+                if (descriptor.charAt(i) == 'L') {
+                    i = descriptor.indexOf(';', i);
+                }
+                kind = 0;
+                references++;
+            } else {
+                kind = KINDS.indexOf(c);
+                if (kind <= 0) {
+                    throw new IllegalArgumentException("[TypedEvent] Invalid method descriptor: " + descriptor);
+                }
+                primitives++;
+            }
+            i++;
+            if (++parameters > MAX_PARAMETERS) {
+                return -1;
+            }
+            shape |= kind << (4 * parameters);
+        }
+        if (primitives == 0 || primitives > MAX_PRIMITIVES || references > MAX_REFERENCES) {
+            return -1;
+        }
+        return shape | parameters;
+    }
+
+    /**
+     * The primitive slots
+     */
+    public long   p0, p1, p2, p3;
+    /**
+     * The reference slots, serialized by {@link #writeObject(ObjectOutputStream)}
+     * as the arguments of an untyped event are
+     */
+    public transient Object r0, r1, r2, r3;
+
+    private final int shape;
+
+    TypedEvent(String debugInfo, long time, Event sourceEvent, EntityReference reference, int ordinal, int shape) {
+        super(debugInfo, time, sourceEvent, reference, ordinal, (Object[]) null);
+        this.shape = shape;
+    }
+
+    /**
+     * Answer the arguments of the event, boxed as they would be for an event
+     * posted with an array of arguments
+     */
+    public Object[] getArguments() {
+        final var parameters = shape & 0xF;
+        final var arguments = new Object[parameters];
+        var primitive = 0;
+        var reference = 0;
+        for (int i = 0; i < parameters; i++) {
+            final var kind = (shape >>> (4 * (i + 1))) & 0xF;
+            arguments[i] = kind == 0 ? reference(reference++) : box(KINDS.charAt(kind), primitive(primitive++));
+        }
+        return arguments;
+    }
+
+    /**
+     * @return the shape of the arguments of the event
+     */
+    public int getShape() {
+        return shape;
+    }
+
+    @Override
+    Object invoke() throws Throwable {
+        return ((TypedEntityReference) getReference()).__invoke(getOrdinal(), this);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        r0 = in.readObject();
+        r1 = in.readObject();
+        r2 = in.readObject();
+        r3 = in.readObject();
+    }
+
+    /**
+     * @serialData the primitive slots and shape, followed by the reference
+     *             slots in order
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeObject(r0);
+        out.writeObject(r1);
+        out.writeObject(r2);
+        out.writeObject(r3);
+    }
+
+    private Object box(char kind, long bits) {
+        return switch (kind) {
+        case 'Z' -> bits != 0;
+        case 'B' -> (byte) bits;
+        case 'C' -> (char) bits;
+        case 'S' -> (short) bits;
+        case 'I' -> (int) bits;
+        case 'J' -> bits;
+        case 'F' -> Float.intBitsToFloat((int) bits);
+        case 'D' -> Double.longBitsToDouble(bits);
+        default -> throw new IllegalStateException("[TypedEvent] Invalid shape: " + shape);
+        };
+    }
+
+    private long primitive(int slot) {
+        return switch (slot) {
+        case 0 -> p0;
+        case 1 -> p1;
+        case 2 -> p2;
+        default -> p3;
+        };
+    }
+
+    private Object reference(int slot) {
+        return switch (slot) {
+        case 0 -> r0;
+        case 1 -> r1;
+        case 2 -> r2;
+        default -> r3;
+        };
+    }
+}
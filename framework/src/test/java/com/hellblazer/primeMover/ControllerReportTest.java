@@ -36,7 +36,7 @@ public class ControllerReportTest {
 
     @Test
     void testControllerReportCreation() {
-        var spectrum = Map.of("event1", 10, "event2", 20);
+        var spectrum = Map.of("event1", 10L, "event2", 20L);
         var report = new ControllerReport("Test Sim", 0L, 1000L, 30, spectrum);
 
         assertEquals("Test Sim", report.name());
@@ -54,7 +54,7 @@ public class ControllerReportTest {
 
     @Test
     void testTextOutput() {
-        var spectrum = Map.of("MyEntity.doSomething", 5);
+        var spectrum = Map.of("MyEntity.doSomething", 5L);
         var report = new ControllerReport("My Simulation", 0L, 100L, 5, spectrum);
 
         var text = report.toText();
@@ -68,7 +68,7 @@ public class ControllerReportTest {
 
     @Test
     void testJsonOutput() {
-        var spectrum = Map.of("TestEvent", 3);
+        var spectrum = Map.of("TestEvent", 3L);
         var report = new ControllerReport("JSON Test", 10L, 200L, 3, spectrum);
 
         var json = report.toJson();
@@ -142,18 +142,46 @@ public class ControllerReportTest {
 
     @Test
     void testReportImmutability() {
-        var originalSpectrum = new java.util.HashMap<String, Integer>();
-        originalSpectrum.put("event", 1);
+        var originalSpectrum = new java.util.HashMap<String, Long>();
+        originalSpectrum.put("event", 1L);
 
         var report = new ControllerReport("Immutable", 0L, 100L, 1, Map.copyOf(originalSpectrum));
 
         // Modifying original shouldn't affect report
-        originalSpectrum.put("event", 999);
+        originalSpectrum.put("event", 999L);
         assertEquals(1, report.spectrum().get("event"));
 
         // Report spectrum should be unmodifiable
         assertThrows(UnsupportedOperationException.class, () -> {
-            report.spectrum().put("new", 1);
+            report.spectrum().put("new", 1L);
         });
     }
+
+    @Test
+    public void testFastPathEvents() {
+        var report = new ControllerReport("Fast", 0L, 100L, 10, 7L, Map.of());
+        assertEquals(7L, report.fastPathEvents());
+        assertTrue(report.toText().contains("Fast Path:    7"));
+        assertTrue(report.toJson().contains("\"fastPathEvents\": 7"));
+
+        assertEquals(0L, new ControllerReport("Legacy", 0L, 100L, 10, Map.of()).fastPathEvents());
+    }
+
+    @Test
+    public void testLatencies() {
+        var latencies = Map.of("slow", new ControllerReport.Latency(10, 2_000, 9_000, 9_500, 9_600, 30_000),
+                               "fast", new ControllerReport.Latency(20, 100, 200, 300, 400, 2_500));
+        var report = new ControllerReport("Timed", 0L, 100L, 30, 0L, Map.of(), latencies);
+        assertEquals(latencies, report.latencies());
+        assertTrue(new ControllerReport("Untimed", 0L, 100L, 30, Map.of()).latencies().isEmpty());
+
+        var text = report.toText();
+        assertTrue(text.contains("Event Latencies"), text);
+        assertTrue(text.indexOf(": slow") < text.indexOf(": fast"), "sorted by total time: " + text);
+
+        var json = report.toJson();
+        assertTrue(json.contains("\"latencies\""), json);
+        assertTrue(json.contains("\"slow\": {\"samples\": 10, \"p50\": 2000, \"p99\": 9000, \"p999\": 9500, \"max\": 9600, \"totalTime\": 30000}"),
+                   json);
+    }
 }
@@ -0,0 +1,209 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.hellblazer.primeMover.Design.Point;
+import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.api.SimulationException;
+import com.hellblazer.primeMover.runtime.Kairos;
+
+/**
+ * Tests for designed experiments
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class ExperimentTest {
+
+    /**
+     * A customer arrival process with random interarrival times, up to a mean
+     */
+    private static class Arrivals implements EntityReference {
+        final int    mean;
+        final Random random;
+        int          remaining;
+        long         total;
+
+        Arrivals(Random random, int arrivals, int mean) {
+            this.random = random;
+            this.remaining = arrivals;
+            this.mean = mean;
+        }
+
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            final var interarrival = 1 + random.nextInt(2 * mean);
+            total += interarrival;
+            if (--remaining > 0) {
+                Kairos.getController().postEvent(Kairos.currentTime() + interarrival, this, 0);
+            }
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return "arrive";
+        }
+    }
+
+    @Test
+    void testFactorial() {
+        var levels = new LinkedHashMap<String, List<?>>();
+        levels.put("servers", List.of(1, 2, 4));
+        levels.put("discipline", List.of("fifo", "lifo"));
+        var design = Design.factorial(levels);
+        assertEquals(6, design.size());
+        assertEquals(Map.of("servers", 1, "discipline", "fifo"), design.points().get(0).parameters());
+        assertEquals(Map.of("servers", 1, "discipline", "lifo"), design.points().get(1).parameters());
+        assertEquals(Map.of("servers", 4, "discipline", "lifo"), design.points().get(5).parameters());
+        assertEquals(List.of("servers", "discipline"), List.copyOf(design.points().get(3).parameters().keySet()));
+        assertEquals(2, design.points().get(3).intValue("servers"));
+        assertThrows(IllegalArgumentException.class, () -> design.points().get(0).intValue("discipline"));
+        assertThrows(IllegalArgumentException.class, () -> design.points().get(0).get("missing"));
+        assertThrows(IllegalArgumentException.class, () -> Design.factorial(Map.of("empty", List.of())));
+    }
+
+    @Test
+    void testLatinHypercube() {
+        var design = Design.latinHypercube(Map.of("load", new double[] { 0.0, 1.0 }, "rate", new double[] { 10, 20 }),
+                                           20, 42L);
+        assertEquals(20, design.size());
+        var load = new HashSet<Integer>();
+        var rate = new HashSet<Integer>();
+        for (var point : design.points()) {
+            load.add((int) (point.doubleValue("load") * 20));
+            rate.add((int) ((point.doubleValue("rate") - 10) / 10 * 20));
+        }
+        assertEquals(20, load.size(), "each stratum sampled exactly once");
+        assertEquals(20, rate.size(), "each stratum sampled exactly once");
+        assertEquals(design, Design.latinHypercube(Map.of("load", new double[] { 0.0, 1.0 }, "rate",
+                                                          new double[] { 10, 20 }), 20, 42L));
+    }
+
+    @Test
+    void testRun(@TempDir Path directory) throws Exception {
+        var output = directory.resolve("results.csv");
+        var design = Design.factorial(Map.of("mean", List.of(5, 50, 500)));
+        var builder = Simulation.newBuilder().withName("Arrivals").withSeed(3L).withParallelism(2);
+        var results = new Experiment(builder).withDesign(design)
+                                             .withReplications(4)
+                                             .withOutput(output)
+                                             .run(this::model);
+        assertEquals(design.points(), List.copyOf(results.keySet()));
+        for (var entry : results.entrySet()) {
+            var summary = entry.getValue();
+            assertEquals(4, summary.replications());
+            assertEquals(4 * 10, summary.totalEvents());
+            var total = summary.metric("total");
+            assertEquals(4, total.count());
+            var mean = entry.getKey().intValue("mean");
+            assertTrue(total.min() >= 10 && total.max() <= 10 * 2 * mean);
+        }
+
+        var lines = Files.readAllLines(output);
+        assertEquals(1 + 3 * 4, lines.size());
+        assertEquals("point,replication,mean,seed,simulation_end,total_events,wall_nanos,total", lines.get(0));
+        var runs = new HashSet<String>();
+        for (var line : lines.subList(1, lines.size())) {
+            var columns = line.split(",");
+            assertEquals(8, columns.length);
+            assertEquals("10", columns[5]);
+            runs.add(columns[0] + ":" + columns[1]);
+        }
+        assertEquals(12, runs.size(), "each run written once");
+    }
+
+    @Test
+    void testParametersByName(@TempDir Path directory) throws Exception {
+        var first = new LinkedHashMap<String, Object>();
+        first.put("mean", 5);
+        first.put("label", "a");
+        var second = new LinkedHashMap<String, Object>();
+        second.put("label", "b");
+        second.put("mean", 50);
+        var design = Design.of(List.of(first, second, Map.of("mean", 500)));
+        assertEquals(List.of("mean", "label"), design.parameters());
+        assertThrows(IllegalArgumentException.class, () -> new Design(List.of(new Point(1, Map.of("mean", 5)))));
+
+        var output = directory.resolve("results.csv");
+        new Experiment(Simulation.newBuilder().withSeed(5L).withParallelism(2)).withDesign(design)
+                                                                              .withReplications(3)
+                                                                              .withOutput(output)
+                                                                              .run(this::model);
+        var lines = Files.readAllLines(output);
+        assertEquals("point,replication,mean,label,seed,simulation_end,total_events,wall_nanos,total", lines.get(0));
+        for (var line : lines.subList(1, lines.size())) {
+            var columns = line.split(",", -1);
+            var point = design.points().get(Integer.parseInt(columns[0]));
+            assertEquals(String.valueOf(point.get("mean")), columns[2], line);
+            assertEquals(String.valueOf(point.parameters().getOrDefault("label", "")), columns[3], line);
+        }
+    }
+
+    @Test
+    void testReproducible() throws Exception {
+        var design = Design.of(List.of(Map.of("mean", 10), Map.of("mean", 1000), Map.of("mean", 100)));
+        var sequential = new Experiment(Simulation.newBuilder().withSeed(11L).withParallelism(1)).withDesign(design)
+                                                                                                 .withReplications(5)
+                                                                                                 .run(this::model);
+        var parallel = new Experiment(Simulation.newBuilder().withSeed(11L).withParallelism(3)).withDesign(design)
+                                                                                               .withReplications(5)
+                                                                                               .run(this::model);
+        for (var point : design.points()) {
+            var expected = sequential.get(point).metric("total");
+            var actual = parallel.get(point).metric("total");
+            assertEquals(expected.min(), actual.min(), "runs must not depend on the order they are scheduled in");
+            assertEquals(expected.max(), actual.max(), "runs must not depend on the order they are scheduled in");
+            assertEquals(expected.mean(), actual.mean(), 1e-9);
+            assertEquals(expected.variance(), actual.variance(), 1e-9);
+        }
+    }
+
+    @Test
+    void testFailure() {
+        var design = Design.of(List.of(Map.of("mean", 10), Map.of("mean", -1)));
+        var e = assertThrows(SimulationException.class,
+                             () -> new Experiment(Simulation.newBuilder()).withDesign(design).run(this::model));
+        assertNotNull(e.getCause());
+        assertThrows(IllegalArgumentException.class,
+                     () -> new Experiment(Simulation.newBuilder()).withReplications(0));
+    }
+
+    private Replication model(Point point) {
+        final var mean = point.intValue("mean");
+        return simulation -> {
+            var entity = new Arrivals(simulation.random(), 10, mean);
+            Kairos.getController().postEvent(entity, 0);
+            return () -> Map.of("total", entity.total);
+        };
+    }
+}
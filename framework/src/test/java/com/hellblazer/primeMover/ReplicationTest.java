@@ -0,0 +1,165 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+
+import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.api.SimulationException;
+import com.hellblazer.primeMover.runtime.Kairos;
+
+/**
+ * Tests for running replications with Simulation.Builder.replicate()
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class ReplicationTest {
+
+    /**
+     * A customer arrival process with random interarrival times, failing on
+     * request
+     */
+    private static class Arrivals implements EntityReference {
+        final boolean fail;
+        final Random  random;
+        int           remaining;
+        long          total;
+
+        Arrivals(Random random, int arrivals, boolean fail) {
+            this.random = random;
+            this.remaining = arrivals;
+            this.fail = fail;
+        }
+
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            if (fail) {
+                throw new IllegalStateException("failed");
+            }
+            final var interarrival = 1 + random.nextInt(100);
+            total += interarrival;
+            if (--remaining > 0) {
+                Kairos.getController().postEvent(Kairos.currentTime() + interarrival, this, 0);
+            }
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return "arrive";
+        }
+    }
+
+    @Test
+    void testReplicate() throws Exception {
+        var observed = new ConcurrentHashMap<String, Long>();
+        var summary = Simulation.newBuilder()
+                                .withName("Arrivals")
+                                .withSeed(42L)
+                                .withParallelism(4)
+                                .replicate(50, model(observed, 20));
+        assertEquals(50, summary.replications());
+        assertEquals(50 * 20, summary.totalEvents());
+        assertEquals(Map.of("arrive", 50L * 20), summary.spectrum());
+        assertEquals(50, observed.size());
+        assertTrue(observed.containsKey("Arrivals [0]"));
+        assertTrue(observed.containsKey("Arrivals [49]"));
+
+        var total = summary.metric("total");
+        assertEquals(50, total.count());
+        var mean = observed.values().stream().mapToLong(Long::longValue).average().orElseThrow();
+        assertEquals(mean, total.mean(), 1e-9);
+        assertTrue(total.variance() > 0);
+        assertTrue(total.lower(0.95) < total.mean() && total.mean() < total.upper(0.95));
+        assertEquals(total.max(), observed.values().stream().mapToLong(Long::longValue).max().orElseThrow());
+        assertNull(summary.metric("missing"));
+        assertEquals(50, summary.duration().count());
+    }
+
+    @Test
+    void testReproducible() throws Exception {
+        var first = new ConcurrentHashMap<String, Long>();
+        var second = new ConcurrentHashMap<String, Long>();
+        Simulation.newBuilder().withSeed(7L).withParallelism(3).replicate(20, model(first, 10));
+        Simulation.newBuilder().withSeed(7L).withParallelism(1).replicate(20, model(second, 10));
+        assertEquals(first, second, "replications must not depend on the order they run in");
+        var values = new ArrayList<>(first.values());
+        assertTrue(values.stream().distinct().count() > 1, "replications must have independent streams");
+    }
+
+    @Test
+    void testProgress() throws Exception {
+        var progress = Collections.synchronizedList(new ArrayList<ReplicationSummary>());
+        var summary = Simulation.newBuilder()
+                                .withSeed(1L)
+                                .replicate(10, model(new ConcurrentHashMap<>(), 5), progress::add);
+        assertEquals(10, progress.size());
+        for (int i = 0; i < progress.size(); i++) {
+            assertEquals(i + 1, progress.get(i).replications());
+        }
+        assertEquals(summary, progress.get(9));
+    }
+
+    @Test
+    void testFailure() {
+        var e = assertThrows(SimulationException.class, () -> Simulation.newBuilder().replicate(4, simulation -> {
+            Kairos.getController().postEvent(new Arrivals(simulation.random(), 1, true), 0);
+            return Map::of;
+        }));
+        assertInstanceOf(SimulationException.class, e.getCause());
+        assertThrows(IllegalArgumentException.class, () -> Simulation.newBuilder().replicate(0, s -> null));
+        assertThrows(IllegalArgumentException.class, () -> Simulation.newBuilder().withParallelism(0));
+    }
+
+    @Test
+    void testConfidenceInterval() {
+        assertEquals(1.959964, ReplicationSummary.normal(0.975), 1e-6);
+        assertEquals(-2.326348, ReplicationSummary.normal(0.01), 1e-6);
+        assertEquals(12.706205, ReplicationSummary.studentT(0.975, 1), 1e-5);
+        assertEquals(4.302653, ReplicationSummary.studentT(0.975, 2), 1e-5);
+        assertEquals(2.262157, ReplicationSummary.studentT(0.975, 9), 1e-3);
+        assertEquals(2.042272, ReplicationSummary.studentT(0.975, 30), 1e-4);
+        assertEquals(4.604095, ReplicationSummary.studentT(0.995, 4), 2e-2);
+
+        var statistic = new ReplicationSummary.Statistic(10, 5, 4, 1, 9);
+        assertEquals(2.262157 * 2 / Math.sqrt(10), statistic.halfWidth(0.95), 1e-3);
+        assertTrue(Double.isNaN(new ReplicationSummary.Statistic(1, 5, 0, 5, 5).halfWidth(0.95)));
+        assertThrows(IllegalArgumentException.class, () -> statistic.halfWidth(1));
+    }
+
+    private Replication model(Map<String, Long> observed, int arrivals) {
+        return simulation -> {
+            var entity = new Arrivals(simulation.random(), arrivals, false);
+            Kairos.getController().postEvent(entity, 0);
+            return () -> {
+                observed.put(simulation.name(), entity.total);
+                return Map.of("total", entity.total);
+            };
+        };
+    }
+}
@@ -17,6 +17,7 @@
 
 package com.hellblazer.primeMover.builders;
 
+import com.hellblazer.primeMover.controllers.EventHeap;
 import com.hellblazer.primeMover.controllers.RealTimeController;
 import com.hellblazer.primeMover.controllers.SimulationController;
 import com.hellblazer.primeMover.controllers.StatisticalController;
@@ -100,6 +101,26 @@ public class SimulationBuilderTest {
         assertEquals("Test Real-Time", rtController.getName());
     }
 
+    @Test
+    public void testEventQueue() {
+        var sim = SimulationBuilder.builder().eventQueue(EventHeap::new).build();
+        assertTrue(sim instanceof SimulationController);
+
+        var stepping = SimulationBuilder.builder()
+                                        .controllerType(SteppingController.class)
+                                        .eventQueue(EventHeap::new)
+                                        .build();
+        assertTrue(stepping instanceof SteppingController);
+
+        var realTime = SimulationBuilder.builder()
+                                        .controllerType(RealTimeController.class)
+                                        .name("Heap")
+                                        .eventQueue(EventHeap::new)
+                                        .build();
+        assertTrue(realTime instanceof RealTimeController);
+        assertEquals("Heap", ((RealTimeController) realTime).getName());
+    }
+
     @Test
     public void testSteppingControllerType() {
         var controller = SimulationBuilder.builder().controllerType(SteppingController.class).build();
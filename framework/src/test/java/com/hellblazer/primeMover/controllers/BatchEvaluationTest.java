@@ -0,0 +1,217 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.hellblazer.primeMover.controllers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.api.EventHandle;
+import com.hellblazer.primeMover.api.SimulationException;
+import com.hellblazer.primeMover.builders.SimulationBuilder;
+import com.hellblazer.primeMover.runtime.EventImpl;
+import com.hellblazer.primeMover.runtime.Framework;
+import com.hellblazer.primeMover.runtime.Kairos;
+
+/**
+ * Tests for the batch evaluation of simultaneous events
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class BatchEvaluationTest {
+
+    /**
+     * A node of a synchronous network: each tick, it records itself and
+     * schedules its next tick, plus a zero delay message to its neighbor
+     */
+    private static class Node implements EntityReference {
+        static final int FAIL    = 2;
+        static final int MESSAGE = 1;
+        static final int TICK    = 0;
+
+        final int          id;
+        final List<String> log;
+        Node               neighbor;
+
+        Node(int id, List<String> log) {
+            this.id = id;
+            this.log = log;
+        }
+
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            final var now = Kairos.currentTime();
+            switch (event) {
+            case TICK -> {
+                log.add("tick " + id + "@" + now);
+                if (now < 50) {
+                    Framework.getController().postEvent(now + 10, this, TICK);
+                }
+                Framework.getController().postEvent(neighbor, MESSAGE, id);
+            }
+            case MESSAGE -> log.add("message " + id + " from " + args[0] + "@" + now);
+            case FAIL -> throw new IllegalStateException("failed");
+            default -> throw new IllegalArgumentException("Unknown event: " + event);
+            }
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return switch (event) {
+            case TICK -> "tick";
+            case MESSAGE -> "message";
+            default -> "fail";
+            };
+        }
+    }
+
+    @AfterEach
+    public void cleanup() {
+        Kairos.setController(null);
+    }
+
+    @Test
+    public void testSameOrderAsSingleStepping() throws Exception {
+        var single = run(false);
+        var batched = run(true);
+        assertEquals(single.log, batched.log);
+        assertEquals(single.controller.getTotalEvents(), batched.controller.getTotalEvents());
+        assertEquals(single.controller.getSpectrum(), batched.controller.getSpectrum());
+        assertEquals(single.controller.getCurrentTime(), batched.controller.getCurrentTime());
+        assertEquals(100 * 6 * 2, batched.controller.getTotalEvents());
+    }
+
+    @Test
+    public void testEndTime() throws Exception {
+        var log = new ArrayList<String>();
+        var controller = (SimulationController) SimulationBuilder.builder()
+                                                                 .batchEvaluation(true)
+                                                                 .endTime(25)
+                                                                 .build();
+        assertTrue(controller.isBatchEvaluation());
+        for (var node : network(10, log)) {
+            controller.postEvent(0, node, Node.TICK);
+        }
+        controller.eventLoop();
+        // The loop stops after the batch that reaches the end time: the ticks at 30,
+        // but not the messages they post
+        assertEquals(30, controller.getCurrentTime());
+        assertEquals(10 * 3 * 2 + 10, controller.getTotalEvents());
+        assertTrue(log.stream().noneMatch(s -> s.startsWith("message") && s.endsWith("@30")));
+    }
+
+    @Test
+    public void testCancellationWithinBatch() throws Exception {
+        var log = new ArrayList<String>();
+        var controller = new SimulationController();
+        controller.setBatchEvaluation(true);
+        var victim = new Node(1, log);
+        var handle = new EventHandle[2];
+        EntityReference canceller = new EntityReference() {
+            @Override
+            public Object __invoke(int event, Object... args) throws Throwable {
+                for (var h : handle) {
+                    h.cancel();
+                }
+                return null;
+            }
+
+            @Override
+            public String __signatureFor(int event) {
+                return "cancel";
+            }
+        };
+        controller.postEvent(5, canceller, 0);
+        handle[0] = controller.postCancellableEvent(5, victim, Node.MESSAGE, 0);
+        handle[1] = controller.postCancellableEvent(5, victim, Node.MESSAGE, 1);
+        controller.eventLoop();
+        assertTrue(log.isEmpty());
+        assertEquals(1, controller.getTotalEvents());
+    }
+
+    @Test
+    public void testRecordsEachEvent() throws Exception {
+        var recorded = new ArrayList<String>();
+        var controller = new SimulationController() {
+            @Override
+            protected void recordEvent(EventImpl event) {
+                super.recordEvent(event);
+                recorded.add(event.getSignature());
+            }
+        };
+        controller.setBatchEvaluation(true);
+        for (var node : network(3, new ArrayList<>())) {
+            controller.postEvent(0, node, Node.TICK);
+        }
+        controller.eventLoop();
+        assertEquals(controller.getTotalEvents(), recorded.size());
+        assertEquals(3 * 6, recorded.stream().filter(signature -> signature.contains("tick")).count());
+    }
+
+    @Test
+    public void testFailureRequeuesRestOfBatch() throws Exception {
+        var log = new ArrayList<String>();
+        var controller = new SimulationController();
+        controller.setBatchEvaluation(true);
+        var node = new Node(0, log);
+        controller.postEvent(5, node, Node.MESSAGE, "a");
+        controller.postEvent(5, node, Node.FAIL);
+        controller.postEvent(5, node, Node.MESSAGE, "b");
+        controller.postEvent(5, node, Node.MESSAGE, "c");
+        var e = assertThrows(SimulationException.class, controller::eventLoop);
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertEquals(List.of("message 0 from a@5"), log);
+        assertEquals(1, controller.getTotalEvents());
+
+        controller.eventLoop();
+        assertEquals(List.of("message 0 from a@5", "message 0 from b@5", "message 0 from c@5"), log);
+    }
+
+    private record Run(SimulationController controller, List<String> log) {
+    }
+
+    private Run run(boolean batch) throws Exception {
+        var log = new ArrayList<String>();
+        var controller = new SimulationController(new EventHeap());
+        controller.setBatchEvaluation(batch);
+        for (var node : network(100, log)) {
+            controller.postEvent(0, node, Node.TICK);
+        }
+        controller.eventLoop();
+        Kairos.setController(null);
+        return new Run(controller, log);
+    }
+
+    private List<Node> network(int size, List<String> log) {
+        var nodes = new ArrayList<Node>();
+        for (int i = 0; i < size; i++) {
+            nodes.add(new Node(i, log));
+        }
+        for (int i = 0; i < size; i++) {
+            nodes.get(i).neighbor = nodes.get((i + 1) % size);
+        }
+        return nodes;
+    }
+}
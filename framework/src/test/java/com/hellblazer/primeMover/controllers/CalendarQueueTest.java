@@ -0,0 +1,204 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.controllers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.builders.SimulationBuilder;
+import com.hellblazer.primeMover.runtime.EventImpl;
+import com.hellblazer.primeMover.runtime.Kairos;
+
+/**
+ * Tests for the CalendarQueue pending event set
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class CalendarQueueTest {
+
+    /**
+     * Entity recording the ordinal and time of each event it receives
+     */
+    private static class Recorder implements EntityReference {
+        final List<long[]> received = new ArrayList<>();
+
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            received.add(new long[] { event, Kairos.currentTime() });
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return "event" + event;
+        }
+    }
+
+    private final Recorder             entity     = new Recorder();
+    private final CalendarQueue        queue      = new CalendarQueue();
+    private final SimulationController controller = new SimulationController(queue);
+    private final ArrayDeque<EventImpl> scratch    = new ArrayDeque<>();
+    private final SimulationController factory    = new SimulationController() {
+        @Override
+        public void post(EventImpl event) {
+            scratch.add(event);
+        }
+    };
+
+    @AfterEach
+    public void cleanup() {
+        Kairos.setController(null);
+    }
+
+    @Test
+    public void testEmpty() {
+        assertTrue(queue.isEmpty());
+        assertNull(queue.peek());
+        assertNull(queue.poll());
+        assertThrows(NullPointerException.class, () -> queue.offer(null));
+    }
+
+    @Test
+    public void testOrderingMatchesPriorityQueue() {
+        var random = new Random(0x1638);
+        var reference = new PriorityQueue<EventImpl>();
+        for (int i = 0; i < 10_000; i++) {
+            var event = event(random.nextLong(1_000_000));
+            queue.add(event);
+            reference.add(event);
+        }
+        assertEquals(reference.size(), queue.size());
+        assertTrue(queue.getBucketCount() > 16, "calendar should have grown");
+        while (!reference.isEmpty()) {
+            assertEquals(reference.peek().getTime(), queue.peek().getTime());
+            assertEquals(reference.poll().getTime(), queue.poll().getTime());
+        }
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testHoldModel() {
+        var random = new Random(0x600d);
+        var reference = new PriorityQueue<Long>();
+        for (int i = 0; i < 1_000; i++) {
+            var time = (long) (-1000 * Math.log(1 - random.nextDouble()));
+            queue.add(event(time));
+            reference.add(time);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            var next = queue.poll();
+            assertEquals(reference.poll(), next.getTime());
+            // Mix in some events earlier than the last dequeued event
+            var time = i % 97 == 0 ? next.getTime() - 5
+                                   : next.getTime() + (long) (-1000 * Math.log(1 - random.nextDouble()));
+            next.setTime(time);
+            queue.add(next);
+            reference.add(time);
+        }
+        assertEquals(reference.size(), queue.size());
+    }
+
+    @Test
+    public void testSimultaneousEventsAreFifo() {
+        for (int i = 0; i < 1_000; i++) {
+            controller.postEvent(i % 3 == 0 ? 10 : 5, entity, i);
+        }
+        var last = -1;
+        var lastTime = -1L;
+        while (!queue.isEmpty()) {
+            var event = queue.poll();
+            var ordinal = Integer.parseInt(event.getSignature().substring("event".length()));
+            if (event.getTime() == lastTime) {
+                assertTrue(ordinal > last, "simultaneous events must be dequeued in insertion order");
+            }
+            last = ordinal;
+            lastTime = event.getTime();
+        }
+    }
+
+    @Test
+    public void testSparseAndExtremeTimes() {
+        long[] times = { Long.MAX_VALUE, 0, Long.MAX_VALUE - 1, -5, 1L << 40, 3, -1_000_000 };
+        for (var time : times) {
+            queue.add(event(time));
+        }
+        var sorted = times.clone();
+        Arrays.sort(sorted);
+        for (var time : sorted) {
+            assertEquals(time, queue.poll().getTime());
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testIteratorRemove() {
+        for (int i = 0; i < 100; i++) {
+            queue.add(event(i));
+        }
+        assertTrue(queue.removeIf(e -> e.getTime() % 2 == 0));
+        assertEquals(50, queue.size());
+        var count = 0;
+        for (var e : queue) {
+            assertEquals(1, e.getTime() % 2);
+            count++;
+        }
+        assertEquals(50, count);
+        for (int i = 1; i < 100; i += 2) {
+            assertEquals(i, queue.poll().getTime());
+        }
+        queue.add(event(7));
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertNull(queue.peek());
+    }
+
+    @Test
+    public void testEventLoop() throws Exception {
+        var controller = (SimulationController) SimulationBuilder.builder().eventQueue(CalendarQueue::new).build();
+        assertInstanceOf(CalendarQueue.class, ((NowLaneQueue) controller.eventQueue).getDelegate());
+        var random = new Random(0xcafe);
+        for (int i = 0; i < 5_000; i++) {
+            controller.postEvent(random.nextLong(100_000), entity, i);
+        }
+        controller.eventLoop();
+        assertEquals(5_000, controller.getTotalEvents());
+        var lastTime = -1L;
+        for (var r : entity.received) {
+            assertTrue(r[1] >= lastTime, "events must be evaluated in time order");
+            lastTime = r[1];
+        }
+    }
+
+    private EventImpl event(long time) {
+        factory.postEvent(time, entity, 0);
+        return scratch.poll();
+    }
+}
@@ -0,0 +1,325 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.controllers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.api.EventHandle;
+import com.hellblazer.primeMover.api.SimulationException;
+import com.hellblazer.primeMover.runtime.Kairos;
+import com.hellblazer.primeMover.runtime.SimulationEnd;
+
+/**
+ * Tests for checkpointing and restoring a SimulationController
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class CheckpointTest {
+
+    enum Kind {
+        ARRIVAL, DEPARTURE
+    }
+
+    record Tag(String name) implements Serializable {
+    }
+
+    record Visit(int customer, long time) {
+    }
+
+    /**
+     * A single server queue with random, frequently simultaneous, arrivals and
+     * departures, balking customers when the queue is longer than its limit
+     */
+    private static class Station implements EntityReference {
+        static final int ARRIVE = 0;
+        static final int DEPART = 1;
+
+        final Map<Integer, EventHandle> departures = new HashMap<>();
+        final List<String>              history    = new ArrayList<>();
+        final EnumMap<Kind, Integer>    kinds      = new EnumMap<>(Kind.class);
+        Visit                           last;
+        int                             limit      = Integer.MAX_VALUE;
+        final Random                    random;
+        long[]                          samples;
+        final TreeMap<Long, Integer>    served     = new TreeMap<>();
+
+        Station(Random random) {
+            this.random = random;
+        }
+
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            final var now = Kairos.currentTime();
+            final var customer = (Integer) args[0];
+            final var controller = Kairos.getController();
+            switch (event) {
+            case ARRIVE -> {
+                history.add(now + " arrive " + customer);
+                kinds.merge(Kind.ARRIVAL, 1, Integer::sum);
+                controller.postEvent(now + random.nextInt(3), this, ARRIVE, customer + 1);
+                final var departure = controller.postCancellableEvent(now + random.nextInt(7), this, DEPART, customer);
+                departures.put(customer, departure);
+                if (departures.size() > limit) {
+                    departures.remove(customer).cancel();
+                    history.add(now + " balk " + customer);
+                }
+            }
+            case DEPART -> {
+                departures.remove(customer);
+                history.add(now + " depart " + customer);
+                kinds.merge(Kind.DEPARTURE, 1, Integer::sum);
+                served.merge(now / 100, 1, Integer::sum);
+                last = new Visit(customer, now);
+            }
+            default -> throw new IllegalArgumentException("Unknown event: " + event);
+            }
+            if (samples != null) {
+                samples[customer % samples.length] += now;
+            }
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return event == ARRIVE ? "arrive" : "depart";
+        }
+    }
+
+    /**
+     * An entity blocking on a call to itself
+     */
+    private static class Caller implements EntityReference {
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            if (event == 0) {
+                Kairos.getController().postContinuingEvent(this, 1);
+            }
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return event == 0 ? "call" : "called";
+        }
+    }
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    public void cleanup() {
+        Kairos.setController(null);
+    }
+
+    @Test
+    public void testRestoreContinuesAsUninterrupted() throws Exception {
+        var uninterrupted = new SimulationController();
+        var expected = start(uninterrupted, 2);
+        uninterrupted.setEndTime(2000);
+        uninterrupted.eventLoop();
+
+        var controller = new SimulationController();
+        var station = start(controller, 2);
+        controller.setEndTime(1000);
+        controller.eventLoop();
+        var snapshot = directory.resolve("station.snapshot");
+        controller.checkpoint(snapshot, station, "label");
+        assertTrue(Files.size(snapshot) > 0);
+        assertFalse(Files.exists(directory.resolve("station.snapshot.partial")));
+
+        var restored = SimulationController.restore(snapshot);
+        var restoredController = restored.getController();
+        assertEquals(2, restored.getRoots().size());
+        assertEquals("label", restored.getRoots().get(1));
+        var copy = (Station) restored.getRoots().get(0);
+        assertEquals(station.history, copy.history);
+        assertEquals(station.kinds, copy.kinds);
+        assertEquals(station.last, copy.last);
+        assertEquals(controller.getCurrentTime(), restoredController.getCurrentTime());
+        assertEquals(controller.getTotalEvents(), restoredController.getTotalEvents());
+        assertEquals(controller.getSpectrum(), restoredController.getSpectrum());
+        assertEquals(controller.getName(), restoredController.getName());
+
+        restoredController.setEndTime(2000);
+        restoredController.eventLoop();
+        assertEquals(expected.history, copy.history, "restored simulation must continue as the uninterrupted one");
+        assertEquals(expected.served, copy.served);
+        assertEquals(expected.kinds, copy.kinds);
+        assertEquals(expected.last, copy.last);
+        assertEquals(expected.departures.keySet(), copy.departures.keySet());
+        assertEquals(uninterrupted.getTotalEvents(), restoredController.getTotalEvents());
+        assertEquals(uninterrupted.getSpectrum(), restoredController.getSpectrum());
+    }
+
+    @Test
+    public void testStaticEventsSurvive() throws Exception {
+        var controller = new SimulationController();
+        var station = start(controller, 2);
+        Kairos.setController(controller);
+        Kairos.endSimulationAt(1500);
+        controller.setEndTime(1000);
+        controller.eventLoop();
+        var snapshot = directory.resolve("ending.snapshot");
+        controller.checkpoint(snapshot, station);
+
+        var restored = SimulationController.restore(snapshot);
+        var copy = (Station) restored.getRoots().get(0);
+        restored.getController().setEndTime(2000);
+        assertThrows(SimulationEnd.class, () -> restored.getController().eventLoop());
+        assertEquals(1500, restored.getController().getCurrentTime(), "the simulation must end as posted");
+        assertTrue(copy.history.stream().allMatch(h -> Long.parseLong(h.split(" ")[0]) <= 1500));
+    }
+
+    @Test
+    public void testCancellationHandlesSurvive() throws Exception {
+        var controller = new SimulationController();
+        var station = start(controller, 2);
+        controller.setEndTime(500);
+        controller.eventLoop();
+        var snapshot = directory.resolve("limited.snapshot");
+        controller.checkpoint(snapshot, station);
+
+        var restored = SimulationController.restore(snapshot);
+        var copy = (Station) restored.getRoots().get(0);
+        copy.limit = 1;
+        restored.getController().setEndTime(1000);
+        restored.getController().eventLoop();
+        assertTrue(station.history.stream().noneMatch(h -> h.contains("balk")));
+        var balked = copy.history.stream().filter(h -> h.contains("balk")).map(h -> h.split(" ")[2]).toList();
+        assertFalse(balked.isEmpty());
+        for (var customer : balked) {
+            assertTrue(copy.history.stream().noneMatch(h -> h.endsWith("depart " + customer)),
+                       "the departures of balking customers must be cancelled");
+        }
+        assertTrue(copy.departures.size() <= 1);
+    }
+
+    @Test
+    public void testLargeState() throws Exception {
+        var controller = new SimulationController();
+        var station = start(controller, 3_000_000);
+        controller.setEndTime(200);
+        controller.eventLoop();
+        var snapshot = directory.resolve("large.snapshot");
+        controller.checkpoint(snapshot, station);
+        assertTrue(Files.size(snapshot) > 3_000_000 * Long.BYTES, "snapshot must span mapped regions");
+
+        var copy = (Station) SimulationController.restore(snapshot).getRoots().get(0);
+        assertArrayEquals(station.samples, copy.samples);
+        assertEquals(station.history, copy.history);
+    }
+
+    @Test
+    public void testPrimitiveArrays() throws Exception {
+        var controller = new SimulationController();
+        var station = start(controller, 2);
+        controller.setEndTime(50);
+        controller.eventLoop();
+        var random = new Random(0x5EED);
+        var ints = random.ints(1_001).toArray();
+        var doubles = random.doubles(1_003).toArray();
+        var floats = new float[1_005];
+        var shorts = new short[1_007];
+        var chars = new char[1_009];
+        var flags = new boolean[1_011];
+        for (int i = 0; i < floats.length; i++) {
+            floats[i] = random.nextFloat();
+        }
+        for (int i = 0; i < shorts.length; i++) {
+            shorts[i] = (short) random.nextInt();
+            chars[i] = (char) random.nextInt();
+            flags[i] = random.nextBoolean();
+        }
+        var snapshot = directory.resolve("arrays.snapshot");
+        controller.checkpoint(snapshot, station, ints, doubles, floats, shorts, chars, flags);
+
+        var roots = SimulationController.restore(snapshot).getRoots();
+        assertArrayEquals(ints, (int[]) roots.get(1));
+        assertArrayEquals(doubles, (double[]) roots.get(2));
+        assertArrayEquals(floats, (float[]) roots.get(3));
+        assertArrayEquals(shorts, (short[]) roots.get(4));
+        assertArrayEquals(chars, (char[]) roots.get(5));
+        assertArrayEquals(flags, (boolean[]) roots.get(6));
+    }
+
+    @Test
+    public void testRefusals() throws Exception {
+        var controller = new SimulationController();
+        Kairos.setController(controller);
+        controller.postEvent(10, new Caller(), 0);
+        controller.setEndTime(10);
+        controller.eventLoop();
+        var snapshot = directory.resolve("blocked.snapshot");
+        assertThrows(SimulationException.class, () -> controller.checkpoint(snapshot));
+        assertFalse(Files.exists(snapshot));
+        controller.setEndTime(20);
+        controller.eventLoop();
+
+        var unwritable = new SimulationController();
+        var station = start(unwritable, 2);
+        unwritable.setEndTime(50);
+        unwritable.eventLoop();
+        assertThrows(SimulationException.class, () -> unwritable.checkpoint(snapshot, station, new Thread(() -> {
+        })));
+        assertFalse(Files.exists(snapshot));
+        assertFalse(Files.exists(directory.resolve("blocked.snapshot.partial")));
+        assertThrows(SimulationException.class,
+                     () -> unwritable.checkpoint(snapshot, station, new AtomicReference<>(new Tag("tag"))),
+                     "only the JDK's classes may be serialized");
+        assertFalse(Files.exists(snapshot));
+
+        var garbage = directory.resolve("garbage.snapshot");
+        Files.writeString(garbage, "not a snapshot");
+        assertThrows(SimulationException.class, () -> SimulationController.restore(garbage));
+
+        var truncated = directory.resolve("truncated.snapshot");
+        var complete = directory.resolve("complete.snapshot");
+        unwritable.checkpoint(complete, station);
+        var bytes = Files.readAllBytes(complete);
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length / 2));
+        assertThrows(SimulationException.class, () -> SimulationController.restore(truncated));
+    }
+
+    private Station start(SimulationController controller, int samples) {
+        var station = new Station(new Random(0x5EED));
+        station.samples = new long[samples];
+        Kairos.setController(controller);
+        controller.postEvent(0, station, Station.ARRIVE, 0);
+        return station;
+    }
+}
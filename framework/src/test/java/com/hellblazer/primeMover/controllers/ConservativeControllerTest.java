@@ -0,0 +1,380 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.controllers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.hellblazer.primeMover.annotations.Lookahead;
+import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.api.SimulationException;
+import com.hellblazer.primeMover.builders.SimulationBuilder;
+import com.hellblazer.primeMover.runtime.Devi;
+import com.hellblazer.primeMover.runtime.Kairos;
+import com.hellblazer.primeMover.runtime.SimulationEnd;
+
+/**
+ * Tests for the conservative parallel ConservativeController
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class ConservativeControllerTest {
+
+    /**
+     * A PHOLD node, forwarding each token it receives to a pseudo randomly
+     * chosen node at least the lookahead later. The token carries its own
+     * generator seed, so the final state of the nodes does not depend on the
+     * order in which simultaneous events are evaluated.
+     */
+    @Lookahead(5)
+    private static class Node implements EntityReference {
+        static final int BLOCK   = 2;
+        static final int ECHO    = 3;
+        static final int RECEIVE = 0;
+        static final int STRAY   = 1;
+
+        final int    id;
+        final Node[] nodes;
+        long         checksum;
+        Object       echoed;
+        int          received;
+
+        Node(int id, Node[] nodes) {
+            this.id = id;
+            this.nodes = nodes;
+        }
+
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            switch (event) {
+            case RECEIVE -> {
+                final var seed = (Long) args[0];
+                final var hops = (Integer) args[1];
+                final var now = Kairos.currentTime();
+                received++;
+                checksum += seed ^ now;
+                if (hops > 0) {
+                    final var next = seed * 6364136223846793005L + 1442695040888963407L;
+                    final var target = nodes[(int) ((next >>> 33) % nodes.length)];
+                    Kairos.getController().postEvent(now + 5 + ((next >>> 17) & 7), target, RECEIVE, next, hops - 1);
+                }
+            }
+            case STRAY -> Kairos.getController().postEvent(Kairos.currentTime() + 1, nodes[1], RECEIVE, 0L, 0);
+            case BLOCK -> echoed = Kairos.getController().postContinuingEvent((Node) args[0], ECHO, id);
+            case ECHO -> {
+                return "echo " + args[0];
+            }
+            default -> throw new IllegalArgumentException("Unknown event: " + event);
+            }
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return switch (event) {
+            case RECEIVE -> "receive";
+            case STRAY -> "stray";
+            case BLOCK -> "block";
+            default -> "echo";
+            };
+        }
+    }
+
+    /**
+     * An entity with a long lookahead, messaging its relay after a delay
+     */
+    @Lookahead(10)
+    private static class Origin implements EntityReference {
+        final long  delay;
+        final Relay relay;
+
+        Origin(long delay, Relay relay) {
+            this.delay = delay;
+            this.relay = relay;
+        }
+
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            Kairos.getController().postEvent(Kairos.currentTime() + delay, relay, 0);
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return "originate";
+        }
+    }
+
+    /**
+     * An entity without a declared lookahead, forwarding each event to its sink
+     * at once
+     */
+    private static class Relay implements EntityReference {
+        final Sink sink;
+
+        Relay(Sink sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            Kairos.getController().postEvent(sink, 0);
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return "relay";
+        }
+    }
+
+    /**
+     * An entity without a declared lookahead, only receiving events
+     */
+    private static class Sink implements EntityReference {
+        int received;
+
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            received++;
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return "sink";
+        }
+    }
+
+    /**
+     * An entity sending to its sink the lookahead after each of its ticks
+     */
+    @Lookahead(5)
+    private static class Source implements EntityReference {
+        Sink sink;
+        int  ticks;
+
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            final var now = Kairos.currentTime();
+            ticks++;
+            if (now < 50) {
+                Kairos.getController().postEvent(now + 1, this, 0);
+            }
+            Kairos.getController().postEvent(now + 5, sink, 0);
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return "tick";
+        }
+    }
+
+    /**
+     * An entity without a declared lookahead, ticking and messaging its peer at
+     * the same time
+     */
+    private static class Ticker implements EntityReference {
+        int    messages;
+        Ticker peer;
+        int    ticks;
+
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            final var now = Kairos.currentTime();
+            if (event == 0) {
+                ticks++;
+                if (now < 20) {
+                    Kairos.getController().postEvent(now + 1, this, 0);
+                }
+                Kairos.getController().postEvent(peer, 1);
+            } else {
+                messages++;
+            }
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return event == 0 ? "tick" : "message";
+        }
+    }
+
+    @AfterEach
+    public void cleanup() {
+        Kairos.setController(null);
+    }
+
+    @Test
+    public void testMatchesSequential() throws Exception {
+        var sequential = new SimulationController();
+        var expected = phold(sequential, 16, 32, 200);
+        sequential.eventLoop();
+
+        var controller = partitioned(4);
+        var actual = phold(controller, 16, 32, 200);
+        controller.eventLoop();
+
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i].received, actual[i].received, "node " + i);
+            assertEquals(expected[i].checksum, actual[i].checksum, "node " + i);
+        }
+        assertEquals(32 * 201, controller.getTotalEvents());
+        assertEquals(sequential.getSpectrum(), controller.getSpectrum());
+        assertEquals(sequential.getCurrentTime(), controller.getCurrentTime());
+        assertEquals(5, controller.getLookahead());
+        assertTrue(controller.getWindows() > 0);
+        assertTrue(controller.getRemoteEvents() > 0);
+        controller.close();
+    }
+
+    @Test
+    public void testZeroLookahead() throws Exception {
+        var controller = new ConservativeController(2);
+        var a = new Ticker();
+        var b = new Ticker();
+        a.peer = b;
+        b.peer = a;
+        controller.setPartitioner(entity -> entity == a ? 0 : 1);
+        controller.postEvent(0, a, 0);
+        controller.postEvent(0, b, 0);
+        controller.eventLoop();
+        assertEquals(0, controller.getLookahead());
+        assertEquals(21, a.ticks);
+        assertEquals(21, a.messages);
+        assertEquals(21, b.messages);
+        assertEquals(20, controller.getCurrentTime());
+        controller.close();
+    }
+
+    @Test
+    public void testTargetLookahead() throws Exception {
+        var controller = new ConservativeController(2);
+        var source = new Source();
+        source.sink = new Sink();
+        controller.setPartitioner(entity -> entity == source ? 0 : 1);
+        controller.postEvent(0, source, 0);
+        controller.eventLoop();
+        assertEquals(0, controller.getLookahead(), "the unannotated sink may post in turn");
+        assertEquals(51, source.ticks);
+        assertEquals(51, source.sink.received);
+        assertEquals(55, controller.getCurrentTime());
+        controller.close();
+    }
+
+    @Test
+    public void testRelayedLookahead() throws Exception {
+        for (var delay : new long[] { 10, 0 }) {
+            var controller = new ConservativeController(2);
+            var sink = new Sink();
+            var relay = new Relay(sink);
+            var origin = new Origin(delay, relay);
+            controller.setPartitioner(entity -> entity == sink ? 1 : 0);
+            controller.postEvent(0, origin, 0);
+            controller.eventLoop();
+            assertEquals(1, sink.received, "delay " + delay);
+            assertEquals(delay, controller.getCurrentTime(), "delay " + delay);
+            assertEquals(0, controller.getLookahead(), "delay " + delay);
+            controller.close();
+        }
+    }
+
+    @Test
+    public void testEndTime() throws Exception {
+        var controller = (ConservativeController) SimulationBuilder.builder()
+                                                                   .controllerType(ConservativeController.class)
+                                                                   .endTime(100)
+                                                                   .build();
+        assertEquals(100, controller.getEndTime());
+        phold(controller, 8, 8, Integer.MAX_VALUE);
+        controller.eventLoop();
+        assertTrue(controller.getCurrentTime() < 100);
+        assertTrue(controller.getTotalEvents() > 0);
+        controller.close();
+    }
+
+    @Test
+    public void testLookaheadViolation() throws Exception {
+        var controller = partitioned(2);
+        var nodes = phold(controller, 2, 0, 0);
+        controller.postEvent(0, nodes[0], Node.STRAY);
+        var e = assertThrows(SimulationException.class, controller::eventLoop);
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertTrue(e.getCause().getMessage().contains("lookahead"), e.getCause().getMessage());
+        controller.close();
+    }
+
+    @Test
+    public void testBlockingWithinPartition() throws Exception {
+        var controller = partitioned(2);
+        var nodes = phold(controller, 4, 0, 0);
+        controller.postEvent(0, nodes[0], Node.BLOCK, nodes[2]);
+        controller.postEvent(0, nodes[3], Node.BLOCK, nodes[1]);
+        controller.eventLoop();
+        assertEquals("echo 0", nodes[0].echoed);
+        assertEquals("echo 3", nodes[3].echoed);
+
+        controller.postEvent(0, nodes[0], Node.BLOCK, nodes[1]);
+        var e = assertThrows(SimulationException.class, controller::eventLoop);
+        assertInstanceOf(UnsupportedOperationException.class, e.getCause());
+        controller.close();
+    }
+
+    @Test
+    public void testSimulationEnd() throws Exception {
+        var controller = partitioned(2);
+        phold(controller, 4, 4, Integer.MAX_VALUE);
+        controller.postEvent(0, new EntityReference() {
+            @Override
+            public Object __invoke(int event, Object... arguments) throws Throwable {
+                Kairos.endSimulationAt(50);
+                return null;
+            }
+
+            @Override
+            public String __signatureFor(int event) {
+                return "end";
+            }
+        }, 0);
+        assertThrows(SimulationEnd.class, controller::eventLoop);
+        assertEquals(50, controller.getCurrentTime());
+        controller.close();
+    }
+
+    private ConservativeController partitioned(int partitions) {
+        var controller = new ConservativeController(partitions);
+        controller.setPartitioner(entity -> entity instanceof Node node ? node.id : 0);
+        return controller;
+    }
+
+    private Node[] phold(Devi controller, int population, int tokens, int hops) {
+        var nodes = new Node[population];
+        for (int i = 0; i < population; i++) {
+            nodes[i] = new Node(i, nodes);
+        }
+        for (int i = 0; i < tokens; i++) {
+            controller.postEvent(i % 3, nodes[i % population], Node.RECEIVE, (long) i * 0x9E3779B97F4A7C15L, hops);
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.controllers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.api.EventHandle;
+import com.hellblazer.primeMover.runtime.Kairos;
+
+/**
+ * Tests for cancellable events and lazy deletion of cancelled events
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class EventCancellationTest {
+
+    /**
+     * Entity recording the ordinal of each event it receives. Event 1 cancels the
+     * handle it is given
+     */
+    private static class Recorder implements EntityReference {
+        final List<Integer> received = new ArrayList<>();
+
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            received.add(event);
+            if (event == 1) {
+                assertTrue(((EventHandle) args[0]).cancel());
+            }
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return "event" + event;
+        }
+    }
+
+    private final Recorder entity = new Recorder();
+
+    @AfterEach
+    public void cleanup() {
+        Kairos.setController(null);
+    }
+
+    @Test
+    public void testCancelledEventIsNotInvoked() throws Exception {
+        var controller = new SimulationController();
+        controller.postEvent(10, entity, 0);
+        var handle = controller.postCancellableEvent(20, entity, 2);
+        controller.postEvent(5, entity, 1, handle);
+        assertEquals(20, handle.getTime());
+        assertFalse(handle.isCancelled());
+
+        controller.eventLoop();
+
+        assertEquals(List.of(1, 0), entity.received);
+        assertTrue(handle.isCancelled());
+        assertFalse(handle.cancel(), "already cancelled");
+        assertEquals(2, controller.getTotalEvents());
+        assertFalse(controller.getSpectrum().containsKey("event2"));
+    }
+
+    @Test
+    public void testCancelAfterDispatch() throws Exception {
+        var controller = new SimulationController();
+        var handle = controller.postCancellableEvent(entity, 3);
+        controller.eventLoop();
+        assertEquals(List.of(3), entity.received);
+        assertFalse(handle.cancel(), "cannot cancel a dispatched event");
+        assertFalse(handle.isCancelled());
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        var controller = new SimulationController(new CalendarQueue());
+        var handles = new ArrayList<EventHandle>();
+        for (int i = 0; i < 1_000; i++) {
+            handles.add(controller.postCancellableEvent(i, entity, 4));
+        }
+        var queue = (NowLaneQueue) controller.eventQueue;
+        for (int i = 0; i < 500; i++) {
+            assertTrue(handles.get(i * 2).cancel());
+        }
+        assertEquals(500, queue.getTombstones());
+        assertEquals(1_000, queue.size(), "tombstones are not yet compacted");
+        assertTrue(handles.get(1).cancel());
+        assertEquals(0, queue.getTombstones());
+        assertEquals(499, queue.size(), "compacted once tombstones are the majority");
+
+        controller.eventLoop();
+        assertEquals(499, entity.received.size());
+        assertEquals(499, controller.getTotalEvents());
+    }
+
+    @Test
+    public void testCancelWithinBatch() throws Exception {
+        var controller = new SimulationController();
+        controller.setBatchEvaluation(true);
+        var target = new EventHandle[1];
+        var deferred = new EventHandle() {
+            @Override
+            public boolean cancel() {
+                return target[0].cancel();
+            }
+
+            @Override
+            public long getTime() {
+                return target[0].getTime();
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return target[0].isCancelled();
+            }
+        };
+        controller.postEvent(5, entity, 1, deferred);
+        target[0] = controller.postCancellableEvent(5, entity, 6);
+        var queue = (NowLaneQueue) controller.eventQueue;
+
+        controller.eventLoop();
+
+        assertEquals(List.of(1), entity.received);
+        assertEquals(0, queue.getTombstones(), "the cancelled event had already been drained into the batch");
+    }
+
+    @Test
+    public void testSteppingSkipsTombstones() throws Exception {
+        var controller = new SteppingController();
+        var handle = controller.postCancellableEvent(1, entity, 5);
+        assertTrue(controller.hasMoreEvents());
+        handle.cancel();
+        assertFalse(controller.hasMoreEvents());
+        assertNull(controller.peekNextEvent());
+        assertFalse(controller.stepOne());
+        assertTrue(entity.received.isEmpty());
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.controllers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.runtime.EventImpl;
+import com.hellblazer.primeMover.runtime.Kairos;
+
+/**
+ * Tests for the EventHeap pending event set
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class EventHeapTest {
+
+    /**
+     * Entity recording the ordinal of each event it receives
+     */
+    private static class Recorder implements EntityReference {
+        final List<Integer> received = new ArrayList<>();
+
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            received.add(event);
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return "event" + event;
+        }
+    }
+
+    private final Recorder              entity  = new Recorder();
+    private final ArrayDeque<EventImpl> scratch = new ArrayDeque<>();
+    private final SimulationController  factory = new SimulationController() {
+        @Override
+        public void post(EventImpl event) {
+            scratch.add(event);
+        }
+    };
+    private final EventHeap             heap    = new EventHeap(2);
+
+    @AfterEach
+    public void cleanup() {
+        Kairos.setController(null);
+    }
+
+    @Test
+    public void testEmpty() {
+        assertTrue(heap.isEmpty());
+        assertNull(heap.peek());
+        assertNull(heap.poll());
+        assertThrows(NullPointerException.class, () -> heap.offer(null));
+        assertThrows(IllegalArgumentException.class, () -> new EventHeap(0));
+    }
+
+    @Test
+    public void testOrderingMatchesPriorityQueue() {
+        var random = new Random(0x4a7);
+        var reference = new PriorityQueue<Long>();
+        for (int i = 0; i < 10_000; i++) {
+            var time = random.nextLong(1_000);
+            heap.add(event(time, 0));
+            reference.add(time);
+        }
+        for (int i = 0; i < 50_000; i++) {
+            var next = heap.poll();
+            assertEquals(reference.poll(), next.getTime());
+            var time = next.getTime() + random.nextLong(500);
+            next.setTime(time);
+            heap.add(next);
+            reference.add(time);
+        }
+        while (!reference.isEmpty()) {
+            assertEquals(reference.peek(), heap.peek().getTime());
+            assertEquals(reference.poll(), heap.poll().getTime());
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public void testSimultaneousEventsAreFifo() {
+        var random = new Random(0xf1f0);
+        for (int i = 0; i < 5_000; i++) {
+            heap.add(event(random.nextInt(10), i));
+        }
+        var lastTime = Long.MIN_VALUE;
+        var lastOrdinal = -1;
+        while (!heap.isEmpty()) {
+            var event = heap.poll();
+            var ordinal = Integer.parseInt(event.getSignature().substring("event".length()));
+            if (event.getTime() == lastTime) {
+                assertTrue(ordinal > lastOrdinal, "simultaneous events must be dequeued in insertion order");
+            } else {
+                assertTrue(event.getTime() > lastTime);
+            }
+            lastTime = event.getTime();
+            lastOrdinal = ordinal;
+        }
+    }
+
+    @Test
+    public void testRemove() {
+        var events = new ArrayList<EventImpl>();
+        for (int i = 0; i < 200; i++) {
+            var event = event(199 - i, i);
+            events.add(event);
+            heap.add(event);
+        }
+        assertTrue(heap.remove(events.get(10)));
+        assertFalse(heap.remove(events.get(10)));
+        assertTrue(heap.removeIf(e -> e.getTime() % 3 == 0));
+        assertFalse(heap.removeIf(e -> e.getTime() % 3 == 0));
+        var expected = 0;
+        for (int i = 0; i < 200; i++) {
+            if (i % 3 != 0 && i != 189) {
+                expected++;
+            }
+        }
+        assertEquals(expected, heap.size());
+        var count = 0;
+        for (var e : heap) {
+            assertNotEquals(0, e.getTime() % 3);
+            count++;
+        }
+        assertEquals(expected, count);
+        var last = -1L;
+        while (!heap.isEmpty()) {
+            var time = heap.poll().getTime();
+            assertTrue(time > last);
+            assertNotEquals(189, time);
+            last = time;
+        }
+        heap.add(event(3, 0));
+        heap.clear();
+        assertNull(heap.poll());
+    }
+
+    @Test
+    public void testEventLoop() throws Exception {
+        var controller = new SteppingController(new EventHeap());
+        for (int i = 0; i < 100; i++) {
+            controller.postEvent(i % 2 == 0 ? 5 : 1, entity, i);
+        }
+        controller.step();
+        assertFalse(controller.hasMoreEvents());
+        assertEquals(100, entity.received.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(2 * i + 1, entity.received.get(i), "time 1 events in posting order");
+            assertEquals(2 * i, entity.received.get(50 + i), "time 5 events in posting order");
+        }
+    }
+
+    private EventImpl event(long time, int ordinal) {
+        factory.postEvent(time, entity, ordinal);
+        return scratch.poll();
+    }
+}
@@ -0,0 +1,178 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.controllers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.runtime.EventImpl;
+import com.hellblazer.primeMover.runtime.Kairos;
+
+/**
+ * Tests for the zero-delay "now" lane of the controllers
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class NowLaneQueueTest {
+
+    /**
+     * Entity which posts a follow up event at the current time for each event
+     * it receives, until the budget is exhausted
+     */
+    private static class Chain implements EntityReference {
+        final List<Long> times = new ArrayList<>();
+        int              budget;
+
+        Chain(int budget) {
+            this.budget = budget;
+        }
+
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            times.add(Kairos.currentTime());
+            if (--budget > 0) {
+                Kairos.getController().postEvent(this, event);
+            }
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return "chain" + event;
+        }
+    }
+
+    private final Chain                 entity  = new Chain(0);
+    private final ArrayDeque<EventImpl> scratch = new ArrayDeque<>();
+    private final SimulationController  factory = new SimulationController() {
+        @Override
+        public void post(EventImpl event) {
+            scratch.add(event);
+        }
+    };
+
+    @AfterEach
+    public void cleanup() {
+        Kairos.setController(null);
+    }
+
+    @Test
+    public void testOrderingPreserved() {
+        var queue = new NowLaneQueue(new EventHeap());
+        var reference = new EventHeap();
+        var random = new Random(0x1a4e);
+        for (int i = 0; i < 100; i++) {
+            var time = random.nextLong(100);
+            queue.add(event(time, i));
+            reference.add(event(time, i));
+        }
+        for (int i = 0; i < 20_000; i++) {
+            var expected = reference.poll();
+            var next = queue.poll();
+            assertEquals(expected.getTime(), next.getTime());
+            assertEquals(expected.getSignature(), next.getSignature());
+            // Mostly zero delay, some earlier (after a sleep advanced the clock), some later
+            var roll = random.nextInt(10);
+            var time = roll < 6 ? next.getTime()
+                                : roll < 7 ? next.getTime() - random.nextLong(3) : next.getTime() + random.nextLong(50);
+            for (int j = 0; j < (roll < 3 ? 2 : 1); j++) {
+                queue.add(event(time, i * 2 + j));
+                reference.add(event(time, i * 2 + j));
+            }
+            assertEquals(reference.size(), queue.size());
+            assertEquals(reference.peek().getTime(), queue.peek().getTime());
+        }
+        assertTrue(queue.getFastPathEvents() > 0);
+    }
+
+    @Test
+    public void testLaneAndQueue() {
+        var queue = new NowLaneQueue(new EventHeap());
+        queue.add(event(10, 0));
+        assertEquals(1, queue.getFastPathEvents(), "empty queue: event takes the lane");
+        queue.add(event(10, 1));
+        assertEquals(2, queue.getFastPathEvents(), "same time as the lane");
+        queue.add(event(20, 2));
+        queue.add(event(5, 3));
+        assertEquals(2, queue.getFastPathEvents());
+        assertEquals(2, queue.getDelegate().size());
+
+        assertEquals(5, queue.poll().getTime());
+        assertEquals("chain0", queue.poll().getSignature());
+        assertEquals("chain1", queue.poll().getSignature());
+        queue.add(event(15, 4));
+        assertEquals(3, queue.getFastPathEvents(), "precedes the earliest queued event");
+        queue.add(event(20, 5));
+        assertEquals(3, queue.getFastPathEvents(), "simultaneous with a queued event");
+
+        assertTrue(queue.removeIf(e -> e.getTime() == 15));
+        assertEquals(2, queue.size());
+        assertEquals("chain2", queue.poll().getSignature());
+        assertEquals("chain5", queue.poll().getSignature());
+        assertNull(queue.poll());
+        queue.resetFastPathEvents();
+        assertEquals(0, queue.getFastPathEvents());
+    }
+
+    @Test
+    public void testIteratorRemoveAcrossLane() {
+        var queue = new NowLaneQueue(new EventHeap());
+        queue.add(event(10, 0));
+        queue.add(event(20, 1));
+        var iterator = queue.iterator();
+        assertEquals("chain0", iterator.next().getSignature());
+        // Crosses from the lane to the priority queue
+        assertTrue(iterator.hasNext());
+        iterator.remove();
+        assertThrows(IllegalStateException.class, iterator::remove);
+        assertEquals("chain1", iterator.next().getSignature());
+        assertFalse(iterator.hasNext());
+
+        assertEquals(1, queue.size());
+        assertEquals("chain1", queue.poll().getSignature());
+    }
+
+    @Test
+    public void testReportedByController() throws Exception {
+        var chain = new Chain(1_000);
+        var controller = new SimulationController();
+        controller.postEvent(0, chain, 0);
+        controller.eventLoop();
+        assertEquals(1_000, chain.times.size());
+        assertEquals(1_000, controller.getTotalEvents());
+        assertEquals(1_000, controller.getFastPathEvents());
+        var report = controller.report();
+        assertEquals(1_000, report.fastPathEvents());
+        assertTrue(report.toJson().contains("\"fastPathEvents\": 1000"));
+    }
+
+    private EventImpl event(long time, int ordinal) {
+        factory.postEvent(time, entity, ordinal);
+        return scratch.poll();
+    }
+}
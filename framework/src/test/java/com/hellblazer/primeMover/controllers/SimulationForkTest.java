@@ -0,0 +1,258 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.controllers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.api.EventHandle;
+import com.hellblazer.primeMover.api.SimulationException;
+import com.hellblazer.primeMover.runtime.Kairos;
+
+/**
+ * Tests for forking a SimulationController
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class SimulationForkTest {
+
+    /**
+     * A single server queue with random, frequently simultaneous, arrivals and
+     * departures. Every customer's departure is cancelled if the queue is
+     * longer than the policy's limit when the customer arrives.
+     */
+    private static class Station implements EntityReference {
+        static final int ARRIVE = 0;
+        static final int DEPART = 1;
+
+        final Map<Integer, EventHandle> departures = new HashMap<>();
+        final List<String>              history    = new ArrayList<>();
+        int                             limit      = Integer.MAX_VALUE;
+        final Random                    random;
+        final TreeMap<Long, Integer>    served     = new TreeMap<>();
+
+        Station(Random random) {
+            this.random = random;
+        }
+
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            final var now = Kairos.currentTime();
+            final var customer = (Integer) args[0];
+            final var controller = Kairos.getController();
+            switch (event) {
+            case ARRIVE -> {
+                history.add(now + " arrive " + customer);
+                controller.postEvent(now + random.nextInt(3), this, ARRIVE, customer + 1);
+                final var departure = controller.postCancellableEvent(now + random.nextInt(7), this, DEPART, customer);
+                departures.put(customer, departure);
+                if (departures.size() > limit) {
+                    departures.remove(customer).cancel();
+                    history.add(now + " balk " + customer);
+                }
+            }
+            case DEPART -> {
+                departures.remove(customer);
+                history.add(now + " depart " + customer);
+                served.merge(now / 100, 1, Integer::sum);
+            }
+            default -> throw new IllegalArgumentException("Unknown event: " + event);
+            }
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return event == ARRIVE ? "arrive" : "depart";
+        }
+    }
+
+    /**
+     * An entity holding state that cannot be copied
+     */
+    private static class Uncopyable implements EntityReference {
+        Object state;
+
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            Kairos.getController().postEvent(Kairos.currentTime() + 1, this, 0);
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return "tick";
+        }
+    }
+
+    /**
+     * An entity blocking on a call to itself
+     */
+    private static class Caller implements EntityReference {
+        Object result;
+
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            if (event == 0) {
+                result = Kairos.getController().postContinuingEvent(this, 1);
+                return null;
+            }
+            return "called";
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return event == 0 ? "call" : "called";
+        }
+    }
+
+    @AfterEach
+    public void cleanup() {
+        Kairos.setController(null);
+    }
+
+    @Test
+    public void testBranchesContinueAsUnforked() throws Exception {
+        var unforked = new SimulationController();
+        var expected = start(unforked);
+        unforked.setEndTime(2000);
+        unforked.eventLoop();
+
+        var controller = new SimulationController();
+        var station = start(controller);
+        controller.setEndTime(1000);
+        controller.eventLoop();
+        var warmUp = new ArrayList<>(station.history);
+        var warmUpEvents = controller.getTotalEvents();
+
+        var branches = controller.fork(3, station);
+        assertEquals(3, branches.size());
+        try (var executor = Executors.newFixedThreadPool(3)) {
+            var runs = new ArrayList<Future<?>>();
+            for (var branch : branches) {
+                assertNotSame(station, branch.copyOf(station));
+                assertSame(branch.getController(), branch.copyOf(controller));
+                assertEquals(warmUp, branch.copyOf(station).history);
+                branch.getController().setEndTime(2000);
+                runs.add(executor.submit(() -> {
+                    branch.getController().eventLoop();
+                    return null;
+                }));
+            }
+            for (var run : runs) {
+                run.get();
+            }
+        }
+
+        for (var branch : branches) {
+            var copy = branch.copyOf(station);
+            assertEquals(expected.history, copy.history, "branch must continue as the unforked simulation");
+            assertEquals(expected.served, copy.served);
+            assertEquals(expected.departures.keySet(), copy.departures.keySet());
+            assertEquals(unforked.getTotalEvents(), branch.getController().getTotalEvents());
+            assertEquals(unforked.getSpectrum(), branch.getController().getSpectrum());
+            assertEquals(unforked.getSimulationEnd(), branch.getController().getSimulationEnd());
+        }
+        assertEquals(warmUp, station.history, "the forked simulation must be unchanged");
+        assertEquals(warmUpEvents, controller.getTotalEvents());
+    }
+
+    @Test
+    public void testBranchesAreIndependent() throws Exception {
+        var controller = new SimulationController();
+        var station = start(controller);
+        controller.setEndTime(500);
+        controller.eventLoop();
+
+        var branches = controller.fork(2, station);
+        branches.get(1).copyOf(station).limit = 1;
+        for (var branch : branches) {
+            branch.getController().setEndTime(1000);
+            branch.getController().eventLoop();
+        }
+        var unlimited = branches.get(0).copyOf(station);
+        var limited = branches.get(1).copyOf(station);
+        assertTrue(unlimited.history.stream().noneMatch(h -> h.contains("balk")));
+        assertTrue(limited.history.stream().anyMatch(h -> h.contains("balk")));
+        assertTrue(limited.departures.size() <= 1);
+        assertNotEquals(unlimited.history, limited.history);
+    }
+
+    @Test
+    public void testRefusesBlockedEvents() throws Exception {
+        var controller = new SimulationController();
+        var caller = new Caller();
+        Kairos.setController(controller);
+        controller.postEvent(10, caller, 0);
+        controller.setEndTime(10);
+        controller.eventLoop();
+
+        var e = assertThrows(SimulationException.class, () -> controller.fork(1));
+        assertTrue(e.getMessage().contains("blocking"), e.getMessage());
+
+        controller.setEndTime(20);
+        controller.eventLoop();
+        assertEquals("called", caller.result);
+        assertEquals(1, controller.fork(1).size());
+    }
+
+    @Test
+    public void testRefusesUncopyableState() throws Exception {
+        var controller = new SimulationController();
+        var entity = new Uncopyable();
+        entity.state = Thread.currentThread();
+        Kairos.setController(controller);
+        controller.postEvent(0, entity, 0);
+        controller.setEndTime(5);
+        controller.eventLoop();
+        assertThrows(SimulationException.class, () -> controller.fork(1));
+
+        entity.state = (Runnable) () -> entity.state = null;
+        assertThrows(SimulationException.class, () -> controller.fork(1));
+
+        entity.state = List.of(new int[] { 1, 2 }, Map.of("key", new StringBuilder("value")));
+        var copy = controller.fork(1).get(0).copyOf(entity);
+        assertNotSame(entity.state, copy.state);
+        assertEquals("value", ((Map<?, ?>) ((List<?>) copy.state).get(1)).get("key").toString());
+        assertThrows(UnsupportedOperationException.class, () -> ((List<?>) copy.state).clear());
+
+        assertThrows(IllegalArgumentException.class, () -> controller.fork(0));
+        assertThrows(IllegalArgumentException.class, () -> controller.fork(1).get(0).copyOf(new Station(null)));
+    }
+
+    private Station start(SimulationController controller) {
+        var station = new Station(new Random(0x5EED));
+        Kairos.setController(controller);
+        controller.postEvent(0, station, Station.ARRIVE, 0);
+        return station;
+    }
+}
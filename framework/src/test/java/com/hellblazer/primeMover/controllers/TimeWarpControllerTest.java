@@ -0,0 +1,284 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.controllers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.hellblazer.primeMover.annotations.Owned;
+import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.api.SimulationException;
+import com.hellblazer.primeMover.builders.SimulationBuilder;
+import com.hellblazer.primeMover.runtime.Devi;
+import com.hellblazer.primeMover.runtime.Kairos;
+import com.hellblazer.primeMover.runtime.SimulationEnd;
+
+/**
+ * Tests for the optimistic parallel TimeWarpController
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class TimeWarpControllerTest {
+
+    /**
+     * A PHOLD node: each token received is forwarded to a pseudo randomly chosen
+     * node after a pseudo random delay. The token carries its own generator
+     * seed, so each token's path - and so the final state of the nodes - does
+     * not depend on the order in which simultaneous events are evaluated.
+     */
+    private static class Node implements EntityReference {
+        static final int BLOCK   = 2;
+        static final int FAIL    = 1;
+        static final int RECEIVE = 0;
+
+        final Node[] nodes;
+        long         checksum;
+        int          received;
+        @Owned
+        final long[] recent = new long[4];
+
+        Node(Node[] nodes) {
+            this.nodes = nodes;
+        }
+
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            switch (event) {
+            case RECEIVE -> {
+                final var seed = (Long) args[0];
+                final var hops = (Integer) args[1];
+                final var now = Kairos.currentTime();
+                recent[received % recent.length] = now;
+                received++;
+                checksum += seed ^ now;
+                if (hops > 0) {
+                    final var next = seed * 6364136223846793005L + 1442695040888963407L;
+                    final var target = nodes[(int) ((next >>> 33) % nodes.length)];
+                    Kairos.getController().postEvent(now + 1 + ((next >>> 17) & 7), target, RECEIVE, next, hops - 1);
+                }
+            }
+            case FAIL -> throw new IllegalStateException("failed");
+            case BLOCK -> Kairos.getController().postContinuingEvent(this, RECEIVE, 0L, 0);
+            default -> throw new IllegalArgumentException("Unknown event: " + event);
+            }
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return switch (event) {
+            case RECEIVE -> "receive";
+            case FAIL -> "fail";
+            default -> "block";
+            };
+        }
+    }
+
+    /**
+     * An entity owning mutable state other than arrays
+     */
+    private static class Ledger implements EntityReference {
+        @Owned
+        final List<Long> entries = new ArrayList<>();
+        @Owned
+        final List<Node> peers   = new ArrayList<>();
+        @Owned
+        Random           random  = new Random(17);
+
+        Ledger(Node peer) {
+            peers.add(peer);
+        }
+
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return "ledger";
+        }
+    }
+
+    @AfterEach
+    public void cleanup() {
+        Kairos.setController(null);
+    }
+
+    @Test
+    public void testMatchesSequential() throws Exception {
+        var sequential = new SimulationController();
+        var expected = phold(sequential, 16, 32, 200);
+        sequential.eventLoop();
+
+        var controller = new TimeWarpController(4);
+        controller.setGvtInterval(16);
+        var actual = phold(controller, 16, 32, 200);
+        controller.eventLoop();
+
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i].received, actual[i].received, "node " + i);
+            assertEquals(expected[i].checksum, actual[i].checksum, "node " + i);
+            assertArrayEquals(expected[i].recent, actual[i].recent, "node " + i);
+        }
+        assertEquals(32 * 201, controller.getTotalEvents());
+        assertEquals(sequential.getTotalEvents(), controller.getTotalEvents());
+        assertEquals(sequential.getSpectrum(), controller.getSpectrum());
+        assertEquals(sequential.getCurrentTime(), controller.getCurrentTime());
+        assertEquals(controller.getCurrentTime(), controller.getSimulationEnd());
+        assertTrue(controller.getGvtRounds() > 0);
+        controller.close();
+    }
+
+    @Test
+    public void testOwnedStateRolledBack() throws Exception {
+        var peer = new Node(new Node[0]);
+        var node = new Node(new Node[] { peer });
+        var recent = node.recent;
+        node.recent[1] = 7;
+        node.received = 1;
+        var saved = EntityState.save(node);
+        node.recent[1] = 11;
+        node.received = 2;
+        node.nodes[0] = node;
+        EntityState.restore(node, saved);
+        assertArrayEquals(new long[] { 0, 7, 0, 0 }, node.recent);
+        assertSame(recent, node.recent, "owned arrays are restored in place");
+        assertEquals(1, node.received);
+        assertSame(node, node.nodes[0], "state that is not owned is neither copied nor restored");
+
+        var ledger = new Ledger(peer);
+        ledger.entries.add(1L);
+        ledger.random.nextLong();
+        saved = EntityState.save(ledger);
+        var expected = ledger.random.nextLong();
+        ledger.entries.add(2L);
+        EntityState.restore(ledger, saved);
+        assertEquals(List.of(1L), ledger.entries);
+        assertEquals(expected, ledger.random.nextLong());
+        assertSame(peer, ledger.peers.get(0), "entities referenced from owned state are shared");
+    }
+
+    @Test
+    public void testOptimismWindow() throws Exception {
+        var sequential = new SimulationController();
+        var expected = phold(sequential, 8, 8, 100);
+        sequential.eventLoop();
+
+        var controller = new TimeWarpController(3);
+        controller.setOptimismWindow(5);
+        var actual = phold(controller, 8, 8, 100);
+        controller.eventLoop();
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i].checksum, actual[i].checksum, "node " + i);
+        }
+        assertEquals(sequential.getTotalEvents(), controller.getTotalEvents());
+        controller.close();
+    }
+
+    @Test
+    public void testEndTime() throws Exception {
+        var controller = (TimeWarpController) SimulationBuilder.builder()
+                                                               .controllerType(TimeWarpController.class)
+                                                               .endTime(100)
+                                                               .build();
+        assertEquals(100, controller.getEndTime());
+        var nodes = phold(controller, 8, 8, Integer.MAX_VALUE);
+        controller.eventLoop();
+        assertTrue(controller.getCurrentTime() < 100);
+        var total = 0;
+        for (var node : nodes) {
+            total += node.received;
+            for (var time : node.recent) {
+                assertTrue(time < 100, "no events at or after the end time");
+            }
+        }
+        assertEquals(total, controller.getTotalEvents());
+        controller.close();
+    }
+
+    @Test
+    public void testSimulationEnd() throws Exception {
+        var controller = new TimeWarpController(2);
+        var nodes = phold(controller, 4, 4, Integer.MAX_VALUE);
+        controller.postEvent(0, new EntityReference() {
+            @Override
+            public Object __invoke(int event, Object... arguments) throws Throwable {
+                Kairos.endSimulationAt(50);
+                return null;
+            }
+
+            @Override
+            public String __signatureFor(int event) {
+                return "end";
+            }
+        }, 0);
+        assertThrows(SimulationEnd.class, controller::eventLoop);
+        assertEquals(50, controller.getCurrentTime());
+        for (var node : nodes) {
+            for (var time : node.recent) {
+                assertTrue(time <= 50, "optimistic events past the end must be rolled back");
+            }
+        }
+        controller.close();
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        var controller = new TimeWarpController(2);
+        var nodes = phold(controller, 4, 4, Integer.MAX_VALUE);
+        controller.postEvent(30, nodes[1], Node.FAIL);
+        var e = assertThrows(SimulationException.class, controller::eventLoop);
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertTrue(e.getMessage().contains("at time 30"), e.getMessage());
+        assertEquals(30, controller.getCurrentTime());
+        controller.close();
+    }
+
+    @Test
+    public void testBlockingUnsupported() throws Exception {
+        var controller = new TimeWarpController(2);
+        var node = new Node(new Node[0]);
+        controller.postEvent(0, node, Node.BLOCK);
+        var e = assertThrows(SimulationException.class, controller::eventLoop);
+        assertInstanceOf(UnsupportedOperationException.class, e.getCause());
+        assertThrows(UnsupportedOperationException.class, () -> controller.postContinuingEvent(node, Node.RECEIVE));
+        assertThrows(UnsupportedOperationException.class,
+                     () -> controller.postCancellableEvent(0, node, Node.RECEIVE));
+        controller.close();
+    }
+
+    private Node[] phold(Devi controller, int population, int tokens, int hops) {
+        var nodes = new Node[population];
+        for (int i = 0; i < population; i++) {
+            nodes[i] = new Node(nodes);
+        }
+        for (int i = 0; i < tokens; i++) {
+            controller.postEvent(i % 3, nodes[i % population], Node.RECEIVE, (long) i * 0x9E3779B97F4A7C15L, hops);
+        }
+        return nodes;
+    }
+}
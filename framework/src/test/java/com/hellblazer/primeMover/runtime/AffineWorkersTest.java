@@ -0,0 +1,178 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.hellblazer.primeMover.runtime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.api.SimulationException;
+import com.hellblazer.primeMover.builders.SimulationBuilder;
+import com.hellblazer.primeMover.controllers.SimulationController;
+
+/**
+ * Tests for evaluating events on entity affine worker threads
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class AffineWorkersTest {
+
+    /**
+     * Entity recording the threads its events are evaluated on
+     */
+    private static class Recorder implements EntityReference {
+        static final int FAIL  = 2;
+        static final int SLEEP = 1;
+        static final int TICK  = 0;
+
+        final List<String> log     = new ArrayList<>();
+        final Set<Thread>  threads = new HashSet<>();
+
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            threads.add(Thread.currentThread());
+            switch (event) {
+            case TICK -> log.add("tick@" + Kairos.currentTime());
+            case SLEEP -> {
+                Kairos.blockingSleep(100);
+                threads.add(Thread.currentThread());
+                log.add("woke@" + Kairos.currentTime());
+            }
+            case FAIL -> throw new IllegalStateException("failed");
+            default -> throw new IllegalArgumentException("Unknown event: " + event);
+            }
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return "recorder" + event;
+        }
+    }
+
+    @AfterEach
+    public void cleanup() {
+        Kairos.setController(null);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = { true, false })
+    public void testWorkerReuse(boolean exclusive) throws Exception {
+        var recorder = new Recorder();
+        try (var controller = new SimulationController()) {
+            controller.setExclusiveEvaluation(exclusive);
+            controller.setWorkerPartitions(1);
+            for (int i = 0; i < 1_000; i++) {
+                controller.postEvent(i, recorder, Recorder.TICK);
+            }
+            controller.eventLoop();
+
+            assertEquals(1_000, recorder.log.size());
+            assertEquals(1, controller.getWorkersStarted());
+            assertEquals(1, recorder.threads.size());
+            assertTrue(recorder.threads.iterator().next().isVirtual());
+        }
+    }
+
+    @Test
+    public void testBlockedWorkersAreNotReused() throws Exception {
+        var recorder = new Recorder();
+        try (var controller = (SimulationController) SimulationBuilder.builder().workerPartitions(1).build()) {
+            assertEquals(1, controller.getWorkerPartitions());
+            for (int i = 0; i < 10; i++) {
+                controller.postEvent(i, recorder, Recorder.SLEEP);
+            }
+            for (int i = 0; i < 50; i++) {
+                controller.postEvent(i, recorder, Recorder.TICK);
+            }
+            controller.eventLoop();
+
+            assertEquals(60, recorder.log.size());
+            for (int i = 0; i < 10; i++) {
+                assertTrue(recorder.log.contains("woke@" + (i + 100)));
+            }
+            // One worker per blocked sleeper, plus one for everything else
+            assertEquals(11, controller.getWorkersStarted());
+            assertEquals(11, recorder.threads.size());
+        }
+    }
+
+    @Test
+    public void testFailureReleasesWorker() throws Exception {
+        var recorder = new Recorder();
+        try (var controller = new SimulationController()) {
+            controller.setWorkerPartitions(1);
+            controller.postEvent(1, recorder, Recorder.FAIL);
+            assertThrows(SimulationException.class, controller::eventLoop);
+
+            controller.postEvent(2, recorder, Recorder.TICK);
+            controller.eventLoop();
+            assertEquals(List.of("tick@2"), recorder.log);
+            assertEquals(1, controller.getWorkersStarted());
+        }
+    }
+
+    @Test
+    public void testPartitionsFollowEntities() throws Exception {
+        var recorders = new ArrayList<Recorder>();
+        try (var controller = new SimulationController()) {
+            controller.setWorkerPartitions(1_024);
+            controller.setDedicatedCarrier(true);
+            for (int i = 0; i < 8; i++) {
+                var recorder = new Recorder();
+                recorders.add(recorder);
+                for (int j = 0; j < 100; j++) {
+                    controller.postEvent(j, recorder, Recorder.TICK);
+                }
+            }
+            controller.eventLoop();
+
+            for (var recorder : recorders) {
+                assertEquals(100, recorder.log.size());
+                assertEquals(1, recorder.threads.size(), "each entity should stay on one worker");
+            }
+            assertTrue(controller.getWorkersStarted() <= 8);
+        }
+    }
+
+    @Test
+    public void testDisable() throws Exception {
+        var recorder = new Recorder();
+        var controller = new SimulationController();
+        controller.setWorkerPartitions(2);
+        controller.setWorkerPartitions(0);
+        assertEquals(0, controller.getWorkerPartitions());
+        assertThrows(IllegalArgumentException.class, () -> controller.setWorkerPartitions(-1));
+        for (int i = 0; i < 3; i++) {
+            controller.postEvent(i, recorder, Recorder.TICK);
+        }
+        controller.eventLoop();
+        assertEquals(3, recorder.threads.size());
+        assertEquals(0, controller.getWorkersStarted());
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ * 
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ * 
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.hellblazer.primeMover.api.EntityReference;
+
+/**
+ * Tests for the blocking reach tables of the generated entities
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class BlockingReachTest {
+
+    private static class Analyzed implements EntityReference {
+        @SuppressWarnings("unused")
+        private static final String __blocking = "NMU";
+
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            return null;
+        }
+
+        @Override
+        public boolean __mayBlock(int event) {
+            return event != 0;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return "analyzed" + event;
+        }
+    }
+
+    private static class Derived extends Analyzed {
+    }
+
+    private static class Unanalyzed implements EntityReference {
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            return null;
+        }
+
+        @Override
+        public boolean __mayBlock(int event) {
+            return event != 0;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return "unanalyzed" + event;
+        }
+    }
+
+    @Test
+    public void testJoin() {
+        assertEquals(BlockingReach.NEVER, BlockingReach.NEVER.join(BlockingReach.NEVER));
+        assertEquals(BlockingReach.UNKNOWN, BlockingReach.NEVER.join(BlockingReach.UNKNOWN));
+        assertEquals(BlockingReach.MAY, BlockingReach.UNKNOWN.join(BlockingReach.MAY));
+        assertEquals(BlockingReach.MAY, BlockingReach.MAY.join(BlockingReach.NEVER));
+        assertFalse(BlockingReach.NEVER.mayBlock());
+        assertTrue(BlockingReach.UNKNOWN.mayBlock());
+        assertTrue(BlockingReach.MAY.mayBlock());
+        for (var reach : BlockingReach.values()) {
+            assertEquals(reach, BlockingReach.decode(reach.code()));
+        }
+        assertThrows(IllegalArgumentException.class, () -> BlockingReach.decode('X'));
+    }
+
+    @Test
+    public void testTables() {
+        assertEquals(BlockingReach.NEVER, BlockingReach.of(Analyzed.class, 0));
+        assertEquals(BlockingReach.MAY, BlockingReach.of(Analyzed.class, 1));
+        assertEquals(BlockingReach.UNKNOWN, BlockingReach.of(Analyzed.class, 2));
+        assertNull(BlockingReach.of(Analyzed.class, 3));
+        assertNull(BlockingReach.of(Analyzed.class, -1));
+        assertEquals(BlockingReach.MAY, BlockingReach.of(Derived.class, 1), "subclasses share the table");
+        assertNull(BlockingReach.of(Unanalyzed.class, 0));
+
+        assertEquals(BlockingReach.MAY, BlockingReach.of(new Derived(), 1));
+        assertEquals(BlockingReach.UNKNOWN, BlockingReach.of(new Analyzed(), 3));
+        assertEquals(BlockingReach.NEVER, BlockingReach.of(new Unanalyzed(), 0));
+        assertEquals(BlockingReach.UNKNOWN, BlockingReach.of(new Unanalyzed(), 1));
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.hellblazer.primeMover.runtime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.builders.SimulationBuilder;
+import com.hellblazer.primeMover.controllers.SimulationController;
+
+/**
+ * Tests for running event threads on a dedicated carrier
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class DedicatedCarrierTest {
+
+    /**
+     * Entity recording the carrier of each event thread, before and after a
+     * blocking sleep
+     */
+    private static class Sleeper implements EntityReference {
+        final Set<String> carriers = new HashSet<>();
+        int               woken;
+
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            carriers.add(carrier());
+            Kairos.blockingSleep(10);
+            carriers.add(carrier());
+            woken++;
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return "sleeper";
+        }
+
+        private static String carrier() {
+            // VirtualThread[#22]/runnable@Event Carrier Thread [...]
+            var name = Thread.currentThread().toString();
+            return name.substring(name.indexOf('@') + 1);
+        }
+    }
+
+    private final Sleeper sleeper = new Sleeper();
+
+    @AfterEach
+    public void cleanup() {
+        Kairos.setController(null);
+    }
+
+    @Test
+    public void testDedicatedCarrier() throws Exception {
+        try (var controller = (SimulationController) SimulationBuilder.builder()
+                                                                      .name("carrier test")
+                                                                      .dedicatedCarrier(true)
+                                                                      .build()) {
+            assertTrue(controller.isDedicatedCarrier());
+            for (int i = 0; i < 50; i++) {
+                controller.postEvent(i, sleeper, 0);
+            }
+            controller.eventLoop();
+
+            assertEquals(50, sleeper.woken);
+            assertEquals(Set.of("Event Carrier Thread [carrier test]"), sleeper.carriers);
+        }
+    }
+
+    @Test
+    public void testRevertToSharedCarriers() throws Exception {
+        var controller = new SimulationController();
+        assertFalse(controller.isDedicatedCarrier());
+        controller.setDedicatedCarrier(true);
+        controller.setDedicatedCarrier(false);
+        assertFalse(controller.isDedicatedCarrier());
+        controller.postEvent(1, sleeper, 0);
+        controller.eventLoop();
+
+        assertEquals(1, sleeper.woken);
+        assertTrue(sleeper.carriers.stream().allMatch(c -> c.startsWith("ForkJoinPool")), sleeper.carriers.toString());
+    }
+}
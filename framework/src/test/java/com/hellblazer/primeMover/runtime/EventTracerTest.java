@@ -0,0 +1,221 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.controllers.SimulationController;
+
+/**
+ * Tests for the binary event tracer and its replay
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class EventTracerTest {
+
+    /**
+     * A source of random, frequently simultaneous, arrivals at a server
+     */
+    private static class Source implements EntityReference {
+        final Random random;
+        final Server server;
+
+        Source(Random random, Server server) {
+            this.random = random;
+            this.server = server;
+        }
+
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            final var now = Kairos.currentTime();
+            Kairos.getController().postEvent(now + random.nextInt(3), this, 0);
+            Kairos.getController().postEvent(now + random.nextInt(5), server, 0);
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return "arrive";
+        }
+    }
+
+    /**
+     * A server blocking on a call to itself
+     */
+    private static class Server implements EntityReference {
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            if (event == 0) {
+                Kairos.getController().postContinuingEvent(this, 1);
+            }
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return event == 0 ? "serve" : "complete";
+        }
+    }
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    public void cleanup() {
+        Kairos.setController(null);
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+        var trace = directory.resolve("run");
+        var controller = run(trace, 1, EventTracer.DEFAULT_SEGMENT_SIZE);
+
+        var expected = new ArrayList<String>();
+        try (var replay = EventTrace.open(trace)) {
+            var last = 0L;
+            var calls = 0;
+            var continuations = 0;
+            while (replay.next()) {
+                assertTrue(replay.getTime() >= last);
+                last = replay.getTime();
+                expected.add(replay.toString());
+                if (replay.isCall()) {
+                    calls++;
+                    assertEquals("complete", replay.getSignature());
+                    assertEquals(Server.class.getName(), replay.getEntityType());
+                }
+                if (replay.isContinuation()) {
+                    continuations++;
+                    assertEquals("serve", replay.getSignature());
+                }
+                if (replay.getSignature().equals("arrive")) {
+                    assertEquals(1, replay.getEntity());
+                    assertEquals(0, replay.getOrdinal());
+                }
+            }
+            assertEquals(controller.getTotalEvents(), replay.getPosition());
+            assertTrue(calls > 0);
+            assertEquals(calls, continuations, "every completed call continues its caller");
+        }
+
+        var segmented = directory.resolve("segmented");
+        run(segmented, 1, EventTracer.HEADER + 10 * EventTracer.RECORD);
+        assertTrue(Files.exists(EventTracer.segment(segmented, 2)), "trace must span segments");
+        var replayed = new ArrayList<String>();
+        try (var replay = EventTrace.open(segmented)) {
+            while (replay.next()) {
+                replayed.add(replay.toString());
+            }
+        }
+        assertEquals(expected, replayed);
+    }
+
+    @Test
+    public void testDiff() throws Exception {
+        var first = directory.resolve("first");
+        var second = directory.resolve("second");
+        var other = directory.resolve("other");
+        run(first, 1, EventTracer.DEFAULT_SEGMENT_SIZE);
+        run(second, 1, 4096);
+        run(other, 2, EventTracer.DEFAULT_SEGMENT_SIZE);
+
+        var out = new ByteArrayOutputStream();
+        assertEquals(-1, EventTrace.diff(first, second, new PrintStream(out, true)));
+        assertTrue(out.toString().startsWith("identical"), out.toString());
+
+        out.reset();
+        var divergence = EventTrace.diff(first, other, new PrintStream(out, true));
+        assertTrue(divergence > 0);
+        var report = out.toString();
+        assertTrue(report.startsWith("traces diverge at event " + divergence), report);
+        assertTrue(report.contains("- ") && report.contains("+ "), report);
+
+        var firstEvents = events(first);
+        var truncated = directory.resolve("truncated");
+        var controller = new SimulationController();
+        try (var tracer = new EventTracer(truncated)) {
+            controller.setEventTracer(tracer);
+            start(controller, 1);
+            controller.setEndTime(250);
+            controller.eventLoop();
+        }
+        var shorter = events(truncated);
+        assertEquals(firstEvents.subList(0, shorter.size()), shorter, "a prefix of the same run traces the same");
+        out.reset();
+        assertEquals(shorter.size() + 1, EventTrace.diff(truncated, first, new PrintStream(out, true)));
+        assertTrue(out.toString().contains("- <end of trace>"), out.toString());
+    }
+
+    @Test
+    public void testRefusals() throws Exception {
+        var trace = directory.resolve("run");
+        run(trace, 1, EventTracer.DEFAULT_SEGMENT_SIZE);
+        assertThrows(IOException.class, () -> new EventTracer(trace));
+        assertThrows(IOException.class, () -> EventTrace.open(directory.resolve("missing")));
+        assertThrows(IllegalArgumentException.class, () -> new EventTracer(directory.resolve("small"), 8));
+
+        var garbage = directory.resolve("garbage");
+        Files.createDirectories(garbage);
+        Files.writeString(EventTracer.segment(garbage, 0), "not a trace segment");
+        assertThrows(IOException.class, () -> EventTrace.open(garbage));
+    }
+
+    private List<String> events(Path trace) throws IOException {
+        var events = new ArrayList<String>();
+        try (var replay = EventTrace.open(trace)) {
+            while (replay.next()) {
+                events.add(replay.toString());
+            }
+        }
+        return events;
+    }
+
+    private SimulationController run(Path trace, long seed, int segmentSize) throws Exception {
+        var controller = new SimulationController();
+        try (var tracer = new EventTracer(trace, segmentSize)) {
+            controller.setEventTracer(tracer);
+            start(controller, seed);
+            controller.setEndTime(500);
+            controller.eventLoop();
+            assertEquals(controller.getTotalEvents(), tracer.getEvents());
+        }
+        return controller;
+    }
+
+    private void start(SimulationController controller, long seed) {
+        var source = new Source(new Random(seed), new Server());
+        Kairos.setController(controller);
+        controller.postEvent(0, source, 0);
+    }
+}
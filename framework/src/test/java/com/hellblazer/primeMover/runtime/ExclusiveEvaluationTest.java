@@ -0,0 +1,155 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.hellblazer.primeMover.runtime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.api.SimulationException;
+import com.hellblazer.primeMover.controllers.RealTimeController;
+import com.hellblazer.primeMover.controllers.SimulationController;
+import com.hellblazer.primeMover.controllers.SteppingController;
+
+/**
+ * Tests for the evaluation handoff, with and without exclusive evaluation
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class ExclusiveEvaluationTest {
+
+    /**
+     * Entity exercising each outcome of an evaluation
+     */
+    private static class Exerciser implements EntityReference {
+        static final int CALL   = 0;
+        static final int END    = 4;
+        static final int FAIL   = 3;
+        static final int SLEEP  = 1;
+        static final int SQUARE = 2;
+
+        final List<String> log = new ArrayList<>();
+
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            switch (event) {
+            case CALL -> {
+                var i = (Integer) args[0];
+                Kairos.blockingSleep(10);
+                var squared = Framework.getController().postContinuingEvent(this, SQUARE, i);
+                log.add(i + "^2=" + squared + "@" + Kairos.currentTime());
+            }
+            case SLEEP -> {
+                Kairos.blockingSleep(5);
+                log.add("slept@" + Kairos.currentTime());
+            }
+            case SQUARE -> {
+                var i = (Integer) args[0];
+                return i * i;
+            }
+            case FAIL -> throw new IllegalStateException("failed");
+            case END -> throw new SimulationEnd();
+            default -> throw new IllegalArgumentException("Unknown event: " + event);
+            }
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return "exerciser" + event;
+        }
+    }
+
+    private final Exerciser exerciser = new Exerciser();
+
+    @AfterEach
+    public void cleanup() {
+        Kairos.setController(null);
+    }
+
+    @Test
+    public void testSingleThreadedControllersAreExclusive() {
+        assertTrue(new SimulationController().isExclusiveEvaluation());
+        assertTrue(new SteppingController().isExclusiveEvaluation());
+        assertFalse(new RealTimeController("test").isExclusiveEvaluation());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = { true, false })
+    public void testBlockingAndResults(boolean exclusive) throws Exception {
+        var controller = new SimulationController();
+        controller.setExclusiveEvaluation(exclusive);
+        for (int i = 0; i < 100; i++) {
+            controller.postEvent(i, exerciser, Exerciser.CALL, i);
+        }
+        controller.postEvent(3, exerciser, Exerciser.SLEEP);
+        controller.eventLoop();
+
+        assertEquals(101, exerciser.log.size());
+        assertTrue(exerciser.log.contains("slept@8"));
+        for (int i = 0; i < 100; i++) {
+            assertTrue(exerciser.log.contains(i + "^2=" + (i * i) + "@" + (i + 10)));
+        }
+        assertEquals(109, controller.getCurrentTime());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = { true, false })
+    public void testFailure(boolean exclusive) throws Exception {
+        var controller = new SimulationController();
+        controller.setExclusiveEvaluation(exclusive);
+        controller.postEvent(1, exerciser, Exerciser.FAIL);
+        var e = assertThrows(SimulationException.class, controller::eventLoop);
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertNull(controller.getCurrentEvent());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = { true, false })
+    public void testSimulationEnd(boolean exclusive) throws Exception {
+        var controller = new SimulationController();
+        controller.setExclusiveEvaluation(exclusive);
+        controller.postEvent(1, exerciser, Exerciser.SLEEP);
+        controller.postEvent(2, exerciser, Exerciser.END);
+        controller.postEvent(20, exerciser, Exerciser.SLEEP);
+        assertThrows(SimulationEnd.class, controller::eventLoop);
+
+        assertEquals(2, controller.getCurrentTime());
+        assertTrue(exerciser.log.isEmpty(), "sleeper should not have resumed");
+    }
+
+    @Test
+    public void testStepping() throws Exception {
+        var controller = new SteppingController();
+        controller.postEvent(0, exerciser, Exerciser.CALL, 7);
+        var steps = 0;
+        while (controller.stepOne()) {
+            steps++;
+        }
+        assertEquals(List.of("7^2=49@10"), exerciser.log);
+        assertTrue(steps >= 4, "expected each blocking and continuation event to step separately");
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.controllers.SimulationController;
+
+/**
+ * Tests for the binding of controllers to threads
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class FrameworkTest {
+
+    @AfterEach
+    public void cleanup() {
+        Framework.setController(null);
+    }
+
+    @Test
+    public void testBinding() {
+        Framework.setController(null);
+        assertNull(Framework.queryController());
+        assertFalse(Framework.simulationIsRunning());
+        assertThrows(IllegalStateException.class, () -> Framework.getController());
+
+        var controller = new SimulationController();
+        Framework.setController(controller);
+        assertSame(controller, Framework.getController());
+        assertSame(controller, Kairos.getController());
+        assertTrue(Framework.simulationIsRunning());
+
+        var other = new SimulationController();
+        Framework.setController(other);
+        assertSame(other, Framework.getController());
+        Framework.setController(null);
+        assertNull(Framework.queryController());
+    }
+
+    @Test
+    public void testCloseUnbinds() throws Exception {
+        var controller = new SimulationController();
+        var other = new SimulationController();
+        Framework.setController(controller);
+        other.close();
+        assertSame(controller, Framework.queryController(), "closing another controller leaves the binding");
+        controller.close();
+        assertNull(Framework.queryController());
+    }
+
+    @Test
+    public void testEvaluationBinding() throws Exception {
+        for (var inline : new boolean[] { false, true }) {
+            var controller = new SimulationController();
+            controller.setInlineEvents(inline);
+            var seen = new ArrayList<Object>();
+            var rebound = new SimulationController();
+            var entity = new EntityReference() {
+                @Override
+                public Object __invoke(int event, Object... arguments) throws Throwable {
+                    seen.add(Framework.isEvaluating());
+                    seen.add(Framework.getController());
+                    Framework.setController(rebound);
+                    seen.add(Kairos.getController());
+                    return null;
+                }
+
+                @Override
+                public String __signatureFor(int event) {
+                    return "bound";
+                }
+            };
+            controller.postEvent(0, entity, 0);
+            controller.postEvent(1, entity, 0);
+            controller.eventLoop();
+            assertEquals(List.of(true, controller, rebound, true, controller, rebound), seen,
+                         "each evaluation is bound to its controller, rebinding it alone: inline " + inline);
+            assertFalse(Framework.isEvaluating());
+            controller.close();
+        }
+    }
+
+    @Test
+    public void testThreads() throws Exception {
+        var controllers = new Devi[] { new SimulationController(), new SimulationController(),
+                                       new SimulationController(), new SimulationController() };
+        var mine = new SimulationController();
+        Framework.setController(mine);
+        var barrier = new CyclicBarrier(controllers.length);
+        var executor = Executors.newFixedThreadPool(controllers.length);
+        try {
+            var results = new ArrayList<Future<Integer>>();
+            for (var controller : controllers) {
+                results.add(executor.submit(() -> {
+                    assertNull(Framework.queryController(), "a new thread has no controller");
+                    Framework.setController(controller);
+                    barrier.await(10, TimeUnit.SECONDS);
+                    var mismatches = 0;
+                    for (int i = 0; i < 100_000; i++) {
+                        if (Framework.getController() != controller) {
+                            mismatches++;
+                        }
+                    }
+                    Framework.setController(null);
+                    return mismatches;
+                }));
+            }
+            for (var result : results) {
+                assertEquals(0, result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertSame(mine, Framework.getController(), "other threads must not disturb this thread's binding");
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.api.SimulationException;
+import com.hellblazer.primeMover.builders.SimulationBuilder;
+import com.hellblazer.primeMover.controllers.SimulationController;
+
+/**
+ * Tests for the inline evaluation of events that cannot park
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class InlineEvaluationTest {
+
+    /**
+     * Entity recording the thread each event is evaluated on. Event 0 never
+     * parks; event 1 may; event 2 claims it never parks, but blocking sleeps
+     */
+    private static class Recorder implements EntityReference {
+        static final int INLINE  = 0;
+        static final int LIAR    = 2;
+        static final int PARKING = 1;
+
+        final List<Thread> threads = new ArrayList<>();
+
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            threads.add(Thread.currentThread());
+            switch (event) {
+            case INLINE -> {
+                return "inline@" + Kairos.currentTime();
+            }
+            case PARKING -> Kairos.blockingSleep(10);
+            case LIAR -> Kairos.blockingSleep(10);
+            default -> throw new IllegalArgumentException("Unknown event: " + event);
+            }
+            return null;
+        }
+
+        @Override
+        public boolean __mayBlock(int event) {
+            return event == PARKING;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return "recorder" + event;
+        }
+    }
+
+    /**
+     * Entity that may park, taking the result of the inline event
+     */
+    private static class Caller implements EntityReference {
+        final Recorder     recorder;
+        final List<Object> results = new ArrayList<>();
+
+        Caller(Recorder recorder) {
+            this.recorder = recorder;
+        }
+
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            results.add(Framework.getController().postContinuingEvent(recorder, Recorder.INLINE));
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return "caller";
+        }
+    }
+
+    private final Recorder recorder = new Recorder();
+
+    @AfterEach
+    public void cleanup() {
+        Kairos.setController(null);
+    }
+
+    @Test
+    public void testDisabledByDefault() throws Exception {
+        var controller = new SimulationController();
+        assertFalse(controller.isInlineEvents());
+        controller.postEvent(1, recorder, Recorder.INLINE);
+        controller.eventLoop();
+        assertTrue(recorder.threads.get(0).isVirtual());
+    }
+
+    @Test
+    public void testInlineEvaluation() throws Exception {
+        var controller = (SimulationController) SimulationBuilder.builder().inlineEvents(true).build();
+        assertTrue(controller.isInlineEvents());
+        controller.postEvent(1, recorder, Recorder.INLINE);
+        controller.postEvent(2, recorder, Recorder.PARKING);
+        controller.postEvent(3, recorder, Recorder.INLINE);
+        controller.eventLoop();
+
+        assertEquals(3, recorder.threads.size());
+        assertSame(Thread.currentThread(), recorder.threads.get(0), "non-blocking event should run inline");
+        assertTrue(recorder.threads.get(1).isVirtual(), "event that may park needs its own thread");
+        assertSame(Thread.currentThread(), recorder.threads.get(2), "non-blocking event should run inline");
+        assertEquals(12, controller.getCurrentTime());
+    }
+
+    @Test
+    public void testInlineResultContinuesCaller() throws Exception {
+        var controller = new SimulationController();
+        controller.setInlineEvents(true);
+        var caller = new Caller(recorder);
+        controller.postEvent(5, caller, 0);
+        controller.eventLoop();
+
+        assertEquals(List.of("inline@5"), caller.results);
+        assertSame(Thread.currentThread(), recorder.threads.get(0));
+    }
+
+    @Test
+    public void testInlineEventCannotBlock() throws Exception {
+        var controller = new SimulationController();
+        controller.setInlineEvents(true);
+        controller.postEvent(1, recorder, Recorder.LIAR);
+        var e = assertThrows(SimulationException.class, controller::eventLoop);
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    @Test
+    public void testChannelEventsInline() throws Exception {
+        var controller = new SimulationController();
+        controller.setInlineEvents(true);
+        var channel = new SynchronousQueueImpl.entity<String>(controller);
+        var received = new ArrayList<String>();
+        EntityReference taker = new EntityReference() {
+            @Override
+            public Object __invoke(int event, Object... args) throws Throwable {
+                received.add(channel.take() + "@" + Kairos.currentTime());
+                return null;
+            }
+
+            @Override
+            public String __signatureFor(int event) {
+                return "taker";
+            }
+        };
+        EntityReference putter = new EntityReference() {
+            @Override
+            public Object __invoke(int event, Object... args) throws Throwable {
+                channel.put("hello");
+                return null;
+            }
+
+            @Override
+            public String __signatureFor(int event) {
+                return "putter";
+            }
+        };
+        controller.postEvent(1, taker, 0);
+        controller.postEvent(7, putter, 0);
+        controller.eventLoop();
+
+        assertEquals(List.of("hello@7"), received);
+    }
+}
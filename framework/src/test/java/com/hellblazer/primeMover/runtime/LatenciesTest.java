@@ -0,0 +1,142 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.controllers.SimulationController;
+
+/**
+ * Tests for the sampled latency histograms of event evaluation
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class LatenciesTest {
+
+    /**
+     * An entity whose slow event spins for longer than its fast one
+     */
+    private static class Worker implements EntityReference {
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            final var remaining = (Integer) args[0];
+            if (event == 1) {
+                final var until = System.nanoTime() + 200_000;
+                while (System.nanoTime() < until) {
+                    Thread.onSpinWait();
+                }
+            }
+            if (remaining > 0) {
+                Kairos.getController().postEvent(Kairos.currentTime() + 1, this, remaining % 2, remaining - 1);
+            }
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return event == 0 ? "fast" : "slow";
+        }
+    }
+
+    @AfterEach
+    public void cleanup() {
+        Kairos.setController(null);
+    }
+
+    @Test
+    public void testHistogram() {
+        var histogram = new LatencyHistogram();
+        assertEquals(0, histogram.valueAt(0.5));
+        for (long v = 1; v <= 1000; v++) {
+            histogram.record(v * 1000);
+        }
+        assertEquals(1000, histogram.getSamples());
+        assertEquals(500_500_000L, histogram.getTotal());
+        assertEquals(1_000_000, histogram.getMax());
+        assertWithin(500_000, histogram.valueAt(0.5));
+        assertWithin(990_000, histogram.valueAt(0.99));
+        assertWithin(999_000, histogram.valueAt(0.999));
+        assertEquals(1_000_000, histogram.valueAt(1.0));
+
+        for (long v : new long[] { 0, 1, 15, 16, 17, 31, 32, 33, 1000, 123_456_789, Long.MAX_VALUE }) {
+            final var bucket = LatencyHistogram.bucketOf(v);
+            final var highest = LatencyHistogram.highestOf(bucket);
+            assertTrue(highest >= v, v + " -> " + highest);
+            assertEquals(bucket, LatencyHistogram.bucketOf(highest), "" + v);
+            assertTrue(highest - v <= v / LatencyHistogram.SUB_BUCKETS, v + " -> " + highest);
+        }
+
+        var other = new LatencyHistogram();
+        other.record(5_000_000);
+        other.add(histogram);
+        assertEquals(1001, other.getSamples());
+        assertEquals(5_000_000, other.getMax());
+        other.clear();
+        assertEquals(0, other.getSamples());
+        assertEquals(0, other.valueAt(0.99));
+    }
+
+    @Test
+    public void testSampling() throws Exception {
+        assertThrows(IllegalArgumentException.class, () -> new Latencies(new EventTypes(), 0));
+
+        var controller = new SimulationController();
+        assertEquals(0, controller.getLatencySampling());
+        controller.setLatencySampling(1);
+        assertEquals(1, controller.getLatencySampling());
+        run(controller, 200);
+        var latencies = controller.getLatencies();
+        assertEquals(100, latencies.get("fast").samples());
+        assertEquals(100, latencies.get("slow").samples());
+        assertTrue(latencies.get("slow").p50() >= 200_000, latencies.toString());
+        assertTrue(latencies.get("slow").p50() > latencies.get("fast").p50(), latencies.toString());
+        assertTrue(latencies.get("slow").totalTime() >= 100 * 200_000L, latencies.toString());
+        assertEquals(latencies, controller.report().latencies());
+        assertTrue(controller.report().toText().contains("Event Latencies"));
+
+        var sampled = new SimulationController();
+        sampled.setLatencySampling(10);
+        run(sampled, 2000);
+        var samples = sampled.getLatencies().values().stream().mapToLong(l -> l.samples()).sum();
+        assertTrue(samples > 100 && samples < 400, "samples: " + samples);
+
+        var untimed = new SimulationController();
+        run(untimed, 10);
+        assertTrue(untimed.getLatencies().isEmpty());
+        assertTrue(untimed.report().latencies().isEmpty());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected && actual - expected <= expected / LatencyHistogram.SUB_BUCKETS,
+                   "expected " + expected + " but was " + actual);
+    }
+
+    private void run(SimulationController controller, int events) throws Exception {
+        Kairos.setController(controller);
+        controller.postEvent(0, new Worker(), 0, events - 1);
+        controller.setEndTime(events + 1);
+        controller.eventLoop();
+        assertEquals(events, controller.getTotalEvents());
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.controllers.SimulationController;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Tests for the flight recorder events of the framework
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class SimulationEventTest {
+
+    /**
+     * A server blocking on a call to itself for each of the remaining requests
+     */
+    private static class Server implements EntityReference {
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            if (event == 0) {
+                final var remaining = (Integer) args[0];
+                Kairos.getController().postContinuingEvent(this, 1);
+                if (remaining > 0) {
+                    Kairos.getController().postEvent(Kairos.currentTime() + 1, this, 0, remaining - 1);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return event == 0 ? "serve" : "complete";
+        }
+    }
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    public void cleanup() {
+        Kairos.setController(null);
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        var counts = record(false);
+        assertTrue(counts.isEmpty(), counts.toString());
+    }
+
+    @Test
+    public void testEvents() throws Exception {
+        var counts = record(true);
+        // 10 serves, each blocking on a completion and continued once it returns
+        assertEquals(30, counts.get("Evaluation"), counts.toString());
+        assertEquals(10, counts.get("Park"), counts.toString());
+        assertEquals(10, counts.get("Resume"), counts.toString());
+        assertEquals(60, counts.get("Queue"), counts.toString());
+    }
+
+    /**
+     * Run the simulation under a recording
+     *
+     * @return the number of recorded events of each event name
+     */
+    private Map<String, Integer> record(boolean enabled) throws Exception {
+        var file = directory.resolve("events.jfr");
+        var counts = new HashMap<String, Integer>();
+        try (var recording = new Recording()) {
+            if (enabled) {
+                recording.enable(EvaluationEvent.class).withoutThreshold();
+                recording.enable(ParkEvent.class).withoutThreshold();
+                recording.enable(ResumeEvent.class);
+                recording.enable(QueueEvent.class);
+            }
+            recording.start();
+            var controller = new SimulationController();
+            Kairos.setController(controller);
+            controller.postEvent(0, new Server(), 0, 9);
+            controller.setEndTime(100);
+            controller.eventLoop();
+            assertEquals(30L, controller.getTotalEvents());
+            recording.stop();
+            recording.dump(file);
+        }
+        for (var event : RecordingFile.readAllEvents(file)) {
+            final var name = event.getEventType().getName();
+            if (!name.startsWith("com.hellblazer.primeMover.")) {
+                continue;
+            }
+            counts.merge(name.substring(name.lastIndexOf('.') + 1), 1, Integer::sum);
+            assertTrue(event.getLong("simulatedTime") >= 0);
+            assertTrue(event.getInt("eventType") >= 0, event.toString());
+            assertEquals(Server.class.getName(), event.<RecordedClass>getValue("entityClass").getName());
+            assertTrue(event.getInt("pendingEvents") >= 0, event.toString());
+        }
+        return counts;
+    }
+}
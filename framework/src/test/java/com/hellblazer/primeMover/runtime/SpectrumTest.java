@@ -0,0 +1,182 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.controllers.SimulationController;
+
+/**
+ * Tests for the event type registry and the spectrum of event types
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class SpectrumTest {
+
+    private static class Counter implements EntityReference {
+        int signatures;
+
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            final var remaining = (Integer) args[0];
+            if (remaining > 0) {
+                Kairos.getController().postEvent(Kairos.currentTime() + 1, this, remaining % 3, remaining - 1);
+            }
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            signatures++;
+            return "count" + event;
+        }
+    }
+
+    private static class Other implements EntityReference {
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return "count0";
+        }
+    }
+
+    public static void tick() {
+    }
+
+    public static void tock() {
+    }
+
+    @AfterEach
+    public void cleanup() {
+        Kairos.setController(null);
+    }
+
+    @Test
+    public void testEventTypes() throws Exception {
+        var types = new EventTypes();
+        var counter = new Counter();
+        var first = types.of(counter, 0);
+        var second = types.of(counter, 5);
+        var computed = counter.signatures;
+        assertNotEquals(first, second);
+        assertEquals(first, types.of(counter, 0));
+        assertEquals(second, types.of(counter, 5));
+        assertEquals(first, types.of(new Counter(), 0));
+        assertEquals(computed, counter.signatures, "signatures must only be computed on registration");
+        assertEquals("count5", types.signatureOf(second));
+        assertEquals(Counter.class, types.entityOf(second));
+        assertEquals(5, types.ordinalOf(second));
+        assertNull(types.methodOf(second));
+        assertEquals(second, types.register(Counter.class, 5, "ignored"));
+        assertTrue(types.size() > Math.max(first, second));
+        assertNotEquals(first, types.of(new Other(), 0));
+
+        var tick = SpectrumTest.class.getMethod("tick");
+        var tock = SpectrumTest.class.getMethod("tock");
+        var tickType = types.of(new StaticEntityReference(tick), 0);
+        assertNotEquals(tickType, types.of(new StaticEntityReference(tock), 0));
+        assertEquals(tickType, types.of(new StaticEntityReference(tick), 0));
+        assertEquals(tick, types.methodOf(tickType));
+        assertEquals(tick.toString(), types.signatureOf(tickType));
+
+        assertThrows(IllegalArgumentException.class, () -> types.signatureOf(-1));
+        assertThrows(IllegalArgumentException.class, () -> types.signatureOf(Integer.MAX_VALUE));
+
+        var others = new EventTypes();
+        assertEquals(0, others.of(new Other(), 0), "registries are independent");
+        assertEquals(1, others.size());
+        assertNotEquals(0, types.size());
+    }
+
+    @Test
+    public void testSpectrum() {
+        var types = new EventTypes();
+        var spectrum = new Spectrum(types);
+        assertTrue(spectrum.isEmpty());
+        assertEquals(Map.of(), spectrum.toMap());
+
+        var counter = new Counter();
+        spectrum.count(counter, 0);
+        spectrum.count(counter, 0);
+        spectrum.count(counter, 1);
+        // distinct types sharing a signature are merged when materialized
+        spectrum.count(new Other(), 0);
+        var type = types.of(counter, 0);
+        assertEquals(2, spectrum.countOf(type));
+        assertEquals(Map.of("count0", 3L, "count1", 1L), spectrum.toMap());
+        assertThrows(UnsupportedOperationException.class, () -> spectrum.toMap().clear());
+
+        var other = new Spectrum(types);
+        other.count(type, Integer.MAX_VALUE * 2L);
+        other.add(spectrum);
+        assertEquals(Integer.MAX_VALUE * 2L + 2, other.countOf(type));
+        assertEquals(2, spectrum.countOf(type));
+
+        var foreign = new Spectrum(new EventTypes());
+        foreign.count(new Other(), 0);
+        foreign.count(counter, 1);
+        other.add(foreign);
+        assertEquals(2, other.countOf(types.of(counter, 1)), "counts of another registry are added by type");
+        assertEquals(2, other.countOf(types.of(new Other(), 0)));
+
+        spectrum.clear();
+        assertTrue(spectrum.isEmpty());
+        assertEquals(0, spectrum.countOf(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void testControllerSpectrum() throws Exception {
+        var controller = new SimulationController();
+        Kairos.setController(controller);
+        controller.postEvent(0, new Counter(), 0, 30);
+        controller.setEndTime(100);
+        controller.eventLoop();
+        assertEquals(31L, controller.getTotalEvents());
+        assertEquals(Map.of("count0", 11L, "count1", 10L, "count2", 10L), controller.getSpectrum());
+        assertEquals(controller.getSpectrum(), controller.report().spectrum());
+
+        var batched = new SimulationController();
+        batched.setBatchEvaluation(true);
+        Kairos.setController(batched);
+        batched.postEvent(0, new Counter(), 0, 30);
+        batched.setEndTime(100);
+        batched.eventLoop();
+        assertEquals(controller.getSpectrum(), batched.getSpectrum());
+
+        var untracked = new SimulationController();
+        untracked.setTrackSpectrum(false);
+        Kairos.setController(untracked);
+        untracked.postEvent(0, new Counter(), 0, 30);
+        untracked.setEndTime(100);
+        untracked.eventLoop();
+        assertEquals(31L, untracked.getTotalEvents());
+        assertTrue(untracked.getSpectrum().isEmpty());
+    }
+}
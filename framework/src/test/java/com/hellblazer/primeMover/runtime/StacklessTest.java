@@ -0,0 +1,236 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ * 
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ * 
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.api.SimulationException;
+import com.hellblazer.primeMover.controllers.SimulationController;
+
+/**
+ * Tests for the events of stackless entities, suspending into frames rather
+ * than parking their threads
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class StacklessTest {
+
+    /**
+     * A hand written state machine of the event
+     *
+     * <pre>
+     * &#64;Blocking
+     * public int visit(int id) {
+     *     Kronos.blockingSleep(5);
+     *     var served = server.serve(id);
+     *     return served;
+     * }
+     * </pre>
+     */
+    private static class Customer implements StacklessEntityReference {
+        final List<String> history;
+        final Server       server;
+
+        Customer(Server server, List<String> history) {
+            this.server = server;
+            this.history = history;
+        }
+
+        @Override
+        public Object __invoke(int event, Object... arguments) throws Throwable {
+            final var frame = new Frame(1, 0);
+            frame.primitives[0] = (Integer) arguments[0];
+            if (history != null) {
+                history.add(Kairos.currentTime() + " arrive " + arguments[0]);
+            }
+            frame.state = 1;
+            return Kairos.blockingSleep(frame, 5);
+        }
+
+        @Override
+        public boolean __mayBlock(int event) {
+            return false;
+        }
+
+        @Override
+        public Object __resume(int event, Frame frame) throws Throwable {
+            final var id = (int) frame.primitives[0];
+            switch (frame.state) {
+            case 1 -> {
+                frame.result();
+                frame.state = 2;
+                return Framework.getController().suspend(frame, server, 0, id);
+            }
+            case 2 -> {
+                final var served = frame.result();
+                if (history != null) {
+                    history.add(Kairos.currentTime() + " served " + id + " " + served);
+                }
+                return served;
+            }
+            default -> throw new IllegalStateException("Unknown state: " + frame.state);
+            }
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return "visit";
+        }
+    }
+
+    /**
+     * An entity parking on a blocking call to a customer
+     */
+    private static class Driver implements EntityReference {
+        final Customer     customer;
+        final List<String> history;
+
+        Driver(Customer customer, List<String> history) {
+            this.customer = customer;
+            this.history = history;
+        }
+
+        @Override
+        public Object __invoke(int event, Object... arguments) throws Throwable {
+            final var result = Kairos.getController().postContinuingEvent(customer, 0, arguments[0]);
+            history.add(Kairos.currentTime() + " drove " + arguments[0] + " " + result);
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return "drive";
+        }
+    }
+
+    /**
+     * A controller intercepting the posting of blocking events
+     */
+    private static class Intercepting extends SimulationController {
+        int intercepted;
+
+        @Override
+        public Object postContinuingEvent(EntityReference entity, int event, Object... arguments) throws Throwable {
+            intercepted++;
+            return super.postContinuingEvent(entity, event, arguments);
+        }
+    }
+
+    private static class Server implements EntityReference {
+        @Override
+        public Object __invoke(int event, Object... arguments) throws Throwable {
+            Kairos.sleep(3);
+            return (Integer) arguments[0] * 2;
+        }
+
+        @Override
+        public boolean __mayBlock(int event) {
+            return false;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return "serve";
+        }
+    }
+
+    @AfterEach
+    public void cleanup() {
+        Kairos.setController(null);
+    }
+
+    @Test
+    public void testSuspension() throws Exception {
+        var expected = run(new SimulationController());
+        assertEquals(List.of("0 arrive 1", "8 served 1 2", "10 arrive 2", "18 served 2 4", "18 drove 2 4"),
+                     expected);
+
+        var inline = new SimulationController();
+        inline.setInlineEvents(true);
+        assertEquals(expected, run(inline));
+
+        var intercepting = new Intercepting();
+        assertEquals(expected, run(intercepting), "intercepting controllers resume in place");
+        assertEquals(5, intercepting.intercepted);
+
+        Kairos.setController(new SimulationController());
+        assertThrows(IllegalStateException.class, () -> Kairos.blockingSleep(new Frame(), 1),
+                     "only the events of stackless entities can suspend");
+    }
+
+    @Test
+    public void testManyWaiting() throws Exception {
+        final var customers = 100_000;
+        var controller = new SimulationController();
+        controller.setInlineEvents(true);
+        Kairos.setController(controller);
+        var customer = new Customer(new Server(), null);
+        for (int i = 0; i < customers; i++) {
+            controller.postEvent(0, customer, 0, i);
+        }
+        controller.setEndTime(100);
+        controller.eventLoop();
+        // arrival, sleep, resumption, service and final resumption of each
+        assertEquals(5L * customers, controller.getTotalEvents());
+        assertEquals(8, controller.getCurrentTime());
+    }
+
+    @Test
+    public void testNotQuiescent(@TempDir Path directory) throws Exception {
+        var controller = new SimulationController();
+        Kairos.setController(controller);
+        controller.postEvent(0, new Customer(new Server(), null), 0, 1);
+        controller.setEndTime(3);
+        controller.eventLoop();
+        // The resumption of the customer from its sleep is pending at 5
+        var e = assertThrows(SimulationException.class,
+                             () -> controller.checkpoint(directory.resolve("snapshot")));
+        assertTrue(e.getMessage().contains("blocking events are pending"), e.getMessage());
+        assertThrows(SimulationException.class, () -> controller.fork(1));
+
+        var resumption = new FrameEvent(0, null, new Customer(new Server(), null), 0, new Frame());
+        assertTrue(resumption.isResumption());
+        assertThrows(NotSerializableException.class,
+                     () -> new ObjectOutputStream(new ByteArrayOutputStream()).writeObject(resumption));
+    }
+
+    private List<String> run(SimulationController controller) throws Exception {
+        var history = new ArrayList<String>();
+        var customer = new Customer(new Server(), history);
+        Kairos.setController(controller);
+        controller.postEvent(0, customer, 0, 1);
+        controller.postEvent(10, new Driver(customer, history), 0, 2);
+        controller.setEndTime(100);
+        controller.eventLoop();
+        return history;
+    }
+}
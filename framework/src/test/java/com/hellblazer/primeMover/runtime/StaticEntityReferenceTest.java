@@ -0,0 +1,137 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ * 
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ * 
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.controllers.SimulationController;
+
+/**
+ * Tests for the events of static methods and runnables
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class StaticEntityReferenceTest {
+
+    /**
+     * A controller intercepting the posting of timed events
+     */
+    private static class Intercepting extends SimulationController {
+        final List<EntityReference> intercepted = new ArrayList<>();
+
+        @Override
+        public void postEvent(long time, EntityReference entity, int event, Object... arguments) {
+            intercepted.add(entity);
+            super.postEvent(time, entity, event, arguments);
+        }
+    }
+
+    static final List<String> calls = new ArrayList<>();
+
+    public static void fail(String message) throws Exception {
+        throw new Exception(message);
+    }
+
+    public static void record(String label, int count) {
+        calls.add(label + ":" + count + "@" + Kairos.currentTime());
+    }
+
+    public static long sum(long a, int b) {
+        return a + b;
+    }
+
+    public static long sum(long a, long b) {
+        return a + b + 1;
+    }
+
+    @AfterEach
+    public void cleanup() {
+        calls.clear();
+        Kairos.setController(null);
+    }
+
+    @Test
+    public void testInvoke() throws Throwable {
+        var sum = StaticEntityReferenceTest.class.getMethod("sum", long.class, int.class);
+        var reference = StaticEntityReference.of(sum);
+        assertSame(reference, StaticEntityReference.of(sum), "references are shared by method");
+        assertSame(sum, reference.getMethod());
+        assertEquals(sum.toString(), reference.__signatureFor(0));
+        assertEquals(5L, reference.__invoke(0, new Object[] { 2L, 3 }));
+        assertThrows(IllegalArgumentException.class, () -> reference.__invoke(0, new Object[] { 2L }));
+        var overload = StaticEntityReference.of(StaticEntityReferenceTest.class.getMethod("sum", long.class,
+                                                                                          long.class));
+        assertNotSame(reference, overload, "overloads have references of their own");
+        assertSame(overload, StaticEntityReference.of(overload.getMethod()));
+        assertEquals(6L, overload.__invoke(0, new Object[] { 2L, 3L }));
+
+        var fail = StaticEntityReference.of(StaticEntityReferenceTest.class.getMethod("fail", String.class));
+        var thrown = assertThrows(Exception.class, () -> fail.__invoke(0, new Object[] { "expected" }));
+        assertEquals("expected", thrown.getMessage(), "the method's exception must be thrown as is");
+
+        var run = new boolean[1];
+        assertNull(StaticEntityReference.RUN.__invoke(0, new Object[] { (Runnable) () -> run[0] = true }));
+        assertTrue(run[0]);
+        assertThrows(SimulationEnd.class,
+                     () -> StaticEntityReference.of(SimulationEnd.END_SIMULATION_METHOD).__invoke(0, null));
+    }
+
+    @Test
+    public void testRunnables() throws Exception {
+        var record = StaticEntityReferenceTest.class.getMethod("record", String.class, int.class);
+        var controller = new SimulationController();
+        Kairos.setController(controller);
+        Kairos.runAt(() -> {
+            record("run", 0);
+            Kairos.run(() -> record("run", 1));
+            Kairos.callStatic(Kairos.currentTime() + 5, record, "static", 2);
+        }, 10);
+        controller.setEndTime(100);
+        controller.eventLoop();
+        assertEquals(List.of("run:0@10", "run:1@10", "static:2@15"), calls);
+        var runs = controller.getSpectrum().get(StaticEntityReference.RUN_METHOD.toString());
+        assertEquals(2L, runs, "runnables are counted as calls of Framework.run");
+        assertEquals(1L, controller.getSpectrum().get(record.toString()));
+
+        calls.clear();
+        var intercepting = new Intercepting();
+        Kairos.setController(intercepting);
+        Kairos.runAt(() -> record("intercepted", 0), 10);
+        intercepting.setEndTime(100);
+        intercepting.eventLoop();
+        assertEquals(List.of("intercepted:0@10"), calls);
+        assertEquals(List.of(StaticEntityReference.RUN), intercepting.intercepted,
+                     "intercepting controllers are posted calls of Framework.run");
+
+        var event = new RunnableEvent(null, 0, null, () -> record("serialized", 0));
+        assertThrows(NotSerializableException.class,
+                     () -> new ObjectOutputStream(new ByteArrayOutputStream()).writeObject(event));
+    }
+}
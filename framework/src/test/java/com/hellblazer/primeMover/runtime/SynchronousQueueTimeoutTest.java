@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.controllers.SimulationController;
+
+/**
+ * Tests for the timed offer and poll of the CSP channel
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class SynchronousQueueTimeoutTest {
+
+    /**
+     * Entity driving the channel, recording "operation:result:time" for each
+     * completed blocking call
+     */
+    private static class Driver implements EntityReference {
+        static final int OFFER = 1;
+        static final int POLL  = 0;
+        static final int PUT   = 2;
+        static final int TAKE  = 3;
+
+        final SynchronousQueueImpl<String> channel;
+        final List<String>                 results;
+
+        Driver(SynchronousQueueImpl<String> channel, List<String> results) {
+            this.channel = channel;
+            this.results = results;
+        }
+
+        @Override
+        public Object __invoke(int event, Object... args) throws Throwable {
+            switch (event) {
+            case POLL -> record("poll", channel.poll((Long) args[0]));
+            case OFFER -> record("offer", channel.offer((String) args[0], (Long) args[1]));
+            case PUT -> {
+                channel.put((String) args[0]);
+                record("put", args[0]);
+            }
+            case TAKE -> record("take", channel.take());
+            default -> throw new IllegalArgumentException("Unknown event: " + event);
+            }
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return "driver" + event;
+        }
+
+        private void record(String operation, Object result) {
+            results.add(operation + ":" + result + ":" + Kairos.currentTime());
+        }
+    }
+
+    private static final String EXPIRE = "<com.hellblazer.primeMover.runtime.SynchronousQueueImpl: void expire(java.lang.Object)>";
+
+    private final SimulationController controller = new SimulationController();
+    private final List<String>         results    = new ArrayList<>();
+    private final Driver               driver     = new Driver(new SynchronousQueueImpl.entity<>(controller),
+                                                               results);
+
+    @AfterEach
+    public void cleanup() {
+        Kairos.setController(null);
+    }
+
+    @Test
+    public void testPollTimesOut() throws Exception {
+        controller.postEvent(10, driver, Driver.POLL, 50L);
+        controller.eventLoop();
+
+        assertEquals(List.of("poll:null:60"), results);
+        assertEquals(1, controller.getSpectrum().get(EXPIRE));
+    }
+
+    @Test
+    public void testPollSatisfiedBeforeTimeout() throws Exception {
+        controller.postEvent(10, driver, Driver.POLL, 50L);
+        controller.postEvent(30, driver, Driver.PUT, "hello");
+        controller.eventLoop();
+
+        assertEquals(List.of("poll:hello:30", "put:hello:30"), results);
+        assertNull(controller.getSpectrum().get(EXPIRE), "the cancelled timeout must not be evaluated");
+        assertEquals(30, controller.getCurrentTime(), "the cancelled timeout must not advance the clock");
+    }
+
+    @Test
+    public void testOfferTimesOut() throws Exception {
+        controller.postEvent(10, driver, Driver.OFFER, "hello", 20L);
+        controller.postEvent(40, driver, Driver.POLL, 0L);
+        controller.eventLoop();
+
+        assertEquals(List.of("offer:false:30", "poll:null:40"), results);
+        assertEquals(1, controller.getSpectrum().get(EXPIRE));
+    }
+
+    @Test
+    public void testOfferSatisfiedBeforeTimeout() throws Exception {
+        controller.postEvent(10, driver, Driver.OFFER, "hello", 20L);
+        controller.postEvent(15, driver, Driver.TAKE);
+        controller.eventLoop();
+
+        assertEquals(List.of("offer:true:15", "take:hello:15"), results);
+        assertNull(controller.getSpectrum().get(EXPIRE), "the cancelled timeout must not be evaluated");
+    }
+
+    @Test
+    public void testImmediateMatchPostsNoTimeout() throws Exception {
+        controller.postEvent(10, driver, Driver.TAKE);
+        controller.postEvent(20, driver, Driver.OFFER, "hello", 100L);
+        controller.postEvent(30, driver, Driver.OFFER, "world", 0L);
+        controller.eventLoop();
+
+        assertEquals(List.of("take:hello:20", "offer:true:20", "offer:false:30"), results);
+        assertNull(controller.getSpectrum().get(EXPIRE));
+    }
+}
@@ -0,0 +1,186 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.hellblazer.primeMover.runtime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.hellblazer.primeMover.api.EntityReference;
+import com.hellblazer.primeMover.controllers.SimulationController;
+
+/**
+ * Tests for events holding their arguments in typed slots
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class TypedEventTest {
+
+    /**
+     * A hand written entity, as generated for an event method
+     * {@code void accumulate(int count, double amount, String label)}
+     */
+    private static class Accumulator implements TypedEntityReference {
+        static final int SHAPE = TypedEvent.shapeOf("(IDLjava/lang/String;)V");
+
+        final List<String> accumulated = new ArrayList<>();
+        int                boxed;
+        int                typed;
+
+        public void accumulate(int count, double amount, String label) {
+            final var controller = Framework.getController();
+            final var event = controller.createTypedEvent(this, 0, SHAPE);
+            event.p0 = count;
+            event.p1 = Double.doubleToRawLongBits(amount);
+            event.r0 = label;
+            controller.postEvent(event);
+        }
+
+        @Override
+        public Object __invoke(int event, Object... arguments) throws Throwable {
+            boxed++;
+            accumulate$event((Integer) arguments[0], (Double) arguments[1], (String) arguments[2]);
+            return null;
+        }
+
+        @Override
+        public Object __invoke(int event, TypedEvent payload) throws Throwable {
+            typed++;
+            accumulate$event((int) payload.p0, Double.longBitsToDouble(payload.p1), (String) payload.r0);
+            return null;
+        }
+
+        @Override
+        public String __signatureFor(int event) {
+            return "<Accumulator: void accumulate(int, double, String)>";
+        }
+
+        protected void accumulate$event(int count, double amount, String label) {
+            accumulated.add(label + ":" + count + ":" + amount);
+            if (count > 0) {
+                accumulate(count - 1, amount * 2, label);
+            }
+        }
+    }
+
+    /**
+     * A controller intercepting the posting of events with arguments
+     */
+    private static class Intercepting extends SimulationController {
+        final List<Object[]> intercepted = new ArrayList<>();
+
+        @Override
+        public void postEvent(EntityReference entity, int event, Object... arguments) {
+            intercepted.add(arguments);
+            super.postEvent(entity, event, arguments);
+        }
+    }
+
+    @AfterEach
+    public void cleanup() {
+        Kairos.setController(null);
+    }
+
+    @Test
+    public void testShapes() {
+        assertEquals(-1, TypedEvent.shapeOf("()V"), "no primitives");
+        assertEquals(-1, TypedEvent.shapeOf("(Ljava/lang/String;[I)V"), "no primitives");
+        assertEquals(-1, TypedEvent.shapeOf("(IIIII)V"), "too many primitives");
+        assertEquals(-1, TypedEvent.shapeOf("(ILjava/lang/Object;[J[[Ljava/lang/String;LFoo;LBar;)V"),
+                     "too many references");
+        assertEquals(-1, TypedEvent.shapeOf("(IJLFoo;DLBar;LBaz;LQux;)V"), "too many parameters");
+        assertTrue(TypedEvent.shapeOf("(ZBCSLjava/lang/Object;[[I)I") > 0);
+        assertThrows(IllegalArgumentException.class, () -> TypedEvent.shapeOf("(V)V"));
+
+        var shape = TypedEvent.shapeOf("(ZCLjava/lang/String;F[ID)V");
+        assertTrue(shape > 0);
+        var event = new SimulationController().createTypedEvent(new Accumulator(), 0, shape);
+        event.p0 = 1;
+        event.p1 = 'x';
+        event.r0 = "label";
+        event.p2 = Float.floatToRawIntBits(-1.5f);
+        event.r1 = new int[] { 7 };
+        event.p3 = Double.doubleToRawLongBits(Math.PI);
+        var arguments = event.getArguments();
+        assertEquals(6, arguments.length);
+        assertEquals(Boolean.TRUE, arguments[0]);
+        assertEquals(Character.valueOf('x'), arguments[1]);
+        assertEquals("label", arguments[2]);
+        assertEquals(Float.valueOf(-1.5f), arguments[3]);
+        assertArrayEquals(new int[] { 7 }, (int[]) arguments[4]);
+        assertEquals(Double.valueOf(Math.PI), arguments[5]);
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        var event = new SimulationController().createTypedEvent(new Accumulator(), 0, Accumulator.SHAPE);
+        event.p0 = 3;
+        event.p1 = Double.doubleToRawLongBits(-0.5);
+        event.r0 = "label";
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new ObjectOutputStream(bytes)) {
+            out.writeObject(event);
+        }
+        try (var in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            var copy = (TypedEvent) in.readObject();
+            assertArrayEquals(new Object[] { 3, -0.5, "label" }, copy.getArguments());
+        }
+    }
+
+    @Test
+    public void testDispatch() throws Exception {
+        var entity = new Accumulator();
+        var controller = new SimulationController();
+        run(controller, entity);
+        assertEquals(6, entity.typed);
+        assertEquals(0, entity.boxed);
+        assertEquals(List.of("a:5:1.0", "a:4:2.0", "a:3:4.0", "a:2:8.0", "a:1:16.0", "a:0:32.0"), entity.accumulated);
+
+        var intercepted = new Accumulator();
+        var intercepting = new Intercepting();
+        run(intercepting, intercepted);
+        assertEquals(entity.accumulated, intercepted.accumulated);
+        assertEquals(6, intercepted.boxed, "intercepting controllers see boxed arguments");
+        assertEquals(0, intercepted.typed);
+        assertEquals(6, intercepting.intercepted.size());
+        assertArrayEquals(new Object[] { 5, 1.0, "a" }, intercepting.intercepted.get(0));
+    }
+
+    private void run(SimulationController controller, Accumulator entity) throws Exception {
+        Kairos.setController(controller);
+        Framework.setController(controller);
+        try {
+            entity.accumulate(5, 1.0, "a");
+        } finally {
+            Framework.setController(null);
+        }
+        controller.setEndTime(10);
+        controller.eventLoop();
+        assertEquals(6, controller.getTotalEvents());
+    }
+}
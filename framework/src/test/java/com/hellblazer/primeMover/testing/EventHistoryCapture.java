@@ -47,9 +47,9 @@ import com.hellblazer.primeMover.controllers.StatisticalController;
  */
 public final class EventHistoryCapture {
 
-    private final Map<String, Integer> spectrum;
+    private final Map<String, Long> spectrum;
 
-    private EventHistoryCapture(Map<String, Integer> spectrum) {
+    private EventHistoryCapture(Map<String, Long> spectrum) {
         this.spectrum = Map.copyOf(spectrum);
     }
 
@@ -69,7 +69,7 @@ public final class EventHistoryCapture {
      * @param spectrum the event spectrum map (signature -> count)
      * @return a new EventHistoryCapture
      */
-    public static EventHistoryCapture fromSpectrum(Map<String, Integer> spectrum) {
+    public static EventHistoryCapture fromSpectrum(Map<String, Long> spectrum) {
         return new EventHistoryCapture(spectrum);
     }
 
@@ -97,8 +97,8 @@ public final class EventHistoryCapture {
      * @param signature the event signature (e.g., "MyEntity.process")
      * @return the count, or 0 if the event was not found
      */
-    public int getEventCount(String signature) {
-        return spectrum.getOrDefault(signature, 0);
+    public long getEventCount(String signature) {
+        return spectrum.getOrDefault(signature, 0L);
     }
 
     /**
@@ -106,8 +106,8 @@ public final class EventHistoryCapture {
      *
      * @return total event count
      */
-    public int getTotalEventCount() {
-        return spectrum.values().stream().mapToInt(Integer::intValue).sum();
+    public long getTotalEventCount() {
+        return spectrum.values().stream().mapToLong(Long::longValue).sum();
     }
 
     /**
@@ -127,7 +127,7 @@ public final class EventHistoryCapture {
      * @param entityPrefix the entity name prefix
      * @return map of matching event signatures to counts
      */
-    public Map<String, Integer> getEventsByEntityPrefix(String entityPrefix) {
+    public Map<String, Long> getEventsByEntityPrefix(String entityPrefix) {
         return spectrum.entrySet().stream()
             .filter(e -> e.getKey().startsWith(entityPrefix + "."))
             .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
@@ -139,10 +139,10 @@ public final class EventHistoryCapture {
      * @param entityPrefix the entity name prefix
      * @return total count of matching events
      */
-    public int getEventCountByEntityPrefix(String entityPrefix) {
+    public long getEventCountByEntityPrefix(String entityPrefix) {
         return spectrum.entrySet().stream()
             .filter(e -> e.getKey().startsWith(entityPrefix + "."))
-            .mapToInt(Map.Entry::getValue)
+            .mapToLong(Map.Entry::getValue)
             .sum();
     }
 
@@ -162,7 +162,7 @@ public final class EventHistoryCapture {
      *
      * @return immutable map of signature to count
      */
-    public Map<String, Integer> exportToMap() {
+    public Map<String, Long> exportToMap() {
         return spectrum;
     }
 
@@ -172,5 +172,5 @@ public final class EventHistoryCapture {
      * @param signature the event signature (e.g., "MyEntity.process")
      * @param count the number of times this event occurred
      */
-    public record EventRecord(String signature, int count) {}
+    public record EventRecord(String signature, long count) {}
 }
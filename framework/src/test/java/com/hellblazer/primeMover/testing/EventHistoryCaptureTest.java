@@ -51,7 +51,7 @@ public class EventHistoryCaptureTest {
         @Test
         @DisplayName("creates from spectrum map")
         void createsFromSpectrum() {
-            var spectrum = Map.of("Entity.method", 5, "Other.call", 3);
+            var spectrum = Map.of("Entity.method", 5L, "Other.call", 3L);
             var capture = EventHistoryCapture.fromSpectrum(spectrum);
             assertNotNull(capture, "Should create capture from spectrum");
         }
@@ -64,7 +64,7 @@ public class EventHistoryCaptureTest {
         @Test
         @DisplayName("getEventSignatures returns all signatures")
         void getEventSignaturesReturnsAll() {
-            var spectrum = Map.of("A.one", 1, "B.two", 2, "C.three", 3);
+            var spectrum = Map.of("A.one", 1L, "B.two", 2L, "C.three", 3L);
             var capture = EventHistoryCapture.fromSpectrum(spectrum);
 
             var signatures = capture.getEventSignatures();
@@ -78,7 +78,7 @@ public class EventHistoryCaptureTest {
         @Test
         @DisplayName("getEventCount returns count for specific signature")
         void getEventCountForSignature() {
-            var spectrum = Map.of("Entity.method", 42);
+            var spectrum = Map.of("Entity.method", 42L);
             var capture = EventHistoryCapture.fromSpectrum(spectrum);
 
             assertEquals(42, capture.getEventCount("Entity.method"));
@@ -88,7 +88,7 @@ public class EventHistoryCaptureTest {
         @Test
         @DisplayName("getTotalEventCount returns sum of all events")
         void getTotalEventCount() {
-            var spectrum = Map.of("A.one", 10, "B.two", 20, "C.three", 30);
+            var spectrum = Map.of("A.one", 10L, "B.two", 20L, "C.three", 30L);
             var capture = EventHistoryCapture.fromSpectrum(spectrum);
 
             assertEquals(60, capture.getTotalEventCount());
@@ -97,7 +97,7 @@ public class EventHistoryCaptureTest {
         @Test
         @DisplayName("hasEvent returns true for existing event")
         void hasEventReturnsTrue() {
-            var spectrum = Map.of("Entity.method", 1);
+            var spectrum = Map.of("Entity.method", 1L);
             var capture = EventHistoryCapture.fromSpectrum(spectrum);
 
             assertTrue(capture.hasEvent("Entity.method"));
@@ -113,9 +113,9 @@ public class EventHistoryCaptureTest {
         @DisplayName("getEventsByEntityPrefix filters by entity name")
         void filtersByEntityPrefix() {
             var spectrum = Map.of(
-                "UserService.create", 5,
-                "UserService.update", 3,
-                "OrderService.process", 10
+                "UserService.create", 5L,
+                "UserService.update", 3L,
+                "OrderService.process", 10L
             );
             var capture = EventHistoryCapture.fromSpectrum(spectrum);
 
@@ -131,9 +131,9 @@ public class EventHistoryCaptureTest {
         @DisplayName("getEventCountByEntityPrefix sums events for entity")
         void sumsEventsByEntity() {
             var spectrum = Map.of(
-                "UserService.create", 5,
-                "UserService.update", 3,
-                "OrderService.process", 10
+                "UserService.create", 5L,
+                "UserService.update", 3L,
+                "OrderService.process", 10L
             );
             var capture = EventHistoryCapture.fromSpectrum(spectrum);
 
@@ -150,7 +150,7 @@ public class EventHistoryCaptureTest {
         @Test
         @DisplayName("exportToList returns list of event records")
         void exportToList() {
-            var spectrum = Map.of("A.one", 2, "B.two", 1);
+            var spectrum = Map.of("A.one", 2L, "B.two", 1L);
             var capture = EventHistoryCapture.fromSpectrum(spectrum);
 
             var list = capture.exportToList();
@@ -165,7 +165,7 @@ public class EventHistoryCaptureTest {
         @Test
         @DisplayName("exportToMap returns the spectrum map")
         void exportToMap() {
-            var spectrum = Map.of("A.one", 1, "B.two", 2);
+            var spectrum = Map.of("A.one", 1L, "B.two", 2L);
             var capture = EventHistoryCapture.fromSpectrum(spectrum);
 
             var map = capture.exportToMap();
@@ -209,7 +209,7 @@ public final class SimulationAssertions {
     public static void assertEventOccurredAtLeast(String eventSignature, int minCount,
                                                    SimulationController controller) {
         var spectrum = controller.getSpectrum();
-        var actual = spectrum.getOrDefault(eventSignature, 0);
+        var actual = spectrum.getOrDefault(eventSignature, 0L);
         if (actual < minCount) {
             throw new AssertionError(String.format(
                 "Event '%s' occurred %d times, expected at least %d",
@@ -328,7 +328,7 @@ public final class SimulationDebugger {
      * @param currentTime the current simulation time
      * @param hasMoreEvents whether there are more events in the queue
      */
-    public record DebuggerState(int eventCount, long currentTime, boolean hasMoreEvents) {}
+    public record DebuggerState(long eventCount, long currentTime, boolean hasMoreEvents) {}
 
     /**
      * Details about a pending event.
@@ -212,7 +212,7 @@ public final class SimulationVerifier {
             "event '" + signature + "' at least " + minCount + " times",
             ctrl -> {
                 var spectrum = ctrl.getSpectrum();
-                var actual = spectrum.getOrDefault(signature, 0);
+                var actual = spectrum.getOrDefault(signature, 0L);
                 if (actual < minCount) {
                     throw new AssertionError(formatError(
                         "Expected event '%s' at least %d times but occurred %d times",
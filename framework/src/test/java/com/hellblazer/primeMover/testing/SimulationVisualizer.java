@@ -296,7 +296,7 @@ public final class SimulationVisualizer {
         sb.append("| Event | Count |\n");
         sb.append("|-------|-------|\n");
         for (var entry : controller.getSpectrum().entrySet().stream()
-                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
                 .toList()) {
             sb.append("| ").append(entry.getKey()).append(" | ").append(entry.getValue()).append(" |\n");
         }
@@ -309,7 +309,7 @@ public final class SimulationVisualizer {
     /**
      * Extracts unique participant names from event signatures.
      */
-    private Set<String> extractParticipants(Map<String, Integer> spectrum) {
+    private Set<String> extractParticipants(Map<String, Long> spectrum) {
         return spectrum.keySet().stream()
             .map(sig -> sig.split("\\.")[0])
             .collect(Collectors.toCollection(TreeSet::new));
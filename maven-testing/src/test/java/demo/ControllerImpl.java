@@ -62,12 +62,12 @@ public class ControllerImpl extends Devi {
     }
 
     @Override
-    public int getTotalEvents() {
+    public long getTotalEvents() {
         return 0; // Test implementation - not tracked
     }
 
     @Override
-    public Map<String, Integer> getSpectrum() {
+    public Map<String, Long> getSpectrum() {
         return new HashMap<>(); // Test implementation - not tracked
     }
 
@@ -43,7 +43,7 @@ public class Demo {
         new UseChannelImpl().test();
         controller.eventLoop();
         System.out.println("Event spectrum:");
-        for (Map.Entry<String, Integer> spectrumEntry : controller.getSpectrum().entrySet()) {
+        for (Map.Entry<String, Long> spectrumEntry : controller.getSpectrum().entrySet()) {
             System.out.println("\t" + spectrumEntry.getValue() + "\t\t : " + spectrumEntry.getKey());
         }
     }
@@ -55,7 +55,7 @@ public class Demo {
         new DriverImpl().runContinuationBenchmark("STRING", 100000, 10);
         controller.eventLoop();
         System.out.println("Event spectrum:");
-        for (Map.Entry<String, Integer> spectrumEntry : controller.getSpectrum().entrySet()) {
+        for (Map.Entry<String, Long> spectrumEntry : controller.getSpectrum().entrySet()) {
             System.out.println("\t" + spectrumEntry.getValue() + "\t\t : " + spectrumEntry.getKey());
         }
     }
@@ -67,7 +67,7 @@ public class Demo {
         new DriverImpl().runEventBenchmark("STRING", 100000, 100);
         controller.eventLoop();
         System.out.println("Event spectrum:");
-        for (Map.Entry<String, Integer> spectrumEntry : controller.getSpectrum().entrySet()) {
+        for (Map.Entry<String, Long> spectrumEntry : controller.getSpectrum().entrySet()) {
             System.out.println("\t" + spectrumEntry.getValue() + "\t\t : " + spectrumEntry.getKey());
         }
     }
@@ -90,7 +90,7 @@ public class Demo {
         new DriverImpl().runThreaded();
         controller.eventLoop();
         System.out.println("Event spectrum:");
-        for (Map.Entry<String, Integer> spectrumEntry : controller.getSpectrum().entrySet()) {
+        for (Map.Entry<String, Long> spectrumEntry : controller.getSpectrum().entrySet()) {
             System.out.println("\t" + spectrumEntry.getValue() + "\t\t : " + spectrumEntry.getKey());
         }
     }
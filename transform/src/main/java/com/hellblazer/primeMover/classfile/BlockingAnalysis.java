@@ -0,0 +1,649 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.hellblazer.primeMover.classfile;
+
+import com.hellblazer.primeMover.annotations.Blocking;
+import com.hellblazer.primeMover.annotations.Entity;
+import com.hellblazer.primeMover.api.Kronos;
+import com.hellblazer.primeMover.runtime.BlockingReach;
+import com.hellblazer.primeMover.runtime.Kairos;
+
+import java.io.IOException;
+import java.lang.classfile.Attributes;
+import java.lang.classfile.ClassFile;
+import java.lang.classfile.ClassModel;
+import java.lang.classfile.CodeElement;
+import java.lang.classfile.MethodModel;
+import java.lang.classfile.Opcode;
+import java.lang.classfile.instruction.InvokeDynamicInstruction;
+import java.lang.classfile.instruction.InvokeInstruction;
+import java.lang.constant.ClassDesc;
+import java.lang.constant.DirectMethodHandleDesc;
+import java.lang.constant.MethodTypeDesc;
+import java.lang.reflect.AccessFlag;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static com.hellblazer.primeMover.runtime.BlockingReach.MAY;
+import static com.hellblazer.primeMover.runtime.BlockingReach.NEVER;
+import static com.hellblazer.primeMover.runtime.BlockingReach.UNKNOWN;
+
+/**
+ * Whole program analysis of the blocking calls reachable from the event methods of entities, over the classes of a
+ * {@link ClassScanner}.
+ * <p>
+ * A method {@link BlockingReach#MAY may block} if it, or any method it calls, makes a blocking call: a call to a
+ * blocking event of an entity, to {@link Kronos#blockingSleep(long)}, or to any method annotated {@link Blocking}, such
+ * as the take and put of channels or the await of signals. Calling a non blocking event only posts the event, and so
+ * cannot block. The code of the platform ({@code java.*}, {@code javax.*}) cannot block, but it may call back into the
+ * scanned classes: its virtual methods, such as {@code Runnable.run} or {@code Iterator.next}, may dispatch to the
+ * scanned classes that implement them, and it may call any method of its receiver and arguments, such as the
+ * {@code Consumer} handed to {@code forEach}, that a scanned class overrides. Lambdas are analyzed where they are
+ * created, as whatever they are handed to may run them. The bodies
+ * of the methods of scanned classes are followed, and virtual calls are resolved to every scanned override; the
+ * methods of classes that were not scanned are only examined for their annotation, and are otherwise
+ * {@link BlockingReach#UNKNOWN unknown}.
+ * <p>
+ * Results are memoized, so one analysis is shared by the generators of all the entities of a transform.
+ *
+ * @author hal.hildebrand
+ */
+public class BlockingAnalysis {
+
+    private static final ClassDesc KRONOS_CLASS          = ClassDesc.of(Kronos.class.getCanonicalName());
+    private static final ClassDesc KAIROS_CLASS          = ClassDesc.of(Kairos.class.getCanonicalName());
+    private static final ClassDesc LAMBDA_METAFACTORY    = ClassDesc.of("java.lang.invoke.LambdaMetafactory");
+    private static final ClassDesc STRING_CONCAT_FACTORY = ClassDesc.of("java.lang.invoke.StringConcatFactory");
+    private static final ClassDesc OBJECT_METHODS        = ClassDesc.of("java.lang.runtime.ObjectMethods");
+    private static final ClassDesc SWITCH_BOOTSTRAPS     = ClassDesc.of("java.lang.runtime.SwitchBootstraps");
+    private static final String    BLOCKING_DESCRIPTOR   = Blocking.class.descriptorString();
+
+    /**
+     * The blocking methods of the simulation library, for when its classes can be neither scanned nor loaded
+     */
+    private static final Map<String, Set<String>> KNOWN_BLOCKING = Map.of(
+        "com.hellblazer.primeMover.desmoj.Bin", Set.of("put", "take"),
+        "com.hellblazer.primeMover.desmoj.Resource", Set.of("acquire", "loan"),
+        "com.hellblazer.primeMover.desmoj.SimCondition", Set.of("await"),
+        "com.hellblazer.primeMover.desmoj.SimSignal", Set.of("await"),
+        "com.hellblazer.primeMover.desmoj.Stock", Set.of("deposit", "withdraw")
+    );
+
+    private static final ClassFile CLASS_FILE = ClassFile.of();
+
+    private final Function<String, ClassMetadata>              classes;
+    private final Collection<ClassMetadata>                    allClasses;
+    private final Function<ClassMetadata, Set<MethodMetadata>> events;
+    private final ClassLoader                                  loader;
+    private final Map<String, Map<String, MethodMetadata>>     eventIndex = new HashMap<>();
+    private final Map<String, Optional<ClassModel>>            loaded     = new HashMap<>();
+    private final Map<String, Set<String>>                     signatures = new HashMap<>();
+    private final Map<String, BlockingReach>                   reached    = new HashMap<>();
+    private final Map<String, Integer>                         active     = new HashMap<>();
+    private final List<String>                                 component  = new ArrayList<>();
+    private final Map<String, List<ClassMetadata>>             closures   = new HashMap<>();
+    private       Map<String, List<ClassMetadata>>             subtypes;
+    private       int                                          lowest     = Integer.MAX_VALUE;
+
+    /**
+     * Creates an analysis over the classes of the scanner.
+     *
+     * @param scanner the scanned classes
+     * @param events  answers the event methods of an entity class
+     */
+    public BlockingAnalysis(ClassScanner scanner, Function<ClassMetadata, Set<MethodMetadata>> events) {
+        this(name -> scanner.getClass(name), scanner.getAllClasses(),
+             cm -> cm.hasAnnotation(Entity.class) ? events.apply(cm) : Set.of(), scanner.getClassLoader());
+    }
+
+    /**
+     * Creates an analysis over the given classes.
+     *
+     * @param classes    answers the class of the name, or null if it was not scanned
+     * @param allClasses all the classes that were scanned
+     * @param events     answers the event methods of a class, empty if it is not an entity
+     * @param loader     the loader of the class files of classes that were not scanned, or null
+     */
+    public BlockingAnalysis(Function<String, ClassMetadata> classes, Collection<ClassMetadata> allClasses,
+                            Function<ClassMetadata, Set<MethodMetadata>> events, ClassLoader loader) {
+        this.classes = Objects.requireNonNull(classes, "classes cannot be null");
+        this.allClasses = Objects.requireNonNull(allClasses, "allClasses cannot be null");
+        this.events = Objects.requireNonNull(events, "events cannot be null");
+        this.loader = loader;
+    }
+
+    /**
+     * Creates an analysis of the single entity class, treating the methods of all other classes but the platform's as
+     * unknown.
+     */
+    static BlockingAnalysis of(ClassMetadata clazz, Set<MethodMetadata> events) {
+        return new BlockingAnalysis(name -> name.equals(clazz.getName()) ? clazz : null, List.of(clazz),
+                                    cm -> cm == clazz ? events : Set.of(), null);
+    }
+
+    /**
+     * Answer the blocking calls reachable from the body of the method.
+     *
+     * @param method the method, usually an event method of an entity
+     * @return the reach of the method's body
+     */
+    public synchronized BlockingReach reachOf(MethodMetadata method) {
+        return body(method);
+    }
+
+    /**
+     * Answer the blocking calls reachable from the call of the instruction.
+     *
+     * @param invoke the call, usually in the body of an event method
+     * @return the reach of the call
+     */
+    public synchronized BlockingReach reachOf(InvokeInstruction invoke) {
+        return call(invoke);
+    }
+
+    /**
+     * Answer the blocking calls reachable from the dynamic call of the instruction.
+     *
+     * @param invokeDynamic the dynamic call, usually in the body of an event method
+     * @return the reach of the call
+     */
+    public synchronized BlockingReach reachOf(InvokeDynamicInstruction invokeDynamic) {
+        return invokeDynamic(invokeDynamic);
+    }
+
+    /**
+     * Answer the blocking event of a scanned entity that the instruction calls directly, which posts the event and
+     * continues the caller with its result.
+     *
+     * @param invoke the call
+     * @return the blocking event, declared by the owner of the call or inherited from a scanned superclass, or null if
+     *         the instruction is not a virtual call of a blocking event
+     */
+    public synchronized MethodMetadata blockingEventOf(InvokeInstruction invoke) {
+        var owner = invoke.owner().asSymbol();
+        if (invoke.opcode() != Opcode.INVOKEVIRTUAL || owner.isArray()) {
+            return null;
+        }
+        var type = classes.apply(nameOf(owner));
+        if (type == null) {
+            return null;
+        }
+        var name = invoke.name().stringValue();
+        var descriptor = invoke.typeSymbol().descriptorString();
+        var event = eventOf(type, name, descriptor);
+        if (event == null) {
+            var method = resolve(type, name, descriptor);
+            if (method != null && method.getDeclaringClass() != type) {
+                event = eventOf(method.getDeclaringClass(), name, descriptor);
+            }
+        }
+        return event != null && EntityGenerator.isBlockingEvent(event) ? event : null;
+    }
+
+    /**
+     * Analyze the body of the method
+     */
+    private BlockingReach body(MethodMetadata method) {
+        return memoize(method.toString(), () -> code(method));
+    }
+
+    private BlockingReach call(InvokeInstruction invoke) {
+        var dispatch = invoke.opcode() == Opcode.INVOKEVIRTUAL || invoke.opcode() == Opcode.INVOKEINTERFACE;
+        return call(invoke.owner().asSymbol(), invoke.name().stringValue(), invoke.typeSymbol().descriptorString(),
+                    dispatch);
+    }
+
+    private BlockingReach call(ClassDesc owner, String name, String descriptor, boolean dispatch) {
+        if (owner.isArray()) {
+            return NEVER;
+        }
+        if (owner.equals(KRONOS_CLASS) || owner.equals(KAIROS_CLASS)) {
+            return name.equals("blockingSleep") ? MAY : NEVER;
+        }
+        var ownerName = nameOf(owner);
+        if (isPlatform(ownerName)) {
+            // The platform's code cannot block, but it may call back into the scanned classes: its virtual methods
+            // may dispatch to a scanned implementation, and it may call the methods of its receiver and arguments
+            var reach = NEVER;
+            if (dispatch && !name.startsWith("<")) {
+                var override = overrides(ownerName, name, descriptor, null);
+                reach = override == null ? NEVER : override;
+                if (reach != MAY) {
+                    reach = reach.join(callbacks(ownerName));
+                }
+            }
+            for (var parameter : MethodTypeDesc.ofDescriptor(descriptor).parameterList()) {
+                while (parameter.isArray()) {
+                    parameter = parameter.componentType();
+                }
+                if (reach != MAY && parameter.isClassOrInterface()) {
+                    reach = reach.join(callbacks(nameOf(parameter)));
+                }
+            }
+            return reach;
+        }
+        var known = KNOWN_BLOCKING.get(ownerName);
+        if (known != null && known.contains(name)) {
+            return MAY;
+        }
+        var type = classes.apply(ownerName);
+        if (type == null) {
+            return unscanned(ownerName, name, descriptor);
+        }
+        var reach = receive(type, name, descriptor);
+        if (dispatch && reach != MAY && isOverridable(type, name, descriptor)) {
+            reach = overrides(ownerName, name, descriptor, reach);
+        }
+        // Abstract, with no scanned implementation
+        return reach == null ? UNKNOWN : reach;
+    }
+
+    /**
+     * Answer the reach of the platform calling back the methods of an instance of the class, through the scanned
+     * subtypes that override them
+     */
+    private BlockingReach callbacks(String className) {
+        var signatures = overridable(className);
+        return signatures.isEmpty() ? NEVER : memoize("callbacks " + className, () -> callbacks(className, signatures));
+    }
+
+    private BlockingReach callbacks(String className, Set<String> signatures) {
+        var reach = NEVER;
+        for (var signature : signatures) {
+            var split = signature.indexOf('(');
+            var override = overrides(className, signature.substring(0, split), signature.substring(split), null);
+            if (override != null) {
+                reach = reach.join(override);
+                if (reach == MAY) {
+                    return MAY;
+                }
+            }
+        }
+        return reach;
+    }
+
+    private BlockingReach code(MethodMetadata method) {
+        var code = method.getMethodModel().code();
+        if (code.isEmpty()) {
+            return UNKNOWN;
+        }
+        var reach = NEVER;
+        for (CodeElement element : code.get()) {
+            if (element instanceof InvokeInstruction invoke) {
+                reach = reach.join(call(invoke));
+            } else if (element instanceof InvokeDynamicInstruction invokeDynamic) {
+                reach = reach.join(invokeDynamic(invokeDynamic));
+            }
+            if (reach == MAY) {
+                return MAY;
+            }
+        }
+        return reach;
+    }
+
+    private boolean declares(ClassMetadata type, String name, String descriptor) {
+        return declared(type, name, descriptor) != null;
+    }
+
+    private static MethodMetadata declared(ClassMetadata type, String name, String descriptor) {
+        for (var method : type.getMethods(name)) {
+            if (method.getDescriptor().equals(descriptor)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Answer the event of the entity class with the name and descriptor
+     *
+     * @return the event method, or null if the class is not an entity or has no such event
+     */
+    private MethodMetadata eventOf(ClassMetadata type, String name, String descriptor) {
+        var index = eventIndex.computeIfAbsent(type.getName(), k -> {
+            var map = new HashMap<String, MethodMetadata>();
+            for (var event : events.apply(type)) {
+                map.put(event.getName() + event.getDescriptor(), event);
+            }
+            return map;
+        });
+        return index.get(name + descriptor);
+    }
+
+    private BlockingReach invokeDynamic(InvokeDynamicInstruction invokeDynamic) {
+        var bootstrap = invokeDynamic.bootstrapMethod().owner();
+        if (bootstrap.equals(STRING_CONCAT_FACTORY) || bootstrap.equals(OBJECT_METHODS) ||
+            bootstrap.equals(SWITCH_BOOTSTRAPS)) {
+            return NEVER;
+        }
+        if (bootstrap.equals(LAMBDA_METAFACTORY)) {
+            // The lambda body may be run by whatever the lambda is handed to
+            for (var argument : invokeDynamic.bootstrapArgs()) {
+                if (argument instanceof DirectMethodHandleDesc implementation) {
+                    var kind = implementation.kind();
+                    var dispatch = kind == DirectMethodHandleDesc.Kind.VIRTUAL ||
+                                   kind == DirectMethodHandleDesc.Kind.INTERFACE_VIRTUAL;
+                    return call(implementation.owner(), implementation.methodName(),
+                                implementation.lookupDescriptor(), dispatch);
+                }
+            }
+        }
+        return UNKNOWN;
+    }
+
+    private static boolean isAnnotatedBlocking(MethodModel method) {
+        return method.findAttribute(Attributes.runtimeVisibleAnnotations())
+                     .map(attribute -> attribute.annotations()
+                                                .stream()
+                                                .anyMatch(annotation -> annotation.className()
+                                                                                  .stringValue()
+                                                                                  .equals(BLOCKING_DESCRIPTOR)))
+                     .orElse(false);
+    }
+
+    private boolean isOverridable(ClassMetadata type, String name, String descriptor) {
+        if (name.startsWith("<") || type.getClassModel().flags().has(AccessFlag.FINAL)) {
+            return false;
+        }
+        var method = resolve(type, name, descriptor);
+        return method == null || !(method.isPrivate() || method.isFinal() || method.isStatic());
+    }
+
+    private static boolean isPlatform(String className) {
+        return className.startsWith("java.") || className.startsWith("javax.");
+    }
+
+    private ClassModel load(String className) {
+        var type = classes.apply(className);
+        if (type != null) {
+            return type.getClassModel();
+        }
+        return loaded.computeIfAbsent(className, k -> {
+            var source = loader != null ? loader : isPlatform(className) ? ClassLoader.getSystemClassLoader() : null;
+            if (source == null) {
+                return Optional.empty();
+            }
+            try (var is = source.getResourceAsStream(className.replace('.', '/') + ".class")) {
+                return is == null ? Optional.empty() : Optional.of(CLASS_FILE.parse(is.readAllBytes()));
+            } catch (IOException | IllegalArgumentException e) {
+                return Optional.empty();
+            }
+        }).orElse(null);
+    }
+
+    private static String nameOf(ClassDesc type) {
+        var packageName = type.packageName();
+        return packageName.isEmpty() ? type.displayName() : packageName + "." + type.displayName();
+    }
+
+    /**
+     * Memoize the analysis of the key. Recursion is resolved optimistically, as in Tarjan's algorithm: a key still being
+     * analyzed adds no reach, and the results depending on that assumption are memoized when the analysis of the root
+     * of their strongly connected component completes, as every key of the component has the reach of its root.
+     */
+    private BlockingReach memoize(String key, Supplier<BlockingReach> analysis) {
+        var known = reached.get(key);
+        if (known != null) {
+            return known;
+        }
+        var depth = active.get(key);
+        if (depth != null) {
+            lowest = Math.min(lowest, depth);
+            return NEVER;
+        }
+        depth = active.size();
+        active.put(key, depth);
+        var outer = lowest;
+        var start = component.size();
+        lowest = Integer.MAX_VALUE;
+        var reach = analysis.get();
+        active.remove(key);
+        if (reach == MAY || lowest >= depth) {
+            reached.put(key, reach);
+            if (lowest >= depth) {
+                while (component.size() > start) {
+                    reached.put(component.removeLast(), reach);
+                }
+            }
+            lowest = outer;
+        } else {
+            component.add(key);
+            lowest = Math.min(outer, lowest);
+        }
+        return reach;
+    }
+
+    /**
+     * Answer the signatures of the methods of the class, and of its supertypes, that a subtype may override
+     *
+     * @return the names and descriptors of the methods, empty if the class is final or has no scanned subtype
+     */
+    private Set<String> overridable(String className) {
+        return signatures.computeIfAbsent(className, k -> {
+            var model = load(className);
+            if (model == null || model.flags().has(AccessFlag.FINAL) || subtypesOf(className).isEmpty()) {
+                return Set.of();
+            }
+            var result = new LinkedHashSet<String>();
+            var pending = new ArrayDeque<ClassModel>();
+            var visited = new HashSet<String>();
+            pending.add(model);
+            while (!pending.isEmpty()) {
+                var current = pending.poll();
+                if (!visited.add(current.thisClass().asInternalName())) {
+                    continue;
+                }
+                for (var method : current.methods()) {
+                    var flags = method.flags();
+                    if (!method.methodName().stringValue().startsWith("<") && !flags.has(AccessFlag.STATIC) &&
+                        !flags.has(AccessFlag.PRIVATE) && !flags.has(AccessFlag.FINAL)) {
+                        result.add(method.methodName().stringValue() + method.methodType().stringValue());
+                    }
+                }
+                var supertypes = new ArrayList<String>();
+                current.superclass().ifPresent(superclass -> supertypes.add(superclass.asInternalName()));
+                current.interfaces().forEach(intf -> supertypes.add(intf.asInternalName()));
+                for (var supertype : supertypes) {
+                    var supermodel = load(supertype.replace('/', '.'));
+                    if (supermodel != null) {
+                        pending.add(supermodel);
+                    }
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Join the reach of the method of the scanned subtypes of the class that implement it
+     *
+     * @param reach the reach of the method of the class itself, or null if it is abstract
+     * @return the joined reach, or null if no subtype implements the abstract method
+     */
+    private BlockingReach overrides(String className, String name, String descriptor, BlockingReach reach) {
+        for (var subtype : subtypesOf(className)) {
+            if (eventOf(subtype, name, descriptor) != null || declares(subtype, name, descriptor)) {
+                var override = receive(subtype, name, descriptor);
+                reach = reach == null ? override : override == null ? reach : reach.join(override);
+                if (reach == MAY) {
+                    return MAY;
+                }
+            }
+        }
+        return reach;
+    }
+
+    /**
+     * Answer the reach of calling the method on an instance of the scanned class
+     *
+     * @return the reach, or null if the method is abstract in the class
+     */
+    private BlockingReach receive(ClassMetadata type, String name, String descriptor) {
+        var event = eventOf(type, name, descriptor);
+        if (event != null) {
+            // Calling an event posts it; only a blocking event continues the caller with its result
+            return EntityGenerator.isBlockingEvent(event) ? MAY : NEVER;
+        }
+        var method = resolve(type, name, descriptor);
+        if (method == null) {
+            return unscanned(type.getName(), name, descriptor);
+        }
+        if (method.hasAnnotation(Blocking.class)) {
+            return MAY;
+        }
+        if (method.isAbstract()) {
+            return null;
+        }
+        var declaring = method.getDeclaringClass();
+        if (declaring != type) {
+            var inherited = eventOf(declaring, name, descriptor);
+            if (inherited != null) {
+                return EntityGenerator.isBlockingEvent(inherited) ? MAY : NEVER;
+            }
+        }
+        return body(method);
+    }
+
+    /**
+     * Resolve the method of the scanned class, through its scanned superclasses and then their scanned interfaces
+     *
+     * @return the method, or null if it is not declared by any scanned supertype
+     */
+    private MethodMetadata resolve(ClassMetadata type, String name, String descriptor) {
+        var interfaces = new ArrayDeque<ClassMetadata>();
+        for (var c = type; c != null; c = c.getSuperclass()) {
+            var method = declared(c, name, descriptor);
+            if (method != null) {
+                return method;
+            }
+            interfaces.addAll(c.getInterfaces());
+        }
+        MethodMetadata found = null;
+        var visited = new HashSet<String>();
+        while (!interfaces.isEmpty()) {
+            var intf = interfaces.poll();
+            if (!visited.add(intf.getName())) {
+                continue;
+            }
+            var method = declared(intf, name, descriptor);
+            if (method != null && (found == null || !method.isAbstract())) {
+                found = method;
+                if (!method.isAbstract()) {
+                    break;
+                }
+            }
+            interfaces.addAll(intf.getInterfaces());
+        }
+        return found;
+    }
+
+    /**
+     * Answer the scanned subtypes of the class, which need not have been scanned itself. Scanned classes are indexed
+     * under their supertypes, including those they inherit through supertypes that were not scanned, such as the
+     * interfaces of the platform.
+     */
+    private List<ClassMetadata> subtypesOf(String className) {
+        if (subtypes == null) {
+            subtypes = new HashMap<>();
+            for (var cm : allClasses) {
+                for (var supertype : supertypesOf(cm)) {
+                    subtypes.computeIfAbsent(supertype, k -> new ArrayList<>()).add(cm);
+                }
+            }
+        }
+        return closures.computeIfAbsent(className, k -> {
+            var result = new ArrayList<ClassMetadata>();
+            var visited = new HashSet<String>();
+            var pending = new ArrayDeque<>(subtypes.getOrDefault(className, List.of()));
+            while (!pending.isEmpty()) {
+                var subtype = pending.poll();
+                if (visited.add(subtype.getName())) {
+                    result.add(subtype);
+                    pending.addAll(subtypes.getOrDefault(subtype.getName(), List.of()));
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Answer the direct supertypes of the scanned class, and the supertypes of those that were not scanned
+     */
+    private Set<String> supertypesOf(ClassMetadata type) {
+        var result = new LinkedHashSet<String>();
+        var pending = new ArrayDeque<String>();
+        if (type.getSuperclassName() != null) {
+            pending.add(type.getSuperclassName());
+        }
+        pending.addAll(type.getInterfaceNames());
+        while (!pending.isEmpty()) {
+            var current = pending.poll();
+            if (!result.add(current) || classes.apply(current) != null) {
+                continue;
+            }
+            var model = load(current);
+            if (model != null) {
+                model.superclass().ifPresent(superclass -> pending.add(superclass.asInternalName().replace('/', '.')));
+                for (var intf : model.interfaces()) {
+                    pending.add(intf.asInternalName().replace('/', '.'));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Answer the reach of calling the method of a class that was not scanned, found through the class files of the
+     * class and its supertypes. A method annotated {@link Blocking} may block; any other is unknown unless it is
+     * declared only by the platform.
+     */
+    private BlockingReach unscanned(String className, String name, String descriptor) {
+        var reach = NEVER;
+        var pending = new ArrayDeque<String>();
+        var visited = new HashSet<String>();
+        pending.add(className);
+        while (!pending.isEmpty()) {
+            var current = pending.poll();
+            if (isPlatform(current) || !visited.add(current)) {
+                continue;
+            }
+            var model = load(current);
+            if (model == null) {
+                reach = UNKNOWN;
+                continue;
+            }
+            for (var method : model.methods()) {
+                if (method.methodName().equalsString(name) && method.methodType().equalsString(descriptor)) {
+                    if (isAnnotatedBlocking(method)) {
+                        return MAY;
+                    }
+                    if (classes.apply(current) == null) {
+                        reach = UNKNOWN;
+                    }
+                }
+            }
+            model.superclass().ifPresent(superclass -> pending.add(superclass.asInternalName().replace('/', '.')));
+            for (var intf : model.interfaces()) {
+                pending.add(intf.asInternalName().replace('/', '.'));
+            }
+        }
+        return reach;
+    }
+}
@@ -21,11 +21,22 @@ package com.hellblazer.primeMover.classfile;
 import com.hellblazer.primeMover.annotations.Blocking;
 import com.hellblazer.primeMover.api.Kronos;
 import com.hellblazer.primeMover.classfile.OpenAddressingSet.OpenSet;
+import com.hellblazer.primeMover.runtime.BlockingReach;
+import com.hellblazer.primeMover.runtime.Frame;
 import com.hellblazer.primeMover.runtime.Kairos;
+import com.hellblazer.primeMover.runtime.TypedEvent;
 
 import java.io.IOException;
 import java.lang.classfile.*;
+import java.lang.classfile.attribute.ConstantValueAttribute;
 import java.lang.classfile.attribute.RuntimeVisibleAnnotationsAttribute;
+import java.lang.classfile.instruction.IncrementInstruction;
+import java.lang.classfile.instruction.InvokeInstruction;
+import java.lang.classfile.instruction.LoadInstruction;
+import java.lang.classfile.instruction.LocalVariable;
+import java.lang.classfile.instruction.LocalVariableType;
+import java.lang.classfile.instruction.ReturnInstruction;
+import java.lang.classfile.instruction.StoreInstruction;
 import java.lang.classfile.instruction.SwitchCase;
 import java.lang.constant.ClassDesc;
 import java.lang.constant.ConstantDescs;
@@ -41,9 +52,13 @@ import java.util.*;
  * <p>
  * Key responsibilities:
  * - Transform method calls into simulation events
- * - Generate EntityReference implementation methods (__invoke, __signatureFor)
+ * - Generate EntityReference implementation methods (__invoke, __signatureFor, __mayBlock)
+ * - Record the blocking reach of each event, as found by a {@link BlockingAnalysis}, in a static table
  * - Handle method remapping for event processing
  * - Manage primitive type boxing/unboxing for event parameters
+ * - Post events with primitive parameters as TypedEvents, unboxed, dispatched by a typed __invoke
+ * - In the stackless mode, rewrite the events that make blocking calls into state machines that suspend into a
+ *   {@link Frame} rather than park their thread, as planned by a {@link StateMachine}, resumed by __resume
  *
  * @author hal.hildebrand
  */
@@ -52,10 +67,14 @@ public class EntityGenerator {
     // === Method Names ===
     private static final String INVOKE        = "__invoke";
     private static final String SIGNATURE_FOR = "__signatureFor";
+    private static final String MAY_BLOCK     = "__mayBlock";
+    private static final String RESUME        = "__resume";
 
     // === Templates ===
     private static final String METHOD_REMAP_KEY_TEMPLATE = "%s.%s%s";
     private static final String REMAPPED_TEMPLATE         = "%s$event";
+    private static final String RESUMABLE_TEMPLATE        = "%s$resume";
+    private static final String SUSPEND_TEMPLATE          = "%s$suspend";
 
     // === Method Ordering ===
     private static final Comparator<MethodMetadata> METHOD_ORDER = Comparator.comparing(MethodMetadata::getName)
@@ -118,6 +137,13 @@ public class EntityGenerator {
         "com.hellblazer.primeMover.api.EntityReference");
     private static final ClassDesc FRAMEWORK_CLASS        = ClassDesc.of("com.hellblazer.primeMover.runtime.Framework");
     private static final ClassDesc DEVI_CLASS             = ClassDesc.of("com.hellblazer.primeMover.runtime.Devi");
+    private static final ClassDesc TYPED_EVENT_CLASS      = ClassDesc.of(TypedEvent.class.getCanonicalName());
+    private static final ClassDesc TYPED_ENTITY_REFERENCE_CLASS = ClassDesc.of(
+        "com.hellblazer.primeMover.runtime.TypedEntityReference");
+    private static final ClassDesc FRAME_CLASS            = ClassDesc.of(Frame.class.getCanonicalName());
+    private static final ClassDesc KAIROS_CLASS           = ClassDesc.of(Kairos.class.getCanonicalName());
+    private static final ClassDesc STACKLESS_ENTITY_REFERENCE_CLASS = ClassDesc.of(
+        "com.hellblazer.primeMover.runtime.StacklessEntityReference");
     private static final ClassDesc TRANSFORMED_CLASS      = ClassDesc.of(
         "com.hellblazer.primeMover.annotations.Transformed");
 
@@ -141,12 +167,20 @@ public class EntityGenerator {
     private static final MethodTypeDesc MTD_SHORT_VALUE   = MethodTypeDesc.of(CD_short);
     private static final MethodTypeDesc MTD_CHAR_VALUE    = MethodTypeDesc.of(CD_char);
 
+    // === Raw Bits Method Type Descriptors (typed event slots) ===
+    private static final MethodTypeDesc MTD_FLOAT_TO_RAW_INT_BITS   = MethodTypeDesc.of(CD_int, CD_float);
+    private static final MethodTypeDesc MTD_INT_BITS_TO_FLOAT       = MethodTypeDesc.of(CD_float, CD_int);
+    private static final MethodTypeDesc MTD_DOUBLE_TO_RAW_LONG_BITS = MethodTypeDesc.of(CD_long, CD_double);
+    private static final MethodTypeDesc MTD_LONG_BITS_TO_DOUBLE     = MethodTypeDesc.of(CD_double, CD_long);
+
     // === Method Type Descriptors ===
     private static final MethodTypeDesc INVOKE_METHOD_TYPE                = MethodTypeDesc.of(OBJECT_CLASS,
                                                                                               ConstantDescs.CD_int,
                                                                                               OBJECT_ARRAY_CLASS);
     private static final MethodTypeDesc SIGNATURE_FOR_METHOD_TYPE         = MethodTypeDesc.of(STRING_CLASS,
                                                                                               ConstantDescs.CD_int);
+    private static final MethodTypeDesc MAY_BLOCK_METHOD_TYPE             = MethodTypeDesc.of(ConstantDescs.CD_boolean,
+                                                                                              ConstantDescs.CD_int);
     private static final MethodTypeDesc GET_CONTROLLER_METHOD_TYPE        = MethodTypeDesc.of(DEVI_CLASS);
     private static final MethodTypeDesc POST_EVENT_METHOD_TYPE            = MethodTypeDesc.of(ConstantDescs.CD_void,
                                                                                               ENTITY_REFERENCE_CLASS,
@@ -156,8 +190,30 @@ public class EntityGenerator {
                                                                                               ENTITY_REFERENCE_CLASS,
                                                                                               ConstantDescs.CD_int,
                                                                                               OBJECT_ARRAY_CLASS);
+    private static final MethodTypeDesc TYPED_INVOKE_METHOD_TYPE          = MethodTypeDesc.of(OBJECT_CLASS,
+                                                                                              ConstantDescs.CD_int,
+                                                                                              TYPED_EVENT_CLASS);
+    private static final MethodTypeDesc CREATE_TYPED_EVENT_METHOD_TYPE    = MethodTypeDesc.of(TYPED_EVENT_CLASS,
+                                                                                              ENTITY_REFERENCE_CLASS,
+                                                                                              ConstantDescs.CD_int,
+                                                                                              ConstantDescs.CD_int);
+    private static final MethodTypeDesc POST_TYPED_EVENT_METHOD_TYPE      = MethodTypeDesc.of(ConstantDescs.CD_void,
+                                                                                              TYPED_EVENT_CLASS);
+    private static final MethodTypeDesc POST_CONTINUING_TYPED_EVENT_METHOD_TYPE = MethodTypeDesc.of(OBJECT_CLASS,
+                                                                                                    TYPED_EVENT_CLASS);
 
     // === Boxing/Unboxing Lookup Tables ===
+    private static final MethodTypeDesc RESUME_METHOD_TYPE     = MethodTypeDesc.of(OBJECT_CLASS, CD_int,
+                                                                                   FRAME_CLASS);
+    private static final MethodTypeDesc SUSPEND_METHOD_TYPE    = MethodTypeDesc.of(OBJECT_CLASS, FRAME_CLASS,
+                                                                                   ENTITY_REFERENCE_CLASS, CD_int,
+                                                                                   OBJECT_ARRAY_CLASS);
+    private static final MethodTypeDesc BLOCKING_SLEEP_METHOD_TYPE = MethodTypeDesc.of(OBJECT_CLASS, FRAME_CLASS,
+                                                                                       CD_long);
+    private static final MethodTypeDesc FRAME_INIT_METHOD_TYPE = MethodTypeDesc.of(ConstantDescs.CD_void, CD_int,
+                                                                                   CD_int);
+    private static final MethodTypeDesc FRAME_RESULT_METHOD_TYPE = MethodTypeDesc.of(OBJECT_CLASS);
+
     private static final Map<Character, ClassDesc> WRAPPER_CLASSES = Map.of(
         'I', CD_INTEGER,
         'J', CD_LONG,
@@ -203,10 +259,12 @@ public class EntityGenerator {
     );
 
     // === Instance State ===
-    private final ClassMetadata clazz;
-    private final String        className;
-    private final ClassDesc     classDesc;
-    private final String        timestamp;
+    private final ClassMetadata    clazz;
+    private final String           className;
+    private final ClassDesc        classDesc;
+    private final String           timestamp;
+    private final BlockingAnalysis blocking;
+    private final boolean          stackless;
 
     // Event Processing State
     private final Set<MethodMetadata>          allEventMethods;
@@ -215,6 +273,8 @@ public class EntityGenerator {
     private final Map<Integer, MethodMetadata> indexToMethod;
     private final Map<MethodMetadata, Integer> methodToIndex;
     private final Map<String, MethodMetadata>  methodIndex;
+    private       BlockingReach[]              eventReach;
+    private       Map<MethodMetadata, StateMachine> stateMachines;
 
     /**
      * Creates a new EntityGenerator for the specified class and events.
@@ -234,10 +294,43 @@ public class EntityGenerator {
      * @param timestamp The timestamp to use in the @Transformed annotation
      */
     public EntityGenerator(ClassMetadata clazz, Set<MethodMetadata> events, String timestamp) {
+        this(clazz, events, timestamp, BlockingAnalysis.of(clazz, events));
+    }
+
+    /**
+     * Creates a new EntityGenerator for the specified class and events, finding the blocking reach of the events
+     * with the given analysis.
+     *
+     * @param clazz     The class to transform
+     * @param events    The set of methods to transform into events
+     * @param timestamp The timestamp to use in the @Transformed annotation
+     * @param blocking  The analysis of the blocking calls reachable from the events
+     */
+    public EntityGenerator(ClassMetadata clazz, Set<MethodMetadata> events, String timestamp,
+                           BlockingAnalysis blocking) {
+        this(clazz, events, timestamp, blocking, false);
+    }
+
+    /**
+     * Creates a new EntityGenerator for the specified class and events, finding the blocking reach of the events
+     * with the given analysis. In the stackless mode, the events that make blocking calls are rewritten into state
+     * machines that suspend into a {@link Frame} rather than park their thread, where the {@link StateMachine} of the
+     * event can be planned.
+     *
+     * @param clazz     The class to transform
+     * @param events    The set of methods to transform into events
+     * @param timestamp The timestamp to use in the @Transformed annotation
+     * @param blocking  The analysis of the blocking calls reachable from the events
+     * @param stackless True to rewrite the events that make blocking calls into state machines
+     */
+    public EntityGenerator(ClassMetadata clazz, Set<MethodMetadata> events, String timestamp,
+                           BlockingAnalysis blocking, boolean stackless) {
         this.clazz = Objects.requireNonNull(clazz, "clazz cannot be null");
         this.className = clazz.getName();
         this.classDesc = ClassDesc.of(className);
         this.timestamp = Objects.requireNonNull(timestamp, "timestamp cannot be null");
+        this.blocking = Objects.requireNonNull(blocking, "blocking cannot be null");
+        this.stackless = stackless;
 
         // Initialize collections
         this.indexToMethod = new HashMap<>();
@@ -251,6 +344,20 @@ public class EntityGenerator {
         initializeEventMappings(events);
     }
 
+    /**
+     * Answer the blocking reach of each event, in the order of the event ordinals
+     *
+     * @return the map of the event methods to their reach
+     */
+    public Map<MethodMetadata, BlockingReach> getBlockingReach() {
+        var reach = eventReach();
+        var result = new LinkedHashMap<MethodMetadata, BlockingReach>();
+        for (int ordinal = 0; ordinal < reach.length; ordinal++) {
+            result.put(indexToMethod.get(ordinal), reach[ordinal]);
+        }
+        return result;
+    }
+
     /**
      * Generates the transformed bytecode for the entity class using ClassFile API.
      *
@@ -354,6 +461,7 @@ public class EntityGenerator {
         copyConstructors(classBuilder, originalClass);
         generateEventMethodPairs(classBuilder, originalClass);
         copyRegularMethods(classBuilder, originalClass);
+        generateBlockingTable(classBuilder);
         generateEntityReferenceMethods(classBuilder);
     }
 
@@ -379,16 +487,22 @@ public class EntityGenerator {
     }
 
     /**
-     * Configure class interfaces (original interfaces + EntityReference)
+     * Configure class interfaces (original interfaces + EntityReference, + TypedEntityReference if any event is typed,
+     * + StacklessEntityReference if any event is rewritten into a state machine)
      */
     private void configureInterfaces(ClassBuilder classBuilder) {
         var originalInterfaces = clazz.getInterfaceNames().stream()
                                       .map(ClassDesc::of)
                                       .toArray(ClassDesc[]::new);
 
-        var allInterfaces = new ClassDesc[originalInterfaces.length + 1];
-        System.arraycopy(originalInterfaces, 0, allInterfaces, 0, originalInterfaces.length);
-        allInterfaces[originalInterfaces.length] = ENTITY_REFERENCE_CLASS;
+        var allInterfaces = new ArrayList<>(Arrays.asList(originalInterfaces));
+        allInterfaces.add(ENTITY_REFERENCE_CLASS);
+        if (getTypedMethodKeys().length != 0) {
+            allInterfaces.add(TYPED_ENTITY_REFERENCE_CLASS);
+        }
+        if (!stateMachines().isEmpty()) {
+            allInterfaces.add(STACKLESS_ENTITY_REFERENCE_CLASS);
+        }
 
         classBuilder.withInterfaceSymbols(allInterfaces);
     }
@@ -414,7 +528,8 @@ public class EntityGenerator {
     }
 
     /**
-     * Generate event wrapper methods and their corresponding $event methods in pairs
+     * Generate event wrapper methods and their corresponding $event methods in pairs, with the $resume state machine
+     * of the events rewritten into one and, in the stackless mode, the $suspend method of each blocking event
      */
     private void generateEventMethodPairs(ClassBuilder classBuilder, ClassModel originalClass) {
         for (MethodModel methodModel : originalClass.methods()) {
@@ -424,6 +539,13 @@ public class EntityGenerator {
                 if (methodMetadata != null && remappedMethods.contains(methodMetadata)) {
                     generateEventWrapperMethod(classBuilder, methodMetadata, methodModel);
                     generateRemappedEventMethod(classBuilder, methodModel, methodName);
+                    var machine = stateMachines().get(methodMetadata);
+                    if (machine != null) {
+                        generateResumableEventMethod(classBuilder, methodMetadata, methodModel, machine);
+                    }
+                    if (stackless && blockingMethods.contains(methodMetadata)) {
+                        generateSuspendMethod(classBuilder, methodMetadata);
+                    }
                 }
             }
         }
@@ -448,6 +570,217 @@ public class EntityGenerator {
                                 });
     }
 
+    /**
+     * Generate the $resume state machine of the event, its body taking the frame after its parameters. A null frame
+     * starts the event afresh; otherwise the locals saved in the frame are restored and the event resumes after the
+     * call it suspended at, with the result of that call.
+     */
+    private void generateResumableEventMethod(ClassBuilder classBuilder, MethodMetadata event,
+                                              MethodModel methodModel, StateMachine machine) {
+        var methodName = RESUMABLE_TEMPLATE.formatted(event.getName());
+        var code = methodModel.code().orElseThrow();
+        var transform = API_REMAPPER.asCodeTransform();
+
+        classBuilder.withMethodBody(methodName, withFrame(methodModel.methodTypeSymbol()), ClassFile.ACC_PROTECTED,
+                                    codeBuilder -> {
+            var frame = machine.frameSlot();
+            var points = machine.points();
+            var body = codeBuilder.newLabel();
+            var unknown = codeBuilder.newLabel();
+            var resumes = new Label[points.size()];
+            java.util.List<SwitchCase> cases = new java.util.ArrayList<>();
+            for (int i = 0; i < resumes.length; i++) {
+                resumes[i] = codeBuilder.newLabel();
+                cases.add(SwitchCase.of(points.get(i).state(), codeBuilder.newLabel()));
+            }
+
+            codeBuilder.aload(frame);
+            codeBuilder.ifnull(body);
+            codeBuilder.aload(frame);
+            codeBuilder.getfield(FRAME_CLASS, "state", CD_int);
+            codeBuilder.tableswitch(1, resumes.length, unknown, cases);
+            for (int i = 0; i < resumes.length; i++) {
+                codeBuilder.labelBinding(cases.get(i).target());
+                for (var saved : points.get(i).saved()) {
+                    restoreLocal(codeBuilder, frame, saved, machine.shift(saved.slot()));
+                }
+                codeBuilder.goto_(resumes[i]);
+            }
+
+            codeBuilder.labelBinding(unknown);
+            codeBuilder.new_(ClassDesc.of("java.lang.IllegalStateException"))
+                       .dup()
+                       .ldc("[EntityGenerator] Unknown state of " + methodName + " in class " + className)
+                       .invokespecial(ClassDesc.of("java.lang.IllegalStateException"), "<init>",
+                                      MethodTypeDesc.of(ConstantDescs.CD_void, STRING_CLASS))
+                       .athrow();
+
+            // The original body, its locals following the frame
+            codeBuilder.labelBinding(body);
+            int index = 0;
+            for (var element : code) {
+                if (element instanceof Instruction) {
+                    var point = machine.pointAt(index++);
+                    if (point != null) {
+                        suspend(codeBuilder, machine, point, (InvokeInstruction) element,
+                                resumes[point.state() - 1]);
+                        continue;
+                    }
+                }
+                switch (element) {
+                    case LoadInstruction load -> codeBuilder.loadLocal(load.typeKind(), machine.shift(load.slot()));
+                    case StoreInstruction store -> codeBuilder.storeLocal(store.typeKind(),
+                                                                          machine.shift(store.slot()));
+                    case IncrementInstruction increment -> codeBuilder.iinc(machine.shift(increment.slot()),
+                                                                            increment.constant());
+                    // The debug entries of the locals would name the slots they no longer occupy
+                    case LocalVariable local -> {
+                    }
+                    case LocalVariableType local -> {
+                    }
+                    case ReturnInstruction ret -> {
+                        if (event.getReturnType().isVoid()) {
+                            codeBuilder.aload(0); // Return 'this' for void methods, as __invoke does
+                        } else {
+                            boxReturnValue(codeBuilder, event.getReturnType().getDescriptor());
+                        }
+                        codeBuilder.areturn();
+                    }
+                    default -> transform.accept(codeBuilder, element);
+                }
+            }
+        });
+    }
+
+    /**
+     * Replace the blocking call of the suspension point with saving the live locals in the frame, allocated on the
+     * first suspension, and returning the result of suspending the event. The event resumes where the call was, so
+     * within the exception handlers of the call, with the result of the call from the frame.
+     */
+    private void suspend(CodeBuilder codeBuilder, StateMachine machine, StateMachine.Point point, InvokeInstruction call,
+                         Label resume) {
+        var frame = machine.frameSlot();
+        var allocated = codeBuilder.newLabel();
+        codeBuilder.aload(frame);
+        codeBuilder.ifnonnull(allocated);
+        codeBuilder.new_(FRAME_CLASS)
+                   .dup()
+                   .ldc(machine.primitives())
+                   .ldc(machine.references())
+                   .invokespecial(FRAME_CLASS, "<init>", FRAME_INIT_METHOD_TYPE)
+                   .astore(frame);
+        codeBuilder.labelBinding(allocated);
+        codeBuilder.aload(frame).ldc(point.state()).putfield(FRAME_CLASS, "state", CD_int);
+        for (var saved : point.saved()) {
+            var slot = machine.shift(saved.slot());
+            if (saved.kind() == TypeKind.REFERENCE) {
+                if (saved.type() != null) {
+                    codeBuilder.aload(frame)
+                               .getfield(FRAME_CLASS, "references", OBJECT_ARRAY_CLASS)
+                               .ldc(saved.index())
+                               .aload(slot)
+                               .aastore();
+                }
+                continue;
+            }
+            codeBuilder.aload(frame)
+                       .getfield(FRAME_CLASS, "primitives", CD_long.arrayType())
+                       .ldc(saved.index())
+                       .loadLocal(saved.kind(), slot);
+            if (saved.kind() == TypeKind.INT) {
+                codeBuilder.i2l();
+            } else if (saved.kind() == TypeKind.FLOAT) {
+                codeBuilder.invokestatic(CD_FLOAT, "floatToRawIntBits", MTD_FLOAT_TO_RAW_INT_BITS).i2l();
+            } else if (saved.kind() == TypeKind.DOUBLE) {
+                codeBuilder.invokestatic(CD_DOUBLE, "doubleToRawLongBits", MTD_DOUBLE_TO_RAW_LONG_BITS);
+            }
+            codeBuilder.lastore();
+        }
+
+        // The receiver and arguments of the call are on the stack
+        codeBuilder.aload(frame);
+        if (point.sleep()) {
+            // Kairos.blockingSleep(frame, duration)
+            codeBuilder.dup_x2().pop();
+            codeBuilder.invokestatic(KAIROS_CLASS, "blockingSleep", BLOCKING_SLEEP_METHOD_TYPE);
+        } else {
+            codeBuilder.invokevirtual(call.owner().asSymbol(), SUSPEND_TEMPLATE.formatted(call.name().stringValue()),
+                                      withFrame(call.typeSymbol()));
+        }
+        codeBuilder.areturn();
+
+        codeBuilder.labelBinding(resume);
+        codeBuilder.aload(frame).invokevirtual(FRAME_CLASS, "result", FRAME_RESULT_METHOD_TYPE);
+        var returnType = call.typeSymbol().returnType();
+        if (returnType.equals(ConstantDescs.CD_void)) {
+            codeBuilder.pop();
+        } else if (returnType.isPrimitive()) {
+            unboxPrimitive(codeBuilder, returnType.descriptorString().charAt(0));
+        } else if (!returnType.equals(OBJECT_CLASS)) {
+            codeBuilder.checkcast(returnType);
+        }
+    }
+
+    /**
+     * Restore the local saved in the frame
+     */
+    private void restoreLocal(CodeBuilder codeBuilder, int frame, StateMachine.Saved saved, int slot) {
+        if (saved.kind() == TypeKind.REFERENCE) {
+            if (saved.type() == null) {
+                codeBuilder.aconst_null();
+            } else {
+                codeBuilder.aload(frame)
+                           .getfield(FRAME_CLASS, "references", OBJECT_ARRAY_CLASS)
+                           .ldc(saved.index())
+                           .aaload();
+                if (!saved.type().equals(OBJECT_CLASS)) {
+                    codeBuilder.checkcast(saved.type());
+                }
+            }
+            codeBuilder.astore(slot);
+            return;
+        }
+        codeBuilder.aload(frame).getfield(FRAME_CLASS, "primitives", CD_long.arrayType()).ldc(saved.index()).laload();
+        if (saved.kind() == TypeKind.INT) {
+            codeBuilder.l2i();
+        } else if (saved.kind() == TypeKind.FLOAT) {
+            codeBuilder.l2i().invokestatic(CD_FLOAT, "intBitsToFloat", MTD_INT_BITS_TO_FLOAT);
+        } else if (saved.kind() == TypeKind.DOUBLE) {
+            codeBuilder.invokestatic(CD_DOUBLE, "longBitsToDouble", MTD_LONG_BITS_TO_DOUBLE);
+        }
+        codeBuilder.storeLocal(saved.kind(), slot);
+    }
+
+    /**
+     * Generate the $suspend method of the blocking event, through which the state machines of stackless events call
+     * it: the event is posted as the blocking call of the suspending event, taking its frame after its parameters
+     */
+    private void generateSuspendMethod(ClassBuilder classBuilder, MethodMetadata event) {
+        var type = MethodTypeDesc.ofDescriptor(event.getDescriptor());
+        classBuilder.withMethodBody(SUSPEND_TEMPLATE.formatted(event.getName()), withFrame(type), ClassFile.ACC_PUBLIC,
+                                    codeBuilder -> {
+            // Framework.getController().suspend(frame, this, methodIdx, arguments)
+            codeBuilder.invokestatic(FRAMEWORK_CLASS, "getController", GET_CONTROLLER_METHOD_TYPE);
+            codeBuilder.aload(codeBuilder.parameterSlot(type.parameterCount()));
+            codeBuilder.aload(0);
+            codeBuilder.ldc(methodToIndex.get(event));
+
+            var paramTypes = event.getParameters();
+            codeBuilder.ldc(paramTypes.size());
+            codeBuilder.anewarray(OBJECT_CLASS);
+            for (int i = 0; i < paramTypes.size(); i++) {
+                codeBuilder.dup();
+                codeBuilder.ldc(i);
+                loadParameter(codeBuilder, codeBuilder.parameterSlot(i), paramTypes.get(i));
+                boxPrimitiveIfNeeded(codeBuilder, paramTypes.get(i));
+                codeBuilder.aastore();
+            }
+
+            codeBuilder.invokevirtual(DEVI_CLASS, "suspend", SUSPEND_METHOD_TYPE);
+            codeBuilder.areturn();
+        });
+    }
+
     /**
      * Copy regular non-event methods from the original class
      */
@@ -464,11 +797,32 @@ public class EntityGenerator {
     }
 
     /**
-     * Generate EntityReference interface methods (__invoke and __signatureFor)
+     * Generate EntityReference interface methods (__invoke, __signatureFor and __mayBlock), the typed __invoke
+     * of TypedEntityReference, and the __resume of StacklessEntityReference
      */
     private void generateEntityReferenceMethods(ClassBuilder classBuilder) {
         generateInvokeMethod(classBuilder);
+        generateTypedInvokeMethod(classBuilder);
         generateSignatureForMethod(classBuilder);
+        generateMayBlockMethod(classBuilder);
+        generateResumeMethod(classBuilder);
+    }
+
+    /**
+     * Generate the static table of the blocking reach of the events, a String constant holding the
+     * {@link BlockingReach#code() code} of the reach of each event at the index of its ordinal
+     */
+    private void generateBlockingTable(ClassBuilder classBuilder) {
+        if (indexToMethod.isEmpty()) {
+            return;
+        }
+        var table = new StringBuilder();
+        for (var reach : eventReach()) {
+            table.append(reach.code());
+        }
+        classBuilder.withField(BlockingReach.TABLE_FIELD, STRING_CLASS, fieldBuilder -> fieldBuilder.withFlags(
+            ClassFile.ACC_PUBLIC | ClassFile.ACC_STATIC | ClassFile.ACC_FINAL | ClassFile.ACC_SYNTHETIC).with(
+            ConstantValueAttribute.of(table.toString())));
     }
 
     /**
@@ -503,6 +857,13 @@ public class EntityGenerator {
                                                 " in class " + className);
                                         }
 
+                                        var shape = TypedEvent.shapeOf(originalMethod.getDescriptor());
+                                        if (shape >= 0) {
+                                            postTypedEvent(codeBuilder, originalMethod, methodIdx, shape);
+                                            returnEventResult(codeBuilder, originalMethod);
+                                            return;
+                                        }
+
                                         // Call Framework.getController()
                                         codeBuilder.invokestatic(FRAMEWORK_CLASS, "getController",
                                                                  GET_CONTROLLER_METHOD_TYPE);
@@ -523,27 +884,24 @@ public class EntityGenerator {
                                         for (int i = 0; i < paramTypes.size(); i++) {
                                             codeBuilder.dup();
                                             codeBuilder.ldc(i);
-                                            loadParameter(codeBuilder, i + 1, paramTypes.get(i));
+                                            loadParameter(codeBuilder, codeBuilder.parameterSlot(i), paramTypes.get(i));
                                             boxPrimitiveIfNeeded(codeBuilder, paramTypes.get(i));
                                             codeBuilder.aastore();
                                         }
 
                                         // Determine which post method to call based on blocking status
                                         if (blockingMethods.contains(originalMethod)) {
+                                            // postContinuingEvent parks the caller until the event is evaluated,
+                                            // answering its boxed result
                                             codeBuilder.invokevirtual(DEVI_CLASS, "postContinuingEvent",
                                                                       POST_CONTINUING_EVENT_METHOD_TYPE);
-                                            // postContinuingEvent returns Object (the continuation result for internal framework use),
-                                            // but this value is not meaningful for the event wrapper caller - the wrapper is scheduling
-                                            // future execution, not executing now. Pop the continuation object and return appropriate
-                                            // default value per the method signature contract.
-                                            codeBuilder.pop();
                                         } else {
                                             codeBuilder.invokevirtual(DEVI_CLASS, "postEvent", POST_EVENT_METHOD_TYPE);
                                             // postEvent returns void, so nothing to pop
                                         }
 
                                         // Return appropriate value
-                                        returnDefaultValue(codeBuilder, originalMethod);
+                                        returnEventResult(codeBuilder, originalMethod);
                                     });
     }
 
@@ -570,6 +928,109 @@ public class EntityGenerator {
             unboxParameter(codeBuilder, paramTypes.get(i));
         }
 
+        invokeEvent(codeBuilder, methodMetadata);
+    }
+
+    /**
+     * Post the event as a TypedEvent, storing each parameter in its slot rather than boxing it into an array
+     */
+    private void postTypedEvent(CodeBuilder codeBuilder, MethodMetadata originalMethod, int methodIdx, int shape) {
+        // Framework.getController(), kept beneath the event for posting it
+        codeBuilder.invokestatic(FRAMEWORK_CLASS, "getController", GET_CONTROLLER_METHOD_TYPE);
+        codeBuilder.dup();
+
+        // controller.createTypedEvent(this, methodIdx, shape)
+        codeBuilder.aload(0);
+        codeBuilder.ldc(methodIdx);
+        codeBuilder.ldc(shape);
+        codeBuilder.invokevirtual(DEVI_CLASS, "createTypedEvent", CREATE_TYPED_EVENT_METHOD_TYPE);
+
+        // Store each parameter in the next slot of its kind
+        var paramTypes = originalMethod.getParameters();
+        int primitives = 0;
+        int references = 0;
+        for (int i = 0; i < paramTypes.size(); i++) {
+            var type = paramTypes.get(i).getType();
+            codeBuilder.dup();
+            if (type.isPrimitive()) {
+                var primitiveType = type.getPrimitiveChar();
+                loadPrimitive(codeBuilder, codeBuilder.parameterSlot(i), primitiveType);
+                switch (primitiveType) {
+                    case 'J' -> {
+                    }
+                    case 'F' -> {
+                        codeBuilder.invokestatic(CD_FLOAT, "floatToRawIntBits", MTD_FLOAT_TO_RAW_INT_BITS);
+                        codeBuilder.i2l();
+                    }
+                    case 'D' -> codeBuilder.invokestatic(CD_DOUBLE, "doubleToRawLongBits",
+                                                         MTD_DOUBLE_TO_RAW_LONG_BITS);
+                    default -> codeBuilder.i2l();
+                }
+                codeBuilder.putfield(TYPED_EVENT_CLASS, "p" + primitives++, CD_long);
+            } else {
+                codeBuilder.aload(codeBuilder.parameterSlot(i));
+                codeBuilder.putfield(TYPED_EVENT_CLASS, "r" + references++, OBJECT_CLASS);
+            }
+        }
+
+        if (blockingMethods.contains(originalMethod)) {
+            // As for the untyped post, answering the boxed result of the event
+            codeBuilder.invokevirtual(DEVI_CLASS, "postContinuingEvent", POST_CONTINUING_TYPED_EVENT_METHOD_TYPE);
+        } else {
+            codeBuilder.invokevirtual(DEVI_CLASS, "postEvent", POST_TYPED_EVENT_METHOD_TYPE);
+        }
+    }
+
+    /**
+     * Generate a single case in the typed __invoke switch statement
+     */
+    private void generateTypedInvokeCase(CodeBuilder codeBuilder, int methodIdx) {
+        MethodMetadata methodMetadata = indexToMethod.get(methodIdx);
+
+        // Load 'this'
+        codeBuilder.aload(0);
+
+        // Load each parameter from its slot of the TypedEvent
+        var paramTypes = methodMetadata.getParameters();
+        int primitives = 0;
+        int references = 0;
+        for (var param : paramTypes) {
+            var type = param.getType();
+            codeBuilder.aload(2);
+            if (type.isPrimitive()) {
+                codeBuilder.getfield(TYPED_EVENT_CLASS, "p" + primitives++, CD_long);
+                switch (type.getPrimitiveChar()) {
+                    case 'J' -> {
+                    }
+                    case 'B' -> codeBuilder.l2i().i2b();
+                    case 'C' -> codeBuilder.l2i().i2c();
+                    case 'S' -> codeBuilder.l2i().i2s();
+                    case 'F' -> codeBuilder.l2i().invokestatic(CD_FLOAT, "intBitsToFloat", MTD_INT_BITS_TO_FLOAT);
+                    case 'D' -> codeBuilder.invokestatic(CD_DOUBLE, "longBitsToDouble", MTD_LONG_BITS_TO_DOUBLE);
+                    default -> codeBuilder.l2i();
+                }
+            } else {
+                codeBuilder.getfield(TYPED_EVENT_CLASS, "r" + references++, OBJECT_CLASS);
+                unboxParameter(codeBuilder, param);
+            }
+        }
+
+        invokeEvent(codeBuilder, methodMetadata);
+    }
+
+    /**
+     * Invoke the event's method with its parameters on the stack, and return its boxed result
+     */
+    private void invokeEvent(CodeBuilder codeBuilder, MethodMetadata methodMetadata) {
+        if (stateMachines().containsKey(methodMetadata)) {
+            // Run the state machine from its start, answering its boxed result or Frame.SUSPENDED
+            codeBuilder.aconst_null();
+            codeBuilder.invokevirtual(classDesc, RESUMABLE_TEMPLATE.formatted(methodMetadata.getName()),
+                                      withFrame(MethodTypeDesc.ofDescriptor(methodMetadata.getDescriptor())));
+            codeBuilder.areturn();
+            return;
+        }
+
         // Call the appropriate method
         String methodName = REMAPPED_TEMPLATE.formatted(methodMetadata.getName());
         if (remappedMethods.contains(methodMetadata)) {
@@ -607,6 +1068,18 @@ public class EntityGenerator {
         return indexToMethod.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
     }
 
+    /**
+     * Get sorted array of the indices of the methods whose events are posted as TypedEvents
+     */
+    private int[] getTypedMethodKeys() {
+        return indexToMethod.entrySet()
+                            .stream()
+                            .filter(e -> TypedEvent.shapeOf(e.getValue().getDescriptor()) >= 0)
+                            .mapToInt(Map.Entry::getKey)
+                            .sorted()
+                            .toArray();
+    }
+
     /**
      * Generate the __invoke method for EntityReference interface using ClassFile API
      */
@@ -652,6 +1125,95 @@ public class EntityGenerator {
         });
     }
 
+    /**
+     * Generate the typed __invoke method of the TypedEntityReference interface, dispatching the events posted as
+     * TypedEvents. Omitted if no event is typed.
+     */
+    private void generateTypedInvokeMethod(ClassBuilder classBuilder) {
+        int[] keys = getTypedMethodKeys();
+        if (keys.length == 0) {
+            return;
+        }
+
+        classBuilder.withMethodBody(INVOKE, TYPED_INVOKE_METHOD_TYPE, ClassFile.ACC_PUBLIC, codeBuilder -> {
+            codeBuilder.iload(1); // Load event index parameter
+
+            // The typed events are a sparse subset of the events
+            Label defaultLabel = codeBuilder.newLabel();
+            java.util.List<SwitchCase> cases = new java.util.ArrayList<>();
+            for (int key : keys) {
+                cases.add(SwitchCase.of(key, codeBuilder.newLabel()));
+            }
+
+            codeBuilder.lookupswitch(defaultLabel, cases);
+
+            for (var switchCase : cases) {
+                codeBuilder.labelBinding(switchCase.target());
+                generateTypedInvokeCase(codeBuilder, switchCase.caseValue());
+            }
+
+            codeBuilder.labelBinding(defaultLabel);
+            codeBuilder.new_(ClassDesc.of("java.lang.IllegalArgumentException"))
+                       .dup()
+                       .ldc("[EntityGenerator] Unknown typed event index for class " + className)
+                       .invokespecial(ClassDesc.of("java.lang.IllegalArgumentException"), "<init>",
+                                      MethodTypeDesc.of(ConstantDescs.CD_void, STRING_CLASS))
+                       .athrow();
+        });
+    }
+
+    /**
+     * Generate the __resume method of the StacklessEntityReference interface, resuming the state machine of the event
+     * from its frame. Its parameters are restored from the frame where they are live, and otherwise take their default
+     * values. Omitted if no event is rewritten into a state machine.
+     */
+    private void generateResumeMethod(ClassBuilder classBuilder) {
+        var machines = stateMachines();
+        if (machines.isEmpty()) {
+            return;
+        }
+        int[] keys = machines.keySet().stream().mapToInt(methodToIndex::get).sorted().toArray();
+
+        classBuilder.withMethodBody(RESUME, RESUME_METHOD_TYPE, ClassFile.ACC_PUBLIC, codeBuilder -> {
+            codeBuilder.iload(1); // Load event index parameter
+
+            Label defaultLabel = codeBuilder.newLabel();
+            java.util.List<SwitchCase> cases = new java.util.ArrayList<>();
+            for (int key : keys) {
+                cases.add(SwitchCase.of(key, codeBuilder.newLabel()));
+            }
+
+            codeBuilder.lookupswitch(defaultLabel, cases);
+
+            for (var switchCase : cases) {
+                codeBuilder.labelBinding(switchCase.target());
+                var event = indexToMethod.get(switchCase.caseValue());
+                var type = MethodTypeDesc.ofDescriptor(event.getDescriptor());
+                codeBuilder.aload(0);
+                for (var parameter : type.parameterList()) {
+                    switch (parameter.descriptorString()) {
+                        case "J" -> codeBuilder.lconst_0();
+                        case "F" -> codeBuilder.fconst_0();
+                        case "D" -> codeBuilder.dconst_0();
+                        case "Z", "B", "C", "S", "I" -> codeBuilder.iconst_0();
+                        default -> codeBuilder.aconst_null();
+                    }
+                }
+                codeBuilder.aload(2);
+                codeBuilder.invokevirtual(classDesc, RESUMABLE_TEMPLATE.formatted(event.getName()), withFrame(type));
+                codeBuilder.areturn();
+            }
+
+            codeBuilder.labelBinding(defaultLabel);
+            codeBuilder.new_(ClassDesc.of("java.lang.IllegalArgumentException"))
+                       .dup()
+                       .ldc("[EntityGenerator] Unknown stackless event index for class " + className)
+                       .invokespecial(ClassDesc.of("java.lang.IllegalArgumentException"), "<init>",
+                                      MethodTypeDesc.of(ConstantDescs.CD_void, STRING_CLASS))
+                       .athrow();
+        });
+    }
+
     /**
      * Generate a single case in the __signatureFor switch statement
      */
@@ -711,6 +1273,102 @@ public class EntityGenerator {
         });
     }
 
+    /**
+     * Generate the __mayBlock method for EntityReference interface, answering false for the events whose body cannot
+     * reach a blocking call, or that suspend into a frame rather than park. Omitted if every event may park, leaving
+     * the interface's conservative default.
+     */
+    private void generateMayBlockMethod(ClassBuilder classBuilder) {
+        if (indexToMethod.isEmpty()) {
+            return;
+        }
+        int[] keys = getSortedMethodKeys();
+        var anyInline = false;
+        for (int key : keys) {
+            anyInline |= !mayPark(key);
+        }
+        if (!anyInline) {
+            return;
+        }
+
+        classBuilder.withMethodBody(MAY_BLOCK, MAY_BLOCK_METHOD_TYPE, ClassFile.ACC_PUBLIC, codeBuilder -> {
+            codeBuilder.iload(1); // Load event index parameter
+
+            Label blocking = codeBuilder.newLabel();
+            Label inline = codeBuilder.newLabel();
+            java.util.List<SwitchCase> cases = new java.util.ArrayList<>();
+            for (int i = 0; i < keys.length; i++) {
+                cases.add(SwitchCase.of(keys[i], mayPark(keys[i]) ? blocking : inline));
+            }
+
+            // Unknown ordinals get the conservative answer
+            codeBuilder.tableswitch(keys[0], keys[keys.length - 1], blocking, cases);
+
+            codeBuilder.labelBinding(inline);
+            codeBuilder.iconst_0();
+            codeBuilder.ireturn();
+
+            codeBuilder.labelBinding(blocking);
+            codeBuilder.iconst_1();
+            codeBuilder.ireturn();
+        });
+    }
+
+    /**
+     * Answer the blocking reach of the events, indexed by ordinal. Only the bodies of the events declared in this
+     * class are analyzed; the reach of inherited events is unknown.
+     */
+    private BlockingReach[] eventReach() {
+        if (eventReach == null) {
+            var reach = new BlockingReach[indexToMethod.size()];
+            for (int ordinal = 0; ordinal < reach.length; ordinal++) {
+                var event = indexToMethod.get(ordinal);
+                reach[ordinal] = remappedMethods.contains(event) ? blocking.reachOf(event) : BlockingReach.UNKNOWN;
+            }
+            eventReach = reach;
+        }
+        return eventReach;
+    }
+
+    /**
+     * Answer true if the event of the ordinal may park its thread: it may reach a blocking call, and is not rewritten
+     * into a state machine
+     */
+    private boolean mayPark(int ordinal) {
+        return eventReach()[ordinal].mayBlock() && !stateMachines().containsKey(indexToMethod.get(ordinal));
+    }
+
+    /**
+     * Answer the state machines of the events declared in this class that may block and, in the stackless mode, can
+     * be rewritten into one
+     */
+    private Map<MethodMetadata, StateMachine> stateMachines() {
+        if (stateMachines == null) {
+            var machines = new HashMap<MethodMetadata, StateMachine>();
+            if (stackless) {
+                var reach = eventReach();
+                for (int ordinal = 0; ordinal < reach.length; ordinal++) {
+                    if (reach[ordinal] == BlockingReach.MAY) {
+                        var event = indexToMethod.get(ordinal);
+                        var machine = StateMachine.of(event.getMethodModel(), blocking);
+                        if (machine != null) {
+                            machines.put(event, machine);
+                        }
+                    }
+                }
+            }
+            stateMachines = machines;
+        }
+        return stateMachines;
+    }
+
+    /**
+     * Answer the type of the method with the frame appended to its parameters, returning Object
+     */
+    private static MethodTypeDesc withFrame(MethodTypeDesc type) {
+        return type.changeReturnType(OBJECT_CLASS).insertParameterTypes(type.parameterCount(), FRAME_CLASS);
+    }
+
     /**
      * Initialize event mappings and determine which methods are blocking/remapped.
      * Uses sequential ordinals based on alphabetical ordering for stability.
@@ -742,7 +1400,7 @@ public class EntityGenerator {
         }
     }
 
-    private boolean isBlockingEvent(MethodMetadata mi) {
+    static boolean isBlockingEvent(MethodMetadata mi) {
         return !mi.isVoid() || mi.hasAnnotation(Blocking.class);
     }
 
@@ -786,6 +1444,47 @@ public class EntityGenerator {
         }
     }
 
+    /**
+     * Return from the event wrapper: the boxed result of a blocking event, left on the stack by postContinuingEvent,
+     * unboxed to the return type of the event, or the default value of a posted event. A controller that does not
+     * deliver the result answers null, returned as the default value.
+     */
+    private void returnEventResult(CodeBuilder codeBuilder, MethodMetadata method) {
+        if (!blockingMethods.contains(method)) {
+            returnDefaultValue(codeBuilder, method);
+            return;
+        }
+        var returnType = method.getReturnType();
+        if (returnType.isVoid()) {
+            codeBuilder.pop();
+            codeBuilder.return_();
+            return;
+        }
+        if (!returnType.isPrimitive()) {
+            var type = ClassDesc.ofDescriptor(returnType.getDescriptor());
+            if (!type.equals(OBJECT_CLASS)) {
+                codeBuilder.checkcast(type);
+            }
+            codeBuilder.areturn();
+            return;
+        }
+
+        var primitiveType = returnType.getPrimitiveChar();
+        var delivered = codeBuilder.newLabel();
+        codeBuilder.dup();
+        codeBuilder.ifnonnull(delivered);
+        codeBuilder.pop();
+        returnPrimitiveDefault(codeBuilder, primitiveType);
+        codeBuilder.labelBinding(delivered);
+        unboxPrimitive(codeBuilder, primitiveType);
+        switch (primitiveType) {
+            case 'J' -> codeBuilder.lreturn();
+            case 'F' -> codeBuilder.freturn();
+            case 'D' -> codeBuilder.dreturn();
+            default -> codeBuilder.ireturn();
+        }
+    }
+
     /**
      * Return the appropriate default value based on method return type
      */
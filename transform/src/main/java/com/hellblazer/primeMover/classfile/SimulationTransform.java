@@ -21,6 +21,7 @@ package com.hellblazer.primeMover.classfile;
 import com.hellblazer.primeMover.annotations.*;
 import com.hellblazer.primeMover.api.Kronos;
 import com.hellblazer.primeMover.classfile.OpenAddressingSet.OpenSet;
+import com.hellblazer.primeMover.runtime.BlockingReach;
 import com.hellblazer.primeMover.runtime.Kairos;
 
 import java.io.Closeable;
@@ -32,6 +33,7 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -62,7 +64,9 @@ public class SimulationTransform implements Closeable {
 
     private final ClassScanner scanner;
     private final ClassRemapper apiRemapper;
+    private final BlockingAnalysis blocking;
     private final AtomicReference<String> transformTimestamp = new AtomicReference<>();
+    private volatile boolean stackless;
 
     /**
      * Creates a new SimulationTransform that will scan the given classpath entry.
@@ -72,6 +76,7 @@ public class SimulationTransform implements Closeable {
     public SimulationTransform(Path classpathEntry) throws IOException {
         this.scanner = new ClassScanner().addClasspathEntry(classpathEntry).scan();
         this.apiRemapper = createApiRemapper();
+        this.blocking = new BlockingAnalysis(scanner, this::eventMethodsOf);
         this.transformTimestamp.set(java.time.Instant.now().toString());
     }
 
@@ -83,6 +88,7 @@ public class SimulationTransform implements Closeable {
     public SimulationTransform(ClassScanner scanner) {
         this.scanner = scanner;
         this.apiRemapper = createApiRemapper();
+        this.blocking = new BlockingAnalysis(scanner, this::eventMethodsOf);
         this.transformTimestamp.set(java.time.Instant.now().toString());
     }
 
@@ -267,6 +273,30 @@ public class SimulationTransform implements Closeable {
         return transformed;
     }
 
+    /**
+     * Get the analysis of the blocking calls reachable from the events of the scanned entities
+     */
+    public BlockingAnalysis getBlockingAnalysis() {
+        return blocking;
+    }
+
+    /**
+     * Answer true if the events that make blocking calls are rewritten into state machines
+     */
+    public boolean isStackless() {
+        return stackless;
+    }
+
+    /**
+     * Rewrite the events of the entities that make blocking calls into state machines that suspend into a frame,
+     * rather than park the thread of their event, where each of their blocking calls can suspend. Off by default.
+     *
+     * @param stackless true to rewrite the events into state machines
+     */
+    public void setStackless(boolean stackless) {
+        this.stackless = stackless;
+    }
+
     /**
      * Get the underlying scanner for direct class access
      */
@@ -310,13 +340,7 @@ public class SimulationTransform implements Closeable {
         var entityInterfaceNames = getEntityInterfaceNames(entityClass);
         var hasAllMethodsMarker = entityInterfaceNames.contains(ALL_METHODS_MARKER);
 
-        // Get resolved entity interfaces (excluding AllMethodsMarker which isn't a real interface)
-        var entityInterfaces = getEntityInterfaces(entityClass);
-
-        // Find implemented entity interfaces
-        var implementedInterfaces = findImplementedEntityInterfaces(entityClass, entityInterfaces);
-
-        if (entityInterfaces.isEmpty() && !hasAllMethodsMarker) {
+        if (!hasAllMethodsMarker && getEntityInterfaces(entityClass).isEmpty()) {
             var msg = "Entity class " + entityClass.getName() +
                       " has no entity interfaces and no AllMethodsMarker annotation";
             log.severe(msg);
@@ -324,15 +348,33 @@ public class SimulationTransform implements Closeable {
         }
 
         // Collect event methods from interfaces and annotations
-        var eventMethods = collectEventMethods(entityClass, implementedInterfaces, hasAllMethodsMarker);
+        var eventMethods = eventMethodsOf(entityClass);
 
         try {
-            return new EntityGenerator(entityClass, eventMethods, transformTimestamp.get());
+            var generator = new EntityGenerator(entityClass, eventMethods, transformTimestamp.get(), blocking,
+                                                stackless);
+            reportBlockingReach(generator);
+            return generator;
         } catch (Exception e) {
             throw new IllegalStateException("Failed to create EntityGenerator for " + entityClass.getName(), e);
         }
     }
 
+    /**
+     * Collects the event methods of the entity class, from its entity interfaces and annotations.
+     */
+    private Set<MethodMetadata> eventMethodsOf(ClassMetadata entityClass) {
+        var hasAllMethodsMarker = getEntityInterfaceNames(entityClass).contains(ALL_METHODS_MARKER);
+
+        // Get resolved entity interfaces (excluding AllMethodsMarker which isn't a real interface)
+        var entityInterfaces = getEntityInterfaces(entityClass);
+
+        // Find implemented entity interfaces
+        var implementedInterfaces = findImplementedEntityInterfaces(entityClass, entityInterfaces);
+
+        return collectEventMethods(entityClass, implementedInterfaces, hasAllMethodsMarker);
+    }
+
     /**
      * Finds all classes annotated with @Entity and applies the given filter.
      */
@@ -481,4 +523,20 @@ public class SimulationTransform implements Closeable {
             }
         });
     }
+
+    /**
+     * Reports, at debug level, the events that may reach a blocking call without being blocking events. Such an
+     * event is ordinary - a thread or channel model parking its own events - but cannot be evaluated inline.
+     */
+    private void reportBlockingReach(EntityGenerator generator) {
+        if (!log.isLoggable(Level.FINE)) {
+            return;
+        }
+        for (var entry : generator.getBlockingReach().entrySet()) {
+            if (entry.getValue() == BlockingReach.MAY && !EntityGenerator.isBlockingEvent(entry.getKey())) {
+                log.fine("Event " + entry.getKey() + " may reach a blocking call, so it is evaluated on a thread of" +
+                         " its own");
+            }
+        }
+    }
 }
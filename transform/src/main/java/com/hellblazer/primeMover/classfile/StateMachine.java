@@ -0,0 +1,773 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.hellblazer.primeMover.classfile;
+
+import com.hellblazer.primeMover.api.Kronos;
+import com.hellblazer.primeMover.runtime.BlockingReach;
+import com.hellblazer.primeMover.runtime.Frame;
+import com.hellblazer.primeMover.runtime.Kairos;
+
+import java.lang.classfile.Attributes;
+import java.lang.classfile.Instruction;
+import java.lang.classfile.MethodModel;
+import java.lang.classfile.Opcode;
+import java.lang.classfile.TypeKind;
+import java.lang.classfile.attribute.CodeAttribute;
+import java.lang.classfile.attribute.StackMapFrameInfo;
+import java.lang.classfile.attribute.StackMapFrameInfo.ObjectVerificationTypeInfo;
+import java.lang.classfile.attribute.StackMapFrameInfo.SimpleVerificationTypeInfo;
+import java.lang.classfile.attribute.StackMapFrameInfo.UninitializedVerificationTypeInfo;
+import java.lang.classfile.attribute.StackMapFrameInfo.VerificationTypeInfo;
+import java.lang.classfile.constantpool.ClassEntry;
+import java.lang.classfile.constantpool.ConstantDynamicEntry;
+import java.lang.classfile.constantpool.MethodHandleEntry;
+import java.lang.classfile.constantpool.MethodTypeEntry;
+import java.lang.classfile.constantpool.StringEntry;
+import java.lang.classfile.instruction.*;
+import java.lang.constant.ClassDesc;
+import java.lang.reflect.AccessFlag;
+import java.util.*;
+
+import static java.lang.constant.ConstantDescs.*;
+
+/**
+ * The plan for rewriting an event method into a state machine that suspends into a {@link Frame} at its blocking
+ * calls, rather than parking the thread of its event.
+ * <p>
+ * A method can be rewritten if every call it makes that may block is a suspension point: a call of
+ * {@link Kronos#blockingSleep(long)}, or a virtual call of a blocking event of a scanned entity, with nothing on the
+ * operand stack beneath the receiver and arguments of the call. The verification types of the locals are simulated
+ * from the method's stack map table, and their liveness found over its control flow, including its exception handlers.
+ * At each suspension point the locals live across the call are spilled into the frame, primitives as the bits of a
+ * long, and restored when the event resumes. Methods that synchronize, or that make any other call that may block,
+ * keep parking their thread.
+ *
+ * @author hal.hildebrand
+ */
+final class StateMachine {
+
+    private static final ClassDesc KRONOS_CLASS = ClassDesc.of(Kronos.class.getCanonicalName());
+    private static final ClassDesc KAIROS_CLASS = ClassDesc.of(Kairos.class.getCanonicalName());
+
+    private static final Map<TypeKind, ClassDesc> PRIMITIVE_ARRAYS = Map.of(
+        TypeKind.BOOLEAN, CD_boolean.arrayType(),
+        TypeKind.BYTE, CD_byte.arrayType(),
+        TypeKind.CHAR, CD_char.arrayType(),
+        TypeKind.SHORT, CD_short.arrayType(),
+        TypeKind.INT, CD_int.arrayType(),
+        TypeKind.LONG, CD_long.arrayType(),
+        TypeKind.FLOAT, CD_float.arrayType(),
+        TypeKind.DOUBLE, CD_double.arrayType()
+    );
+
+    /**
+     * A suspension point of the state machine
+     *
+     * @param state the state in which the event resumes after the call, counting from 1
+     * @param sleep true if the call is of {@code blockingSleep}, false if of a blocking event
+     * @param saved the locals live across the call
+     */
+    record Point(int state, boolean sleep, List<Saved> saved) {
+    }
+
+    /**
+     * A local saved across a suspension point
+     *
+     * @param slot  the slot of the local in the original method
+     * @param kind  the kind of the local, one of {@code INT}, {@code LONG}, {@code FLOAT}, {@code DOUBLE} or
+     *              {@code REFERENCE}
+     * @param type  the type of a reference local, or null if the local can only be null
+     * @param index the index of the local in the primitives or the references of the frame
+     */
+    record Saved(int slot, TypeKind kind, ClassDesc type, int index) {
+    }
+
+    /**
+     * The verification types that are not references to an initialized object
+     */
+    private enum Kind {
+        TOP(null), INT(TypeKind.INT), FLOAT(TypeKind.FLOAT), LONG(TypeKind.LONG), DOUBLE(TypeKind.DOUBLE),
+        NULL(TypeKind.REFERENCE), UNINITIALIZED_THIS(null);
+
+        private final TypeKind typeKind;
+
+        Kind(TypeKind typeKind) {
+            this.typeKind = typeKind;
+        }
+    }
+
+    /**
+     * The verification type of an object created by the instruction at the offset, and not yet initialized
+     */
+    private record Uninitialized(int offset) {
+    }
+
+    private final int                 frameSlot;
+    private final Map<Integer, Point> points;
+    private final int                 primitives;
+    private final int                 references;
+
+    private StateMachine(int frameSlot, Map<Integer, Point> points, int primitives, int references) {
+        this.frameSlot = frameSlot;
+        this.points = points;
+        this.primitives = primitives;
+        this.references = references;
+    }
+
+    /**
+     * Plan the state machine of the event method.
+     *
+     * @param method   the event method
+     * @param blocking the analysis of the blocking calls of the method
+     * @return the plan, or null if the method makes no blocking call, or a blocking call that cannot suspend
+     */
+    static StateMachine of(MethodModel method, BlockingAnalysis blocking) {
+        var flags = method.flags();
+        if (flags.has(AccessFlag.STATIC) || flags.has(AccessFlag.SYNCHRONIZED) || method.code().isEmpty()) {
+            return null;
+        }
+        var code = (CodeAttribute) method.code().get();
+        var instructions = new ArrayList<Instruction>();
+        for (var element : code) {
+            if (element instanceof Instruction instruction) {
+                instructions.add(instruction);
+            }
+        }
+        var offsets = new int[instructions.size()];
+        var offset = 0;
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = offset;
+            offset += instructions.get(i).sizeInBytes();
+        }
+
+        // The suspension points, by the index of their call, and whether each sleeps
+        var suspensions = new TreeMap<Integer, Boolean>();
+        for (int i = 0; i < offsets.length; i++) {
+            switch (instructions.get(i)) {
+                case InvokeInstruction invoke -> {
+                    if (blocking.reachOf(invoke) != BlockingReach.NEVER) {
+                        if (isSleep(invoke)) {
+                            suspensions.put(i, true);
+                        } else if (blocking.blockingEventOf(invoke) != null) {
+                            suspensions.put(i, false);
+                        } else {
+                            return null;
+                        }
+                    }
+                }
+                case InvokeDynamicInstruction invokeDynamic -> {
+                    if (blocking.reachOf(invokeDynamic) != BlockingReach.NEVER) {
+                        return null;
+                    }
+                }
+                // The receiver is never spilled, as the resumed event is invoked on it
+                case StoreInstruction store when store.slot() == 0 -> {
+                    return null;
+                }
+                case MonitorInstruction monitor -> {
+                    return null;
+                }
+                case DiscontinuedInstruction discontinued -> {
+                    return null;
+                }
+                default -> {
+                }
+            }
+        }
+        if (suspensions.isEmpty()) {
+            return null;
+        }
+
+        var locals = localsAt(method, code, instructions, offsets, suspensions.keySet());
+        if (locals == null) {
+            return null;
+        }
+        var live = liveOut(code, instructions, offsets);
+
+        var points = new HashMap<Integer, Point>();
+        int primitives = 0;
+        int references = 0;
+        for (var suspension : suspensions.entrySet()) {
+            var index = suspension.getKey();
+            var types = locals.get(index);
+            var saved = new ArrayList<Saved>();
+            int p = 0;
+            int r = 0;
+            var liveOut = live[index];
+            for (int slot = liveOut.nextSetBit(1); slot >= 0; slot = liveOut.nextSetBit(slot + 1)) {
+                var type = types[slot];
+                if (type == Kind.TOP) {
+                    continue;
+                }
+                if (type == Kind.UNINITIALIZED_THIS || type instanceof Uninitialized) {
+                    return null;
+                }
+                if (type instanceof ClassDesc desc) {
+                    saved.add(new Saved(slot, TypeKind.REFERENCE, desc, r++));
+                } else if (type == Kind.NULL) {
+                    saved.add(new Saved(slot, TypeKind.REFERENCE, null, r++));
+                } else {
+                    saved.add(new Saved(slot, ((Kind) type).typeKind, null, p++));
+                }
+            }
+            primitives = Math.max(primitives, p);
+            references = Math.max(references, r);
+            points.put(index, new Point(points.size() + 1, suspension.getValue(), List.copyOf(saved)));
+        }
+
+        var frameSlot = 1;
+        for (var parameter : method.methodTypeSymbol().parameterList()) {
+            frameSlot += TypeKind.from(parameter).slotSize();
+        }
+        return new StateMachine(frameSlot, points, primitives, references);
+    }
+
+    /**
+     * Answer the slot of the frame, the last parameter of the rewritten method
+     */
+    int frameSlot() {
+        return frameSlot;
+    }
+
+    /**
+     * Answer the suspension point at the instruction
+     *
+     * @param instruction the index of the instruction among the instructions of the method
+     * @return the suspension point, or null if the instruction is not one
+     */
+    Point pointAt(int instruction) {
+        return points.get(instruction);
+    }
+
+    /**
+     * Answer the suspension points, in the order of their states
+     */
+    List<Point> points() {
+        return points.values().stream().sorted(Comparator.comparingInt(Point::state)).toList();
+    }
+
+    /**
+     * Answer the number of primitive locals the frame must hold
+     */
+    int primitives() {
+        return primitives;
+    }
+
+    /**
+     * Answer the number of reference locals the frame must hold
+     */
+    int references() {
+        return references;
+    }
+
+    /**
+     * Answer the slot of the local in the rewritten method, whose locals follow the frame
+     */
+    int shift(int slot) {
+        return slot >= frameSlot ? slot + 1 : slot;
+    }
+
+    private static boolean isSleep(InvokeInstruction invoke) {
+        var owner = invoke.owner().asSymbol();
+        return invoke.opcode() == Opcode.INVOKESTATIC && (owner.equals(KRONOS_CLASS) || owner.equals(KAIROS_CLASS)) &&
+               invoke.name().equalsString("blockingSleep") && invoke.type().equalsString("(J)V");
+    }
+
+    private static boolean isUnconditional(Instruction instruction) {
+        return switch (instruction) {
+            case BranchInstruction branch -> branch.opcode() == Opcode.GOTO || branch.opcode() == Opcode.GOTO_W;
+            case TableSwitchInstruction tableSwitch -> true;
+            case LookupSwitchInstruction lookupSwitch -> true;
+            case ReturnInstruction ret -> true;
+            case ThrowInstruction athrow -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Find the locals live after each instruction: those read before they are written on some path from the
+     * instruction, including the paths through the exception handlers covering it
+     */
+    private static BitSet[] liveOut(CodeAttribute code, List<Instruction> instructions, int[] offsets) {
+        var indexOf = new HashMap<Integer, Integer>();
+        for (int i = 0; i < offsets.length; i++) {
+            indexOf.put(offsets[i], i);
+        }
+        // The start, end and handler offsets of each exception handler
+        var handlers = code.exceptionHandlers()
+                           .stream()
+                           .map(handler -> new int[] { code.labelToBci(handler.tryStart()),
+                                                       code.labelToBci(handler.tryEnd()),
+                                                       code.labelToBci(handler.handler()) })
+                           .toList();
+        var successors = new ArrayList<List<Integer>>();
+        for (int i = 0; i < offsets.length; i++) {
+            var next = new ArrayList<Integer>();
+            var instruction = instructions.get(i);
+            switch (instruction) {
+                case BranchInstruction branch -> next.add(indexOf.get(code.labelToBci(branch.target())));
+                case TableSwitchInstruction tableSwitch -> {
+                    next.add(indexOf.get(code.labelToBci(tableSwitch.defaultTarget())));
+                    tableSwitch.cases().forEach(c -> next.add(indexOf.get(code.labelToBci(c.target()))));
+                }
+                case LookupSwitchInstruction lookupSwitch -> {
+                    next.add(indexOf.get(code.labelToBci(lookupSwitch.defaultTarget())));
+                    lookupSwitch.cases().forEach(c -> next.add(indexOf.get(code.labelToBci(c.target()))));
+                }
+                default -> {
+                }
+            }
+            if (!isUnconditional(instruction) && i + 1 < offsets.length) {
+                next.add(i + 1);
+            }
+            for (var handler : handlers) {
+                if (handler[0] <= offsets[i] && offsets[i] < handler[1]) {
+                    next.add(indexOf.get(handler[2]));
+                }
+            }
+            successors.add(next);
+        }
+
+        var liveIn = new BitSet[offsets.length];
+        var liveOut = new BitSet[offsets.length];
+        for (int i = 0; i < offsets.length; i++) {
+            liveIn[i] = new BitSet();
+            liveOut[i] = new BitSet();
+        }
+        var changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = offsets.length - 1; i >= 0; i--) {
+                var out = new BitSet();
+                for (var successor : successors.get(i)) {
+                    out.or(liveIn[successor]);
+                }
+                var in = (BitSet) out.clone();
+                switch (instructions.get(i)) {
+                    case LoadInstruction load -> in.set(load.slot());
+                    case IncrementInstruction increment -> in.set(increment.slot());
+                    case StoreInstruction store -> in.clear(store.slot());
+                    default -> {
+                    }
+                }
+                liveOut[i] = out;
+                if (!in.equals(liveIn[i])) {
+                    liveIn[i] = in;
+                    changed = true;
+                }
+            }
+        }
+        return liveOut;
+    }
+
+    /**
+     * Simulate the verification types of the locals and operand stack through the method, starting afresh at each frame
+     * of its stack map table
+     *
+     * @return the types of the locals at each suspension point, or null if they cannot be found, or a suspension point
+     *         has anything on the operand stack beneath its call
+     */
+    private static Map<Integer, Object[]> localsAt(MethodModel method, CodeAttribute code,
+                                                   List<Instruction> instructions, int[] offsets,
+                                                   Set<Integer> suspensions) {
+        var frames = new HashMap<Integer, StackMapFrameInfo>();
+        code.findAttribute(Attributes.stackMapTable())
+            .ifPresent(table -> table.entries().forEach(frame -> frames.put(code.labelToBci(frame.target()), frame)));
+
+        var result = new HashMap<Integer, Object[]>();
+        var types = new Types(code.maxLocals());
+        types.locals[0] = method.parent().orElseThrow().thisClass().asSymbol();
+        var slot = 1;
+        for (var parameter : method.methodTypeSymbol().parameterList()) {
+            types.store(slot, typeOf(parameter));
+            slot += TypeKind.from(parameter).slotSize();
+        }
+        for (int i = 0; i < offsets.length; i++) {
+            var frame = frames.get(offsets[i]);
+            if (frame != null) {
+                types = Types.of(frame, code);
+            }
+            if (types == null) {
+                // Unreachable code, for which javac emits no frame
+                if (suspensions.contains(i)) {
+                    return null;
+                }
+                continue;
+            }
+            var instruction = instructions.get(i);
+            if (suspensions.contains(i)) {
+                var invoke = (InvokeInstruction) instruction;
+                var operands = invoke.typeSymbol().parameterCount() + (invoke.opcode() == Opcode.INVOKESTATIC ? 0 : 1);
+                if (types.stack.size() != operands) {
+                    return null;
+                }
+                result.put(i, types.locals.clone());
+            }
+            if (!types.execute(instruction, offsets[i])) {
+                return null;
+            }
+            if (isUnconditional(instruction)) {
+                types = null;
+            }
+        }
+        return result;
+    }
+
+    private static Object kindOf(TypeKind kind) {
+        if (kind == TypeKind.LONG) {
+            return Kind.LONG;
+        }
+        if (kind == TypeKind.FLOAT) {
+            return Kind.FLOAT;
+        }
+        return kind == TypeKind.DOUBLE ? Kind.DOUBLE : Kind.INT;
+    }
+
+    private static Object typeOf(ClassDesc type) {
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        return switch (type.descriptorString()) {
+            case "J" -> Kind.LONG;
+            case "F" -> Kind.FLOAT;
+            case "D" -> Kind.DOUBLE;
+            default -> Kind.INT;
+        };
+    }
+
+    private static Object typeOf(VerificationTypeInfo info, CodeAttribute code) {
+        if (info instanceof ObjectVerificationTypeInfo object) {
+            return object.classSymbol();
+        }
+        if (info instanceof UninitializedVerificationTypeInfo uninitialized) {
+            return new Uninitialized(code.labelToBci(uninitialized.newTarget()));
+        }
+        if (info == SimpleVerificationTypeInfo.INTEGER) {
+            return Kind.INT;
+        }
+        if (info == SimpleVerificationTypeInfo.FLOAT) {
+            return Kind.FLOAT;
+        }
+        if (info == SimpleVerificationTypeInfo.LONG) {
+            return Kind.LONG;
+        }
+        if (info == SimpleVerificationTypeInfo.DOUBLE) {
+            return Kind.DOUBLE;
+        }
+        if (info == SimpleVerificationTypeInfo.NULL) {
+            return Kind.NULL;
+        }
+        if (info == SimpleVerificationTypeInfo.UNINITIALIZED_THIS) {
+            return Kind.UNINITIALIZED_THIS;
+        }
+        return Kind.TOP;
+    }
+
+    /**
+     * The verification types of the locals and the operand stack, each value of the stack taking a single entry
+     */
+    private static final class Types {
+        private final Object[]     locals;
+        private final List<Object> stack = new ArrayList<>();
+
+        private Types(int maxLocals) {
+            locals = new Object[maxLocals];
+            Arrays.fill(locals, Kind.TOP);
+        }
+
+        private static Types of(StackMapFrameInfo frame, CodeAttribute code) {
+            var types = new Types(code.maxLocals());
+            var slot = 0;
+            for (var info : frame.locals()) {
+                types.store(slot, typeOf(info, code));
+                slot += isWide(types.locals[slot]) ? 2 : 1;
+            }
+            for (var info : frame.stack()) {
+                types.push(typeOf(info, code));
+            }
+            return types;
+        }
+
+        private static boolean isWide(Object type) {
+            return type == Kind.LONG || type == Kind.DOUBLE;
+        }
+
+        private static Object constantType(ConstantInstruction constant) {
+            if (constant.opcode() == Opcode.ACONST_NULL) {
+                return Kind.NULL;
+            }
+            if (constant.typeKind() != TypeKind.REFERENCE) {
+                return kindOf(constant.typeKind());
+            }
+            if (constant instanceof ConstantInstruction.LoadConstantInstruction load) {
+                return switch (load.constantEntry()) {
+                    case StringEntry string -> CD_String;
+                    case ClassEntry type -> CD_Class;
+                    case MethodTypeEntry methodType -> CD_MethodType;
+                    case MethodHandleEntry methodHandle -> CD_MethodHandle;
+                    case ConstantDynamicEntry dynamic -> ClassDesc.ofDescriptor(dynamic.type().stringValue());
+                    default -> CD_Object;
+                };
+            }
+            return CD_Object;
+        }
+
+        /**
+         * Execute the instruction
+         *
+         * @param offset the offset of the instruction
+         * @return false if the instruction is not supported
+         */
+        private boolean execute(Instruction instruction, int offset) {
+            switch (instruction) {
+                case LoadInstruction load ->
+                push(load.typeKind() == TypeKind.REFERENCE ? locals[load.slot()] : kindOf(load.typeKind()));
+                case StoreInstruction store -> store(store.slot(), pop());
+                case IncrementInstruction increment -> {
+                }
+                case ConstantInstruction constant -> push(constantType(constant));
+                case ArrayLoadInstruction load -> {
+                    pop();
+                    var array = pop();
+                    if (load.typeKind() != TypeKind.REFERENCE) {
+                        push(kindOf(load.typeKind()));
+                    } else if (array instanceof ClassDesc desc && desc.isArray()) {
+                        push(typeOf(desc.componentType()));
+                    } else {
+                        push(Kind.NULL);
+                    }
+                }
+                case ArrayStoreInstruction store -> pop(3);
+                case BranchInstruction branch -> {
+                    var opcode = branch.opcode();
+                    if (opcode != Opcode.GOTO && opcode != Opcode.GOTO_W) {
+                        pop(opcode.name().startsWith("IF_") ? 2 : 1);
+                    }
+                }
+                case ConvertInstruction convert -> {
+                    pop();
+                    push(kindOf(convert.toType()));
+                }
+                case OperatorInstruction operator -> {
+                    switch (operator.opcode()) {
+                        case ARRAYLENGTH -> {
+                            pop();
+                            push(Kind.INT);
+                        }
+                        case INEG, LNEG, FNEG, DNEG -> {
+                        }
+                        case LCMP, FCMPL, FCMPG, DCMPL, DCMPG -> {
+                            pop(2);
+                            push(Kind.INT);
+                        }
+                        default -> {
+                            pop(2);
+                            push(kindOf(operator.typeKind()));
+                        }
+                    }
+                }
+                case FieldInstruction field -> {
+                    switch (field.opcode()) {
+                        case GETSTATIC -> push(typeOf(field.typeSymbol()));
+                        case PUTSTATIC -> pop();
+                        case GETFIELD -> {
+                            pop();
+                            push(typeOf(field.typeSymbol()));
+                        }
+                        default -> pop(2);
+                    }
+                }
+                case InvokeInstruction invoke -> {
+                    var type = invoke.typeSymbol();
+                    pop(type.parameterCount());
+                    if (invoke.opcode() != Opcode.INVOKESTATIC) {
+                        var receiver = pop();
+                        if (invoke.name().equalsString("<init>")) {
+                            initialize(receiver, invoke.owner().asSymbol());
+                        }
+                    }
+                    if (!type.returnType().equals(CD_void)) {
+                        push(typeOf(type.returnType()));
+                    }
+                }
+                case InvokeDynamicInstruction invokeDynamic -> {
+                    var type = invokeDynamic.typeSymbol();
+                    pop(type.parameterCount());
+                    if (!type.returnType().equals(CD_void)) {
+                        push(typeOf(type.returnType()));
+                    }
+                }
+                case NewObjectInstruction newObject -> push(new Uninitialized(offset));
+                case NewPrimitiveArrayInstruction newArray -> {
+                    pop();
+                    push(PRIMITIVE_ARRAYS.get(newArray.typeKind()));
+                }
+                case NewReferenceArrayInstruction newArray -> {
+                    pop();
+                    push(newArray.componentType().asSymbol().arrayType());
+                }
+                case NewMultiArrayInstruction newArray -> {
+                    pop(newArray.dimensions());
+                    push(newArray.arrayType().asSymbol());
+                }
+                case TypeCheckInstruction check -> {
+                    pop();
+                    push(check.opcode() == Opcode.CHECKCAST ? check.type().asSymbol() : Kind.INT);
+                }
+                case StackInstruction stackInstruction -> shuffle(stackInstruction.opcode());
+                case TableSwitchInstruction tableSwitch -> pop();
+                case LookupSwitchInstruction lookupSwitch -> pop();
+                case ReturnInstruction ret -> {
+                    if (ret.typeKind() != TypeKind.VOID) {
+                        pop();
+                    }
+                }
+                case ThrowInstruction athrow -> pop();
+                case NopInstruction nop -> {
+                }
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Replace the uninitialized object with the initialized object of the type
+         */
+        private void initialize(Object uninitialized, ClassDesc type) {
+            for (int i = 0; i < locals.length; i++) {
+                if (locals[i].equals(uninitialized)) {
+                    locals[i] = type;
+                }
+            }
+            stack.replaceAll(value -> value.equals(uninitialized) ? type : value);
+        }
+
+        private Object pop() {
+            return stack.removeLast();
+        }
+
+        private void pop(int count) {
+            for (int i = 0; i < count; i++) {
+                pop();
+            }
+        }
+
+        private void push(Object type) {
+            stack.add(type);
+        }
+
+        private void push(Object... types) {
+            for (var type : types) {
+                push(type);
+            }
+        }
+
+        /**
+         * Shuffle the operand stack by the computational categories of its values
+         */
+        private void shuffle(Opcode opcode) {
+            switch (opcode) {
+                case POP -> pop();
+                case POP2 -> {
+                    if (!isWide(pop())) {
+                        pop();
+                    }
+                }
+                case DUP -> push(stack.getLast());
+                case DUP_X1 -> {
+                    var v1 = pop();
+                    var v2 = pop();
+                    push(v1, v2, v1);
+                }
+                case DUP_X2 -> {
+                    var v1 = pop();
+                    var v2 = pop();
+                    if (isWide(v2)) {
+                        push(v1, v2, v1);
+                    } else {
+                        var v3 = pop();
+                        push(v1, v3, v2, v1);
+                    }
+                }
+                case DUP2 -> {
+                    var v1 = pop();
+                    if (isWide(v1)) {
+                        push(v1, v1);
+                    } else {
+                        var v2 = pop();
+                        push(v2, v1, v2, v1);
+                    }
+                }
+                case DUP2_X1 -> {
+                    var v1 = pop();
+                    if (isWide(v1)) {
+                        var v2 = pop();
+                        push(v1, v2, v1);
+                    } else {
+                        var v2 = pop();
+                        var v3 = pop();
+                        push(v2, v1, v3, v2, v1);
+                    }
+                }
+                case DUP2_X2 -> {
+                    var v1 = pop();
+                    if (isWide(v1)) {
+                        var v2 = pop();
+                        if (isWide(v2)) {
+                            push(v1, v2, v1);
+                        } else {
+                            var v3 = pop();
+                            push(v1, v3, v2, v1);
+                        }
+                    } else {
+                        var v2 = pop();
+                        var v3 = pop();
+                        if (isWide(v3)) {
+                            push(v2, v1, v3, v2, v1);
+                        } else {
+                            var v4 = pop();
+                            push(v2, v1, v4, v3, v2, v1);
+                        }
+                    }
+                }
+                case SWAP -> {
+                    var v1 = pop();
+                    var v2 = pop();
+                    push(v1, v2);
+                }
+                default -> throw new IllegalArgumentException("[StateMachine] Unknown stack instruction " + opcode);
+            }
+        }
+
+        /**
+         * Store the type in the local, invalidating the halves of any wide local it overwrites
+         */
+        private void store(int slot, Object type) {
+            if (slot > 0 && isWide(locals[slot - 1])) {
+                locals[slot - 1] = Kind.TOP;
+            }
+            locals[slot] = type;
+            if (isWide(type)) {
+                locals[slot + 1] = Kind.TOP;
+            }
+        }
+    }
+}
@@ -54,12 +54,12 @@ public class ControllerImpl extends Devi {
     }
 
     @Override
-    public int getTotalEvents() {
+    public long getTotalEvents() {
         return totalEvents;
     }
 
     @Override
-    public java.util.Map<String, Integer> getSpectrum() {
+    public java.util.Map<String, Long> getSpectrum() {
         return java.util.Map.of();
     }
 
@@ -19,14 +19,24 @@
 package com.hellblazer.primeMover.classfile;
 
 import com.hellblazer.primeMover.ControllerImpl;
+import com.hellblazer.primeMover.api.EntityReference;
 import com.hellblazer.primeMover.classfile.testClasses.Foo;
+import com.hellblazer.primeMover.controllers.SimulationController;
+import com.hellblazer.primeMover.runtime.BlockingReach;
 import com.hellblazer.primeMover.runtime.Kairos;
+import com.hellblazer.primeMover.runtime.StacklessEntityReference;
+import com.hellblazer.primeMover.runtime.TypedEntityReference;
+import com.hellblazer.primeMover.runtime.TypedEvent;
 import org.junit.jupiter.api.Test;
 
 import java.lang.classfile.ClassFile;
 import java.lang.classfile.ClassModel;
 import java.nio.ByteBuffer;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -80,6 +90,180 @@ public class EntityGeneratorTest {
         assertEquals(0, controller.eventQueue.size());
     }
 
+    @Test
+    public void mayBlock() throws Exception {
+        var transform = new SimulationTransform(Path.of("target/test-classes"));
+        final var name = "testClasses.InlineCandidate";
+        var bytes = transform.generatorOf(name).generate();
+        var loader = new ClassLoader(getClass().getClassLoader()) {
+            {
+                {
+                    defineClass(name, ByteBuffer.wrap(bytes), null);
+                }
+            }
+        };
+        var entity = (EntityReference) loader.loadClass(name).getConstructor().newInstance();
+
+        Map<String, Boolean> mayBlock = new HashMap<>();
+        for (int ordinal = 0; ordinal < 7; ordinal++) {
+            var signature = entity.__signatureFor(ordinal);
+            var methodName = signature.substring(0, signature.indexOf('('));
+            mayBlock.put(methodName.substring(methodName.lastIndexOf(' ') + 1), entity.__mayBlock(ordinal));
+        }
+
+        assertFalse(mayBlock.get("compute"), "sleep and posting events cannot park");
+        assertFalse(mayBlock.get("describe"), "string building cannot park");
+        assertTrue(mayBlock.get("pause"), "blockingSleep parks");
+        assertTrue(mayBlock.get("viaCallback"), "a consumer called back by the platform parks");
+        assertTrue(mayBlock.get("viaHelper"), "a helper's blockingSleep parks");
+        assertTrue(mayBlock.get("viaLambda"), "a lambda's blockingSleep parks");
+        assertTrue(mayBlock.get("callsDescribe"), "calling a blocking event parks");
+        assertTrue(entity.__mayBlock(7), "unknown ordinals may park");
+        transform.close();
+    }
+
+    @Test
+    public void blockingReach() throws Exception {
+        var transform = new SimulationTransform(Path.of("target/test-classes"));
+        final var name = "testClasses.Reachability";
+        var generator = transform.generatorOf(name);
+        var bytes = generator.generate();
+        var loader = new ClassLoader(getClass().getClassLoader()) {
+            {
+                {
+                    defineClass(name, ByteBuffer.wrap(bytes), null);
+                }
+            }
+        };
+        var clazz = loader.loadClass(name);
+        var entity = (EntityReference) clazz.getConstructor().newInstance();
+
+        Map<String, BlockingReach> reach = new HashMap<>();
+        for (int ordinal = 0; ordinal < 8; ordinal++) {
+            var signature = entity.__signatureFor(ordinal);
+            var methodName = signature.substring(0, signature.indexOf('('));
+            var event = methodName.substring(methodName.lastIndexOf(' ') + 1);
+            reach.put(event, BlockingReach.of(clazz, ordinal));
+            assertEquals(reach.get(event).mayBlock(), entity.__mayBlock(ordinal), event);
+        }
+
+        assertEquals(BlockingReach.MAY, reach.get("ask"), "calling a blocking event of another entity blocks");
+        assertEquals(BlockingReach.UNKNOWN, reach.get("callback"), "an unimplemented interface is unknown");
+        assertEquals(BlockingReach.MAY, reach.get("each"), "the platform calls back a scanned napper");
+        assertEquals(BlockingReach.MAY, reach.get("nap"), "blockingSleep through another class blocks");
+        assertEquals(BlockingReach.MAY, reach.get("perform"), "a platform interface dispatches to a scanned napper");
+        assertEquals(BlockingReach.NEVER, reach.get("pure"), "arithmetic in another class cannot block");
+        assertEquals(BlockingReach.MAY, reach.get("receive"), "taking from a channel blocks");
+        assertEquals(BlockingReach.NEVER, reach.get("tell"), "posting an event of another entity cannot block");
+        assertNull(BlockingReach.of(clazz, 8));
+        generator.getBlockingReach().forEach((event, r) -> assertEquals(reach.get(event.getName()), r));
+        transform.close();
+    }
+
+    @Test
+    public void typedEvents() throws Exception {
+        var transform = new SimulationTransform(Path.of("target/test-classes"));
+        final var name = "testClasses.Primitives";
+        var bytes = transform.generatorOf(name).generate();
+        var loader = new ClassLoader(getClass().getClassLoader()) {
+            {
+                {
+                    defineClass(name, ByteBuffer.wrap(bytes), null);
+                }
+            }
+        };
+        var clazz = loader.loadClass(name);
+        var entity = clazz.getConstructor().newInstance();
+        assertTrue(entity instanceof TypedEntityReference);
+        final var controller = new ControllerImpl();
+        Kairos.setController(controller);
+
+        Map<String, List<Object>> expected = new HashMap<>();
+        expected.put("ints", Arrays.asList(Integer.MIN_VALUE, -1));
+        expected.put("longs", Arrays.asList(Long.MIN_VALUE, 0x1234_5678_9ABC_DEF0L));
+        expected.put("floats", Arrays.asList(-0.0f, Float.NaN));
+        expected.put("doubles", Arrays.asList(Double.MIN_VALUE, -Double.MAX_VALUE));
+        expected.put("mixed", Arrays.asList(7, "seven", -7L, Math.PI, null, Float.MAX_VALUE));
+        expected.put("many", Arrays.asList(true, (byte) -128, '\uFFFF', (short) -2, 42));
+        expected.put("wide", Arrays.asList(-1, Long.MAX_VALUE, 1.5f, -Double.MIN_VALUE, Long.MIN_VALUE));
+        for (var method : clazz.getDeclaredMethods()) {
+            if (expected.containsKey(method.getName())) {
+                method.invoke(entity, expected.get(method.getName()).toArray());
+            }
+        }
+
+        assertEquals(expected.size(), controller.eventQueue.size());
+        for (var event : controller.eventQueue) {
+            var signature = event.getSignature();
+            var methodName = signature.substring(0, signature.indexOf('('));
+            var eventName = methodName.substring(methodName.lastIndexOf(' ') + 1);
+            var arguments = expected.get(eventName);
+            if (eventName.equals("many") || eventName.equals("wide")) {
+                assertFalse(event instanceof TypedEvent, "more primitives than slots are boxed");
+            } else {
+                assertEquals(arguments, Arrays.asList(assertInstanceOf(TypedEvent.class, event).getArguments()),
+                             signature);
+            }
+        }
+
+        while (controller.send())
+            ;
+        var received = (List<?>) clazz.getField("received").get(entity);
+        assertEquals(expected.size(), received.size());
+        assertTrue(received.containsAll(expected.values()), "each event must receive its arguments");
+        transform.close();
+    }
+
+    @Test
+    public void stackless() throws Exception {
+        var parked = simulateStackless(false);
+        var suspended = simulateStackless(true);
+        assertEquals(List.of("served 0 @ 2", "served 7 @ 2", "parked @ 2", "depth 1 over 0 @ 3", "depth 2 over 1 @ 3",
+                             "depth 3 over 2 @ 3", "climbed 3 @ 3", "run 0 0 @ 5", "served 1 @ 7", "run 1 10 @ 10",
+                             "served 2 @ 12", "run 2 20 @ 15", "served 3 @ 17", "unparsable after 30, 4.0, 4.5 @ 17"),
+                     suspended);
+        assertEquals(parked, suspended, "the state machines must compute as the parked events");
+    }
+
+    private List<?> simulateStackless(boolean stackless) throws Exception {
+        var transform = new SimulationTransform(Path.of("target/test-classes"));
+        transform.setStackless(stackless);
+        final var name = "testClasses.Stackless";
+        var bytes = transform.generatorOf(name).generate();
+        var loader = new ClassLoader(getClass().getClassLoader()) {
+            {
+                {
+                    defineClass(name, ByteBuffer.wrap(bytes), null);
+                }
+            }
+        };
+        var clazz = loader.loadClass(name);
+        var entity = (EntityReference) clazz.getConstructor().newInstance();
+        assertEquals(stackless, entity instanceof StacklessEntityReference);
+
+        Map<String, Boolean> mayBlock = new HashMap<>();
+        for (int ordinal = 0; ordinal < 5; ordinal++) {
+            var signature = entity.__signatureFor(ordinal);
+            var methodName = signature.substring(0, signature.indexOf('('));
+            mayBlock.put(methodName.substring(methodName.lastIndexOf(' ') + 1), entity.__mayBlock(ordinal));
+        }
+        assertEquals(!stackless, mayBlock.get("climb"), "the state machine suspends rather than parks");
+        assertEquals(!stackless, mayBlock.get("depth"), "the state machine suspends rather than parks");
+        assertEquals(!stackless, mayBlock.get("run"), "the state machine suspends rather than parks");
+        assertEquals(!stackless, mayBlock.get("serve"), "the state machine suspends rather than parks");
+        assertTrue(mayBlock.get("parked"), "a call above values on the stack cannot suspend");
+
+        var controller = new SimulationController();
+        Kairos.setController(controller);
+        controller.setCurrentTime(0);
+        clazz.getMethod("run", int.class).invoke(entity, 3);
+        clazz.getMethod("parked", int.class).invoke(entity, 7);
+        clazz.getMethod("climb", int.class).invoke(entity, 3);
+        controller.eventLoop();
+        transform.close();
+        return (List<?>) clazz.getField("history").get(entity);
+    }
+
     @Test
     public void template() throws Exception {
         final var name = "com.hellblazer.primeMover.classfile.testClasses.Template";
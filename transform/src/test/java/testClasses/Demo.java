@@ -40,7 +40,7 @@ public class Demo {
         controller.eventLoop();
         controller.close();
         System.out.println("Event spectrum:");
-        for (Map.Entry<String, Integer> spectrumEntry : controller.getSpectrum().entrySet()) {
+        for (Map.Entry<String, Long> spectrumEntry : controller.getSpectrum().entrySet()) {
             System.out.println("\t" + spectrumEntry.getValue() + "\t\t : " + spectrumEntry.getKey());
         }
     }
@@ -54,7 +54,7 @@ public class Demo {
         controller.eventLoop();
         controller.close();
         System.out.println("Event spectrum:");
-        for (Map.Entry<String, Integer> spectrumEntry : controller.getSpectrum().entrySet()) {
+        for (Map.Entry<String, Long> spectrumEntry : controller.getSpectrum().entrySet()) {
             System.out.println("\t" + spectrumEntry.getValue() + "\t\t : " + spectrumEntry.getKey());
         }
     }
@@ -72,7 +72,7 @@ public class Demo {
         controller.eventLoop();
         controller.close();
         System.out.println("Event spectrum:");
-        for (Map.Entry<String, Integer> spectrumEntry : controller.getSpectrum().entrySet()) {
+        for (Map.Entry<String, Long> spectrumEntry : controller.getSpectrum().entrySet()) {
             System.out.println("\t" + spectrumEntry.getValue() + "\t\t : " + spectrumEntry.getKey());
         }
     }
@@ -119,7 +119,7 @@ public class Demo {
         controller.eventLoop();
         controller.close();
         System.out.println("Event spectrum:");
-        for (Map.Entry<String, Integer> spectrumEntry : controller.getSpectrum().entrySet()) {
+        for (Map.Entry<String, Long> spectrumEntry : controller.getSpectrum().entrySet()) {
             System.out.println("\t" + spectrumEntry.getValue() + "\t\t : " + spectrumEntry.getKey());
         }
     }
@@ -0,0 +1,82 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package testClasses;
+
+import com.hellblazer.primeMover.annotations.Entity;
+import com.hellblazer.primeMover.api.Kronos;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Events that can and cannot park their thread, for the transform's blocking
+ * analysis.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+@Entity
+public class InlineCandidate {
+    private int total;
+
+    public void callsDescribe() {
+        System.out.println(describe());
+    }
+
+    public void compute(int n) {
+        total += n;
+        Kronos.sleep(1);
+        if (n > 0) {
+            compute(n - 1);
+        }
+    }
+
+    public String describe() {
+        return "total: " + total + " @ " + Kronos.currentTime();
+    }
+
+    public void pause() {
+        Kronos.blockingSleep(10);
+    }
+
+    public void viaCallback(List<Integer> naps) {
+        naps.forEach(new Napper());
+    }
+
+    public void viaHelper() {
+        rest();
+    }
+
+    public void viaLambda() {
+        Runnable r = () -> Kronos.blockingSleep(1);
+        r.run();
+    }
+
+    private void rest() {
+        Kronos.blockingSleep(5);
+    }
+
+    /**
+     * Naps for each duration handed to it, called back by the platform
+     */
+    public static class Napper implements Consumer<Integer> {
+        @Override
+        public void accept(Integer duration) {
+            Kronos.blockingSleep(duration);
+        }
+    }
+}
@@ -66,12 +66,12 @@ class MockController extends Devi {
     }
 
     @Override
-    public int getTotalEvents() {
+    public long getTotalEvents() {
         return 0;
     }
 
     @Override
-    public java.util.Map<String, Integer> getSpectrum() {
+    public java.util.Map<String, Long> getSpectrum() {
         return java.util.Map.of();
     }
 
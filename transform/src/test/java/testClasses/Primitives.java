@@ -0,0 +1,62 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package testClasses;
+
+import com.hellblazer.primeMover.annotations.Entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Events with primitive parameters of every width, for the transform's typed
+ * events.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+@Entity
+public class Primitives {
+    public final List<List<Object>> received = new ArrayList<>();
+
+    public void doubles(double a, double b) {
+        received.add(Arrays.asList(a, b));
+    }
+
+    public void floats(float a, float b) {
+        received.add(Arrays.asList(a, b));
+    }
+
+    public void ints(int a, int b) {
+        received.add(Arrays.asList(a, b));
+    }
+
+    public void longs(long a, long b) {
+        received.add(Arrays.asList(a, b));
+    }
+
+    public void many(boolean z, byte b, char c, short s, int i) {
+        received.add(Arrays.asList(z, b, c, s, i));
+    }
+
+    public void mixed(int a, String s, long b, double c, Object o, float d) {
+        received.add(Arrays.asList(a, s, b, c, o, d));
+    }
+
+    public void wide(int i, long j, float f, double d, long k) {
+        received.add(Arrays.asList(i, j, f, d, k));
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package testClasses;
+
+import com.hellblazer.primeMover.api.Kronos;
+
+import java.util.function.Consumer;
+
+/**
+ * Methods of a class that is not an entity, called by the events of
+ * {@link Reachability}.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+public class ReachHelper {
+
+    /**
+     * A callback that no scanned class implements
+     */
+    public interface Step {
+        void next();
+    }
+
+    /**
+     * A platform callback that naps
+     */
+    public static class Napper implements Runnable {
+        @Override
+        public void run() {
+            nap();
+        }
+    }
+
+    /**
+     * A consumer that naps, handed to the platform to call back
+     */
+    public static class Sink implements Consumer<String> {
+        @Override
+        public void accept(String line) {
+            nap();
+        }
+    }
+
+    public static void nap() {
+        Kronos.blockingSleep(1);
+    }
+
+    public static int square(int n) {
+        return n == 0 ? 0 : n * n + square(0);
+    }
+}
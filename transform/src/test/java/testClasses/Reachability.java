@@ -0,0 +1,66 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package testClasses;
+
+import com.hellblazer.primeMover.annotations.Entity;
+import com.hellblazer.primeMover.api.SynchronousQueue;
+
+import java.util.function.Consumer;
+
+/**
+ * Events reaching blocking calls through other classes, for the transform's
+ * blocking analysis.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+@Entity
+public class Reachability {
+    private int total;
+
+    public void ask(InlineCandidate other) {
+        System.out.println(other.describe());
+    }
+
+    public void callback(ReachHelper.Step step) {
+        step.next();
+    }
+
+    public void each(Iterable<String> lines, Consumer<String> sink) {
+        lines.forEach(sink);
+    }
+
+    public void nap() {
+        ReachHelper.nap();
+    }
+
+    public void pure(int n) {
+        total += ReachHelper.square(n);
+    }
+
+    public void perform(Runnable task) {
+        task.run();
+    }
+
+    public void receive(SynchronousQueue<String> channel) {
+        System.out.println(channel.take());
+    }
+
+    public void tell(InlineCandidate other) {
+        other.pause();
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2008 Hal Hildebrand. All rights reserved.
+ *
+ * This file is part of the Prime Mover Event Driven Simulation Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package testClasses;
+
+import com.hellblazer.primeMover.annotations.Entity;
+import com.hellblazer.primeMover.api.Kronos;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Events whose blocking calls can and cannot suspend, for the transform's
+ * stackless mode.
+ *
+ * @author <a href="mailto:hal.hildebrand@gmail.com">Hal Hildebrand</a>
+ */
+@Entity
+public class Stackless {
+    public final List<String> history = new ArrayList<>();
+
+    public void climb(int levels) {
+        int reached = depth(levels);
+        history.add("climbed " + reached + " @ " + Kronos.currentTime());
+    }
+
+    public int depth(int levels) {
+        if (levels == 0) {
+            return 0;
+        }
+        Kronos.blockingSleep(1);
+        int below = depth(levels - 1);
+        history.add("depth " + levels + " over " + below + " @ " + Kronos.currentTime());
+        return below + 1;
+    }
+
+    /**
+     * Not a suspension point, as the array and index are on the stack beneath
+     * the call
+     */
+    public void parked(int id) {
+        var tickets = new int[1];
+        tickets[0] = serve(id);
+        history.add("parked @ " + Kronos.currentTime());
+    }
+
+    public void run(int customers) {
+        long served = 0;
+        double wait = 0.5;
+        float rate = 1.5f;
+        String label = "run";
+        for (int i = 0; i < customers; i++) {
+            int ticket = serve(i);
+            served += ticket;
+            wait *= 2;
+            rate += i;
+            Kronos.blockingSleep(3);
+            history.add(label + " " + i + " " + ticket + " @ " + Kronos.currentTime());
+        }
+        // The totals are live across the call only through the handler
+        try {
+            int last = serve(customers);
+            history.add("last " + Integer.parseInt(label + last));
+        } catch (NumberFormatException e) {
+            history.add("unparsable after " + served + ", " + wait + ", " + rate + " @ " + Kronos.currentTime());
+        }
+    }
+
+    public int serve(int id) {
+        Kronos.blockingSleep(2);
+        history.add("served " + id + " @ " + Kronos.currentTime());
+        return id * 10;
+    }
+}